@@ -0,0 +1,7 @@
+-- [한 번만 실행] user_connection_edge 도입 전의 관계를 인접 리스트로 옮긴다. (양방향 두 행씩)
+-- user_connection 전체를 읽으므로 schema.sql(기동할 때마다 실행)에 두지 않고, user_connection_edge를 쓰는 버전을 배포하기 전에 한 번 실행한다.
+-- 이미 있는 행은 건너뛰므로 중간에 끊겨도 다시 실행하면 된다.
+INSERT IGNORE INTO user_connection_edge (user_id, partner_user_id, status, inviter_user_id, created_at, updated_at)
+SELECT partner_a_user_id, partner_b_user_id, status, inviter_user_id, created_at, updated_at FROM user_connection
+UNION ALL
+SELECT partner_b_user_id, partner_a_user_id, status, inviter_user_id, created_at, updated_at FROM user_connection;
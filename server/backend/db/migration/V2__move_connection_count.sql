@@ -0,0 +1,7 @@
+-- [한 번만 실행] 연결 수를 message_user.connection_count에서 user_connection_count 테이블로 옮기고 옛 컬럼을 지운다.
+-- message_user 전체를 읽으므로 schema.sql(기동할 때마다 실행)에 두지 않는다.
+-- 순서: user_connection_count를 쓰는 버전을 배포하기 전에 실행한다. (새 버전은 message_user.connection_count를 넣지도 읽지도 않는다)
+-- 이미 옮긴 사용자는 건너뛰므로 INSERT는 다시 실행해도 된다.
+INSERT IGNORE INTO user_connection_count (user_id, connection_count) SELECT user_id, connection_count FROM message_user;
+
+ALTER TABLE message_user DROP COLUMN connection_count;
@@ -0,0 +1,152 @@
+package com.chatting.backend.archive;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.StoredMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 오래된 메시지 보관소 (로컬 디스크의 세그먼트 파일, MessageSegment)
+ *
+ * - 채널마다 디렉터리 하나: {directory}/{channelId}/{첫 sequence}-{마지막 sequence}.seg
+ * - 세그먼트는 추가만 하고 고치지 않는다. 임시 파일에 쓰고 fsync한 뒤 rename(ATOMIC_MOVE)하므로 반쯤 쓴 세그먼트는 보이지 않는다.
+ *   임시 파일 이름은 쓸 때마다 달라서({세그먼트 이름}.{uuid}.tmp) 다른 노드가 쓰고 있는 임시 파일을 건드리지 않는다.
+ * - 조회할 때마다 채널 디렉터리 목록을 읽는다. (다른 노드의 MessageArchiver가 추가한 세그먼트도 바로 보인다)
+ *   조회는 MySQL에서 한 페이지를 다 채우지 못했을 때만 오므로 자주 불리지 않는다.
+ * - 연 세그먼트(mmap)는 max-open-segments개까지 LRU로 들고 있는다.
+ *
+ * 여러 노드로 띄울 때는 directory가 모든 노드에서 같은 곳(공유 볼륨)이어야 한다.
+ */
+@Slf4j
+@Component
+public class MessageArchive {
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path directory;
+    private final int blockBytes;
+
+    //access-order LinkedHashMap = LRU. 조회(get)도 순서를 바꾸므로 모든 접근을 synchronized로 감싼다.
+    private final Map<Path, MessageSegment> openSegments;
+
+    @Autowired
+    public MessageArchive(
+            @Value("${message.archive.directory:./data/message-archive}") String directory,
+            @Value("${message.archive.block-bytes:16384}") int blockBytes,
+            @Value("${message.archive.max-open-segments:256}") int maxOpenSegments) {
+        this(Path.of(directory), blockBytes, maxOpenSegments);
+    }
+
+    MessageArchive(Path directory, int blockBytes, int maxOpenSegments) {
+        if (blockBytes <= 0 || maxOpenSegments <= 0) {
+            throw new IllegalArgumentException("Invalid message archive settings.");
+        }
+        this.directory = directory;
+        this.blockBytes = blockBytes;
+        this.openSegments = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, MessageSegment> eldest) {
+                return size() > maxOpenSegments;
+            }
+        };
+    }
+
+    /**
+     * 세그먼트 하나를 추가한다.
+     * @param messages 같은 채널의 메시지 (sequence 오름차순, 이미 보관한 마지막 sequence보다 뒤)
+     */
+    public void write(ChannelId channelId, List<StoredMessage> messages) throws IOException {
+        Path channelDirectory = channelDirectory(channelId);
+        Files.createDirectories(channelDirectory);
+        String name = MessageSegment.fileName(messages.get(0).messageSequence(), messages.get(messages.size() - 1).messageSequence());
+        //쓰다 멈춘 임시 파일이 남아도 조회는 .seg만 읽으므로 보이지 않는다.
+        Path temp = channelDirectory.resolve(name + "." + UUID.randomUUID() + TEMP_EXTENSION);
+        try {
+            MessageSegment.write(temp, channelId, messages, blockBytes);
+            Files.move(temp, channelDirectory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    //채널에서 보관한 가장 큰 sequence (없으면 0)
+    public long lastArchivedSequence(ChannelId channelId) {
+        return segmentRanges(channelId).stream().mapToLong(range -> range[1]).max().orElse(0);
+    }
+
+    //beforeSequence보다 앞선 메시지를 최신순으로 limit개
+    public List<StoredMessage> findByChannelId(ChannelId channelId, long beforeSequence, int limit) {
+        List<StoredMessage> messages = new ArrayList<>();
+        List<long[]> ranges = segmentRanges(channelId);
+        ranges.sort(Comparator.comparingLong((long[] range) -> range[1]).reversed());
+        for (long[] range : ranges) {
+            if (messages.size() >= limit) {
+                break;
+            }
+            if (range[0] >= beforeSequence) {
+                continue;
+            }
+            segment(channelDirectory(channelId).resolve(MessageSegment.fileName(range[0], range[1])))
+                    .read(beforeSequence, limit, messages);
+        }
+        return messages;
+    }
+
+    private Path channelDirectory(ChannelId channelId) {
+        return directory.resolve(Long.toString(channelId.id()));
+    }
+
+    //채널 세그먼트들의 [첫 sequence, 마지막 sequence] (파일 이름에서 읽는다)
+    private List<long[]> segmentRanges(ChannelId channelId) {
+        List<long[]> ranges = new ArrayList<>();
+        try (Stream<Path> files = Files.list(channelDirectory(channelId))) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(MessageSegment.EXTENSION))
+                    .forEach(name -> {
+                        String[] bounds = name.substring(0, name.length() - MessageSegment.EXTENSION.length()).split("-");
+                        ranges.add(new long[]{Long.parseLong(bounds[0]), Long.parseLong(bounds[1])});
+                    });
+        } catch (NoSuchFileException ex) {
+            return ranges;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return ranges;
+    }
+
+    private MessageSegment segment(Path path) {
+        synchronized (openSegments) {
+            MessageSegment segment = openSegments.get(path);
+            if (segment != null) {
+                return segment;
+            }
+        }
+        //여러 스레드가 같은 파일을 동시에 열 수 있지만 세그먼트는 불변이라 어느 쪽을 써도 같다.
+        MessageSegment segment;
+        try {
+            segment = MessageSegment.open(path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        synchronized (openSegments) {
+            openSegments.put(path, segment);
+        }
+        return segment;
+    }
+}
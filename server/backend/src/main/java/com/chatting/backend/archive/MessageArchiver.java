@@ -0,0 +1,209 @@
+package com.chatting.backend.archive;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.StoredMessage;
+import com.chatting.backend.id.SnowflakeIdGenerator;
+import com.chatting.backend.shard.ShardedMessageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * archive-after보다 오래된 메시지를 MySQL(channel_message)에서 보관소(MessageArchive)로 옮긴다.
+ *
+ * 샤드마다 채널마다
+ * 1) cutoff(archive-after 전 시각의 첫 snowflake id)보다 작은 메시지를 오래된 순으로 segment-max-messages개까지 읽고
+ * 2) 이미 보관한 마지막 sequence보다 뒤인 것만 세그먼트로 쓴 다음 (fsync + rename)
+ * 3) 읽은 마지막 sequence까지 MySQL에서 지운다.
+ * 세그먼트를 먼저 쓰고 지우므로 중간에 멈춰도 메시지가 사라지지 않고, 다시 돌면 이미 보관한 부분은 쓰지 않고 지우기만 한다.
+ * 조회는 MySQL → 보관소 순서로 이어 읽으므로 옮기는 도중에도 빠지거나 겹치는 메시지가 없다.
+ *
+ * - 샤드 재배치 중에는 건너뛴다. (다음 주기에 한다)
+ * - 기본은 꺼져 있다(enabled=false). 켜려면 보관소 디렉터리가 모든 노드에서 같은 곳(공유 볼륨)이어야 한다.
+ *   노드 로컬 디렉터리로 옮기면 다른 노드에 붙은 클라이언트는 옮긴 기록을 읽지 못한다.
+ * - 여러 노드에서 켜도 한 번에 한 노드만 돈다: 돌기 전에 Redis lease(message:archive:lease, SET NX + TTL)를 잡고,
+ *   채널마다 토큰이 그대로인지 확인하면서 TTL을 늘린다. 다른 노드가 가져갔으면(갱신 실패) 그 자리에서 멈춘다.
+ */
+@Slf4j
+@Component
+public class MessageArchiver {
+
+    private static final String LEASE_KEY = "message:archive:lease";
+
+    //KEYS[1]=lease key / ARGV: 토큰, TTL(ms)
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    //KEYS[1]=lease key / ARGV: 토큰
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    private final ShardedMessageStore shardedMessageStore;
+    private final MessageArchive messageArchive;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final long leaseTtlMillis;
+    private final long archiveAfterMillis;
+    private final int segmentMaxMessages;
+    private final int pageSize;
+    private final LongSupplier clock;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final String token = UUID.randomUUID().toString();
+
+    @Autowired
+    public MessageArchiver(
+            ShardedMessageStore shardedMessageStore,
+            MessageArchive messageArchive,
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${message.archive.enabled:false}") boolean enabled,
+            @Value("${message.archive.lease-ttl:5m}") Duration leaseTtl,
+            @Value("${message.archive.archive-after:30d}") Duration archiveAfter,
+            @Value("${message.archive.segment-max-messages:20000}") int segmentMaxMessages,
+            @Value("${message.archive.page-size:1000}") int pageSize) {
+        this(shardedMessageStore, messageArchive, stringRedisTemplate, enabled, leaseTtl.toMillis(), archiveAfter.toMillis(),
+                segmentMaxMessages, pageSize, System::currentTimeMillis);
+    }
+
+    MessageArchiver(ShardedMessageStore shardedMessageStore, MessageArchive messageArchive, StringRedisTemplate stringRedisTemplate,
+                    boolean enabled, long leaseTtlMillis, long archiveAfterMillis, int segmentMaxMessages, int pageSize, LongSupplier clock) {
+        if (leaseTtlMillis <= 0 || archiveAfterMillis <= 0 || segmentMaxMessages <= 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid message archive settings.");
+        }
+        this.shardedMessageStore = shardedMessageStore;
+        this.messageArchive = messageArchive;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.leaseTtlMillis = leaseTtlMillis;
+        this.archiveAfterMillis = archiveAfterMillis;
+        this.segmentMaxMessages = segmentMaxMessages;
+        this.pageSize = pageSize;
+        this.clock = clock;
+    }
+
+    @Scheduled(initialDelayString = "${message.archive.interval:6h}", fixedDelayString = "${message.archive.interval:6h}")
+    public void archive() {
+        if (!enabled || shardedMessageStore.isRebalancing() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        if (!acquireLease()) {
+            running.set(false);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long cutoff = SnowflakeIdGenerator.firstIdAt(clock.getAsLong() - archiveAfterMillis);
+        long archived = 0;
+        try {
+            for (String shard : shardedMessageStore.getShardNames()) {
+                long cursor = Long.MIN_VALUE;
+                List<Long> channelIds;
+                do {
+                    channelIds = shardedMessageStore.findChannelIds(shard, cursor, pageSize);
+                    for (long channelId : channelIds) {
+                        if (!renewLease()) {
+                            log.warn("Message archive lease lost. Stopping. archived: {}", archived);
+                            return;
+                        }
+                        archived += archiveChannel(shard, new ChannelId(channelId), cutoff);
+                    }
+                    if (!channelIds.isEmpty()) {
+                        cursor = channelIds.get(channelIds.size() - 1);
+                    }
+                } while (channelIds.size() == pageSize);
+            }
+            log.info("Message archive finished. archived: {}, elapsed: {}ms", archived, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (Exception ex) {
+            log.error("Message archive failed. archived: {}, cause: {}", archived, ex.getMessage());
+        } finally {
+            releaseLease();
+            running.set(false);
+        }
+    }
+
+    //다른 노드가 돌고 있으면(lease가 있으면) false
+    private boolean acquireLease() {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(LEASE_KEY, token, leaseTtlMillis, TimeUnit.MILLISECONDS));
+        } catch (Exception ex) {
+            log.error("Message archive lease failed. cause: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private boolean renewLease() {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(LEASE_KEY), token, String.valueOf(leaseTtlMillis));
+            return renewed != null && renewed == 1;
+        } catch (Exception ex) {
+            log.error("Message archive lease renew failed. cause: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY), token);
+        } catch (Exception ex) {
+            //TTL이 지나면 풀린다.
+            log.error("Message archive lease release failed. cause: {}", ex.getMessage());
+        }
+    }
+
+    //채널 하나의 cutoff 이전 메시지를 세그먼트(segment-max-messages개씩)로 옮기고 옮긴 수를 돌려준다.
+    private long archiveChannel(String shard, ChannelId channelId, long cutoff) throws IOException {
+        long lastArchived = messageArchive.lastArchivedSequence(channelId);
+        long after = Long.MIN_VALUE;
+        long archived = 0;
+        while (true) {
+            List<StoredMessage> batch = new ArrayList<>();
+            List<StoredMessage> page;
+            do {
+                page = shardedMessageStore.findOlderThan(shard, channelId, after, cutoff, Math.min(pageSize, segmentMaxMessages - batch.size()));
+                batch.addAll(page);
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).messageSequence();
+                }
+            } while (!page.isEmpty() && batch.size() < segmentMaxMessages);
+            if (batch.isEmpty()) {
+                return archived;
+            }
+
+            //지난번에 세그먼트만 쓰고 지우지 못한 메시지는 다시 쓰지 않는다.
+            long boundary = lastArchived;
+            List<StoredMessage> pending = batch.stream().filter(message -> message.messageSequence() > boundary).toList();
+            if (!pending.isEmpty()) {
+                messageArchive.write(channelId, pending);
+                lastArchived = pending.get(pending.size() - 1).messageSequence();
+                archived += pending.size();
+            }
+            shardedMessageStore.deleteUpTo(shard, channelId, after);
+
+            if (batch.size() < segmentMaxMessages) {
+                return archived;
+            }
+        }
+    }
+}
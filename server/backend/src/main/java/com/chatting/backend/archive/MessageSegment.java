@@ -0,0 +1,292 @@
+package com.chatting.backend.archive;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.StoredMessage;
+import com.chatting.backend.dto.domain.UserId;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 채널 하나의 한 시간 구간 메시지를 담는 보관(cold) 세그먼트 파일 (쓰고 나면 바뀌지 않는다)
+ *
+ * 파일 구조
+ * - block * N  : 메시지 레코드를 block-size만큼 모아 Deflate로 압축한 것 (sequence 오름차순)
+ *                레코드 = [sequence 8][userId 8][content 길이 4][content UTF-8]
+ * - index      : block마다 [첫 sequence 8][offset 8][압축 크기 4][원래 크기 4][레코드 수 4] (sparse index: 메시지마다가 아니라 block마다 하나)
+ * - footer     : [channelId 8][첫 sequence 8][마지막 sequence 8][메시지 수 4][block 수 4][index offset 8][version 4][magic 4]
+ *
+ * 읽기는 파일 전체를 memory-mapped(READ_ONLY)로 열고, index를 이진 탐색해서 필요한 block만 풀어서 읽는다.
+ * (힙으로 파일을 읽어 들이지 않고, 자주 읽는 block은 OS page cache에 남는다)
+ */
+public final class MessageSegment {
+
+    public static final String EXTENSION = ".seg";
+
+    private static final int MAGIC = 0x4D534753;    //"MSGS"
+    private static final int VERSION = 1;
+    private static final int INDEX_ENTRY_BYTES = 28;
+    private static final int FOOTER_BYTES = 48;
+    private static final int RECORD_HEADER_BYTES = 20;
+
+    private final ChannelId channelId;
+    private final long firstSequence;
+    private final long lastSequence;
+    private final int messageCount;
+    private final MappedByteBuffer buffer;
+    private final long[] blockFirstSequences;
+    private final long[] blockOffsets;
+    private final int[] blockCompressedSizes;
+    private final int[] blockSizes;
+    private final int[] blockCounts;
+
+    private MessageSegment(ChannelId channelId, long firstSequence, long lastSequence, int messageCount, MappedByteBuffer buffer,
+                           long[] blockFirstSequences, long[] blockOffsets, int[] blockCompressedSizes, int[] blockSizes, int[] blockCounts) {
+        this.channelId = channelId;
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+        this.messageCount = messageCount;
+        this.buffer = buffer;
+        this.blockFirstSequences = blockFirstSequences;
+        this.blockOffsets = blockOffsets;
+        this.blockCompressedSizes = blockCompressedSizes;
+        this.blockSizes = blockSizes;
+        this.blockCounts = blockCounts;
+    }
+
+    //파일 이름: {첫 sequence}-{마지막 sequence}.seg (디렉터리 목록만으로 구간을 알 수 있게)
+    public static String fileName(long firstSequence, long lastSequence) {
+        return firstSequence + "-" + lastSequence + EXTENSION;
+    }
+
+    /**
+     * 세그먼트 파일 쓰기
+     * @param messages 같은 채널의 메시지 (sequence 오름차순, 1개 이상)
+     */
+    public static void write(Path path, ChannelId channelId, List<StoredMessage> messages, int blockBytes) throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("Empty segment.");
+        }
+        int blocks = 0;
+        long[] firstSequences = new long[16];
+        long[] offsets = new long[16];
+        int[] compressedSizes = new int[16];
+        int[] sizes = new int[16];
+        int[] counts = new int[16];
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer block = ByteBuffer.allocate(blockBytes + RECORD_HEADER_BYTES + 4 * 1000).order(ByteOrder.LITTLE_ENDIAN);
+            byte[] compressed = new byte[block.capacity() + 1024];
+            long offset = 0;
+            long previous = Long.MIN_VALUE;
+            int start = 0;
+
+            for (int i = 0; i < messages.size(); i++) {
+                StoredMessage message = messages.get(i);
+                if (message.messageSequence() <= previous || !message.channelId().equals(channelId)) {
+                    throw new IllegalArgumentException("Messages must be ascending and of one channel.");
+                }
+                previous = message.messageSequence();
+                byte[] content = message.content().getBytes(StandardCharsets.UTF_8);
+                if (block.position() > 0 && block.position() + RECORD_HEADER_BYTES + content.length > block.capacity()) {
+                    throw new IllegalStateException("Block overflow.");
+                }
+                block.putLong(message.messageSequence()).putLong(message.userId().id()).putInt(content.length).put(content);
+
+                boolean last = i == messages.size() - 1;
+                if (block.position() >= blockBytes || last) {
+                    if (blocks == firstSequences.length) {
+                        firstSequences = Arrays.copyOf(firstSequences, blocks * 2);
+                        offsets = Arrays.copyOf(offsets, blocks * 2);
+                        compressedSizes = Arrays.copyOf(compressedSizes, blocks * 2);
+                        sizes = Arrays.copyOf(sizes, blocks * 2);
+                        counts = Arrays.copyOf(counts, blocks * 2);
+                    }
+                    deflater.reset();
+                    deflater.setInput(block.array(), 0, block.position());
+                    deflater.finish();
+                    int compressedSize = deflater.deflate(compressed);
+                    if (!deflater.finished()) {
+                        throw new IllegalStateException("Compressed block overflow.");
+                    }
+
+                    firstSequences[blocks] = messages.get(start).messageSequence();
+                    offsets[blocks] = offset;
+                    compressedSizes[blocks] = compressedSize;
+                    sizes[blocks] = block.position();
+                    counts[blocks] = i - start + 1;
+                    blocks++;
+
+                    offset += writeFully(channel, ByteBuffer.wrap(compressed, 0, compressedSize));
+                    block.clear();
+                    start = i + 1;
+                }
+            }
+
+            ByteBuffer tail = ByteBuffer.allocate(blocks * INDEX_ENTRY_BYTES + FOOTER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < blocks; i++) {
+                tail.putLong(firstSequences[i]).putLong(offsets[i]).putInt(compressedSizes[i]).putInt(sizes[i]).putInt(counts[i]);
+            }
+            tail.putLong(channelId.id())
+                    .putLong(messages.get(0).messageSequence())
+                    .putLong(messages.get(messages.size() - 1).messageSequence())
+                    .putInt(messages.size())
+                    .putInt(blocks)
+                    .putLong(offset)
+                    .putInt(VERSION)
+                    .putInt(MAGIC);
+            tail.flip();
+            writeFully(channel, tail);
+            //rename 전에 디스크에 내려 둔다. (MySQL에서 지운 뒤 파일이 비어 있으면 안 되므로)
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static MessageSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES) {
+                throw new IOException("Invalid segment: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+            int footer = (int) (size - FOOTER_BYTES);
+            if (view.getInt(footer + 44) != MAGIC || view.getInt(footer + 40) != VERSION) {
+                throw new IOException("Invalid segment: " + path);
+            }
+            ChannelId channelId = new ChannelId(view.getLong(footer));
+            long firstSequence = view.getLong(footer + 8);
+            long lastSequence = view.getLong(footer + 16);
+            int messageCount = view.getInt(footer + 24);
+            int blocks = view.getInt(footer + 28);
+            long indexOffset = view.getLong(footer + 32);
+
+            long[] firstSequences = new long[blocks];
+            long[] offsets = new long[blocks];
+            int[] compressedSizes = new int[blocks];
+            int[] sizes = new int[blocks];
+            int[] counts = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                int entry = (int) indexOffset + i * INDEX_ENTRY_BYTES;
+                firstSequences[i] = view.getLong(entry);
+                offsets[i] = view.getLong(entry + 8);
+                compressedSizes[i] = view.getInt(entry + 16);
+                sizes[i] = view.getInt(entry + 20);
+                counts[i] = view.getInt(entry + 24);
+            }
+            return new MessageSegment(channelId, firstSequence, lastSequence, messageCount, buffer,
+                    firstSequences, offsets, compressedSizes, sizes, counts);
+        }
+    }
+
+    /**
+     * before보다 앞선 메시지를 최신순으로 out에 채운다. (out이 limit개가 되면 멈춘다)
+     */
+    public void read(long before, int limit, List<StoredMessage> out) {
+        if (before <= firstSequence || out.size() >= limit) {
+            return;
+        }
+        //before보다 작은 sequence로 시작하는 마지막 block부터 거꾸로 읽는다.
+        int block = lastBlockBefore(before);
+        Inflater inflater = new Inflater();
+        try {
+            while (block >= 0 && out.size() < limit) {
+                ByteBuffer records = inflate(inflater, block);
+                int count = blockCounts[block];
+                int[] positions = new int[count];
+                for (int i = 0, position = 0; i < count; i++) {
+                    positions[i] = position;
+                    position += RECORD_HEADER_BYTES + records.getInt(position + 16);
+                }
+                for (int i = count - 1; i >= 0 && out.size() < limit; i--) {
+                    int position = positions[i];
+                    long sequence = records.getLong(position);
+                    if (sequence >= before) {
+                        continue;
+                    }
+                    int length = records.getInt(position + 16);
+                    out.add(new StoredMessage(sequence, channelId, new UserId(records.getLong(position + 8)),
+                            new String(records.array(), position + RECORD_HEADER_BYTES, length, StandardCharsets.UTF_8)));
+                }
+                block--;
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    private int lastBlockBefore(long before) {
+        int low = 0;
+        int high = blockFirstSequences.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (blockFirstSequences[middle] < before) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private ByteBuffer inflate(Inflater inflater, int block) {
+        ByteBuffer input = buffer.slice((int) blockOffsets[block], blockCompressedSizes[block]);
+        byte[] output = new byte[blockSizes[block]];
+        inflater.reset();
+        inflater.setInput(input);
+        try {
+            int size = inflater.inflate(output);
+            if (size != output.length) {
+                throw new IllegalStateException("Corrupted segment block. channelId: " + channelId.id());
+            }
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupted segment block. channelId: " + channelId.id(), ex);
+        }
+        return ByteBuffer.wrap(output).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer source) throws IOException {
+        int written = 0;
+        while (source.hasRemaining()) {
+            written += channel.write(source);
+        }
+        return written;
+    }
+}
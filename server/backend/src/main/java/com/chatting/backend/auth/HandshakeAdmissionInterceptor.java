@@ -0,0 +1,158 @@
+package com.chatting.backend.auth;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+
+/**
+ * WebSocket 핸드셰이크 입장 제어(admission control) 인터셉터
+ *
+ * 노드가 재시작되면 붙어있던 클라이언트가 한꺼번에 재접속을 시도한다. (thundering herd)
+ * 핸드셰이크마다 Spring Session(Redis) 조회 + 인증 처리가 일어나기 때문에, 제한이 없으면 Redis와 MySQL이 같이 넘어간다.
+ *
+ * 두 가지로 막는다.
+ * 1. 동시 핸드셰이크 개수 제한 (Semaphore): 처리 중인 핸드셰이크가 max-concurrent 이상이면 거절
+ * 2. 토큰 버킷: 초당 rate-per-second 개씩 토큰이 차고, 최대 burst 개까지 쌓인다. 토큰이 없으면 거절
+ *
+ * 거절할 때는 503 Service Unavailable + Retry-After(초) 헤더로 응답한다.
+ * 업그레이드 전이라 WebSocket close code를 보낼 수 없으므로, HTTP 표준 Retry-After를 "다시 시도할 시각" 힌트로 사용한다.
+ * 클라이언트(Tyrus)는 이 값을 RetryAfterException으로 받아 재접속 대기시간에 반영한다.
+ *
+ * 노드가 drain 중(NodeDrainManager)이면 위 조건과 상관없이 모든 핸드셰이크를 drain 재접속 대기시간(Retry-After)으로 거절한다.
+ *
+ * 반드시 WebSocketHttpSessionHandshakeInterceptor보다 "앞에" 등록해야 세션 조회 비용 자체를 막을 수 있다.
+ */
+@Slf4j
+@Component
+public class HandshakeAdmissionInterceptor implements HandshakeInterceptor {
+
+    private final Semaphore handshakePermits;
+    private final double ratePerSecond;
+    private final double burst;
+    private final long minRetryAfterSeconds;
+    private final LongSupplier nanoClock;
+
+    //drain 중이면 0보다 큰 Retry-After(초)
+    private volatile long drainRetryAfterSeconds;
+
+    //토큰 버킷 상태 (synchronized 블록 안에서만 접근)
+    private double tokens;
+    private long lastRefillNanos;
+
+    @Autowired
+    public HandshakeAdmissionInterceptor(
+            @Value("${message.handshake.max-concurrent:200}") int maxConcurrent,
+            @Value("${message.handshake.rate-per-second:100}") double ratePerSecond,
+            @Value("${message.handshake.burst:200}") double burst,
+            @Value("${message.handshake.min-retry-after-seconds:1}") long minRetryAfterSeconds) {
+        this(maxConcurrent, ratePerSecond, burst, minRetryAfterSeconds, System::nanoTime);
+    }
+
+    HandshakeAdmissionInterceptor(int maxConcurrent, double ratePerSecond, double burst, long minRetryAfterSeconds, LongSupplier nanoClock) {
+        if (maxConcurrent <= 0 || ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid handshake admission settings.");
+        }
+        this.handshakePermits = new Semaphore(maxConcurrent);
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.minRetryAfterSeconds = Math.max(1, minRetryAfterSeconds);
+        this.nanoClock = nanoClock;
+        this.tokens = burst;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public boolean beforeHandshake(
+            @NonNull ServerHttpRequest request,
+            @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler,
+            @NonNull Map<String, Object> attributes) {
+
+        //0. drain 중이면 다른 노드로 보낸다.
+        long drainRetryAfter = drainRetryAfterSeconds;
+        if (drainRetryAfter > 0) {
+            log.warn("WebSocket handshake rejected. node is draining.");
+            return reject(response, drainRetryAfter);
+        }
+
+        //1. 동시 핸드셰이크 개수 확인
+        if (!handshakePermits.tryAcquire()) {
+            log.warn("WebSocket handshake rejected. too many concurrent handshakes.");
+            return reject(response, minRetryAfterSeconds);
+        }
+
+        //2. 토큰 버킷 확인 (0이면 토큰 획득 성공, 아니면 다음 토큰까지 기다려야 하는 초)
+        long retryAfterSeconds = tryAcquireToken();
+        if (retryAfterSeconds > 0) {
+            handshakePermits.release();
+            log.warn("WebSocket handshake rejected. rate limit exceeded. retryAfter: {}s", retryAfterSeconds);
+            return reject(response, retryAfterSeconds);
+        }
+
+        return true;
+    }
+
+    /**
+     * 핸드셰이크가 끝나면(성공/실패 상관없이) 호출된다.
+     * beforeHandshake가 true를 반환한 경우에만 호출되므로 여기서 permit을 반납하면 된다.
+     * 뒤쪽 인터셉터가 거절해도 Spring이 앞쪽 인터셉터의 afterHandshake를 호출해주므로 permit 누수가 없다.
+     */
+    @Override
+    public void afterHandshake(
+            @NonNull ServerHttpRequest request,
+            @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler,
+            Exception exception) {
+        handshakePermits.release();
+    }
+
+    //이후의 모든 핸드셰이크를 거절한다. (되돌리지 않는다: drain된 노드는 종료된다)
+    public void startDraining(long retryAfterSeconds) {
+        drainRetryAfterSeconds = Math.max(minRetryAfterSeconds, retryAfterSeconds);
+    }
+
+    public boolean isDraining() {
+        return drainRetryAfterSeconds > 0;
+    }
+
+    public int getAvailablePermits() {
+        return handshakePermits.availablePermits();
+    }
+
+    /**
+     * 토큰을 하나 꺼낸다.
+     * @return 성공하면 0, 실패하면 토큰 하나가 찰 때까지 남은 시간(초, 올림)
+     */
+    synchronized long tryAcquireToken() {
+        long now = nanoClock.getAsLong();
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        tokens = Math.min(burst, tokens + elapsedSeconds * ratePerSecond);
+        lastRefillNanos = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+
+        long waitSeconds = (long) Math.ceil((1 - tokens) / ratePerSecond);
+        return Math.max(minRetryAfterSeconds, waitSeconds);
+    }
+
+    private boolean reject(ServerHttpResponse response, long retryAfterSeconds) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return false;
+    }
+}
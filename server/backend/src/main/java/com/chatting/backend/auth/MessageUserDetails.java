@@ -2,6 +2,7 @@ package com.chatting.backend.auth;
 
 import com.fasterxml.jackson.annotation.*;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
@@ -17,9 +18,12 @@ import java.util.Objects;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class MessageUserDetails implements UserDetails {
 
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+
     private final Long userId;
     private final String username;
     private String password;
+    private final boolean admin;    //운영 API(/api/v1/admin/**)를 호출할 수 있는 사용자 (message.admin.usernames)
 
     //Getter
 
@@ -31,11 +35,13 @@ public class MessageUserDetails implements UserDetails {
     public MessageUserDetails(
             @JsonProperty("userId") Long userId,
             @JsonProperty("username") String username,
-            @JsonProperty("password") String password)
+            @JsonProperty("password") String password,
+            @JsonProperty("admin") boolean admin)
     {
         this.userId = userId;
         this.username = username;
         this.password = password;
+        this.admin = admin;
     }
 
     //Getter
@@ -43,6 +49,10 @@ public class MessageUserDetails implements UserDetails {
         return userId;
     }
 
+    public boolean isAdmin() {
+        return admin;
+    }
+
     // Security가 사용자 이름을 가져올 때 사용 (ID처럼 사용됨)
     @Override
     public String getUsername() {
@@ -62,12 +72,12 @@ public class MessageUserDetails implements UserDetails {
 
     /**
      * 권한 정보(roles, authorities)를 반환하는 메서드
-     * 우리는 현재 권한을 사용하지 않기 때문에 빈 리스트 반환
+     * 운영 API 권한(ROLE_ADMIN)만 사용한다. 일반 사용자는 빈 리스트
      */
     @Override
     @JsonIgnore //꼭 해야 함!! 안하면 websocket 연결안됨. 해당 필드를 JSON 직렬화(serialization) 또는 역직렬화(deserialization) 대상에서 제외하라는 뜻이다.
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of();
+        return admin ? List.of(new SimpleGrantedAuthority(ROLE_ADMIN)) : List.of();
     }
 
     /**
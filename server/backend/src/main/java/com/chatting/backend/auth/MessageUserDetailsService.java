@@ -2,13 +2,15 @@ package com.chatting.backend.auth;
 
 import com.chatting.backend.entity.UserEntity;
 import com.chatting.backend.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
+
 /**
  * [UserDetailsService]: ]pring Security와 DB를 연결하는 브릿지 역할
  * Spring Security에서 사용자 인증을 위해 사용하는 서비스 클래스
@@ -16,11 +18,18 @@ import org.springframework.stereotype.Service;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor // final 필드를 생성자로 자동 주입
 public class MessageUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository; //해당 repository에는 username을 조회하는 메서드가 있다.
 
+    //운영 API(/api/v1/admin/**)를 호출할 수 있는 username 목록. 사용자 테이블에 역할이 없으므로 설정으로만 준다. (기본: 아무도 없음)
+    private final Set<String> adminUsernames;
+
+    public MessageUserDetailsService(UserRepository userRepository, @Value("${message.admin.usernames:}") Set<String> adminUsernames) {
+        this.userRepository = userRepository;
+        this.adminUsernames = adminUsernames;
+    }
+
     /**
      * Spring Security가 로그인 시 사용자의 username으로 DB에서 사용자 정보를 조회하기 위해 호출하는 메서드
      * @param username 로그인 폼에서 사용자가 입력한 ID
@@ -38,6 +47,6 @@ public class MessageUserDetailsService implements UserDetailsService {
 
         //MessageUserDetails는 Spring Security가 사용가능한 형태로 만들어주는 어댑터 역할으 한다. 아래 매개변수들을 Spring Security가 사용할 수 있도록 MessageUserDetailsfh 보낸다.
         // 조회한 사용자 정보를 Spring Security가 사용할 수 있는 형태(UserDetails)로 감싸서 반환
-        return new MessageUserDetails(messageUserEntity.getUserId(), messageUserEntity.getUsername(), messageUserEntity.getPassword());
+        return new MessageUserDetails(messageUserEntity.getUserId(), messageUserEntity.getUsername(), messageUserEntity.getPassword(), adminUsernames.contains(messageUserEntity.getUsername()));
     }
 }
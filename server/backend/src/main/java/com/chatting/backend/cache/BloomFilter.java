@@ -0,0 +1,90 @@
+package com.chatting.backend.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 초대코드 "없음" 판정용 Bloom filter
+ *
+ * mightContain()이 false면 그 코드는 절대 없다. (DB 조회 없이 거절)
+ * true면 있을 수도 있다. 설정한 확률(false positive probability)만큼은 실제로 없는데 true가 나오고, 그때만 DB를 읽는다.
+ * 원소를 지울 수 없으므로 탈퇴/삭제된 코드는 주기적인 재구축(InviteCodeCache.rebuild) 때 빠진다.
+ *
+ * 비트 배열은 AtomicLongArray라서 조회(volatile read)와 추가(CAS)가 락 없이 동시에 일어나도 비트가 사라지지 않는다.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedEntries           넣을 원소 수 (이보다 많이 넣으면 false positive 확률이 올라간다)
+     * @param falsePositiveProbability  목표 false positive 확률 (예: 0.01)
+     */
+    BloomFilter(long expectedEntries, double falsePositiveProbability) {
+        if (expectedEntries <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter settings.");
+        }
+        //m = -n ln(p) / (ln 2)^2, k = m/n ln 2
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.accumulateAndGet(word, mask, (current, bit) -> current | bit);
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    //해시 두 개(h1, h2)로 k개의 위치를 만든다. (Kirsch-Mitzenmacher: g_i = h1 + i * h2)
+    private long index(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    //FNV-1a 64bit + murmur3 finalizer (문자열 전체를 섞어 상위/하위 32bit를 독립적인 해시로 쓴다)
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,171 @@
+package com.chatting.backend.cache;
+
+import com.chatting.backend.dto.domain.Channel;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.ChannelListSnapshot;
+import com.chatting.backend.dto.domain.UserId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 사용자별 채팅방 목록 스냅샷 (버전 포함)
+ *
+ * 로비 새로고침(FetchChannelsListRequest)은 가장 자주 들어오는 읽기 요청인데, 매번 channel_user ⨝ channel 조인을 실행했다.
+ * 목록을 한 번 읽으면 사용자별로 메모리에 들고 있다가, create/join/quit 이 커밋된 뒤 변경분만 반영한다.
+ *
+ * - 버전: 노드 전체에서 하나씩 증가하는 번호를 쓴다. 스냅샷을 다시 읽거나(축출 후) 노드가 재시작해도
+ *   예전에 내려준 버전과 겹치지 않도록 시작값을 현재 시각(마이크로초 단위)으로 잡는다.
+ * - 변경 반영: 스냅샷이 올라와 있는 사용자만 고치고 (이전 버전, 새 버전)을 돌려준다. 없는 사용자는 다음 조회 때 DB에서 읽는다.
+ * - 로딩 중 변경: DB를 읽는 사이에 그 사용자의 목록이 바뀌면 읽은 값이 이미 낡았을 수 있으므로,
+ *   사용자 id 구간(stripe)별 변경 버전을 읽기 전/후로 비교해서 바뀌었으면 캐시에 넣지 않는다. (ConnectionGraphIndex와 같은 방식)
+ *   비교한 뒤 넣기 전에 바뀔 수도 있으므로(그 변경은 스냅샷이 없어서 건너뛴다) 넣은 뒤에 한 번 더 비교하고, 바뀌었으면 넣은 것을 도로 뺀다.
+ * - 다른 노드의 변경: 스냅샷은 노드마다 따로 있으므로, 다른 노드에서 커밋된 변경은 ChannelListService가 Redis pub/sub으로 받아 invalidate() 한다.
+ *   알림을 놓쳐도(구독 끊김) 스냅샷은 읽은 지 snapshot-ttl이 지나면 다시 읽는다. (변경분을 반영해도 만료 시각은 늘리지 않는다)
+ * - 메모리: 접속 중인 사용자만 의미가 있으므로 마지막 기기가 끊기면 evict() 한다.
+ */
+@Component
+public class ChannelListCache {
+
+    private static final int VERSION_STRIPES = 1024;    //2의 거듭제곱이어야 한다.
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final Map<Long, Entry> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLongArray changes = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 변경 결과: 클라이언트는 자기 버전이 previousVersion과 같을 때만 변경분을 적용하고, 아니면 목록을 다시 요청한다.
+     */
+    public record Change(long previousVersion, long version) {
+    }
+
+    @Autowired
+    public ChannelListCache(@Value("${message.channel-list.snapshot-ttl:1m}") Duration ttl) {
+        this(ttl.toMillis(), System::currentTimeMillis);
+    }
+
+    ChannelListCache(long ttlMillis, LongSupplier clock) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Invalid channel list snapshot ttl.");
+        }
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 스냅샷을 돌려준다. 없으면 loader(DB 조회)로 읽어서 새 버전을 붙인다.
+     */
+    public ChannelListSnapshot get(UserId userId, Supplier<List<Channel>> loader) {
+        long now = clock.getAsLong();
+        Entry cached = snapshots.get(userId.id());
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                hits.increment();
+                return cached.snapshot();
+            }
+            snapshots.remove(userId.id(), cached);
+        }
+
+        misses.increment();
+        int stripe = stripe(userId.id());
+        long before = changes.get(stripe);
+        ChannelListSnapshot loaded = new ChannelListSnapshot(sequence.incrementAndGet(), List.copyOf(loader.get()));
+
+        //읽는 사이에 바뀌었으면 이번 응답에만 쓰고 캐시하지 않는다.
+        if (changes.get(stripe) != before) {
+            return loaded;
+        }
+        Entry entry = new Entry(loaded, now + ttlMillis);
+        Entry existing = snapshots.putIfAbsent(userId.id(), entry);
+        if (existing != null) {
+            return existing.snapshot();
+        }
+        //비교와 넣기 사이에 바뀌었으면 넣은 스냅샷은 이미 낡았다.
+        if (changes.get(stripe) != before) {
+            snapshots.remove(userId.id(), entry);
+        }
+        return loaded;
+    }
+
+    //채팅방이 목록에 추가됨
+    public Optional<Change> added(UserId userId, Channel channel) {
+        return update(userId, channels -> {
+            List<Channel> copy = new ArrayList<>(channels);
+            copy.remove(channel);    //Channel의 equals는 channelId만 비교한다.
+            copy.add(channel);
+            return copy;
+        });
+    }
+
+    //채팅방이 목록에서 빠짐
+    public Optional<Change> removed(UserId userId, ChannelId channelId) {
+        return update(userId, channels -> channels.stream()
+                .filter(channel -> !channel.channelId().equals(channelId))
+                .toList());
+    }
+
+    //채팅방 정보(인원 수 등)가 바뀜
+    public Optional<Change> updated(UserId userId, Channel channel) {
+        return update(userId, channels -> channels.stream()
+                .map(existing -> existing.equals(channel) ? channel : existing)
+                .toList());
+    }
+
+    public void evict(UserId userId) {
+        snapshots.remove(userId.id());
+    }
+
+    //다른 노드에서 목록이 바뀌었다. 변경분을 모르므로 스냅샷을 버리고 다음 조회 때 다시 읽는다. (로딩 중인 스레드도 넣지 않게 버전을 올린다)
+    public void invalidate(UserId userId) {
+        changes.incrementAndGet(stripe(userId.id()));
+        snapshots.remove(userId.id());
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private Optional<Change> update(UserId userId, UnaryOperator<List<Channel>> change) {
+        //로딩 중인 스레드가 낡은 목록을 넣지 않도록 스냅샷이 없어도 변경 버전은 올린다.
+        changes.incrementAndGet(stripe(userId.id()));
+
+        long[] previousVersion = new long[1];
+        Entry updated = snapshots.computeIfPresent(userId.id(), (id, entry) -> {
+            previousVersion[0] = entry.snapshot().version();
+            ChannelListSnapshot snapshot = new ChannelListSnapshot(sequence.incrementAndGet(), List.copyOf(change.apply(entry.snapshot().channels())));
+            return new Entry(snapshot, entry.expiresAt());
+        });
+        return updated == null ? Optional.empty() : Optional.of(new Change(previousVersion[0], updated.snapshot().version()));
+    }
+
+    //DB에서 읽은 시각 + snapshot-ttl 까지만 쓴다.
+    private record Entry(ChannelListSnapshot snapshot, long expiresAt) {
+    }
+
+    private static int stripe(long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (VERSION_STRIPES - 1);
+    }
+}
@@ -0,0 +1,101 @@
+package com.chatting.backend.cache;
+
+import com.chatting.backend.dto.domain.UserId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 보낸 사람별 클라이언트 메시지 id → 저장된 message_sequence (중복 저장 방지 창)
+ *
+ * 클라이언트는 전송이 타임아웃 나면 같은 clientMessageId로 WriteMessage를 다시 보낸다.
+ * 처음 보는 id만 저장하고, 창 안에서 다시 온 id는 저장/전송 없이 처음 저장한 sequence로 응답한다.
+ *
+ * - 재시도는 다시 연결한 뒤 다른 노드로 올 수 있으므로 Redis에 둔다. (key: message:dedup:{보낸 사람}:{clientMessageId})
+ * - 처음 요청이 SET NX PX window로 자리(IN_PROGRESS)를 잡고, 저장이 끝나면 sequence로 바꾼다. 각 id는 window가 지나면 Redis가 지운다.
+ * - Redis에 접근하지 못하면 중복 확인 없이 저장한다. (재시도가 중복으로 저장될 수는 있어도 메시지를 잃지는 않는다)
+ */
+@Slf4j
+@Component
+public class ClientMessageIdCache {
+
+    //저장 중(아직 sequence가 없다)인 id. 같은 id의 재시도는 처음 요청이 끝나면 그 응답으로 충분하다.
+    public static final long IN_PROGRESS = -1L;
+
+    private static final String KEY_PREFIX = "message:dedup:";
+
+    //KEYS[1]=id key / ARGV: IN_PROGRESS, window(ms) → 이미 있으면 그 값, 없으면 자리를 잡고 nil
+    static final RedisScript<String> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current then
+                return current
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return nil
+            """, String.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long windowMillis;
+
+    @Autowired
+    public ClientMessageIdCache(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${message.write-dedup.window:2m}") Duration window) {
+        this(stringRedisTemplate, window.toMillis());
+    }
+
+    ClientMessageIdCache(StringRedisTemplate stringRedisTemplate, long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Invalid client message id cache settings.");
+        }
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 처음 보는 id면 저장 중으로 자리를 잡고 empty를 돌려준다. (호출한 쪽이 저장하고 complete 또는 release를 부른다)
+     * 창 안에서 이미 본 id면 그때 저장된 sequence를 돌려준다. (아직 저장 중이면 IN_PROGRESS)
+     */
+    public Optional<Long> reserve(UserId senderUserId, String clientMessageId) {
+        try {
+            String stored = stringRedisTemplate.execute(RESERVE_SCRIPT, List.of(key(senderUserId, clientMessageId)),
+                    String.valueOf(IN_PROGRESS), String.valueOf(windowMillis));
+            return Optional.ofNullable(stored).map(Long::valueOf);
+        } catch (Exception ex) {
+            log.warn("Client message id reserve failed. Saving without dedup. senderUserId: {}, cause: {}", senderUserId, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    //저장이 끝났다. 이제부터 창이 끝날 때까지 같은 id는 이 sequence로 응답한다. (자리가 남아 있을 때만)
+    public void complete(UserId senderUserId, String clientMessageId, long messageSequence) {
+        try {
+            stringRedisTemplate.opsForValue().setIfPresent(key(senderUserId, clientMessageId),
+                    String.valueOf(messageSequence), Duration.ofMillis(windowMillis));
+        } catch (Exception ex) {
+            log.warn("Client message id complete failed. senderUserId: {}, cause: {}", senderUserId, ex.getMessage());
+        }
+    }
+
+    //저장이 실패했다. 재시도가 다시 저장할 수 있게 자리를 비운다.
+    public void release(UserId senderUserId, String clientMessageId) {
+        try {
+            stringRedisTemplate.delete(key(senderUserId, clientMessageId));
+        } catch (Exception ex) {
+            //자리는 window 뒤에 풀린다. 그동안 같은 id의 재시도는 DUPLICATE를 받는다.
+            log.warn("Client message id release failed. senderUserId: {}, cause: {}", senderUserId, ex.getMessage());
+        }
+    }
+
+    private static String key(UserId senderUserId, String clientMessageId) {
+        return KEY_PREFIX + senderUserId.id() + ":" + clientMessageId;
+    }
+}
@@ -0,0 +1,355 @@
+package com.chatting.backend.cache;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.InviteCode;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.projection.IdInviteCodeProjection;
+import com.chatting.backend.dto.restapi.InviteCodeCacheStatsResponse;
+import com.chatting.backend.repository.ChannelRepository;
+import com.chatting.backend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 초대코드 → userId / channelId 해석 캐시
+ *
+ * 초대(InviteRequest)와 채널 참여(JoinRequest)는 매번 invite_code unique 인덱스(VARCHAR)를 조회한다.
+ * 없는 코드를 무작위로 대입하는 봇이 붙으면 요청 하나하나가 그대로 MySQL 조회가 된다.
+ *
+ * 코드 종류(user, channel)마다
+ * - positive 캐시: 찾은 코드 → id (LRU, 최대 max-entries개)
+ * - negative 필터: 테이블의 모든 코드를 넣은 Bloom filter. "없음"이면 DB를 읽지 않고 바로 거절한다.
+ * 를 둔다.
+ *
+ * - 필터 재구축: rebuild-interval마다 테이블을 id 순서로 page-size씩 읽어 새 필터를 만들고 통째로 교체한다. (삭제된 코드는 이때 빠진다)
+ * - 새 코드: 필터는 노드마다 따로 있으므로, 다른 노드에서 만든 코드는 이 노드의 필터에 없다. (그대로 거절하면 false negative)
+ *   그래서 사용자 가입/채널 생성 트랜잭션 안에서 Redis의 "최근 만든 코드" zset(message:invite-code:recent:{kind}, score=만든 시각)에 먼저 넣는다.
+ *   (Redis에 넣지 못하면 가입/생성이 롤백되므로, 커밋된 코드는 항상 zset이나 필터에 있다)
+ *   필터에서 "없음"이 나오면 이 zset을 확인하고, 있으면 DB를 조회한다. 커밋된 뒤에는 이 노드의 필터와 positive 캐시에도 넣는다.
+ * - zset은 recent-retention 동안만 남긴다. 필터가 그 절반보다 오래됐으면(재구축이 계속 실패) 필터를 믿지 않고 DB로 간다.
+ *   재구축 전(기동 직후)에도 필터가 없으므로 모든 조회가 DB로 간다.
+ * - Redis 조회가 실패하면 DB로 간다. (거절하지 않는다)
+ * - 삭제된 코드: positive 캐시에서만 지운다. 필터에는 다음 재구축 전까지 남아있고 DB 조회 결과(없음)로 거절된다. (false positive로 집계)
+ *
+ * positive 캐시에서 찾은 id도 이후 처리에서 실제 row를 읽으므로(없으면 실패), 오래된 positive 엔트리가 잘못된 결과를 만들지는 않는다.
+ */
+@Slf4j
+@Component
+public class InviteCodeCache {
+
+    private static final String RECENT_NAMESPACE = "message:invite-code:recent";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long recentRetentionMillis;
+    private final LongSupplier clock;
+    private final int maxEntries;
+    private final double falsePositiveProbability;
+    private final int pageSize;
+
+    private final Resolver users;
+    private final Resolver channels;
+
+    @Autowired
+    public InviteCodeCache(
+            UserRepository userRepository,
+            ChannelRepository channelRepository,
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${message.invite-code.max-entries:100000}") int maxEntries,
+            @Value("${message.invite-code.false-positive-probability:0.01}") double falsePositiveProbability,
+            @Value("${message.invite-code.rebuild-page-size:10000}") int pageSize,
+            @Value("${message.invite-code.recent-retention:30m}") Duration recentRetention) {
+        this(userRepository, channelRepository, stringRedisTemplate, maxEntries, falsePositiveProbability, pageSize,
+                recentRetention.toMillis(), System::currentTimeMillis);
+    }
+
+    InviteCodeCache(UserRepository userRepository, ChannelRepository channelRepository, StringRedisTemplate stringRedisTemplate,
+                    int maxEntries, double falsePositiveProbability, int pageSize, long recentRetentionMillis, LongSupplier clock) {
+        if (maxEntries <= 0 || pageSize <= 0 || recentRetentionMillis <= 0) {
+            throw new IllegalArgumentException("Invalid invite code cache settings.");
+        }
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.recentRetentionMillis = recentRetentionMillis;
+        this.clock = clock;
+        this.maxEntries = maxEntries;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.pageSize = pageSize;
+        this.users = new Resolver("user", userRepository::findUserIdByInviteCode, userRepository::count,
+                (cursor, limit) -> userRepository.findInviteCodes(cursor, limit));
+        this.channels = new Resolver("channel", channelRepository::findChannelIdByInviteCode, channelRepository::count,
+                (cursor, limit) -> channelRepository.findInviteCodes(cursor, limit));
+    }
+
+    //초대코드의 주인(사용자) id. 없는 코드면 empty
+    public Optional<UserId> resolveUser(InviteCode inviteCode) {
+        return users.resolve(inviteCode.code()).map(UserId::new);
+    }
+
+    //초대코드의 채팅방 id. 없는 코드면 empty
+    public Optional<ChannelId> resolveChannel(InviteCode inviteCode) {
+        return channels.resolve(inviteCode.code()).map(ChannelId::new);
+    }
+
+    //다른 노드가 찾을 수 있게 바로 Redis에 넣고(실패하면 예외 → 가입 롤백), 가입이 커밋되면 이 노드의 필터와 positive 캐시에 넣는다.
+    public void userCreated(InviteCode inviteCode, UserId userId) {
+        users.recordCreated(inviteCode.code());
+        afterCommit(() -> users.add(inviteCode.code(), userId.id()));
+    }
+
+    //탈퇴가 커밋되면 positive 캐시에서 뺀다. (필터에서는 다음 재구축 때 빠진다)
+    public void userRemoved(InviteCode inviteCode) {
+        afterCommit(() -> users.remove(inviteCode.code()));
+    }
+
+    //다른 노드가 찾을 수 있게 바로 Redis에 넣고(실패하면 예외 → 생성 롤백), 채널 생성이 커밋되면 이 노드의 필터와 positive 캐시에 넣는다.
+    public void channelCreated(InviteCode inviteCode, ChannelId channelId) {
+        channels.recordCreated(inviteCode.code());
+        afterCommit(() -> channels.add(inviteCode.code(), channelId.id()));
+    }
+
+    /**
+     * 두 테이블의 필터를 다시 만든다. (기동 직후 한 번 + rebuild-interval 마다)
+     * 실패하면 기존 필터를 그대로 쓴다.
+     */
+    @Scheduled(initialDelayString = "${message.invite-code.initial-delay:0}",
+            fixedDelayString = "${message.invite-code.rebuild-interval:10m}")
+    public void rebuild() {
+        users.rebuild();
+        channels.rebuild();
+    }
+
+    public List<InviteCodeCacheStatsResponse> getStats() {
+        return List.of(users.stats(), channels.stats());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 코드 종류 하나(user 또는 channel)의 positive 캐시 + 필터
+     */
+    private final class Resolver {
+
+        private final String kind;
+        private final String recentKey;
+        private final Function<String, Optional<Long>> loader;
+        private final LongSupplier counter;
+        private final BiFunction<Long, Limit, List<IdInviteCodeProjection>> scanner;
+
+        //access-order LinkedHashMap = LRU. 조회(get)도 순서를 바꾸므로 모든 접근을 synchronized로 감싼다.
+        private final Map<String, Long> positives = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        //current: 조회에 쓰는 필터, building: 재구축 중인 필터 (둘 다 없을 수 있다)
+        //교체와 추가는 this 락으로 묶어서, 재구축이 끝나는 순간 들어온 코드가 새 필터에서 빠지지 않게 한다.
+        private volatile Filter current;
+        private Filter building;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder rejects = new LongAdder();
+        private final LongAdder falsePositives = new LongAdder();
+
+        private Resolver(String kind,
+                         Function<String, Optional<Long>> loader,
+                         LongSupplier counter,
+                         BiFunction<Long, Limit, List<IdInviteCodeProjection>> scanner) {
+            this.kind = kind;
+            this.recentKey = "%s:%s".formatted(RECENT_NAMESPACE, kind);
+            this.loader = loader;
+            this.counter = counter;
+            this.scanner = scanner;
+        }
+
+        Optional<Long> resolve(String code) {
+            //1. positive 캐시
+            Long cached;
+            synchronized (positives) {
+                cached = positives.get(code);
+            }
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+
+            //2. negative 필터: 확실히 없으면 DB 조회 없이 거절 (필터를 만든 뒤 다른 노드에서 만든 코드는 Redis에서 확인)
+            Filter filter = trustedFilter();
+            if (filter != null && !filter.bloomFilter().mightContain(code) && !createdRecently(code)) {
+                rejects.increment();
+                return Optional.empty();
+            }
+
+            //3. DB 조회
+            misses.increment();
+            Optional<Long> loaded = loader.apply(code);
+            if (loaded.isPresent()) {
+                synchronized (positives) {
+                    positives.put(code, loaded.get());
+                }
+            } else if (filter != null) {
+                falsePositives.increment();
+            }
+            return loaded;
+        }
+
+        void add(String code, Long id) {
+            synchronized (this) {
+                Filter filter = current;
+                if (filter != null) {
+                    filter.put(code);
+                }
+                if (building != null) {
+                    building.put(code);
+                }
+            }
+            synchronized (positives) {
+                positives.put(code, id);
+            }
+        }
+
+        void recordCreated(String code) {
+            long now = clock.getAsLong();
+            stringRedisTemplate.opsForZSet().add(recentKey, code, now);
+            stringRedisTemplate.expire(recentKey, recentRetentionMillis, TimeUnit.MILLISECONDS);
+        }
+
+        //recent-retention의 절반보다 오래된 필터는 그 뒤에 만든 코드를 zset에서 다 확인할 수 없으므로 쓰지 않는다.
+        private Filter trustedFilter() {
+            Filter filter = current;
+            if (filter == null || clock.getAsLong() - filter.startedAt() > recentRetentionMillis / 2) {
+                return null;
+            }
+            return filter;
+        }
+
+        private boolean createdRecently(String code) {
+            try {
+                return stringRedisTemplate.opsForZSet().score(recentKey, code) != null;
+            } catch (RuntimeException ex) {
+                log.error("Invite code recent lookup failed. kind: {}, cause: {}", kind, ex.getMessage());
+                return true;
+            }
+        }
+
+        void remove(String code) {
+            synchronized (positives) {
+                positives.remove(code);
+            }
+        }
+
+        void rebuild() {
+            long startNanos = System.nanoTime();
+            Filter filter;
+            synchronized (this) {
+                //재구축 중 늘어나는 행을 감안해서 현재 행 수의 2배로 잡는다.
+                long expectedEntries = Math.max(1024, counter.getAsLong() * 2);
+                filter = new Filter(new BloomFilter(expectedEntries, falsePositiveProbability), clock.getAsLong());
+                building = filter;
+            }
+
+            try {
+                long cursor = 0;
+                List<IdInviteCodeProjection> page;
+                do {
+                    page = scanner.apply(cursor, Limit.of(pageSize));
+                    for (IdInviteCodeProjection row : page) {
+                        filter.put(row.getInviteCode());
+                    }
+                    if (!page.isEmpty()) {
+                        cursor = page.get(page.size() - 1).getId();
+                    }
+                } while (page.size() == pageSize);
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    building = null;
+                }
+                log.error("Invite code filter rebuild failed. kind: {}, cause: {}", kind, ex.getMessage());
+                return;
+            }
+
+            synchronized (this) {
+                current = filter;
+                building = null;
+            }
+            trimRecent();
+            log.info("Invite code filter rebuilt. kind: {}, entries: {}, bits: {}, elapsed: {}ms",
+                    kind, filter.entries(), filter.bloomFilter().bitCount(), (System.nanoTime() - startNanos) / 1_000_000);
+        }
+
+        //recent-retention이 지난 코드는 모든 노드의 (믿을 수 있는) 필터에 들어 있다.
+        private void trimRecent() {
+            try {
+                stringRedisTemplate.opsForZSet().removeRangeByScore(recentKey, Double.NEGATIVE_INFINITY, clock.getAsLong() - recentRetentionMillis);
+            } catch (RuntimeException ex) {
+                log.error("Invite code recent trim failed. kind: {}, cause: {}", kind, ex.getMessage());
+            }
+        }
+
+        InviteCodeCacheStatsResponse stats() {
+            long hitCount = hits.sum();
+            long missCount = misses.sum();
+            long rejectCount = rejects.sum();
+            long falsePositiveCount = falsePositives.sum();
+            long lookups = hitCount + missCount + rejectCount;
+            Filter filter = current;
+            return new InviteCodeCacheStatsResponse(
+                    kind,
+                    hitCount,
+                    missCount,
+                    rejectCount,
+                    falsePositiveCount,
+                    lookups == 0 ? 0 : (double) (hitCount + rejectCount) / lookups,
+                    falsePositiveCount + rejectCount == 0 ? 0 : (double) falsePositiveCount / (falsePositiveCount + rejectCount),
+                    filter == null ? 0 : filter.entries(),
+                    filter == null ? 0 : filter.bloomFilter().bitCount());
+        }
+    }
+
+    //Bloom filter + 재구축을 시작한 시각 + 넣은 코드 수 (통계용)
+    private record Filter(BloomFilter bloomFilter, long startedAt, LongAdder entryCount) {
+
+        private Filter(BloomFilter bloomFilter, long startedAt) {
+            this(bloomFilter, startedAt, new LongAdder());
+        }
+
+        void put(String code) {
+            bloomFilter.put(code);
+            entryCount.increment();
+        }
+
+        long entries() {
+            return entryCount.sum();
+        }
+    }
+}
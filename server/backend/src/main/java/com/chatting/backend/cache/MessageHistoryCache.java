@@ -0,0 +1,73 @@
+package com.chatting.backend.cache;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.StoredMessage;
+import com.chatting.backend.id.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * 지난 메시지 페이지 캐시 (채널, cursor, 개수) → 메시지 목록
+ *
+ * cursor보다 앞선 메시지는 더 늘지 않고(새 메시지는 항상 더 큰 sequence) 수정/삭제도 없으므로, 한 번 읽은 페이지는 바뀌지 않는다.
+ * 단 cursor 근처는 다른 노드가 늦게 넣은 메시지(시계 차이)가 있을 수 있으므로 cursor 시각이 settle보다 오래된 페이지만 넣는다.
+ * 최신 페이지(cursor 없음)는 넣지 않는다.
+ * MySQL에서 보관소로 옮겨져도 내용은 같으므로 비울 필요가 없다.
+ */
+@Component
+public class MessageHistoryCache {
+
+    private record Key(long channelId, long beforeSequence, int limit) {
+    }
+
+    private final long settleMillis;
+    private final LongSupplier clock;
+
+    //access-order LinkedHashMap = LRU. 조회(get)도 순서를 바꾸므로 모든 접근을 synchronized로 감싼다.
+    private final Map<Key, List<StoredMessage>> pages;
+
+    @Autowired
+    public MessageHistoryCache(
+            @Value("${message.history.cache-entries:2000}") int maxEntries,
+            @Value("${message.history.cache-settle:1m}") Duration settle) {
+        this(maxEntries, settle.toMillis(), System::currentTimeMillis);
+    }
+
+    MessageHistoryCache(int maxEntries, long settleMillis, LongSupplier clock) {
+        if (maxEntries <= 0 || settleMillis < 0) {
+            throw new IllegalArgumentException("Invalid message history cache settings.");
+        }
+        this.settleMillis = settleMillis;
+        this.clock = clock;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<StoredMessage>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Optional<List<StoredMessage>> get(ChannelId channelId, long beforeSequence, int limit) {
+        synchronized (pages) {
+            return Optional.ofNullable(pages.get(new Key(channelId.id(), beforeSequence, limit)));
+        }
+    }
+
+    public void put(ChannelId channelId, long beforeSequence, int limit, List<StoredMessage> messages) {
+        if (beforeSequence == Long.MAX_VALUE
+                || SnowflakeIdGenerator.timestampMillis(beforeSequence) > clock.getAsLong() - settleMillis) {
+            return;
+        }
+        synchronized (pages) {
+            pages.put(new Key(channelId.id(), beforeSequence, limit), List.copyOf(messages));
+        }
+    }
+}
@@ -1,20 +1,73 @@
 package com.chatting.backend.config;
 
+import com.chatting.backend.datasource.ReadYourWritesTracker;
+import com.chatting.backend.datasource.ReplicaLagMonitor;
+import com.chatting.backend.datasource.ReplicationRoutingDataSource;
 import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
+/**
+ * DataSource 구성
+ *
+ * - primary: spring.datasource.hikari (쓰기, 비관적 락, 트랜잭션 밖의 조회)
+ * - replica: spring.datasource.replica (있을 때만) → 읽기 전용 트랜잭션만 보낸다. 별도 풀이라 조회가 많아도 쓰기 커넥션을 뺏지 않는다.
+ *   replica가 설정되면 dataSource는 ReplicationRoutingDataSource를 LazyConnectionDataSourceProxy로 감싼 것이고,
+ *   설정되지 않으면 예전처럼 primary 풀 하나만 쓴다.
+ */
 @Configuration
 public class DataSourceConfig {
 
-    @Bean(name = "dataSource")
+    @Bean(name = "primaryDataSource")
     @ConfigurationProperties(prefix = "spring.datasource.hikari")
-    public DataSource dataSource(){
+    public DataSource primaryDataSource(){
         return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean(name = "replicaDataSource")
+    @ConditionalOnProperty(prefix = "spring.datasource.replica", name = "jdbc-url")
+    @ConfigurationProperties(prefix = "spring.datasource.replica")
+    public DataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.datasource.replica", name = "jdbc-url")
+    public ReplicationRoutingDataSource replicationRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReadYourWritesTracker readYourWritesTracker,
+            @Value("${message.datasource.replica.retry-interval:10s}") Duration retryInterval) {
+        return new ReplicationRoutingDataSource(primaryDataSource, replicaDataSource, readYourWritesTracker, retryInterval.toMillis());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.datasource.replica", name = "jdbc-url")
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicationRoutingDataSource replicationRoutingDataSource,
+            ReadYourWritesTracker readYourWritesTracker,
+            @Value("${message.datasource.replica.max-lag:5s}") Duration maxLag) {
+        return new ReplicaLagMonitor(new JdbcTemplate(replicaDataSource), replicationRoutingDataSource, readYourWritesTracker, maxLag.toMillis());
+    }
+
+    @Primary
+    @Bean(name = "dataSource")
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ObjectProvider<ReplicationRoutingDataSource> replicationRoutingDataSource) {
+        ReplicationRoutingDataSource routing = replicationRoutingDataSource.getIfAvailable();
+        return routing == null ? primaryDataSource : new LazyConnectionDataSourceProxy(routing);
     }
 }
@@ -0,0 +1,85 @@
+package com.chatting.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
+import org.ehcache.impl.copy.IdentityCopier;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hibernate 2차 캐시(second-level cache) 설정
+ *
+ * 채널 제목/초대코드, 사용자 이름처럼 거의 바뀌지 않는 데이터를 요청마다 MySQL에서 읽으면
+ * 메시지 저장과 같은 Hikari 커넥션 풀(20개)을 두고 경쟁하게 된다.
+ * 이런 데이터는 JVM heap(Ehcache)에 캐시해서 커넥션을 아예 쓰지 않게 한다.
+ *
+ * - region별 최대 엔트리 수/TTL은 message.cache.regions 로 설정한다.
+ * - default-update-timestamps-region은 쿼리 캐시의 정합성(테이블 변경 시각)을 보장하는 region이라 절대 만료되면 안 되므로 TTL을 무시한다.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(HibernateCacheProperties.class)
+public class HibernateCacheConfig {
+
+    public static final String CHANNEL_REGION = "channel";
+    public static final String USER_REGION = "user";
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(HibernateCacheProperties hibernateCacheProperties) {
+        Map<String, HibernateCacheProperties.Region> regions = new LinkedHashMap<>();
+        //설정이 빠져도 Hibernate가 사용하는 region은 항상 만든다.
+        for (String name : new String[]{CHANNEL_REGION, USER_REGION, QUERY_RESULTS_REGION, UPDATE_TIMESTAMPS_REGION}) {
+            regions.put(name, new HibernateCacheProperties.Region());
+        }
+        regions.putAll(hibernateCacheProperties.getRegions());
+
+        ConfigurationBuilder builder = ConfigurationBuilder.newConfigurationBuilder();
+        for (Map.Entry<String, HibernateCacheProperties.Region> entry : regions.entrySet()) {
+            String name = entry.getKey();
+            HibernateCacheProperties.Region region = entry.getValue();
+            Duration ttl = UPDATE_TIMESTAMPS_REGION.equals(name) ? Duration.ZERO : region.getTtl();
+
+            builder = builder.withCache(name, CacheConfigurationBuilder
+                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(region.getMaxEntries()))
+                    .withExpiry(ttl == null || ttl.isZero() ? ExpiryPolicyBuilder.noExpiration() : ExpiryPolicyBuilder.timeToLiveExpiration(ttl))
+                    //JCache 기본값(store-by-value)은 put/get마다 직렬화 복사를 한다.
+                    //Hibernate는 이미 분해된(disassembled) 상태를 넣고 꺼낼 때 다시 조립하므로 참조 그대로 저장해도 안전하다.
+                    .withService(new DefaultCopierConfiguration<>(IdentityCopier.identityCopier(), DefaultCopierConfiguration.Type.KEY))
+                    .withService(new DefaultCopierConfiguration<>(IdentityCopier.identityCopier(), DefaultCopierConfiguration.Type.VALUE)));
+
+            log.info("Hibernate cache region: {}, maxEntries: {}, ttl: {}", name, region.getMaxEntries(), ttl);
+        }
+
+        EhcacheCachingProvider cachingProvider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        //테스트처럼 ApplicationContext가 여러 개 떠도 CacheManager를 공유하지 않도록 URI를 매번 새로 만든다.
+        URI uri = URI.create("urn:message-system:hibernate-cache:" + UUID.randomUUID());
+        return cachingProvider.getCacheManager(uri, builder.build());
+    }
+
+    /**
+     * Hibernate가 위에서 만든 CacheManager를 사용하도록 연결한다.
+     * (나머지 2차 캐시 옵션은 application.yml의 spring.jpa.properties.hibernate.cache.* 에 있다)
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,34 @@
+package com.chatting.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate 2차 캐시 region 설정 (application.yml의 message.cache.regions)
+ *
+ * message:
+ *   cache:
+ *     regions:
+ *       channel:
+ *         max-entries: 10000   # region에 담을 최대 엔트리 수 (heap)
+ *         ttl: 10m             # 저장 후 만료 시간 (0이면 만료 없음)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "message.cache")
+public class HibernateCacheProperties {
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maxEntries = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,42 @@
+package com.chatting.backend.config;
+
+import com.chatting.backend.shard.MessageShardDataSources;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 메시지 샤드 DataSource 구성
+ *
+ * 샤드는 메시지(channel_message)만 담는다. 사용자/채널/연결 등 나머지 테이블은 계속 primary에 있다.
+ * 샤드 쓰기는 replica 라우팅(DataSourceConfig)을 거치지 않고 각 샤드의 풀로 바로 간다.
+ */
+@Configuration
+@EnableConfigurationProperties(MessageShardProperties.class)
+public class MessageShardConfig {
+
+    @Bean(destroyMethod = "close")
+    public MessageShardDataSources messageShardDataSources(MessageShardProperties properties,
+                                                           @Qualifier("primaryDataSource") DataSource primaryDataSource) {
+        if (properties.getDatasources().isEmpty()) {
+            return MessageShardDataSources.primaryOnly(primaryDataSource);
+        }
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        properties.getDatasources().forEach((name, config) -> {
+            if (config.getPoolName() == null) {
+                config.setPoolName("MessageShard-" + name);
+            }
+            //primary처럼 첫 커넥션을 요청할 때 풀을 연다. (new HikariDataSource(config)는 바로 접속한다)
+            HikariDataSource dataSource = new HikariDataSource();
+            config.copyStateTo(dataSource);
+            dataSources.put(name, dataSource);
+        });
+        return MessageShardDataSources.of(dataSources);
+    }
+}
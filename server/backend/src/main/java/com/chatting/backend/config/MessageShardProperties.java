@@ -0,0 +1,32 @@
+package com.chatting.backend.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 메시지 샤드 접속 정보 (application.yml의 message.shard.datasources)
+ *
+ * message:
+ *   shard:
+ *     datasources:
+ *       shard-0:
+ *         jdbc-url: jdbc:mysql://localhost:13316/messagesystem
+ *         username: dev_user
+ *         password: dev_password
+ *         maximum-pool-size: 20
+ *
+ * 비어 있으면 primary DataSource 하나를 "primary" 샤드로 쓴다.
+ * 링에 실제로 들어가는 샤드는 message_shard 테이블이 정한다. (ShardedMessageStore)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "message.shard")
+public class MessageShardProperties {
+
+    private Map<String, HikariConfig> datasources = new LinkedHashMap<>();
+}
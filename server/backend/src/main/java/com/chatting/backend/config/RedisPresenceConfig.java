@@ -0,0 +1,39 @@
+package com.chatting.backend.config;
+
+import com.chatting.backend.graph.ConnectionGraphIndex;
+import com.chatting.backend.membership.ChannelMembershipIndex;
+import com.chatting.backend.search.MessageSearchIndex;
+import com.chatting.backend.service.ChannelListService;
+import com.chatting.backend.service.PresenceService;
+import com.chatting.backend.session.PresenceBroadcaster;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 노드 간 접속 상태 변경 알림(Redis pub/sub) 구독 설정
+ * 채팅방 목록(ChannelListService), 연결 관계(ConnectionGraphIndex), 채널 참여자(ChannelMembershipIndex) 변경 알림과
+ * 검색 인덱스에 넣을 메시지(MessageSearchIndex)도 같은 연결로 구독한다.
+ */
+@Configuration
+public class RedisPresenceConfig {
+
+    @Bean
+    public RedisMessageListenerContainer presenceListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                   PresenceBroadcaster presenceBroadcaster,
+                                                                   ChannelListService channelListService,
+                                                                   ConnectionGraphIndex connectionGraphIndex,
+                                                                   ChannelMembershipIndex channelMembershipIndex,
+                                                                   MessageSearchIndex messageSearchIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(presenceBroadcaster, new ChannelTopic(PresenceService.PRESENCE_CHANNEL));
+        container.addMessageListener(channelListService, new ChannelTopic(ChannelListService.CHANNEL_LIST_CHANNEL));
+        container.addMessageListener(connectionGraphIndex, new ChannelTopic(ConnectionGraphIndex.CONNECTION_GRAPH_CHANNEL));
+        container.addMessageListener(channelMembershipIndex, new ChannelTopic(ChannelMembershipIndex.MEMBERSHIP_CHANNEL));
+        container.addMessageListener(messageSearchIndex, new ChannelTopic(MessageSearchIndex.SEARCH_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,13 @@
+package com.chatting.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @Scheduled 작업 활성화 (초대코드 필터 재구축 등)
+ * BackendApplication에 붙이면 @DataJpaTest 슬라이스 테스트에서도 스케줄러가 돌기 때문에 별도 설정 클래스로 둔다.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
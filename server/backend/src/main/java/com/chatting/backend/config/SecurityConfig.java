@@ -92,6 +92,8 @@ public class SecurityConfig {
                                                 "/v3/api-docs.yaml",//swagger
                                                 "/swagger-resources/**",//swagger
                                                 "/webjars/**").permitAll() // 회원가입, 로그인 요청은 인증 없이 접근 가능
+                                        .requestMatchers("/api/v1/admin/**") // 운영 API는 관리자(message.admin.usernames)만
+                                        .hasRole("ADMIN")
                                         .anyRequest() // 나머지 요청은 인증 필요
                                         .authenticated()
                 )
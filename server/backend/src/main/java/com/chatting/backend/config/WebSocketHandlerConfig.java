@@ -1,5 +1,6 @@
 package com.chatting.backend.config;
 
+import com.chatting.backend.auth.HandshakeAdmissionInterceptor;
 import com.chatting.backend.auth.WebSocketHttpSessionHandshakeInterceptor;
 import com.chatting.backend.handler.WebSocketHandler;
 import lombok.RequiredArgsConstructor;
@@ -14,12 +15,14 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 public class WebSocketHandlerConfig implements WebSocketConfigurer {
 
     private final WebSocketHandler webSocketHandler;
+    private final HandshakeAdmissionInterceptor handshakeAdmissionInterceptor;
     private final WebSocketHttpSessionHandshakeInterceptor webSocketHttpSessionHandshakeInterceptor;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry
                 .addHandler(webSocketHandler, "/ws/v1/message")
-                .addInterceptors(webSocketHttpSessionHandshakeInterceptor);
+                //입장 제어가 먼저 실행되어야 거절된 핸드셰이크가 세션(Redis) 조회를 하지 않는다.
+                .addInterceptors(handshakeAdmissionInterceptor, webSocketHttpSessionHandshakeInterceptor);
     }
 }
@@ -0,0 +1,10 @@
+package com.chatting.backend.constant;
+
+/**
+ * 채팅방 목록 변경 종류 (NOTIFY_CHANNEL_LIST 알림에 실려 나간다)
+ */
+public enum ChannelListChange {
+    ADDED,      //채팅방이 목록에 추가됨 (생성에 포함됨, 초대코드로 참여함)
+    REMOVED,    //채팅방이 목록에서 빠짐 (탈퇴함)
+    UPDATED     //채팅방 정보가 바뀜 (다른 사람의 참여/탈퇴로 인원 수 변경)
+}
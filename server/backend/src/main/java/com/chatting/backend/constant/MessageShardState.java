@@ -0,0 +1,11 @@
+package com.chatting.backend.constant;
+
+/**
+ * 메시지 샤드 상태 (message_shard.state)
+ *
+ * JOINING: 새로 추가되어 링에는 들어갔지만, 이 샤드로 옮겨야 할 채널의 메시지를 아직 복사 중이다. (읽기는 이전 주인도 함께 본다)
+ * ACTIVE : 복사가 끝난 샤드
+ */
+public enum MessageShardState {
+    JOINING, ACTIVE
+}
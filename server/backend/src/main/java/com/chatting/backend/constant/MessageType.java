@@ -36,6 +36,12 @@ public class MessageType {
     public static final String FETCH_CONNECTIONS_REQUEST = "FETCH_CONNECTIONS_REQUEST";     //나의 연결상태 목록을 보기 위한 요청(ex. 나와 ACCEPTED 상태인 사람들의 목록을 보고싶다)
     public static final String FETCH_CONNECTIONS_RESPONSE = "FETCH_CONNECTIONS_RESPONSE";   //나의 연결상태 목록 요청한 것에 대한 응답
 
+    public static final String FETCH_MESSAGES_REQUEST = "FETCH_MESSAGES_REQUEST";       //채널의 지난 메시지(기록) 보기 요청 (최신순, 페이지 단위)
+    public static final String FETCH_MESSAGES_RESPONSE = "FETCH_MESSAGES_RESPONSE";     //지난 메시지 요청에 대한 응답
+
+    public static final String SEARCH_MESSAGES_REQUEST = "SEARCH_MESSAGES_REQUEST";     //참여 중인 채널의 메시지 검색 요청 (최신순, 페이지 단위)
+    public static final String SEARCH_MESSAGES_RESPONSE = "SEARCH_MESSAGES_RESPONSE";   //메시지 검색 요청에 대한 응답
+
     public static final String INVITE_REQUEST = "INVITE_REQUEST";           //채팅 초대 요청
     public static final String INVITE_RESPONSE = "INVITE_RESPONSE";         //채팅 초대 요청한 것에 대한 응답
 
@@ -64,7 +70,13 @@ public class MessageType {
     public static final String QUIT_RESPONSE = "QUIT_RESPONSE";           //채널 탈퇴 요청에 대한 응답
 
 
+    public static final String RESUME_REQUEST = "RESUME_REQUEST";           //재접속 후 놓친 메시지 재전송 요청 (마지막으로 받은 message_sequence를 보낸다)
+    public static final String RESUME_RESPONSE = "RESUME_RESPONSE";         //재전송을 마쳤다는 응답 (몇 개를 보냈는지, 빠짐없이 보냈는지)
+
     public static final String WRITE_MESSAGE = "WRITE_MESSAGE";             //채팅 메시지 전송
+    public static final String WRITE_MESSAGE_RESPONSE = "WRITE_MESSAGE_RESPONSE";   //메시지를 저장했다는 응답 (clientMessageId를 넣어 보낸 경우만, 저장된 message_sequence)
+
+    public static final String TYPING = "TYPING";                           //입력 중 시작/종료 이벤트 (DB에 저장하지 않는 휘발성 이벤트, 응답 없음)
 
 
 
@@ -79,6 +91,18 @@ public class MessageType {
     //내가 직접 능동적으로 가입한 상황이 아니라, 다른 사람이 채널을 create 할 때 니를 포함시킨 경우에 그걸 알려주기 위한 notification 이다.
     public static final String NOTIFY_JOIN = "NOTIFY_JOIN";
 
+    //채팅방 목록 변경분(추가/삭제/인원 수 변경) 알림. 목록을 한 번이라도 받아간 사용자에게만 보낸다.
+    public static final String NOTIFY_CHANNEL_LIST = "NOTIFY_CHANNEL_LIST";
+
+    //같은 채널을 보고 있는 참여자들의 입력 중 상태 알림. tick마다 여러 명의 상태를 한 프레임으로 모아서 보낸다.
+    public static final String NOTIFY_TYPING = "NOTIFY_TYPING";
+
+    //연결된(ACCEPTED) 사용자의 접속/접속 종료 알림. 짧은 시간 동안의 변경을 모아서 한 프레임으로 보낸다.
+    public static final String NOTIFY_PRESENCE = "NOTIFY_PRESENCE";
+
+    //접속해 있지 않은 동안 온 메시지의 채널별 요약 ("X에 새 메시지 42개"). 기기가 연결될 때 한 번 보낸다.
+    public static final String NOTIFY_INBOX_DIGEST = "NOTIFY_INBOX_DIGEST";
+
     //실시간 채팅방 내부 메시지 갱신 이벤트. (주의. 푸시 알림 개념이 아니다)
     //사용자와 참여자가 같은 채팅 채널방에 있을 시에만 보내는 메시지 상수이다.
     //사용자와 참여자가 다른 채팅 채널방에 있을 시에는 DB에 메시지만 저장하고 해당 알림은 전송되지 않는다.
@@ -9,6 +9,7 @@ public enum ResultType {
     ALREADY_JOINED("Already joined."), // 이미 가입된 경우
     OVER_LIMIT("Over limit."),         // 사용자/인원 수 제한 초과
     NOT_JOINED("Not joined."),         // 가입되지 않은 채널 입장 시도
+    DUPLICATE("Duplicate request."),   // 같은 요청(같은 클라이언트 메시지 id)이 아직 처리 중
     NOT_ALLOWED("Unconnected users included.") // 연결관계가 충족되지 않는 요청 등 비허용
     ;
 
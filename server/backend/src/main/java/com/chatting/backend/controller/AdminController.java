@@ -0,0 +1,70 @@
+package com.chatting.backend.controller;
+
+import com.chatting.backend.cache.InviteCodeCache;
+import com.chatting.backend.constant.ResultType;
+import com.chatting.backend.dto.restapi.CacheRegionStatsResponse;
+import com.chatting.backend.dto.restapi.InviteCodeCacheStatsResponse;
+import com.chatting.backend.dto.restapi.MessageShardStatsResponse;
+import com.chatting.backend.service.CacheStatisticsService;
+import com.chatting.backend.session.NodeDrainManager;
+import com.chatting.backend.shard.ShardedMessageStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 운영/모니터링용 API
+ * 관리자(ROLE_ADMIN, message.admin.usernames에 있는 사용자)만 호출할 수 있다. 일반 사용자는 로그인해도 403 (SecurityConfig)
+ */
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+    private final InviteCodeCache inviteCodeCache;
+    private final NodeDrainManager nodeDrainManager;
+    private final ShardedMessageStore shardedMessageStore;
+
+    @GetMapping("/cache/stats") //localhost:8080/api/v1/admin/cache/stats
+    public ResponseEntity<List<CacheRegionStatsResponse>> cacheStats() {
+        return ResponseEntity.ok(cacheStatisticsService.getRegionStats());
+    }
+
+    @GetMapping("/invite-code/stats") //localhost:8080/api/v1/admin/invite-code/stats
+    public ResponseEntity<List<InviteCodeCacheStatsResponse>> inviteCodeStats() {
+        return ResponseEntity.ok(inviteCodeCache.getStats());
+    }
+
+    //롤링 배포 전(pre-stop)에 호출: 새 연결을 받지 않고 기존 연결을 천천히 다른 노드로 넘긴다. (종료 시에도 자동으로 실행된다)
+    //한 번 시작하면 되돌릴 수 없다 (노드를 다시 띄워야 한다). 관리자만 호출할 수 있다.
+    @PostMapping("/drain") //localhost:8080/api/v1/admin/drain
+    public ResponseEntity<Void> drain() {
+        nodeDrainManager.drain();
+        return ResponseEntity.accepted().build();
+    }
+
+    //샤드별 메시지 수 (모든 샤드를 읽는다)
+    @GetMapping("/message-shards") //localhost:8080/api/v1/admin/message-shards
+    public ResponseEntity<List<MessageShardStatsResponse>> messageShards() {
+        return ResponseEntity.ok(shardedMessageStore.getShardStats());
+    }
+
+    //메시지 샤드 추가: 접속 정보(message.shard.datasources)를 모든 노드에 배포한 뒤 호출한다. 옮겨야 할 메시지는 백그라운드에서 복사된다.
+    @PostMapping("/message-shards/{name}") //localhost:8080/api/v1/admin/message-shards/shard-2
+    public ResponseEntity<Void> addMessageShard(@PathVariable("name") String name) {
+        ResultType result = shardedMessageStore.addShard(name);
+        return switch (result) {
+            case SUCCESS -> ResponseEntity.accepted().build();
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            default -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+        };
+    }
+}
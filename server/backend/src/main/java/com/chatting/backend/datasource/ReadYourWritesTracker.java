@@ -0,0 +1,92 @@
+package com.chatting.backend.datasource;
+
+import com.chatting.backend.dto.domain.UserId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 사용자별 "방금 쓴 것을 바로 읽기(read-your-writes)" 보장
+ *
+ * replica는 primary보다 조금 늦게 반영되므로, 채널을 만들거나 초대를 수락한 직후 목록을 읽으면 방금 쓴 내용이 안 보일 수 있다.
+ * 그래서 요청을 처리하는 스레드에 현재 사용자를 묶어 두고(bind), 그 사용자의 쓰기 트랜잭션이 커밋되면 시각을 기록한다.
+ * 그 뒤 sticky-window + 측정된 replica 지연 동안은 그 사용자의 읽기 전용 트랜잭션도 primary로 보낸다.
+ * (다른 사용자의 읽기는 계속 replica로 간다)
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final ThreadLocal<Long> currentUserId = new ThreadLocal<>();
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();    //userId → 마지막 쓰기 커밋 시각(nanoTime)
+    private final long stickyNanos;
+    private final LongSupplier nanoClock;
+    private volatile long replicaLagNanos;
+
+    @Autowired
+    public ReadYourWritesTracker(@Value("${message.datasource.replica.sticky-window:1s}") Duration stickyWindow) {
+        this(stickyWindow.toNanos(), System::nanoTime);
+    }
+
+    ReadYourWritesTracker(long stickyNanos, LongSupplier nanoClock) {
+        if (stickyNanos < 0) {
+            throw new IllegalArgumentException("Invalid read-your-writes settings.");
+        }
+        this.stickyNanos = stickyNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    //요청 처리를 시작할 때 (끝나면 반드시 clear)
+    public void bind(UserId userId) {
+        currentUserId.set(userId == null ? null : userId.id());
+    }
+
+    public void clear() {
+        currentUserId.remove();
+    }
+
+    //현재 사용자가 방금 쓴 것이 replica에 아직 반영되지 않았을 수 있으면 true
+    public boolean mustReadPrimary() {
+        Long userId = currentUserId.get();
+        if (userId == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt != null && nanoClock.getAsLong() - writtenAt < window();
+    }
+
+    //현재 사용자의 쓰기 트랜잭션이 커밋되었을 때 (ReplicationRoutingDataSource가 호출)
+    public void written() {
+        Long userId = currentUserId.get();
+        if (userId != null) {
+            lastWrites.put(userId, nanoClock.getAsLong());
+        }
+    }
+
+    //ReplicaLagMonitor가 측정한 replica 지연
+    public void replicaLag(long lagMillis) {
+        this.replicaLagNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lagMillis));
+    }
+
+    //창이 지난 기록을 지운다.
+    @Scheduled(fixedDelayString = "${message.datasource.replica.sweep-interval:1m}")
+    public void sweep() {
+        long now = nanoClock.getAsLong();
+        long window = window();
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt >= window);
+    }
+
+    int size() {
+        return lastWrites.size();
+    }
+
+    private long window() {
+        return stickyNanos + replicaLagNanos;
+    }
+}
@@ -0,0 +1,58 @@
+package com.chatting.backend.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+
+/**
+ * replica 지연 측정 (SHOW REPLICA STATUS의 Seconds_Behind_Source)
+ *
+ * - 지연이 max-lag 이하: replica 사용, 측정한 지연만큼 read-your-writes 창을 늘린다.
+ * - 지연이 max-lag 초과, 복제 중지(NULL), 조회 실패: 다시 괜찮아질 때까지 읽기 전용 트랜잭션도 primary로 보낸다.
+ * - 결과 행이 없으면 복제 설정이 없는 서버(로컬에서 replica 대신 띄운 MySQL 등)이므로 지연 0으로 본다.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final ReplicationRoutingDataSource routingDataSource;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final long maxLagMillis;
+    private volatile boolean available = true;
+
+    public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, ReplicationRoutingDataSource routingDataSource,
+                             ReadYourWritesTracker readYourWritesTracker, long maxLagMillis) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.routingDataSource = routingDataSource;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${message.datasource.replica.lag-check-interval:5s}")
+    public void check() {
+        Long lagMillis;
+        try {
+            List<Long> lags = replicaJdbcTemplate.query("SHOW REPLICA STATUS", (resultSet, rowNum) -> {
+                long seconds = resultSet.getLong("Seconds_Behind_Source");
+                return resultSet.wasNull() ? null : seconds * 1000;
+            });
+            lagMillis = lags.isEmpty() ? Long.valueOf(0) : lags.get(0);
+        } catch (Exception ex) {
+            log.warn("Replica lag check failed. cause: {}", ex.getMessage());
+            lagMillis = null;
+        }
+
+        boolean usable = lagMillis != null && lagMillis <= maxLagMillis;
+        if (usable != available) {
+            //상태가 바뀔 때만 남긴다.
+            log.warn("Replica {}. lag: {}ms", usable ? "is back" : "is not usable", lagMillis);
+            available = usable;
+        }
+        routingDataSource.replicaAvailable(usable);
+        if (lagMillis != null) {
+            readYourWritesTracker.replicaLag(lagMillis);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.chatting.backend.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica로, 나머지는 primary로 보내는 DataSource
+ *
+ * 트랜잭션이 시작될 때가 아니라 첫 쿼리에서 커넥션을 가져와야 readOnly 여부를 알 수 있으므로
+ * LazyConnectionDataSourceProxy로 감싸서 쓴다. (DataSourceConfig)
+ *
+ * primary로 가는 경우
+ * - 트랜잭션 밖이거나 쓰기 트랜잭션 (비관적 락, INSERT 등)
+ * - 현재 사용자가 방금 쓴 직후 (ReadYourWritesTracker)
+ * - replica가 너무 늦거나 복제가 멈췄을 때 (ReplicaLagMonitor → replicaAvailable(false))
+ * - replica 커넥션을 얻지 못했을 때: 이번 요청은 primary로 보내고, retry-interval 동안은 replica를 시도하지 않는다.
+ *
+ * replica로 간 트랜잭션의 Hibernate 세션은 CacheMode.GET으로 바꾼다. (2차 캐시는 읽기만 하고 넣지 않는다)
+ * 2차 캐시(channel/user region)는 모든 트랜잭션이 같이 쓰므로, 늦은 replica에서 읽은 엔티티(예: 옛 head_count)가 들어가면
+ * primary를 읽는 트랜잭션도 region이 무효화될 때까지 그 값을 보게 된다.
+ */
+@Slf4j
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final long retryNanos;
+    private final LongSupplier nanoClock;
+    private final Object writeTrackingKey = new Object();
+
+    private volatile boolean replicaAvailable = true;
+    private volatile long replicaDownUntil;
+    private volatile boolean replicaDown;
+
+    public ReplicationRoutingDataSource(DataSource primary, DataSource replica,
+                                        ReadYourWritesTracker readYourWritesTracker, long retryMillis) {
+        this(primary, replica, readYourWritesTracker, retryMillis, System::nanoTime);
+    }
+
+    ReplicationRoutingDataSource(DataSource primary, DataSource replica,
+                                 ReadYourWritesTracker readYourWritesTracker, long retryMillis, LongSupplier nanoClock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.retryNanos = TimeUnit.MILLISECONDS.toNanos(retryMillis);
+        this.nanoClock = nanoClock;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    //ReplicaLagMonitor: 지연이 허용 범위 안인지
+    public void replicaAvailable(boolean available) {
+        this.replicaAvailable = available;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return Route.PRIMARY;
+        }
+        if (!replicaAvailable || isReplicaDown() || readYourWritesTracker.mustReadPrimary()) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target != replica) {
+            return target.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            readOnlySecondLevelCache();
+            return connection;
+        } catch (SQLException ex) {
+            replicaDownUntil = nanoClock.getAsLong() + retryNanos;
+            replicaDown = true;
+            log.warn("Replica connection failed. Falling back to primary. cause: {}", ex.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    //현재 트랜잭션의 Hibernate 세션이 2차 캐시에 넣지 않게 하고, 트랜잭션이 끝나면 원래 CacheMode로 돌린다.
+    private void readOnlySecondLevelCache() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (!(resource instanceof EntityManagerHolder holder)) {
+                continue;
+            }
+            Session session = holder.getEntityManager().unwrap(Session.class);
+            CacheMode previous = session.getCacheMode();
+            if (previous == CacheMode.GET || previous == CacheMode.IGNORE) {
+                continue;
+            }
+            session.setCacheMode(CacheMode.GET);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (session.isOpen()) {
+                        session.setCacheMode(previous);
+                    }
+                }
+            });
+        }
+    }
+
+    private boolean isReplicaDown() {
+        if (replicaDown && nanoClock.getAsLong() - replicaDownUntil >= 0) {
+            replicaDown = false;
+        }
+        return replicaDown;
+    }
+
+    //쓰기 트랜잭션이면 커밋된 뒤 현재 사용자의 쓰기 시각을 기록한다. (트랜잭션마다 한 번만 등록)
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(writeTrackingKey)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writeTrackingKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesTracker.written();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeTrackingKey);
+            }
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package com.chatting.backend.dto.domain;
+
+import java.util.List;
+
+/**
+ * 사용자 한 명의 채팅방 목록 스냅샷 (불변)
+ * @param version  목록이 바뀔 때마다 커지는 버전. 클라이언트는 이 값을 들고 있다가 다시 요청할 때 보낸다.
+ * @param channels 참여 중인 채팅방 목록
+ */
+public record ChannelListSnapshot(long version, List<Channel> channels) {
+}
@@ -0,0 +1,8 @@
+package com.chatting.backend.dto.domain;
+
+/**
+ * 받은 메시지함 요약의 채널 한 개 (InboxDigestNotification 한 항목)
+ * title은 채팅방 목록에서 찾지 못하면 null이다.
+ */
+public record InboxDigest(ChannelId channelId, String title, int messageCount, long lastMessageSequence) {
+}
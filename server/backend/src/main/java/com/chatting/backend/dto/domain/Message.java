@@ -1,4 +1,5 @@
 package com.chatting.backend.dto.domain;
 
-public record Message(String username, String content) {
+/** 메시지 기록 한 건 (FetchMessagesResponse) */
+public record Message(long messageSequence, String username, String content) {
 }
@@ -0,0 +1,7 @@
+package com.chatting.backend.dto.domain;
+
+/**
+ * 연결된 사용자의 접속 상태 (PresenceNotification 한 항목)
+ */
+public record Presence(String username, boolean online) {
+}
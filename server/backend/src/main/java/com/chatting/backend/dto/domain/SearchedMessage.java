@@ -0,0 +1,5 @@
+package com.chatting.backend.dto.domain;
+
+/** 메시지 검색 결과 한 건 (SearchMessagesResponse) */
+public record SearchedMessage(ChannelId channelId, long messageSequence, String username, String content) {
+}
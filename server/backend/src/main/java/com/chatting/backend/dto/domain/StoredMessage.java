@@ -0,0 +1,8 @@
+package com.chatting.backend.dto.domain;
+
+/**
+ * 샤드(channel_message)에 저장된 메시지 한 건
+ * 보낸 시각은 messageSequence(Snowflake id)에 들어 있다. (SnowflakeIdGenerator.timestampMillis)
+ */
+public record StoredMessage(long messageSequence, ChannelId channelId, UserId userId, String content) {
+}
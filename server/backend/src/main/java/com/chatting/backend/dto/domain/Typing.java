@@ -0,0 +1,7 @@
+package com.chatting.backend.dto.domain;
+
+/**
+ * 채널 참여자 한 명의 입력 중 상태 (TypingNotification 한 항목)
+ */
+public record Typing(ChannelId channelId, String username, boolean typing) {
+}
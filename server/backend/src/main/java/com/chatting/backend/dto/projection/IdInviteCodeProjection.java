@@ -0,0 +1,10 @@
+package com.chatting.backend.dto.projection;
+
+/**
+ * id(userId 또는 channelId)와 초대코드 두 개 가져오기 (초대코드 필터 재구축용)
+ */
+public interface IdInviteCodeProjection {
+
+    Long getId();
+    String getInviteCode();
+}
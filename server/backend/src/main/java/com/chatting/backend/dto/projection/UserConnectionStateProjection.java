@@ -0,0 +1,18 @@
+package com.chatting.backend.dto.projection;
+
+/**
+ * 초대/수락/거절/연결끊기 한 번에 필요한 관계 정보를 한 쿼리로 가져오기 위한 projection
+ *
+ * - partner: 상대방 (username 또는 초대코드로 찾은 사용자)
+ * - requester: 요청을 보낸 나 자신 (응답/알림에 내 username이 필요하고, 초대 시 내 연결 수를 확인해야 함)
+ * - status, inviterUserId: 두 사람 사이의 관계. 관계가 아직 없으면 null
+ */
+public interface UserConnectionStateProjection {
+
+    Long getPartnerUserId();
+    String getPartnerUsername();
+    String getRequesterUsername();
+    Integer getRequesterConnectionCount();
+    String getStatus();
+    Long getInviterUserId();
+}
@@ -0,0 +1,10 @@
+package com.chatting.backend.dto.projection;
+
+/**
+ * userId와 username 두 개 가져오기 (연결 목록 페이지 조회용)
+ */
+public interface UserIdUsernameProjection {
+
+    Long getUserId();
+    String getUsername();
+}
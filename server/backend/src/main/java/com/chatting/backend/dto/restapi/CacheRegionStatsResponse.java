@@ -0,0 +1,12 @@
+package com.chatting.backend.dto.restapi;
+
+/**
+ * Hibernate 2차 캐시 region별 통계 응답 DTO
+ * @param region    region 이름 (channel, user, default-query-results-region ...)
+ * @param hitCount  캐시에서 찾은 횟수
+ * @param missCount 캐시에 없어서 DB를 읽은 횟수
+ * @param putCount  캐시에 저장한 횟수
+ * @param hitRate   hitCount / (hitCount + missCount), 조회가 없었으면 0
+ */
+public record CacheRegionStatsResponse(String region, long hitCount, long missCount, long putCount, double hitRate) {
+}
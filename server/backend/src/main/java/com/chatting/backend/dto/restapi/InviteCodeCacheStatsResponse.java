@@ -0,0 +1,25 @@
+package com.chatting.backend.dto.restapi;
+
+/**
+ * 초대코드 해석 캐시(InviteCodeCache) 통계 응답 DTO
+ * @param kind              user 또는 channel
+ * @param hitCount          positive 캐시에서 찾은 횟수
+ * @param missCount         DB를 읽은 횟수 (positive 캐시에 없고 필터도 통과)
+ * @param rejectCount       Bloom filter가 "없음"으로 판정해서 DB 없이 거절한 횟수
+ * @param falsePositiveCount 필터는 통과했지만 DB에 없던 횟수
+ * @param hitRate           DB 없이 끝난 비율: (hitCount + rejectCount) / 전체 조회, 조회가 없었으면 0
+ * @param falsePositiveRate 없는 코드 중 필터를 통과한 비율: falsePositiveCount / (falsePositiveCount + rejectCount)
+ * @param filterEntries     현재 필터에 들어간 코드 수 (재구축 전이면 0)
+ * @param filterBits        현재 필터의 비트 수 (재구축 전이면 0)
+ */
+public record InviteCodeCacheStatsResponse(
+        String kind,
+        long hitCount,
+        long missCount,
+        long rejectCount,
+        long falsePositiveCount,
+        double hitRate,
+        double falsePositiveRate,
+        long filterEntries,
+        long filterBits) {
+}
@@ -0,0 +1,12 @@
+package com.chatting.backend.dto.restapi;
+
+import com.chatting.backend.constant.MessageShardState;
+
+/**
+ * 메시지 샤드별 통계 응답 DTO
+ * @param shard        샤드 이름 (message.shard.datasources의 이름)
+ * @param state        JOINING(메시지 복사 중) / ACTIVE
+ * @param messageCount 샤드에 저장된 메시지 수
+ */
+public record MessageShardStatsResponse(String shard, MessageShardState state, long messageCount) {
+}
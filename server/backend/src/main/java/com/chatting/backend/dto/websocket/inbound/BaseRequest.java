@@ -10,6 +10,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
         @JsonSubTypes.Type(value = FetchChannelInviteCodeRequest.class, name = MessageType.FETCH_CHANNEL_INVITECODE_REQUEST),
         @JsonSubTypes.Type(value = FetchChannelsListRequest.class, name = MessageType.FETCH_CHANNELS_LIST_REQUEST),
         @JsonSubTypes.Type(value = FetchConnectionsRequest.class, name = MessageType.FETCH_CONNECTIONS_REQUEST),
+        @JsonSubTypes.Type(value = FetchMessagesRequest.class, name = MessageType.FETCH_MESSAGES_REQUEST),
+        @JsonSubTypes.Type(value = SearchMessagesRequest.class, name = MessageType.SEARCH_MESSAGES_REQUEST),
         @JsonSubTypes.Type(value = InviteRequest.class, name = MessageType.INVITE_REQUEST),
         @JsonSubTypes.Type(value = AcceptRequest.class, name = MessageType.ACCEPT_REQUEST),
         @JsonSubTypes.Type(value = RejectRequest.class, name = MessageType.REJECT_REQUEST),
@@ -19,7 +21,9 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
         @JsonSubTypes.Type(value = JoinRequest.class, name = MessageType.JOIN_REQUEST),
         @JsonSubTypes.Type(value = LeaveRequest.class, name = MessageType.LEAVE_REQUEST),
         @JsonSubTypes.Type(value = QuitRequest.class, name = MessageType.QUIT_REQUEST),
+        @JsonSubTypes.Type(value = ResumeRequest.class, name = MessageType.RESUME_REQUEST),
         @JsonSubTypes.Type(value = WriteMessage.class, name = MessageType.WRITE_MESSAGE),
+        @JsonSubTypes.Type(value = TypingRequest.class, name = MessageType.TYPING),
         @JsonSubTypes.Type(value = KeepAlive.class, name = MessageType.KEEP_ALIVE)
 })
 public abstract class BaseRequest {
@@ -12,14 +12,17 @@ public class CreateRequest extends BaseRequest{
     //처음에 채널 만들 때 참여시킬 상대방 이름
     private final String title;                         // 채널명
     private final List<String> participantUsernames;     // 단톡방 기능도 추가되어 List
+    private final boolean broadcast;                    // 대규모(공지) 채널 여부 (없으면 false)
 
     @JsonCreator
     public CreateRequest(
             @JsonProperty("title") String title,
-            @JsonProperty("participantUsernames") List<String> participantUsernames){
+            @JsonProperty("participantUsernames") List<String> participantUsernames,
+            @JsonProperty("broadcast") boolean broadcast){
         super(MessageType.CREATE_REQUEST);
         this.title = title;
-        this.participantUsernames = participantUsernames;
+        this.participantUsernames = participantUsernames == null ? List.of() : participantUsernames;
+        this.broadcast = broadcast;
     }
 
     //Getter
@@ -30,4 +33,8 @@ public class CreateRequest extends BaseRequest{
     public List<String> getParticipantUsernames() {
         return participantUsernames;
     }
+
+    public boolean isBroadcast() {
+        return broadcast;
+    }
 }
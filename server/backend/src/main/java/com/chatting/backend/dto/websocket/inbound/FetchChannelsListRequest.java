@@ -2,12 +2,28 @@ package com.chatting.backend.dto.websocket.inbound;
 
 import com.chatting.backend.constant.MessageType;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+/**
+ * 채팅방 목록 요청
+ *
+ * 클라이언트는 마지막으로 받은 목록의 version을 같이 보낸다. (처음이면 null)
+ * 서버의 목록이 그 버전에서 바뀌지 않았으면 목록 없이 "그대로"라는 응답만 내려간다.
+ */
 public class FetchChannelsListRequest extends BaseRequest{
 
+    //클라이언트가 가지고 있는 목록의 버전 (없으면 null)
+    private final Long version;
+
     @JsonCreator
-    public FetchChannelsListRequest() {
+    public FetchChannelsListRequest(@JsonProperty("version") Long version) {
         super(MessageType.FETCH_CHANNELS_LIST_REQUEST);
 
+        this.version = version;
+    }
+
+    //Getter
+    public Long getVersion() {
+        return version;
     }
 }
@@ -9,6 +9,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * 이 프로토콜 하나로 두 가지를 해결할 수 있다.
  * 1. 현재 대기 목록
  * 2. 연결된 목록
+ *
+ * 목록은 페이지 단위로 내려간다. 첫 페이지는 cursor 없이 요청하고,
+ * 다음 페이지는 이전 응답의 nextCursor를 그대로 넣어서 요청한다.
  */
 public class FetchConnectionsRequest extends BaseRequest{
 
@@ -16,15 +19,25 @@ public class FetchConnectionsRequest extends BaseRequest{
     //내거 원하는 연결 상태에 대한 목록을 보고 싶은 것임.
     private final UserConnectionStatus status;
 
+    //이전 페이지의 마지막 위치 (첫 페이지는 null)
+    private final Long cursor;
+
     @JsonCreator
-    public FetchConnectionsRequest(@JsonProperty("status") UserConnectionStatus status) {
+    public FetchConnectionsRequest(
+            @JsonProperty("status") UserConnectionStatus status,
+            @JsonProperty("cursor") Long cursor) {
         super(MessageType.FETCH_CONNECTIONS_REQUEST);
 
         this.status = status;
+        this.cursor = cursor;
     }
 
     //Getter
     public UserConnectionStatus getStatus() {
         return status;
     }
+
+    public Long getCursor() {
+        return cursor;
+    }
 }
@@ -0,0 +1,39 @@
+package com.chatting.backend.dto.websocket.inbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 채널의 지난 메시지(기록) 요청
+ *
+ * 최신 메시지부터 페이지 단위로 내려간다. 첫 페이지는 cursor 없이 요청하고,
+ * 더 이전 메시지는 이전 응답의 nextCursor를 그대로 넣어서 요청한다.
+ */
+public class FetchMessagesRequest extends BaseRequest {
+
+    private final ChannelId channelId;
+
+    //이 sequence보다 앞선 메시지부터 (첫 페이지는 null)
+    private final Long cursor;
+
+    @JsonCreator
+    public FetchMessagesRequest(
+            @JsonProperty("channelId") ChannelId channelId,
+            @JsonProperty("cursor") Long cursor) {
+        super(MessageType.FETCH_MESSAGES_REQUEST);
+
+        this.channelId = channelId;
+        this.cursor = cursor;
+    }
+
+    //Getter
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public Long getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,28 @@
+package com.chatting.backend.dto.websocket.inbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 재접속 후 놓친 메시지를 다시 보내달라는 요청
+ *
+ * message_sequence는 모든 채널에서 하나씩 증가하므로, 채널마다 따로 보내지 않고 마지막으로 받은 값 하나만 보낸다.
+ */
+public class ResumeRequest extends BaseRequest {
+
+    //마지막으로 받은 MessageNotification의 messageSequence
+    private final Long lastMessageSequence;
+
+    @JsonCreator
+    public ResumeRequest(@JsonProperty("lastMessageSequence") Long lastMessageSequence) {
+        super(MessageType.RESUME_REQUEST);
+
+        this.lastMessageSequence = lastMessageSequence;
+    }
+
+    //Getter
+    public Long getLastMessageSequence() {
+        return lastMessageSequence;
+    }
+}
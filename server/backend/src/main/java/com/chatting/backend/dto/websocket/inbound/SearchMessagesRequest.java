@@ -0,0 +1,48 @@
+package com.chatting.backend.dto.websocket.inbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 메시지 검색 요청
+ *
+ * 참여 중인 채널의 메시지에서 검색어의 단어가 모두 들어 있는 메시지를 최신순으로 찾는다.
+ * 더 이전 결과는 이전 응답의 nextCursor를 그대로 넣어서 요청한다.
+ */
+public class SearchMessagesRequest extends BaseRequest {
+
+    private final String query;
+
+    //이 채널에서만 찾는다 (null이면 참여 중인 모든 채널)
+    private final ChannelId channelId;
+
+    //이 sequence보다 앞선 메시지부터 (첫 페이지는 null)
+    private final Long cursor;
+
+    @JsonCreator
+    public SearchMessagesRequest(
+            @JsonProperty("query") String query,
+            @JsonProperty("channelId") ChannelId channelId,
+            @JsonProperty("cursor") Long cursor) {
+        super(MessageType.SEARCH_MESSAGES_REQUEST);
+
+        this.query = query;
+        this.channelId = channelId;
+        this.cursor = cursor;
+    }
+
+    //Getter
+    public String getQuery() {
+        return query;
+    }
+
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public Long getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.chatting.backend.dto.websocket.inbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 입력 중 시작(typing=true)/종료(typing=false) 이벤트
+ * WriteMessage와 달리 저장하지 않고, 응답도 보내지 않는다.
+ */
+public class TypingRequest extends BaseRequest {
+
+    private final ChannelId channelId;
+    private final boolean typing;
+
+    @JsonCreator
+    public TypingRequest(@JsonProperty("channelId") ChannelId channelId, @JsonProperty("typing") boolean typing) {
+        super(MessageType.TYPING);
+        this.channelId = channelId;
+        this.typing = typing;
+    }
+
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public boolean isTyping() {
+        return typing;
+    }
+}
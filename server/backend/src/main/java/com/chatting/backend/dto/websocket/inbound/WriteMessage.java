@@ -11,12 +11,22 @@ public class WriteMessage extends BaseRequest {
     private final ChannelId channelId;
     private final String content;
 
+    //클라이언트가 메시지마다 만든 id (전송을 재시도해도 같은 값). 있으면 중복 저장하지 않고 WriteMessageResponse로 응답한다.
+    private final String clientMessageId;
+
+    public WriteMessage(ChannelId channelId, String content) {
+        this(channelId, content, null);
+    }
+
     @JsonCreator
     public WriteMessage(
-            @JsonProperty("channelId") ChannelId channelId, @JsonProperty("content") String content) {
+            @JsonProperty("channelId") ChannelId channelId,
+            @JsonProperty("content") String content,
+            @JsonProperty("clientMessageId") String clientMessageId) {
         super(MessageType.WRITE_MESSAGE);
         this.channelId = channelId;
         this.content = content;
+        this.clientMessageId = clientMessageId;
     }
 
     public ChannelId getChannelId() {
@@ -26,4 +36,8 @@ public class WriteMessage extends BaseRequest {
     public String getContent() {
         return content;
     }
+
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.ChannelListChange;
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.Channel;
+
+/**
+ * 채팅방 목록 변경분 알림 (create/join/quit 커밋 후 목록 스냅샷이 있는 사용자에게만 보낸다)
+ *
+ * 클라이언트는 자기 목록 버전이 previousVersion과 같으면 변경분을 적용하고 version으로 올린다.
+ * 다르면(중간 알림을 놓쳤으면) FetchChannelsListRequest로 목록을 다시 받는다.
+ */
+public class ChannelListNotification extends BaseMessage{
+
+    private final ChannelListChange change;
+    private final Channel channel;          //REMOVED면 목록에서 빠진 채널
+    private final long previousVersion;
+    private final long version;
+
+    public ChannelListNotification(ChannelListChange change, Channel channel, long previousVersion, long version) {
+        super(MessageType.NOTIFY_CHANNEL_LIST);
+        this.change = change;
+        this.channel = channel;
+        this.previousVersion = previousVersion;
+        this.version = version;
+    }
+
+    //Getter
+    public ChannelListChange getChange() {
+        return change;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -7,15 +7,32 @@ import java.util.List;
 
 public class FetchChannelsListResponse extends BaseMessage{
 
+    //modified가 false면 null (클라이언트가 가진 목록을 그대로 쓰면 된다)
     private final List<Channel> channels;
 
-    public FetchChannelsListResponse(List<Channel> channels) {
+    //이 목록의 버전. 다음 요청과 NOTIFY_CHANNEL_LIST 알림 적용에 쓴다.
+    private final long version;
+
+    //요청한 버전 이후 목록이 바뀌었는지
+    private final boolean modified;
+
+    public FetchChannelsListResponse(List<Channel> channels, long version, boolean modified) {
         super(MessageType.FETCH_CHANNELS_LIST_RESPONSE);
         this.channels = channels;
+        this.version = version;
+        this.modified = modified;
     }
 
     //Getter
     public List<Channel> getChannels() {
         return channels;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
 }
@@ -11,13 +11,21 @@ public class FetchConnectionsResponse extends BaseMessage{
     //Connection: username, status
     private final List<Connection> connections;
 
-    public FetchConnectionsResponse(List<Connection> connections){
+    //다음 페이지를 요청할 때 넣을 cursor (마지막 페이지면 null)
+    private final Long nextCursor;
+
+    public FetchConnectionsResponse(List<Connection> connections, Long nextCursor){
         super(MessageType.FETCH_CONNECTIONS_RESPONSE);
         this.connections = connections;
+        this.nextCursor = nextCursor;
     }
 
     //Getter
     public List<Connection> getConnections() {
         return connections;
     }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
 }
@@ -0,0 +1,38 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.Message;
+
+import java.util.List;
+
+public class FetchMessagesResponse extends BaseMessage {
+
+    private final ChannelId channelId;
+
+    //최신순 (messageSequence 내림차순)
+    private final List<Message> messages;
+
+    //더 이전 메시지를 요청할 때 넣을 cursor (더 없으면 null)
+    private final Long nextCursor;
+
+    public FetchMessagesResponse(ChannelId channelId, List<Message> messages, Long nextCursor) {
+        super(MessageType.FETCH_MESSAGES_RESPONSE);
+        this.channelId = channelId;
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    //Getter
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,44 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.InboxDigest;
+
+import java.util.List;
+
+/**
+ * 접속해 있지 않은 동안 온 메시지의 채널별 요약 (기기가 연결될 때 한 번, 메시지마다 프레임을 보내지 않는다)
+ * channels는 최근 메시지가 온 채널부터 digest-channels개까지이고, channelCount/messageCount는 전체 수다.
+ */
+public class InboxDigestNotification extends BaseMessage {
+
+    private final List<InboxDigest> channels;
+    private final int channelCount;
+    private final int messageCount;
+    private final boolean complete;     //false면 받은 메시지함 용량을 넘어 버려진 항목이 있다 (실제로는 더 많다)
+
+    public InboxDigestNotification(List<InboxDigest> channels, int channelCount, int messageCount, boolean complete) {
+        super(MessageType.NOTIFY_INBOX_DIGEST);
+
+        this.channels = channels;
+        this.channelCount = channelCount;
+        this.messageCount = messageCount;
+        this.complete = complete;
+    }
+
+    //getter
+    public List<InboxDigest> getChannels() {
+        return channels;
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
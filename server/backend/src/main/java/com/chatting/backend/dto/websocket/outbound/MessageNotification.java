@@ -9,12 +9,14 @@ public class MessageNotification extends BaseMessage {
 
     //어떤 사용자 어떤 채널에 어떤 메시지를 보냈는지에 대한 알림
     private final ChannelId channelId;
+    private final Long messageSequence;   //message 테이블의 message_sequence. 클라이언트는 마지막으로 받은 값을 재접속(resume) 때 보낸다.
     private final String username;
     private final String content;
 
-    public MessageNotification(ChannelId channelId,String username, String content) {
+    public MessageNotification(ChannelId channelId, Long messageSequence, String username, String content) {
         super(MessageType.NOTIFY_MESSAGE);
         this.channelId = channelId;
+        this.messageSequence = messageSequence;
         this.username = username;
         this.content = content;
     }
@@ -23,6 +25,10 @@ public class MessageNotification extends BaseMessage {
         return channelId;
     }
 
+    public Long getMessageSequence() {
+        return messageSequence;
+    }
+
     public String getUsername() {
         return username;
     }
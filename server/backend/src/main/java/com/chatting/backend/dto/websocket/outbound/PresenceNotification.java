@@ -0,0 +1,26 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.Presence;
+
+import java.util.List;
+
+/**
+ * 나와 ACCEPTED 관계인 사용자들의 접속 상태 변경 알림
+ * coalesce-window 동안 바뀐 상태를 모아서(사용자마다 마지막 상태 하나) 한 프레임으로 보낸다.
+ */
+public class PresenceNotification extends BaseMessage {
+
+    private final List<Presence> presences;
+
+    public PresenceNotification(List<Presence> presences) {
+        super(MessageType.NOTIFY_PRESENCE);
+
+        this.presences = presences;
+    }
+
+    //getter
+    public List<Presence> getPresences() {
+        return presences;
+    }
+}
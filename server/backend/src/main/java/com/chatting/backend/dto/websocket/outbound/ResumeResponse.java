@@ -0,0 +1,27 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.MessageType;
+
+/**
+ * 놓친 메시지 재전송을 마쳤다는 응답 (재전송한 MessageNotification들 뒤에 보낸다)
+ */
+public class ResumeResponse extends BaseMessage {
+
+    private final int replayedCount;    //다시 보낸 메시지 수
+    private final boolean complete;     //false면 재전송 버퍼에서 이미 버려진 메시지가 있을 수 있다
+
+    public ResumeResponse(int replayedCount, boolean complete) {
+        super(MessageType.RESUME_RESPONSE);
+        this.replayedCount = replayedCount;
+        this.complete = complete;
+    }
+
+    //Getter
+    public int getReplayedCount() {
+        return replayedCount;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
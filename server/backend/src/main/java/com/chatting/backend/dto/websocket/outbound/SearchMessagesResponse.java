@@ -0,0 +1,37 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.SearchedMessage;
+
+import java.util.List;
+
+public class SearchMessagesResponse extends BaseMessage {
+
+    private final String query;
+
+    //최신순 (messageSequence 내림차순)
+    private final List<SearchedMessage> messages;
+
+    //더 이전 결과를 요청할 때 넣을 cursor (더 없으면 null)
+    private final Long nextCursor;
+
+    public SearchMessagesResponse(String query, List<SearchedMessage> messages, Long nextCursor) {
+        super(MessageType.SEARCH_MESSAGES_RESPONSE);
+        this.query = query;
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    //Getter
+    public String getQuery() {
+        return query;
+    }
+
+    public List<SearchedMessage> getMessages() {
+        return messages;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
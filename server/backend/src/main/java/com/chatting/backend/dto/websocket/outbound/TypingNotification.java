@@ -0,0 +1,25 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.Typing;
+
+import java.util.List;
+
+/**
+ * 같은 채널을 보고 있는 참여자들의 입력 중 상태 알림 (tick마다 받는 사람당 한 프레임)
+ */
+public class TypingNotification extends BaseMessage {
+
+    private final List<Typing> typings;
+
+    public TypingNotification(List<Typing> typings) {
+        super(MessageType.NOTIFY_TYPING);
+
+        this.typings = typings;
+    }
+
+    //getter
+    public List<Typing> getTypings() {
+        return typings;
+    }
+}
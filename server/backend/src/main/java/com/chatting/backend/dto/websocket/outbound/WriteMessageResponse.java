@@ -0,0 +1,37 @@
+package com.chatting.backend.dto.websocket.outbound;
+
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.dto.domain.ChannelId;
+
+/**
+ * 메시지를 저장했다는 응답 (보낸 사람에게만, WriteMessage에 clientMessageId를 넣은 경우만)
+ *
+ * 재시도한 WriteMessage에도 처음 저장한 messageSequence로 같은 응답을 보낸다.
+ * 클라이언트는 이 응답을 받을 때까지 같은 clientMessageId로 다시 보내도 된다.
+ */
+public class WriteMessageResponse extends BaseMessage {
+
+    private final ChannelId channelId;
+    private final String clientMessageId;
+    private final long messageSequence;    //서버가 매긴 순번
+
+    public WriteMessageResponse(ChannelId channelId, String clientMessageId, long messageSequence) {
+        super(MessageType.WRITE_MESSAGE_RESPONSE);
+        this.channelId = channelId;
+        this.clientMessageId = clientMessageId;
+        this.messageSequence = messageSequence;
+    }
+
+    //Getter
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
+
+    public long getMessageSequence() {
+        return messageSequence;
+    }
+}
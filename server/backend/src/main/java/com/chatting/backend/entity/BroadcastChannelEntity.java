@@ -0,0 +1,70 @@
+package com.chatting.backend.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Objects;
+
+/**
+ * 대규모(broadcast) 채널 표시
+ *
+ * channel 테이블에 컬럼을 추가하지 않고 별도 테이블로 둔다. (여기에 row가 있는 channel만 broadcast 채널)
+ * broadcast 채널은 인원 제한이 ChannelService.LIMIT_BROADCAST_HEAD_COUNT 이고,
+ * 메시지는 현재 보고 있는 사람(Redis)이 아니라 이 노드에 접속한 참여자 전체에게 샤드 단위로 전달된다.
+ */
+@Entity
+@Table(name = "broadcast_channel")
+public class BroadcastChannelEntity extends BaseEntity implements Persistable<Long> {
+
+    @Id
+    @Column(name = "channel_id")
+    private Long channelId;
+
+    //new로 만든 객체는 true (직접 넣은 id라서 merge 전 SELECT가 나가지 않도록)
+    @Transient
+    private boolean isNew = true;
+
+    public BroadcastChannelEntity() {
+    }
+
+    public BroadcastChannelEntity(Long channelId) {
+        this.channelId = channelId;
+    }
+
+    public Long getChannelId() {
+        return channelId;
+    }
+
+    @Override
+    public Long getId() {
+        return channelId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        BroadcastChannelEntity that = (BroadcastChannelEntity) o;
+        return Objects.equals(channelId, that.channelId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(channelId);
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastChannelEntity{channelId=%d}".formatted(channelId);
+    }
+}
@@ -1,12 +1,22 @@
 package com.chatting.backend.entity;
 
+import com.chatting.backend.config.HibernateCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * 채널 제목/초대코드는 거의 바뀌지 않으므로 2차 캐시(channel region)에 둔다.
+ * head_count는 join/quit 때 조건부 UPDATE(ChannelHeadCountRepository)로 바뀌고, 커밋된 뒤 그 채널의 캐시 엔트리만 빠진다.
+ * (수정 중인 엔트리는 soft-lock이 걸려 다른 트랜잭션은 캐시 대신 DB를 읽는다)
+ */
 @Entity
 @Table(name = "channel")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.CHANNEL_REGION)
 public class ChannelEntity extends BaseEntity {
 
     @Id
@@ -26,14 +36,14 @@ public class ChannelEntity extends BaseEntity {
     public ChannelEntity() {
     }
 
-    public ChannelEntity(String title, int headCound) {
+    public ChannelEntity(String title, int headCount) {
         this.title = title;
         this.headCount = headCount;
         this.inviteCode = UUID.randomUUID().toString().replace("-", "");
     }
 
     //Setter
-    public void setHeadCound(int headCound) {
+    public void setHeadCound(int headCount) {
         this.headCount = headCount;
     }
 
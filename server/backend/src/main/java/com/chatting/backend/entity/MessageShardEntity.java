@@ -0,0 +1,84 @@
+package com.chatting.backend.entity;
+
+import com.chatting.backend.constant.MessageShardState;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Objects;
+
+/**
+ * 메시지 샤드 목록 (primary에 둔다)
+ *
+ * 링에 어떤 샤드가 들어 있는지는 각 노드의 설정이 아니라 이 테이블이 정한다.
+ * 모든 노드가 주기적으로 읽어서 같은 링을 쓰고, 샤드 추가도 여기에 JOINING row를 넣는 것으로 시작된다.
+ * (접속 정보는 각 노드의 message.shard.datasources 설정에 있어야 한다)
+ */
+@Entity
+@Table(name = "message_shard")
+public class MessageShardEntity extends BaseEntity implements Persistable<String> {
+
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false)
+    private MessageShardState state;
+
+    //new로 만든 객체는 true (직접 넣은 id라서 merge 전 SELECT가 나가지 않도록)
+    @Transient
+    private boolean isNew = true;
+
+    public MessageShardEntity() {
+    }
+
+    public MessageShardEntity(String name, MessageShardState state) {
+        this.name = name;
+        this.state = state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MessageShardState getState() {
+        return state;
+    }
+
+    public void setState(MessageShardState state) {
+        this.state = state;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        MessageShardEntity that = (MessageShardEntity) o;
+        return Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
+
+    @Override
+    public String toString() {
+        return "MessageShardEntity{name='%s', state=%s}".formatted(name, state);
+    }
+}
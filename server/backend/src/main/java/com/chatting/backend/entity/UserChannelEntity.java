@@ -1,6 +1,7 @@
 package com.chatting.backend.entity;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.util.Objects;
 
@@ -9,11 +10,16 @@ import java.util.Objects;
  * 1. @EmbeddedId 또는 @IdClass
  * 2. public의 no-args constructor
  * 3. serializable을 상속 받기4. equals(), hashCode() Override
+ *
+ * Persistable을 구현하는 이유:
+ * 복합키는 직접 값을 넣어서 저장하기 때문에 Spring Data는 id가 null이 아니면 "이미 있는 엔티티"로 보고 merge()를 호출한다.
+ * merge()는 INSERT 전에 행마다 SELECT를 한 번씩 날리므로, 100명 채널을 만들면 SELECT 100번 + INSERT 100번이 된다.
+ * isNew()로 "새로 만든 객체"임을 직접 알려주면 persist()가 호출되어 SELECT 없이 INSERT만 (배치로) 나간다.
  */
 @Entity
 @Table(name = "channel_user")
 @IdClass(UserChannelId.class)
-public class UserChannelEntity extends BaseEntity {
+public class UserChannelEntity extends BaseEntity implements Persistable<UserChannelId> {
 
     @Id
     @Column(name = "user_id", nullable = false)
@@ -26,6 +32,10 @@ public class UserChannelEntity extends BaseEntity {
     @Column(name = "last_read_msg_seq", nullable = false)
     private long lastReadMsgSeq;
 
+    //new로 만든 객체는 true, DB에서 조회했거나 저장이 끝난 객체는 false (컬럼 아님)
+    @Transient
+    private boolean isNew = true;
+
     public UserChannelEntity() {
     }
 
@@ -58,6 +68,23 @@ public class UserChannelEntity extends BaseEntity {
         return lastReadMsgSeq;
     }
 
+    @Override
+    public UserChannelId getId() {
+        return new UserChannelId(userId, channelId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    //조회(@PostLoad)되거나 저장(@PostPersist)된 뒤에는 더 이상 새 엔티티가 아니다.
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) return true;
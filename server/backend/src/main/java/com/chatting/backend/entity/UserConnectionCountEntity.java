@@ -0,0 +1,80 @@
+package com.chatting.backend.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Objects;
+
+/**
+ * 사용자별 연결(친구) 수 카운터
+ *
+ * 예전에는 message_user.connection_count를 SELECT ... FOR UPDATE로 잠그고 +1/-1 했다.
+ * 그러면 인기 사용자가 수락을 받을 때마다 message_user row에 락이 몰리고,
+ * message_user는 2차 캐시(user region)에 올라가 있어서 카운트가 바뀔 때마다 캐시까지 갱신해야 했다.
+ *
+ * 카운트만 별도 테이블로 빼고, 조건부 UPDATE(connection_count < limit)로 검사 + 증가를 한 문장에 처리한다.
+ * (2차 캐시 대상이 아니므로 bulk update를 해도 user region은 무효화되지 않는다)
+ */
+@Entity
+@Table(name = "user_connection_count")
+public class UserConnectionCountEntity implements Persistable<Long> {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "connection_count", nullable = false)
+    private int connectionCount;
+
+    //new로 만든 객체는 true (직접 넣은 id라서 merge 전 SELECT가 나가지 않도록)
+    @Transient
+    private boolean isNew = true;
+
+    public UserConnectionCountEntity() {
+    }
+
+    public UserConnectionCountEntity(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    @Override
+    public Long getId() {
+        return userId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        UserConnectionCountEntity that = (UserConnectionCountEntity) o;
+        return Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(userId);
+    }
+
+    @Override
+    public String toString() {
+        return "UserConnectionCountEntity{userId=%d, connectionCount=%d}".formatted(userId, connectionCount);
+    }
+}
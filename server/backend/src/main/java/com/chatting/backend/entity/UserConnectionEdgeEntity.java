@@ -0,0 +1,104 @@
+package com.chatting.backend.entity;
+
+import com.chatting.backend.constant.UserConnectionStatus;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Objects;
+
+/**
+ * 연결 목록 조회용 인접 리스트(adjacency) 테이블
+ *
+ * user_connection은 두 사람의 관계를 (작은 id, 큰 id) 한 행에 저장하기 때문에,
+ * "내 친구 목록"을 보려면 내가 partner_a인 행과 partner_b인 행을 따로 조회해서 합쳐야 했다.
+ * 여기서는 같은 관계를 방향별로 두 행((나, 상대), (상대, 나))으로 복제해 두고,
+ * (user_id, status, partner_user_id) 인덱스 하나로 목록을 partner_user_id 순서대로 잘라서(keyset pagination) 읽는다.
+ *
+ * user_connection과 같은 트랜잭션 안에서 함께 변경된다. (UserConnectionEdgeRepository 참고)
+ */
+@Entity
+@Table(name = "user_connection_edge")
+@IdClass(UserConnectionEdgeId.class)
+public class UserConnectionEdgeEntity extends BaseEntity implements Persistable<UserConnectionEdgeId> {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "partner_user_id", nullable = false)
+    private Long partnerUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private UserConnectionStatus status;
+
+    @Column(name = "inviter_user_id", nullable = false)
+    private Long inviterUserId;
+
+    //new로 만든 객체는 true, DB에서 조회했거나 저장이 끝난 객체는 false (컬럼 아님)
+    @Transient
+    private boolean isNew = true;
+
+    //생성자
+    public UserConnectionEdgeEntity() {}
+
+    public UserConnectionEdgeEntity(Long userId, Long partnerUserId, UserConnectionStatus status, Long inviterUserId) {
+        this.userId = userId;
+        this.partnerUserId = partnerUserId;
+        this.status = status;
+        this.inviterUserId = inviterUserId;
+    }
+
+    //getter
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getPartnerUserId() {
+        return partnerUserId;
+    }
+
+    public UserConnectionStatus getStatus() {
+        return status;
+    }
+
+    public Long getInviterUserId() {
+        return inviterUserId;
+    }
+
+    @Override
+    public UserConnectionEdgeId getId() {
+        return new UserConnectionEdgeId(userId, partnerUserId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (object == null || getClass() != object.getClass()) return false;
+        UserConnectionEdgeEntity that = (UserConnectionEdgeEntity) object;
+        return Objects.equals(userId, that.userId) && Objects.equals(partnerUserId, that.partnerUserId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, partnerUserId);
+    }
+
+    @Override
+    public String toString() {
+        return "UserConnectionEdgeEntity{userId=%d, partnerUserId=%d, status=%s, inviterUserId=%d}"
+                .formatted(userId, partnerUserId, status, inviterUserId);
+    }
+}
@@ -0,0 +1,43 @@
+package com.chatting.backend.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * user_connection_edge 테이블의 복합키 (user_id, partner_user_id)
+ */
+public class UserConnectionEdgeId implements Serializable {
+
+    private Long userId;
+    private Long partnerUserId;
+
+    public UserConnectionEdgeId() {
+    }
+
+    public UserConnectionEdgeId(Long userId, Long partnerUserId) {
+        this.userId = userId;
+        this.partnerUserId = partnerUserId;
+    }
+
+    //getter
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getPartnerUserId() {
+        return partnerUserId;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (object == null || getClass() != object.getClass()) return false;
+        UserConnectionEdgeId that = (UserConnectionEdgeId) object;
+        return Objects.equals(userId, that.userId) && Objects.equals(partnerUserId, that.partnerUserId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, partnerUserId);
+    }
+}
@@ -2,17 +2,21 @@ package com.chatting.backend.entity;
 
 import com.chatting.backend.constant.UserConnectionStatus;
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.util.Objects;
 
 /**
  * 해당 테이블에는 복합키가 있다
  * 그래서 해당 복합키를 나타낼 클래스가 따로 필요하다 => UserConnectionId
+ *
+ * 복합키를 직접 넣어서 저장하므로 Persistable로 "새 엔티티" 여부를 직접 알려준다. (save() 시 merge의 SELECT 방지)
+ * 이미 있을 수도 있는 관계의 상태를 바꿀 때는 UserConnectionRepository.upsertStatus()를 사용한다.
  */
 @Entity
 @Table(name = "user_connection")
 @IdClass(UserConnectionId.class)
-public class UserConnectionEntity extends BaseEntity{
+public class UserConnectionEntity extends BaseEntity implements Persistable<UserConnectionId> {
 
     @Id
     @Column(name = "partner_a_user_id", nullable = false)
@@ -29,6 +33,10 @@ public class UserConnectionEntity extends BaseEntity{
     @Column(name = "inviter_user_id", nullable = false)
     private Long inviterUserId;
 
+    //new로 만든 객체는 true, DB에서 조회했거나 저장이 끝난 객체는 false (컬럼 아님)
+    @Transient
+    private boolean isNew = true;
+
     //생성자
     public UserConnectionEntity() {}
 
@@ -56,6 +64,23 @@ public class UserConnectionEntity extends BaseEntity{
         return inviterUserId;
     }
 
+    @Override
+    public UserConnectionId getId() {
+        return new UserConnectionId(partnerAUserId, partnerBUserId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    //조회(@PostLoad)되거나 저장(@PostPersist)된 뒤에는 더 이상 새 엔티티가 아니다.
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     //setter
     //setter는 한 개만 필요. 값 변화가 필요한 status만.
     public void setStatus(UserConnectionStatus status) {
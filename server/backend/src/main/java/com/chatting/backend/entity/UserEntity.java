@@ -1,13 +1,22 @@
 package com.chatting.backend.entity;
 
 
+import com.chatting.backend.config.HibernateCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * username/초대코드 조회는 메시지 전송마다 일어나므로 2차 캐시(user region)에 둔다.
+ * 연결 수는 user_connection_count 테이블(UserConnectionCountEntity)에서 관리하므로, 수락/연결 끊기 때 message_user row(와 캐시)는 바뀌지 않는다.
+ */
 @Entity
 @Table(name = "message_user")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_REGION)
 public class UserEntity extends BaseEntity{
 
     @Id
@@ -24,9 +33,6 @@ public class UserEntity extends BaseEntity{
     @Column(name = "invite_code", nullable = false)
     private String inviteCode;
 
-    @Column(name = "connection_count", nullable = false)
-    private int connectionCount;
-
 
     //기본생성자
     public UserEntity() {}
@@ -56,14 +62,6 @@ public class UserEntity extends BaseEntity{
         return inviteCode;
     }
 
-    public int getConnectionCount() {return connectionCount;}
-
-    //setter
-    //setter 1개만 필요. 값을 변화시킬 필요가 있는 connection_count. (count를 갱신할 때 필요)
-    public void setConnectionCount(int connectionCount) {
-        this.connectionCount = connectionCount;
-    }
-
     //username이 unique이기 때문에 username으로 비교
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,95 @@
+package com.chatting.backend.graph;
+
+import java.util.Arrays;
+
+/**
+ * 한 사용자의 ACCEPTED 상대 userId 집합 (정렬된 long[] 하나)
+ *
+ * Set<Long>은 원소마다 박싱된 Long + 해시 노드가 따로 생기지만, 정렬된 long[]은 원소당 8byte만 쓴다.
+ * 불변(immutable) 객체이며, 추가/삭제 시에는 새 객체를 만들어 돌려준다. (copy-on-write, UserSessions와 같은 방식)
+ * 연결 수는 사용자당 최대 1000명이라 복사 비용은 작고, 읽는 쪽은 락 없이 배열을 그대로 본다.
+ */
+final class AdjacencySet {
+
+    //long[] 배열 헤더 + AdjacencySet/Entry 객체 + ConcurrentHashMap 노드와 key(Long) 대략치
+    private static final int OVERHEAD_BYTES = 96;
+
+    private final long[] partnerIds;
+
+    private AdjacencySet(long[] partnerIds) {
+        this.partnerIds = partnerIds;
+    }
+
+    //DB에서 partner_user_id 순서로 읽어온 배열을 그대로 쓴다. (정렬되어 있지 않으면 정렬)
+    static AdjacencySet of(long[] partnerIds) {
+        for (int i = 1; i < partnerIds.length; i++) {
+            if (partnerIds[i - 1] >= partnerIds[i]) {
+                return new AdjacencySet(Arrays.stream(partnerIds).sorted().distinct().toArray());
+            }
+        }
+        return new AdjacencySet(partnerIds);
+    }
+
+    boolean contains(long partnerId) {
+        return Arrays.binarySearch(partnerIds, partnerId) >= 0;
+    }
+
+    /**
+     * 정렬 + 중복 제거된 userId 배열 중 이 집합에 들어있는 개수 (교집합 크기)
+     * 앞에서 찾은 위치 이후만 이진 탐색하므로 O(m log n)이다.
+     */
+    int countIntersection(long[] sortedDistinctIds) {
+        int count = 0;
+        int from = 0;
+        for (long id : sortedDistinctIds) {
+            if (from >= partnerIds.length) {
+                break;
+            }
+            int index = Arrays.binarySearch(partnerIds, from, partnerIds.length, id);
+            if (index >= 0) {
+                count++;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+        return count;
+    }
+
+    AdjacencySet with(long partnerId) {
+        int index = Arrays.binarySearch(partnerIds, partnerId);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[partnerIds.length + 1];
+        System.arraycopy(partnerIds, 0, copy, 0, insertAt);
+        copy[insertAt] = partnerId;
+        System.arraycopy(partnerIds, insertAt, copy, insertAt + 1, partnerIds.length - insertAt);
+        return new AdjacencySet(copy);
+    }
+
+    AdjacencySet without(long partnerId) {
+        int index = Arrays.binarySearch(partnerIds, partnerId);
+        if (index < 0) {
+            return this;
+        }
+        long[] copy = new long[partnerIds.length - 1];
+        System.arraycopy(partnerIds, 0, copy, 0, index);
+        System.arraycopy(partnerIds, index + 1, copy, index, partnerIds.length - index - 1);
+        return new AdjacencySet(copy);
+    }
+
+    long[] toArray() {
+        return partnerIds.clone();
+    }
+
+    int size() {
+        return partnerIds.length;
+    }
+
+    //메모리 예산 계산용 추정 크기
+    long estimatedBytes() {
+        return OVERHEAD_BYTES + 8L * partnerIds.length;
+    }
+}
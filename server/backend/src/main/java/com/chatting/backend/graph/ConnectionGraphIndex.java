@@ -0,0 +1,295 @@
+package com.chatting.backend.graph;
+
+import com.chatting.backend.constant.UserConnectionStatus;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.repository.UserConnectionEdgeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * ACCEPTED 연결 관계의 메모리 인덱스 (사용자별 정렬된 long[] 인접 리스트)
+ *
+ * 채널 생성 시 "참여자 99명이 모두 나와 ACCEPTED인가"를 매번 user_connection에 IN (...) COUNT 쿼리 두 번으로 확인하던 것을,
+ * 개설자의 인접 리스트 하나와 참여자 id 배열의 교집합 크기로 메모리에서 계산한다.
+ *
+ * - 로딩: 처음 조회될 때 user_connection_edge에서 한 번 읽어온다. (lazy)
+ * - 갱신: UserConnectionLimitService.accept/disconnect가 커밋된 뒤에 이미 올라와 있는 두 사용자의 리스트만 고친다.
+ *   올라와 있지 않은 사용자는 다음 조회 때 DB에서 최신 상태를 읽는다.
+ * - 다른 노드: 인덱스는 노드마다 따로 있으므로, 바뀐 두 사용자 id를 Redis pub/sub(CONNECTION_GRAPH_CHANNEL)으로 알린다.
+ *   알림을 받은 노드는 두 사용자의 리스트를 버리고(순서가 뒤바뀐 알림으로 잘못 고치지 않도록) 다음 조회 때 DB에서 읽는다.
+ *   알림이 실패하거나 유실돼도 리스트는 entry-ttl 뒤에 다시 읽는다.
+ * - 로딩 중 변경: DB를 읽는 사이에 그 사용자의 관계가 바뀌면 읽은 값이 이미 낡았을 수 있으므로,
+ *   사용자 id 구간(stripe)별 변경 버전을 읽기 전/후로 비교해서 바뀌었으면 캐시에 넣지 않고 다시 읽는다.
+ * - 메모리 예산: 추정 크기 합이 max-bytes를 넘으면 가장 오래 조회되지 않은 사용자부터 예산의 3/4까지 비운다.
+ */
+@Slf4j
+@Component
+public class ConnectionGraphIndex implements MessageListener {
+
+    public static final String CONNECTION_GRAPH_CHANNEL = "message:connection-graph";
+
+    private static final int VERSION_STRIPES = 1024;    //2의 거듭제곱이어야 한다.
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final UserConnectionEdgeRepository userConnectionEdgeRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public ConnectionGraphIndex(
+            UserConnectionEdgeRepository userConnectionEdgeRepository,
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${message.connection-graph.max-bytes:67108864}") long maxBytes,
+            @Value("${message.connection-graph.entry-ttl:5m}") Duration ttl) {
+        this(userConnectionEdgeRepository, stringRedisTemplate, maxBytes, ttl.toNanos(), System::nanoTime);
+    }
+
+    ConnectionGraphIndex(UserConnectionEdgeRepository userConnectionEdgeRepository, StringRedisTemplate stringRedisTemplate,
+                         long maxBytes, long ttlNanos, LongSupplier clock) {
+        if (maxBytes <= 0 || ttlNanos <= 0) {
+            throw new IllegalArgumentException("Invalid connection graph settings.");
+        }
+        this.userConnectionEdgeRepository = userConnectionEdgeRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * partnerIds 중 userId와 ACCEPTED 관계인 사람 수 (중복된 id는 한 번만 센다)
+     * UserConnectionService.countConnectionStatus(userId, partnerIds, ACCEPTED)와 같은 값을 돌려준다.
+     */
+    public int countConnected(UserId userId, List<UserId> partnerIds) {
+        long[] sortedIds = partnerIds.stream().mapToLong(UserId::id).sorted().distinct().toArray();
+        return get(userId.id()).countIntersection(sortedIds);
+    }
+
+    public boolean isConnected(UserId userId, UserId partnerId) {
+        return get(userId.id()).contains(partnerId.id());
+    }
+
+    //userId와 ACCEPTED 관계인 사용자 id들 (오름차순, 복사본)
+    public long[] getPartnerIds(UserId userId) {
+        return get(userId.id()).toArray();
+    }
+
+    /**
+     * 두 사용자가 ACCEPTED가 되었을 때 호출 (트랜잭션 안이면 커밋 후에 반영하고 다른 노드에 알린다)
+     */
+    public void connected(UserId userIdA, UserId userIdB) {
+        afterCommit(() -> {
+            update(userIdA.id(), userIdB.id(), true);
+            update(userIdB.id(), userIdA.id(), true);
+            publish(userIdA.id(), userIdB.id());
+        });
+    }
+
+    /**
+     * 두 사용자의 연결이 끊겼을 때 호출 (트랜잭션 안이면 커밋 후에 반영하고 다른 노드에 알린다)
+     */
+    public void disconnected(UserId userIdA, UserId userIdB) {
+        afterCommit(() -> {
+            update(userIdA.id(), userIdB.id(), false);
+            update(userIdB.id(), userIdA.id(), false);
+            publish(userIdA.id(), userIdB.id());
+        });
+    }
+
+    //다른 노드의 변경 "nodeId:userIdA:userIdB": 두 사용자의 리스트를 버린다.
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            invalidate(Long.parseLong(parts[1]));
+            invalidate(Long.parseLong(parts[2]));
+        } catch (NumberFormatException ex) {
+            log.error("Invalid connection graph change. payload: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(entries.size(), usedBytes.get(), maxBytes, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    public record Stats(int users, long usedBytes, long maxBytes, long hits, long misses, long evictions) {
+    }
+
+    private AdjacencySet get(long userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null) {
+            long now = clock.getAsLong();
+            if (now - entry.loadedAt < ttlNanos) {
+                entry.lastAccess = now;
+                hits.increment();
+                return entry.adjacency;
+            }
+            //entry-ttl이 지났으면 다른 노드의 알림을 놓쳤을 수 있으므로 다시 읽는다.
+            if (entries.remove(userId, entry)) {
+                usedBytes.addAndGet(-entry.adjacency.estimatedBytes());
+            }
+        }
+
+        misses.increment();
+        AdjacencySet loaded = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            int stripe = stripe(userId);
+            long version = versions.get(stripe);
+            loaded = load(userId);
+
+            long loadedAt = clock.getAsLong();
+            Entry candidate = new Entry(loaded, loadedAt, loadedAt);
+            Entry cached = entries.compute(userId, (key, existing) -> {
+                if (existing != null) {
+                    return existing;
+                }
+                if (versions.get(stripe) != version) {
+                    return null;    //읽는 사이에 관계가 바뀌었으므로 캐시하지 않는다.
+                }
+                usedBytes.addAndGet(candidate.adjacency.estimatedBytes());
+                return candidate;
+            });
+
+            if (cached != null) {
+                evictIfNeeded();
+                return cached.adjacency;
+            }
+        }
+
+        //계속 바뀌는 중이면 마지막으로 읽은 값으로 답하고 캐시는 다음 조회에 맡긴다.
+        log.warn("Connection graph load kept racing with updates. userId: {}", userId);
+        return loaded;
+    }
+
+    private AdjacencySet load(long userId) {
+        List<Long> partnerIds = userConnectionEdgeRepository.findPartnerUserIds(userId, UserConnectionStatus.ACCEPTED);
+        return AdjacencySet.of(partnerIds.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private void update(long userId, long partnerId, boolean connected) {
+        //버전을 먼저 올려야 지금 DB를 읽고 있는 로더가 낡은 값을 캐시하지 않는다.
+        versions.incrementAndGet(stripe(userId));
+        entries.computeIfPresent(userId, (key, entry) -> {
+            AdjacencySet updated = connected ? entry.adjacency.with(partnerId) : entry.adjacency.without(partnerId);
+            usedBytes.addAndGet(updated.estimatedBytes() - entry.adjacency.estimatedBytes());
+            return new Entry(updated, entry.loadedAt, entry.lastAccess);
+        });
+    }
+
+    private void invalidate(long userId) {
+        //update와 같이 버전을 먼저 올려서 지금 DB를 읽고 있는 로더가 낡은 값을 캐시하지 않게 한다.
+        versions.incrementAndGet(stripe(userId));
+        Entry removed = entries.remove(userId);
+        if (removed != null) {
+            usedBytes.addAndGet(-removed.adjacency.estimatedBytes());
+        }
+    }
+
+    private void publish(long userIdA, long userIdB) {
+        try {
+            stringRedisTemplate.convertAndSend(CONNECTION_GRAPH_CHANNEL, "%s:%d:%d".formatted(nodeId, userIdA, userIdB));
+        } catch (Exception ex) {
+            //다른 노드의 리스트는 entry-ttl 뒤에 다시 읽힌다.
+            log.error("Connection graph change publish failed. userIds: {}, {}, cause: {}", userIdA, userIdB, ex.getMessage());
+        }
+    }
+
+    /**
+     * 예산을 넘었으면 lastAccess가 오래된 사용자부터 예산의 3/4까지 비운다.
+     * 한 번에 여유를 만들어 두어 매 로딩마다 정렬하지 않도록 하고, 동시에 한 스레드만 정리한다.
+     */
+    private void evictIfNeeded() {
+        if (usedBytes.get() <= maxBytes || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long target = maxBytes - maxBytes / 4;
+            //lastAccess는 계속 바뀌므로 값을 먼저 복사해 두고 정렬한다.
+            List<EvictionCandidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((userId, entry) -> candidates.add(new EvictionCandidate(userId, entry, entry.lastAccess)));
+            candidates.sort(Comparator.comparingLong(EvictionCandidate::lastAccess));
+
+            for (EvictionCandidate candidate : candidates) {
+                if (usedBytes.get() <= target) {
+                    break;
+                }
+                //그 사이에 갱신(교체)된 entry는 건드리지 않는다.
+                if (entries.remove(candidate.userId(), candidate.entry())) {
+                    usedBytes.addAndGet(-candidate.entry().adjacency.estimatedBytes());
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int stripe(long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (VERSION_STRIPES - 1);
+    }
+
+    private record EvictionCandidate(Long userId, Entry entry, long lastAccess) {
+    }
+
+    private static final class Entry {
+
+        private final AdjacencySet adjacency;
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        private Entry(AdjacencySet adjacency, long loadedAt, long lastAccess) {
+            this.adjacency = adjacency;
+            this.loadedAt = loadedAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
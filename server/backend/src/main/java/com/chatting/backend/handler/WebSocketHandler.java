@@ -5,6 +5,10 @@ import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.inbound.BaseRequest;
 import com.chatting.backend.handler.websocket.RequestDispatcher;
 import com.chatting.backend.json.JsonUtil;
+import com.chatting.backend.service.ChannelListService;
+import com.chatting.backend.service.InboxService;
+import com.chatting.backend.service.PresenceService;
+import com.chatting.backend.session.LazyBufferedWebSocketSession;
 import com.chatting.backend.session.WebSocketSessionManager;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +17,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 /**
@@ -28,6 +31,9 @@ public class WebSocketHandler extends TextWebSocketHandler {
     private final JsonUtil jsonUtil;
     private final WebSocketSessionManager webSocketSessionManager;
     private final RequestDispatcher requestDispatcher;
+    private final ChannelListService channelListService;
+    private final PresenceService presenceService;
+    private final InboxService inboxService;
 
     /**
      * 클라이언트가 WebSocket 연결을 맺었을 때 호출되는 메서드
@@ -38,13 +44,20 @@ public class WebSocketHandler extends TextWebSocketHandler {
         log.info("ConnectionEstablished: {}", session.getId());
 
         // 성능 향상을 위해 세션을 데코레이터로 감싸서 전송량 및 버퍼제한 설정 (최대 100KB, 5초 제한)
-        ConcurrentWebSocketSessionDecorator concurrentWebSocketSessionDecorator = new ConcurrentWebSocketSessionDecorator(session, 5000, 100 * 1024);
+        // 전송 버퍼는 실제로 전송이 겹칠 때만 만들어지므로 유휴 연결은 버퍼 메모리를 차지하지 않는다.
+        LazyBufferedWebSocketSession lazyBufferedWebSocketSession = new LazyBufferedWebSocketSession(session, 5000, 100 * 1024);
 
         //현재 session의 userId 가져오기
         UserId userId = (UserId)session.getAttributes().get(IdKey.USER_ID.getValue());
 
         //session 등록
-        webSocketSessionManager.putSessions(userId, concurrentWebSocketSessionDecorator);
+        webSocketSessionManager.putSessions(userId, lazyBufferedWebSocketSession);
+
+        //접속 상태 기록 (어느 노드에도 접속해 있지 않았다면 연결된 사용자들에게 접속 알림이 간다)
+        presenceService.online(userId);
+
+        //접속해 있지 않은 동안 온 메시지를 채널별 요약으로 보낸다. (이 사용자가 아직 받지 않은 것만, 비동기)
+        inboxService.drain(userId, lazyBufferedWebSocketSession);
     }
 
     /**
@@ -57,8 +70,8 @@ public class WebSocketHandler extends TextWebSocketHandler {
         //현재 세션의 userId를 가져오기
         UserId userId = (UserId) session.getAttributes().get(IdKey.USER_ID.getValue());
 
-        //문제가 된 세션을 삭제
-        webSocketSessionManager.closeSession(userId);
+        //문제가 된 세션을 삭제 (같은 사용자의 다른 기기 세션은 유지)
+        webSocketSessionManager.closeSession(userId, session);
     }
 
     /**
@@ -72,7 +85,14 @@ public class WebSocketHandler extends TextWebSocketHandler {
         //현재 세션의 userId를 가져오기
         UserId userId = (UserId) session.getAttributes().get(IdKey.USER_ID.getValue());
 
-        webSocketSessionManager.closeSession(userId);
+        //종료된 기기의 세션만 제거 (같은 사용자의 다른 기기 세션은 유지)
+        webSocketSessionManager.closeSession(userId, session);
+
+        //마지막 기기까지 끊겼으면 채팅방 목록 스냅샷도 내리고, 이 노드의 접속 상태를 지운다. (다른 노드에도 없으면 접속 종료 알림)
+        if (webSocketSessionManager.getSessions(userId).isEmpty()) {
+            channelListService.evict(userId);
+            presenceService.offline(userId);
+        }
     }
 
     /**
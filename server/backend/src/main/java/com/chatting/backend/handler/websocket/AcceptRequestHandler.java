@@ -66,8 +66,8 @@ public class AcceptRequestHandler implements BaseRequestHandler<AcceptRequest> {
             // 3-1) 수락자(요청 보낸 사람; acceptor)에게 수락 성공 응답 전송
             webSocketSessionManager.sendMessage(senderSession, new AcceptResponse(request.getUsername()));
 
-            // 3-2) 초대한 사람(inviter)에게 수락 알림 전송
-            webSocketSessionManager.sendMessage(webSocketSessionManager.getSession(inviterUserId), new AcceptNotification(acceptorUseranme));
+            // 3-2) 초대한 사람(inviter)의 모든 기기에 수락 알림 전송
+            webSocketSessionManager.sendMessage(inviterUserId, new AcceptNotification(acceptorUseranme));
 
         }, () -> {
             // 실패 시: first Optional이 비어있음 -> second는 에러 메시지
@@ -9,6 +9,7 @@ import com.chatting.backend.dto.websocket.inbound.CreateRequest;
 import com.chatting.backend.dto.websocket.outbound.CreateResponse;
 import com.chatting.backend.dto.websocket.outbound.ErrorResponse;
 import com.chatting.backend.dto.websocket.outbound.JoinNotification;
+import com.chatting.backend.service.ChannelListService;
 import com.chatting.backend.service.ChannelService;
 import com.chatting.backend.service.UserService;
 import com.chatting.backend.session.WebSocketSessionManager;
@@ -17,6 +18,7 @@ import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -34,6 +36,7 @@ public class CreateRequestHandler implements BaseRequestHandler<CreateRequest> {
 
     private final ChannelService channelService;                    // 채널 생성/참여자 매핑 저장 등 도메인 로직
     private final UserService userService;                          //사용자 정보를 조회하는데 사용(username -> userId 조회 목적)
+    private final ChannelListService channelListService;            // 채팅방 목록 스냅샷 갱신 + 변경분 알림
     private final WebSocketSessionManager webSocketSessionManager;  // 특정 세션으로 메시지 전송
 
     @Override
@@ -45,7 +48,8 @@ public class CreateRequestHandler implements BaseRequestHandler<CreateRequest> {
         List<UserId> participantIds = userService.getUserIds(request.getParticipantUsernames());
 
         // userIds가 비어있는지 확인. 비어있다면 상대방이 존재하지 X -> NOT_FOUND
-        if (participantIds.isEmpty()) {
+        // (broadcast 채널은 참여자가 초대코드로 들어오므로 처음에 참여자 없이 만들 수 있다)
+        if (participantIds.isEmpty() && !(request.isBroadcast() && request.getParticipantUsernames().isEmpty())) {
             webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.CREATE_REQUEST, ResultType.NOT_FOUND.getMessage()));
             return;
         }
@@ -57,7 +61,7 @@ public class CreateRequestHandler implements BaseRequestHandler<CreateRequest> {
         //transaction으로 잡았기에 에러가 터질 수 있다. 해당 transaction이 있는건 에러 처리 해줘야 함
         try {
             // 3) 채널 생성 트랜잭션 수행 (channel + channel_user 2건 작성)
-            result = channelService.create(senderUserId, participantIds, request.getTitle());
+            result = channelService.create(senderUserId, participantIds, request.getTitle(), request.isBroadcast());
         } catch (Exception ex) {
             // 내부 오류 → FAILED
             webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.CREATE_REQUEST, ResultType.FAILED.getMessage()));
@@ -82,21 +86,19 @@ public class CreateRequestHandler implements BaseRequestHandler<CreateRequest> {
         webSocketSessionManager.sendMessage(senderSession, new CreateResponse(channel.channelId(), channel.title()));
 
         // - 채팅방 참여자들에게 보내는 알림
+        //  알림 내용은 모든 참여자에게 동일하므로 JSON 직렬화는 한 번만 하고, 같은 프레임을 모든 참여자의 모든 기기로 보낸다.
         //  CompletableFuture.runAsync(): 비동기 작업을 실행하기 위해 사용. 현재 실행 흐름(메인 스레드)을 막지 않고, 별도의 스레드에서 병렬로 실행되도록 한다.
-        participantIds.forEach(participantId -> CompletableFuture.runAsync(() -> {
-
-                //참여자들의 세션 구하기
-                WebSocketSession participantSession = webSocketSessionManager.getSession(participantId);
-
-                //참여자가 webSocket에 연결되어 있는지 확인(null이면 사용자가 아직 로그인하지 않았거나, 브라우저를 닫았거나, 연결이 끊어진 상태)이기에
-                //이런 경우 메시지를 보낼 대상(세션)이 없으니 sendMessage를 호출할 수 없고 그냥 넘어가야 한다.
-                if(participantSession != null){
-                    //메시지 보내기: 참여자들의 세션, 보낼 알림(채팅방에 가입되었다는; 채팅방이 생성되었다는 알림)
-                    //JoinNotification(channelId, title): 참여자들에게 어떤 채널의 어떤 채널명에 가입되었는지 알려주기 위함
-                    webSocketSessionManager.sendMessage(participantSession, new JoinNotification(channel.channelId(), channel.title()));
-                }
-            }
-        ));
+        //  JoinNotification(channelId, title): 참여자들에게 어떤 채널의 어떤 채널명에 가입되었는지 알려주기 위함
+        webSocketSessionManager.encode(new JoinNotification(channel.channelId(), channel.title())).ifPresent(frame ->
+                participantIds.forEach(participantId -> CompletableFuture.runAsync(() ->
+                        //참여자가 webSocket에 연결되어 있지 않다면(로그인하지 않았거나, 브라우저를 닫았거나, 연결이 끊어진 상태) 아무것도 보내지 않는다.
+                        webSocketSessionManager.sendMessage(participantId, frame)
+                )));
+
+        // - 개설자 + 참여자들의 채팅방 목록 스냅샷에 추가 (목록을 받아간 적 있는 사용자에게는 변경분 알림)
+        List<UserId> memberIds = new ArrayList<>(participantIds);
+        memberIds.add(senderUserId);
+        channelListService.created(channel, memberIds, webSocketSessionManager::sendMessage);
 
 
     }
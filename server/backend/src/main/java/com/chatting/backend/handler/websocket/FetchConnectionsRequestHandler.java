@@ -2,12 +2,14 @@ package com.chatting.backend.handler.websocket;
 
 import com.chatting.backend.constant.IdKey;
 import com.chatting.backend.dto.domain.Connection;
+import com.chatting.backend.dto.domain.User;
 import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.inbound.FetchConnectionsRequest;
 import com.chatting.backend.dto.websocket.outbound.FetchConnectionsResponse;
 import com.chatting.backend.service.UserConnectionService;
 import com.chatting.backend.session.WebSocketSessionManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketSession;
 
@@ -21,6 +23,10 @@ public class FetchConnectionsRequestHandler implements BaseRequestHandler<FetchC
     private final UserConnectionService userConnectionService;
     private final WebSocketSessionManager webSocketSessionManager;
 
+    //한 번의 응답에 담는 최대 인원 수 (연결 1000명을 프레임 하나에 담지 않도록 나눠서 보낸다)
+    @Value("${message.connections.page-size:100}")
+    private int pageSize = 100;
+
     /**
      * 여기서 요청을 보낸 사람 = 해당 요청을 보낸 사람 = 나 = 로그인한 사용자
      *
@@ -38,18 +44,22 @@ public class FetchConnectionsRequestHandler implements BaseRequestHandler<FetchC
 
         // TODO: 실제 운영코드에서는 senderUserId가 null인지 체크해야 함(예: 인증이 안된 세션/만료된 세션 등에서의 방어 코드).
 
-        // 2) 서비스에게 "해당 status에 해당하는 상대 목록"을 요청
-        //    - userConnectionService.getUserByStatus(...) 는 List<User> 를 반환한다.
-        //    - 반환된 User 도메인을 WebSocket 응답 DTO(Connection)로 매핑한다.
-        List<Connection> connections = userConnectionService.getUserByStatus(senderUserId, request.getStatus())
-                // User 도메인 -> Connection DTO 변환: 프론트가 기대하는 형태로 축약/포장
-                .stream()
+        // 2) 서비스에게 "해당 status에 해당하는 상대 목록" 한 페이지를 요청
+        //    - 다음 페이지가 있는지 알기 위해 pageSize + 1명을 읽어본다.
+        //    - userConnectionService.getUserByStatus(...) 는 상대 userId 오름차순의 List<User> 를 반환한다.
+        UserId cursor = request.getCursor() == null ? null : new UserId(request.getCursor());
+        List<User> users = userConnectionService.getUserByStatus(senderUserId, request.getStatus(), cursor, pageSize + 1);
+        boolean hasNext = users.size() > pageSize;
+        List<User> page = hasNext ? users.subList(0, pageSize) : users;
+
+        // 3) User 도메인 -> Connection DTO 변환
+        //    request.getStatus() 를 함께 넣는 이유는 프론트가 각 항목에 상태 표시를 원할 때 사용
+        List<Connection> connections = page.stream()
                 .map(user -> new Connection(user.username(), request.getStatus()))
-                // user.username() 은 User 도메인에서 username을 가져오는 메서드라고 가정
-                // request.getStatus() 를 함께 넣는 이유는 프론트가 각 항목에 상태 표시를 원할 때 사용
                 .toList();
 
-        // 3) 변환된 연결 목록을 FetchConnectionsResponse로 감싸서 클라이언트(요청자)에게 전송
-        webSocketSessionManager.sendMessage(senderSession, new FetchConnectionsResponse(connections));
+        // 4) 변환된 연결 목록 + 다음 페이지 cursor(마지막 상대의 userId)를 FetchConnectionsResponse로 감싸서 요청자에게 전송
+        Long nextCursor = hasNext ? page.get(page.size() - 1).userId().id() : null;
+        webSocketSessionManager.sendMessage(senderSession, new FetchConnectionsResponse(connections, nextCursor));
     }
 }
@@ -0,0 +1,70 @@
+package com.chatting.backend.handler.websocket;
+
+import com.chatting.backend.constant.IdKey;
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.constant.ResultType;
+import com.chatting.backend.dto.domain.Message;
+import com.chatting.backend.dto.domain.StoredMessage;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.inbound.FetchMessagesRequest;
+import com.chatting.backend.dto.websocket.outbound.ErrorResponse;
+import com.chatting.backend.dto.websocket.outbound.FetchMessagesResponse;
+import com.chatting.backend.service.MessageService;
+import com.chatting.backend.service.UserService;
+import com.chatting.backend.session.WebSocketSessionManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * [채널의 지난 메시지(기록) 요청을 처리하는 핸들러]
+ * - 참여자가 아니면 NOT_JOINED
+ * - 한 페이지에 page-size개씩 최신순으로 보내고, 더 이전 메시지가 있으면 nextCursor를 같이 보낸다.
+ */
+@Component
+@RequiredArgsConstructor
+public class FetchMessagesRequestHandler implements BaseRequestHandler<FetchMessagesRequest> {
+
+    private final MessageService messageService;
+    private final UserService userService;
+    private final WebSocketSessionManager webSocketSessionManager;
+
+    //한 번의 응답에 담는 최대 메시지 수
+    @Value("${message.history.page-size:50}")
+    private int pageSize = 50;
+
+    @Override
+    public void handleRequest(WebSocketSession senderSession, FetchMessagesRequest request) {
+        UserId senderUserId = (UserId) senderSession.getAttributes().get(IdKey.USER_ID.getValue());
+
+        // 1) 다음 페이지가 있는지 알기 위해 pageSize + 1개를 읽어본다.
+        Pair<Optional<List<StoredMessage>>, ResultType> result =
+                messageService.getMessages(senderUserId, request.getChannelId(), request.getCursor(), pageSize + 1);
+        if (result.getFirst().isEmpty()) {
+            webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.FETCH_MESSAGES_REQUEST, result.getSecond().getMessage()));
+            return;
+        }
+        List<StoredMessage> messages = result.getFirst().get();
+        boolean hasNext = messages.size() > pageSize;
+        List<StoredMessage> page = hasNext ? messages.subList(0, pageSize) : messages;
+
+        // 2) 보낸 사람 username은 사람마다 한 번만 찾는다. (user 2차 캐시)
+        Map<Long, String> usernames = new HashMap<>();
+        List<Message> history = page.stream()
+                .map(message -> new Message(message.messageSequence(),
+                        usernames.computeIfAbsent(message.userId().id(), id -> userService.getUsername(message.userId()).orElse("unknown")),
+                        message.content()))
+                .toList();
+
+        // 3) 가장 오래된 메시지의 sequence가 다음 cursor
+        Long nextCursor = hasNext ? page.get(page.size() - 1).messageSequence() : null;
+        webSocketSessionManager.sendMessage(senderSession, new FetchMessagesResponse(request.getChannelId(), history, nextCursor));
+    }
+}
@@ -25,7 +25,7 @@ import java.util.Optional;
  *
  * WebSocketSessionManager.sendMessage(session, message)의 session 매개변수는 "보낼 대상의 세션"이다.
  *  - 첫번째 전송은 senderSession : 초대한 본인에게 응답
- *  - 두번째 전송은 webSocketSessionManager.getSession(partnerUserId) ; 초대받은 상대방에게 알림
+ *  - 두번째 전송은 partnerUserId ; 초대받은 상대방의 모든 기기에 알림
  *
  *  Pair<Optional<UserId>, String>의 읨;
  *      - first: 성공시 초대받은 사람의 UserId가 들어있는 Optional
@@ -80,9 +80,9 @@ public class InviteRequestHandler implements BaseRequestHandler<InviteRequest> {
             webSocketSessionManager.sendMessage(senderSession, new InviteResponse(request.getUserInviteCode(), UserConnectionStatus.PENDING));
 
             // 3-3) 초대받은 상대방(partner)에게 "누가 당신을 초대했습니다" 알림을 보낸다.
-            //  - 대상 세션을 userId로 찾는다
+            //  - 대상 userId로 보내면 상대방이 접속한 모든 기기로 전달된다
             //  - 메시지에는 "초대한 사람의 username"이 필요하므로 inviterUsername을 담는다.
-            webSocketSessionManager.sendMessage(webSocketSessionManager.getSession(partnerUserId), new InviteNotification(inviterUsername)); //// 대상(상대방)의 세션, 알림 메시지(초대한 사람의 이름 포함)
+            webSocketSessionManager.sendMessage(partnerUserId, new InviteNotification(inviterUsername)); //// 대상(상대방), 알림 메시지(초대한 사람의 이름 포함)
 
 
         }, () -> {//실패했을 때
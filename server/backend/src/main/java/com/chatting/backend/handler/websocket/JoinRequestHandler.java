@@ -8,6 +8,7 @@ import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.inbound.JoinRequest;
 import com.chatting.backend.dto.websocket.outbound.ErrorResponse;
 import com.chatting.backend.dto.websocket.outbound.JoinResponse;
+import com.chatting.backend.service.ChannelListService;
 import com.chatting.backend.service.ChannelService;
 import com.chatting.backend.session.WebSocketSessionManager;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ import java.util.Optional;
 public class JoinRequestHandler implements BaseRequestHandler<JoinRequest> {
 
     private final ChannelService channelService;
+    private final ChannelListService channelListService;
     private final WebSocketSessionManager webSocketSessionManager;
 
 
@@ -46,8 +48,11 @@ public class JoinRequestHandler implements BaseRequestHandler<JoinRequest> {
 
         // 비즈니스 결과에 따라 분기 전송
         result.getFirst().ifPresentOrElse(
-                // 요청자(본인)에게 JOIN_RESPONSE 전송
-                channel -> webSocketSessionManager.sendMessage(senderSession, new JoinResponse(channel.channelId(), channel.title())),
+                // 요청자(본인)에게 JOIN_RESPONSE 전송 + 채팅방 목록 변경분 반영(본인: 추가, 기존 참여자: 인원 수 변경)
+                channel -> {
+                    webSocketSessionManager.sendMessage(senderSession, new JoinResponse(channel.channelId(), channel.title()));
+                    channelListService.joined(channel.channelId(), senderUserId, webSocketSessionManager::sendMessage);
+                },
                 () -> webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.JOIN_REQUEST, result.getSecond().getMessage())));
 
     }
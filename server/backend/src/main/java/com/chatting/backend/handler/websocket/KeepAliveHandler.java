@@ -3,6 +3,7 @@ package com.chatting.backend.handler.websocket;
 import com.chatting.backend.constant.IdKey;
 import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.inbound.KeepAlive;
+import com.chatting.backend.service.PresenceService;
 import com.chatting.backend.service.SessionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -13,6 +14,7 @@ import org.springframework.web.socket.WebSocketSession;
 public class KeepAliveHandler implements BaseRequestHandler<KeepAlive> {
 
     private final SessionService sessionService;
+    private final PresenceService presenceService;
 
     /** [TTL 연장]
      *
@@ -24,5 +26,8 @@ public class KeepAliveHandler implements BaseRequestHandler<KeepAlive> {
         UserId senderUserId = (UserId) senderSession.getAttributes().get(IdKey.USER_ID.getValue());
 
         sessionService.refreshTTL(senderUserId, (String) senderSession.getAttributes().get(IdKey.HTTP_SESSION_ID.getValue()));
+
+        //접속 상태 lease 연장 (어긋난 상태였다면 여기서 바로잡힌다)
+        presenceService.online(senderUserId);
     }
 }
@@ -7,6 +7,7 @@ import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.inbound.QuitRequest;
 import com.chatting.backend.dto.websocket.outbound.ErrorResponse;
 import com.chatting.backend.dto.websocket.outbound.QuitResponse;
+import com.chatting.backend.service.ChannelListService;
 import com.chatting.backend.service.ChannelService;
 import com.chatting.backend.session.WebSocketSessionManager;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import org.springframework.web.socket.WebSocketSession;
 public class QuitRequestHandler implements BaseRequestHandler<QuitRequest> {
 
     private final ChannelService channelService;
+    private final ChannelListService channelListService;
     private final WebSocketSessionManager webSocketSessionManager;
 
     @Override
@@ -37,6 +39,8 @@ public class QuitRequestHandler implements BaseRequestHandler<QuitRequest> {
 
         if(result == ResultType.SUCCESS){
             webSocketSessionManager.sendMessage(senderSession, new QuitResponse(request.getChannelId()));
+            //채팅방 목록 변경분 반영(본인: 삭제, 남은 참여자: 인원 수 변경)
+            channelListService.quit(request.getChannelId(), senderUserId, webSocketSessionManager::sendMessage);
         }else{
             webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.QUIT_REQUEST, result.getMessage()));
         }
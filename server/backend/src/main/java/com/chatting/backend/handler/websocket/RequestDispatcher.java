@@ -1,5 +1,8 @@
 package com.chatting.backend.handler.websocket;
 
+import com.chatting.backend.constant.IdKey;
+import com.chatting.backend.datasource.ReadYourWritesTracker;
+import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.inbound.BaseRequest;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -53,6 +56,12 @@ public class RequestDispatcher {
      */
     private final ListableBeanFactory listableBeanFactory;
 
+    /**
+     * 요청을 처리하는 동안 현재 사용자를 스레드에 묶어 둔다.
+     * 방금 쓴 사용자의 읽기 전용 트랜잭션은 replica 대신 primary로 가게 하기 위함 (ReplicationRoutingDataSource)
+     */
+    private final ReadYourWritesTracker readYourWritesTracker;
+
     /**
      * 런타임 디스패치 메서드.
      * 들어온 request 객체의 런타임 클래스로 handlerMap을 조회하여, 해당 handler가 있으면 호출한다.
@@ -66,7 +75,12 @@ public class RequestDispatcher {
         BaseRequestHandler<T> handler = (BaseRequestHandler<T>) handlerMap.get(request.getClass());
 
         if(handler != null){
-            handler.handleRequest(webSocketSession, request);
+            readYourWritesTracker.bind((UserId) webSocketSession.getAttributes().get(IdKey.USER_ID.getValue()));
+            try {
+                handler.handleRequest(webSocketSession, request);
+            } finally {
+                readYourWritesTracker.clear();
+            }
             return;
         }
         log.error("Handler not found for request type: {}", request.getClass().getSimpleName());
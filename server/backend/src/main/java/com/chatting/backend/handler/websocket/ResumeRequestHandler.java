@@ -0,0 +1,48 @@
+package com.chatting.backend.handler.websocket;
+
+import com.chatting.backend.constant.IdKey;
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.constant.ResultType;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.inbound.ResumeRequest;
+import com.chatting.backend.dto.websocket.outbound.ErrorResponse;
+import com.chatting.backend.dto.websocket.outbound.ResumeResponse;
+import com.chatting.backend.session.MessageReplayBuffer;
+import com.chatting.backend.session.WebSocketSessionManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * [재접속 후 놓친 메시지 재전송]
+ * - 클라이언트가 마지막으로 받은 message_sequence 이후의 메시지를 재전송 버퍼에서 꺼내 "재접속한 기기에만" 순서대로 다시 보낸다.
+ * - 마지막에 ResumeResponse(재전송 개수, 빠짐없이 보냈는지)를 보낸다.
+ *
+ * 재전송과 실시간 전송이 겹치면 같은 메시지가 두 번 갈 수 있으므로, 클라이언트는 messageSequence로 중복을 거른다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResumeRequestHandler implements BaseRequestHandler<ResumeRequest> {
+
+    private final MessageReplayBuffer messageReplayBuffer;
+    private final WebSocketSessionManager webSocketSessionManager;
+
+    @Override
+    public void handleRequest(WebSocketSession senderSession, ResumeRequest request) {
+        UserId senderUserId = (UserId) senderSession.getAttributes().get(IdKey.USER_ID.getValue());
+
+        if (request.getLastMessageSequence() == null) {
+            webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.RESUME_REQUEST, ResultType.INVALID_ARGS.getMessage()));
+            return;
+        }
+
+        MessageReplayBuffer.Replay replay = messageReplayBuffer.replay(senderUserId, request.getLastMessageSequence());
+        replay.frames().forEach(frame -> webSocketSessionManager.sendMessage(senderSession, frame));
+
+        log.info("Resumed. userId: {}, lastMessageSequence: {}, replayed: {}, complete: {}",
+                senderUserId, request.getLastMessageSequence(), replay.frames().size(), replay.complete());
+        webSocketSessionManager.sendMessage(senderSession, new ResumeResponse(replay.frames().size(), replay.complete()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.chatting.backend.handler.websocket;
+
+import com.chatting.backend.constant.IdKey;
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.constant.ResultType;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.SearchedMessage;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.inbound.SearchMessagesRequest;
+import com.chatting.backend.dto.websocket.outbound.ErrorResponse;
+import com.chatting.backend.dto.websocket.outbound.SearchMessagesResponse;
+import com.chatting.backend.search.IndexedMessage;
+import com.chatting.backend.service.MessageService;
+import com.chatting.backend.session.WebSocketSessionManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * [메시지 검색 요청을 처리하는 핸들러]
+ * - 참여 중인 채널의 메시지만 찾는다. (channelId를 넣었는데 참여하지 않은 채널이면 NOT_JOINED)
+ * - 한 페이지에 page-size개씩 최신순으로 보내고, 더 이전 결과가 있으면 nextCursor를 같이 보낸다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchMessagesRequestHandler implements BaseRequestHandler<SearchMessagesRequest> {
+
+    private final MessageService messageService;
+    private final WebSocketSessionManager webSocketSessionManager;
+
+    //한 번의 응답에 담는 최대 검색 결과 수
+    @Value("${message.search.page-size:20}")
+    private int pageSize = 20;
+
+    @Override
+    public void handleRequest(WebSocketSession senderSession, SearchMessagesRequest request) {
+        UserId senderUserId = (UserId) senderSession.getAttributes().get(IdKey.USER_ID.getValue());
+
+        // 1) 다음 페이지가 있는지 알기 위해 pageSize + 1개를 찾아본다.
+        Pair<Optional<List<IndexedMessage>>, ResultType> result = messageService.searchMessages(
+                senderUserId, request.getQuery(), request.getChannelId(), request.getCursor(), pageSize + 1);
+        if (result.getFirst().isEmpty()) {
+            webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.SEARCH_MESSAGES_REQUEST, result.getSecond().getMessage()));
+            return;
+        }
+        List<IndexedMessage> messages = result.getFirst().get();
+        boolean hasNext = messages.size() > pageSize;
+        List<IndexedMessage> page = hasNext ? messages.subList(0, pageSize) : messages;
+
+        // 2) username은 인덱스에 같이 저장되어 있다. (MySQL 조회 없음)
+        List<SearchedMessage> found = page.stream()
+                .map(message -> new SearchedMessage(new ChannelId(message.channelId()), message.messageSequence(),
+                        message.username(), message.content()))
+                .toList();
+
+        // 3) 가장 오래된 결과의 sequence가 다음 cursor
+        Long nextCursor = hasNext ? page.get(page.size() - 1).messageSequence() : null;
+        webSocketSessionManager.sendMessage(senderSession, new SearchMessagesResponse(request.getQuery(), found, nextCursor));
+    }
+}
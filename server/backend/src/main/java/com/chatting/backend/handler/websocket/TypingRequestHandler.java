@@ -0,0 +1,31 @@
+package com.chatting.backend.handler.websocket;
+
+import com.chatting.backend.constant.IdKey;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.inbound.TypingRequest;
+import com.chatting.backend.session.TypingIndicatorRelay;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * [입력 중 표시]
+ * - 저장/조회 없이 TypingIndicatorRelay에 넘기기만 한다. (전송은 tick마다 모아서)
+ * - 잘못된 요청(channelId 없음)은 응답 없이 버린다. 휘발성 이벤트라 에러 응답이 더 비싸다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TypingRequestHandler implements BaseRequestHandler<TypingRequest> {
+
+    private final TypingIndicatorRelay typingIndicatorRelay;
+
+    @Override
+    public void handleRequest(WebSocketSession senderSession, TypingRequest request) {
+        if (request.getChannelId() == null) {
+            return;
+        }
+        UserId senderUserId = (UserId) senderSession.getAttributes().get(IdKey.USER_ID.getValue());
+
+        typingIndicatorRelay.typing(senderUserId, request.getChannelId(), request.isTyping());
+    }
+}
@@ -1,23 +1,32 @@
 package com.chatting.backend.handler.websocket;
 
 import com.chatting.backend.constant.IdKey;
+import com.chatting.backend.constant.MessageType;
+import com.chatting.backend.constant.ResultType;
 import com.chatting.backend.dto.domain.ChannelId;
 import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.inbound.WriteMessage;
+import com.chatting.backend.dto.websocket.outbound.ErrorResponse;
 import com.chatting.backend.dto.websocket.outbound.MessageNotification;
-import com.chatting.backend.entity.MessageEntity;
-import com.chatting.backend.repository.MessageRepository;
+import com.chatting.backend.dto.websocket.outbound.WriteMessageResponse;
 import com.chatting.backend.service.MessageService;
 import com.chatting.backend.service.UserService;
+import com.chatting.backend.session.MessageReplayBuffer;
 import com.chatting.backend.session.WebSocketSessionManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.Optional;
+
 /** [클라이언트가 WebSocket으로 보낸 "채팅 메시지 전송" 요청(WriteMessage)을 처리하는 핸들러]
  * - 1) 사용자가 채팅방에서 보낸 메시지를 서버가 받아서,
  * - 2) 메시지를 DB에 저장하고
  * - 3) 같은 채널을 보고 있는 다른 참여자들에게만(내가 있는 채널에 상대방도 활동중인 참여자) 실시간으로 전달하도록 연결.
+ * - 4) clientMessageId를 넣어 보냈다면 보낸 사람에게 저장된 message_sequence로 응답(WriteMessageResponse)한다.
+ *      전송 타임아웃 후 같은 id로 재시도한 요청은 저장/전송 없이 같은 응답만 받는다.
  *
  */
 @Component
@@ -27,13 +36,14 @@ public class WriteMessageHandler implements BaseRequestHandler<WriteMessage> {
     private final UserService userService;
     private final MessageService messageService;
     private final WebSocketSessionManager webSocketSessionManager;
+    private final MessageReplayBuffer messageReplayBuffer;
 
     /**
      * [상대방에게 메시지를 전달하는 역할 수행]\
      * : 어떤 사용자(나)가 어느 채널(channelId)에 어떤 내용(content)를 보낼건지 처리.
      *
      * @param senderSession 메시지를 보내는 사람의 WebSocket 세션
-     * @param request       클라이언트가 보낸 메시지 DTO(channelId, content가 담겨 있다)
+     * @param request       클라이언트가 보낸 메시지 DTO(channelId, content, clientMessageId가 담겨 있다)
      */
     @Override
     public void handleRequest(WebSocketSession senderSession, WriteMessage request) {
@@ -44,29 +54,40 @@ public class WriteMessageHandler implements BaseRequestHandler<WriteMessage> {
         ChannelId channelId = request.getChannelId();
         String content = request.getContent();
 
-        // 3) 메시지를 보내는 사람의 username 조회(상대에게 "누가 보냈는지" 알려주기 위해)
+        // 3) 메시지를 보내는 사람의 username 조회(상대에게 "누가 보냈는지" 알려주고, 검색 인덱스에도 같이 저장하기 위해)
         String senderUsername = userService.getUsername(senderUserId).orElse("unknown");
 
         // 4) MessageService에 "저장 + 대상 선별 + 전송 요청"을 일괄 위임
         //어떤 사용자(senderUserId)가 어떤 메시지(content)를 어느 채널(channelId)에 보낼건지
-        messageService.sendMessage(senderUserId, content, channelId,
-                // ====== 아래가 실제 전송(I/O) 로직 ======
-                (participantId) ->
-                {
-                    // (a) 상대방(채널 참여자)의 웹소켓 세션 찾기
-                    WebSocketSession participantSession = webSocketSessionManager.getSession(participantId);
+        String clientMessageId = request.getClientMessageId();
+        Pair<Optional<Long>, ResultType> result = messageService.sendMessage(senderUserId, senderUsername, clientMessageId, content, channelId, messageSequence -> {
+            // 5) 저장된 message_sequence를 넣어 알림 payload 구성 후 한 번만 직렬화 (모든 참여자, 모든 기기에 같은 프레임을 보낸다)
+            //     - 어느 채널(channelId)에
+            //     - 몇 번째 메시지(messageSequence)로
+            //     - 누가(senderUsername)가
+            //     - 어떤 내용을(content) 보냈는지
+            Optional<TextMessage> frame = webSocketSessionManager.encode(new MessageNotification(channelId, messageSequence, senderUsername, content));
 
-                    // (b) 전달할 알림 payload 구성
-                    //     - 어느 채널(channelId)에
-                    //     - 누가(senderUsername)가
-                    //     - 어떤 내용을(content) 보냈는지
-                    MessageNotification messageNotification = new MessageNotification(channelId, senderUsername, content);
+            // ====== 아래가 실제 전송(I/O) 로직 ======
+            //재접속(resume) 때 다시 보낼 수 있도록 재전송 버퍼에 기록하고,
+            //채널의 참여자가 접속해 있다면, 참여자의 모든 기기로 실시간 채팅 전송 (연결이 잠깐 끊긴 상태면 버퍼에만 남는다)
+            //participantId는 bitmap에서 꺼낸 primitive long이다. (수신자마다 UserId를 만들지 않는다)
+            return participantId -> frame.ifPresent(textMessage -> {
+                messageReplayBuffer.append(participantId, messageSequence, textMessage);
+                webSocketSessionManager.sendMessage(participantId, textMessage);
+            });
+        });
 
-                    //채널의 참여자 세션이 null이 아니라면, 채널의 참여자들에게 실시간 채팅 전송
-                    if (participantSession != null) {
-                        webSocketSessionManager.sendMessage(participantSession, messageNotification);
-                    }
-                });
+        // 6) clientMessageId가 없는 예전 클라이언트에는 지금처럼 응답하지 않는다.
+        //    같은 id의 처음 요청이 아직 저장 중(DUPLICATE)이면 처음 요청이 응답한다.
+        if (clientMessageId == null || result.getSecond() == ResultType.DUPLICATE) {
+            return;
+        }
+        if (result.getFirst().isPresent()) {
+            webSocketSessionManager.sendMessage(senderSession, new WriteMessageResponse(channelId, clientMessageId, result.getFirst().get()));
+        } else {
+            webSocketSessionManager.sendMessage(senderSession, new ErrorResponse(MessageType.WRITE_MESSAGE, result.getSecond().getMessage()));
+        }
     }
 
 
@@ -0,0 +1,199 @@
+package com.chatting.backend.id;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * SnowflakeIdGenerator의 노드 id(0~1023)를 Redis에서 빌리고 갱신한다.
+ *
+ * Redis 구조
+ * - message:id:node:{nodeId}             (string, TTL) : 지금 빌린 노드의 토큰. SET NX로 빌리고 lease-ttl마다 만료된다.
+ * - message:id:node:{nodeId}:high-water  (string)      : 이 노드 id로 만들어졌을 수 있는 가장 늦은 시각(ms)
+ *
+ * - 빌리기: 임의의 위치부터 SET NX를 시도해서 처음 성공한 id를 쓴다. high-water 뒤의 시각부터 id를 만든다.
+ *   (이전에 이 id를 쓰던 노드보다 시계가 늦어도 같은 id가 나오지 않는다)
+ * - 갱신: renew-interval마다 토큰이 그대로인지 확인하고 TTL을 늘리면서, high-water를 "지금 + 이번 유효 기간"으로 올려 둔다.
+ *   죽은 노드가 마지막 갱신 뒤 유효 기간 동안 만들었을 id까지 덮기 위해서이다.
+ * - 유효 기간: 요청을 보낸 시각 + lease-ttl의 90%. 그동안 갱신하지 못하면(Redis 장애, 네트워크 단절) 생성기가 id를 만들지 않는다.
+ *   Redis 쪽 key는 그보다 늦게 만료되므로, 다른 노드가 같은 id를 빌렸을 때 이 노드는 이미 id를 만들지 않고 있다.
+ * - 다른 노드가 가져갔으면(토큰이 다르면) 다른 id를 새로 빌린다.
+ * - 종료: 실제로 쓴 마지막 시각을 high-water로 덮어쓰고(갱신 때 올려 둔 "지금 + 유효 기간"보다 작아도) key를 지운다.
+ *   생성기는 이미 멈췄으므로 그 뒤의 id는 없다. 미래 시각을 남겨 두면 다음에 이 id를 빌린 노드가 그 시각부터 시작해야 해서
+ *   max-clock-drift에 걸려 한동안 id를 만들지 못한다.
+ * - node-id를 설정하면(0 이상) Redis를 쓰지 않고 그 값을 계속 쓴다. (단일 노드, 테스트용)
+ */
+@Slf4j
+@Component
+public class NodeIdLease {
+
+    private static final String NAMESPACE = "message:id:node";
+
+    //KEYS[1]=lease key, KEYS[2]=high-water key / ARGV: 토큰, TTL(ms), high-water(ms)
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            local current = redis.call('GET', KEYS[2])
+            if not current or tonumber(current) < tonumber(ARGV[3]) then
+                redis.call('SET', KEYS[2], ARGV[3])
+            end
+            return 1
+            """, Long.class);
+
+    //KEYS[1]=lease key, KEYS[2]=high-water key / ARGV: 토큰, 실제로 쓴 마지막 시각(ms)
+    static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[2], ARGV[2])
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final int fixedNodeId;
+    private final long ttlMillis;
+    private final long validMillis;
+    private final LongSupplier nanoClock;
+    private final String token = UUID.randomUUID().toString();
+
+    private volatile int nodeId = -1;
+
+    @Autowired
+    public NodeIdLease(
+            StringRedisTemplate stringRedisTemplate,
+            SnowflakeIdGenerator snowflakeIdGenerator,
+            @Value("${message.id.node-id:-1}") int fixedNodeId,
+            @Value("${message.id.lease-ttl:30s}") Duration ttl) {
+        this(stringRedisTemplate, snowflakeIdGenerator, fixedNodeId, ttl.toMillis(), System::nanoTime);
+    }
+
+    NodeIdLease(StringRedisTemplate stringRedisTemplate, SnowflakeIdGenerator snowflakeIdGenerator,
+                int fixedNodeId, long ttlMillis, LongSupplier nanoClock) {
+        if (fixedNodeId > SnowflakeIdGenerator.MAX_NODE_ID || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Invalid node id lease settings.");
+        }
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.snowflakeIdGenerator = snowflakeIdGenerator;
+        this.fixedNodeId = fixedNodeId;
+        this.ttlMillis = ttlMillis;
+        this.validMillis = ttlMillis - ttlMillis / 10;
+        this.nanoClock = nanoClock;
+    }
+
+    //지금 쓰고 있는 노드 id (없으면 -1)
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    //시작할 때 바로 빌린다. 실패해도(Redis 장애) 띄우는 것은 막지 않고, 다음 renew에서 다시 시도한다.
+    @PostConstruct
+    public void start() {
+        if (fixedNodeId >= 0) {
+            snowflakeIdGenerator.leased(fixedNodeId, 0);
+            nodeId = fixedNodeId;
+            log.info("Using fixed node id: {}", fixedNodeId);
+            return;
+        }
+        acquire();
+    }
+
+    @Scheduled(fixedDelayString = "${message.id.lease-renew-interval:10s}")
+    public void renew() {
+        if (fixedNodeId >= 0) {
+            return;
+        }
+        if (nodeId < 0) {
+            acquire();
+            return;
+        }
+
+        int current = nodeId;
+        long requestedAt = nanoClock.getAsLong();
+        try {
+            long highWater = Math.max(snowflakeIdGenerator.lastTimestampMillis(), System.currentTimeMillis()) + validMillis;
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(leaseKey(current), highWaterKey(current)),
+                    token, String.valueOf(ttlMillis), String.valueOf(highWater));
+            if (renewed != null && renewed == 1) {
+                snowflakeIdGenerator.renewed(validUntil(requestedAt));
+                return;
+            }
+        } catch (Exception ex) {
+            //유효 기간이 지나면 생성기가 알아서 멈춘다.
+            log.error("Node id lease renew failed. nodeId: {}, cause: {}", current, ex.getMessage());
+            return;
+        }
+
+        log.warn("Node id lease lost. nodeId: {}", current);
+        snowflakeIdGenerator.revoked();
+        nodeId = -1;
+        acquire();
+    }
+
+    @PreDestroy
+    public void release() {
+        int current = nodeId;
+        if (fixedNodeId >= 0 || current < 0) {
+            return;
+        }
+        snowflakeIdGenerator.revoked();
+        nodeId = -1;
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey(current), highWaterKey(current)),
+                    token, String.valueOf(snowflakeIdGenerator.lastTimestampMillis()));
+        } catch (Exception ex) {
+            log.error("Node id lease release failed. nodeId: {}, cause: {}", current, ex.getMessage());
+        }
+    }
+
+    private void acquire() {
+        int start = ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_NODE_ID + 1);
+        try {
+            for (int i = 0; i <= SnowflakeIdGenerator.MAX_NODE_ID; i++) {
+                int candidate = (start + i) & SnowflakeIdGenerator.MAX_NODE_ID;
+                long requestedAt = nanoClock.getAsLong();
+                Boolean acquired = stringRedisTemplate.opsForValue()
+                        .setIfAbsent(leaseKey(candidate), token, ttlMillis, TimeUnit.MILLISECONDS);
+                if (Boolean.TRUE.equals(acquired)) {
+                    String highWater = stringRedisTemplate.opsForValue().get(highWaterKey(candidate));
+                    snowflakeIdGenerator.leased(candidate, highWater == null ? 0 : Long.parseLong(highWater), validUntil(requestedAt));
+                    nodeId = candidate;
+                    log.info("Node id leased. nodeId: {}", candidate);
+                    return;
+                }
+            }
+            log.error("No free node id.");
+        } catch (Exception ex) {
+            log.error("Node id lease failed. cause: {}", ex.getMessage());
+        }
+    }
+
+    private long validUntil(long requestedAt) {
+        return requestedAt + TimeUnit.MILLISECONDS.toNanos(validMillis);
+    }
+
+    private static String leaseKey(int nodeId) {
+        return "%s:%d".formatted(NAMESPACE, nodeId);
+    }
+
+    private static String highWaterKey(int nodeId) {
+        return "%s:%d:high-water".formatted(NAMESPACE, nodeId);
+    }
+}
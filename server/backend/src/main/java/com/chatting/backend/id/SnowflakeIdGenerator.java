@@ -0,0 +1,137 @@
+package com.chatting.backend.id;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간 순서 64bit id 생성기 (Snowflake 방식)
+ *
+ * message 테이블의 AUTO_INCREMENT(IDENTITY)는 INSERT를 해야 id를 알 수 있어서 JDBC 배치가 꺼지고,
+ * 여러 노드/샤드에 나눠 저장하면 순서를 맞출 수 없다. 그래서 id를 애플리케이션에서 INSERT 전에 만든다.
+ *
+ * 구성: [41bit: EPOCH 이후 ms][10bit: 노드 id][12bit: 같은 ms 안의 순번]
+ * - 노드 id는 NodeIdLease가 Redis에서 빌려와 leased()로 넣어준다. 빌린 기간이 끝나면(갱신 실패) id를 만들지 않는다.
+ * - 락 없음: (ms << 12 | 순번)을 AtomicLong 하나에 두고 CAS로 "max(이전 값 + 1, 현재 ms << 12)"로 올린다.
+ *   같은 ms 안에서 4096개를 넘기면 순번이 넘쳐서 자연스럽게 다음 ms를 미리 쓴다. (노드당 초당 약 409만 개)
+ * - 시계가 뒤로 가면(NTP 보정 등) 이전 값에서 계속 올라가므로 id가 줄어들거나 겹치지 않는다.
+ *   다만 실제 시각보다 max-clock-drift 넘게 앞서 나가야 하면 시계가 크게 틀어진 것으로 보고 IllegalStateException을 던진다.
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    public static final long EPOCH_MILLIS = 1735689600000L;    //2025-01-01T00:00:00Z
+    public static final int NODE_ID_BITS = 10;
+    public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final Lease NO_LEASE = new Lease(-1, true, 0);
+
+    private final AtomicLong state = new AtomicLong();   //(ms - EPOCH) << SEQUENCE_BITS | 순번
+    private final long maxDriftMillis;
+    private final LongSupplier clock;
+    private final LongSupplier nanoClock;
+    private volatile Lease lease = NO_LEASE;
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${message.id.max-clock-drift:5s}") Duration maxClockDrift) {
+        this(maxClockDrift.toMillis(), System::currentTimeMillis, System::nanoTime);
+    }
+
+    SnowflakeIdGenerator(long maxDriftMillis, LongSupplier clock, LongSupplier nanoClock) {
+        if (maxDriftMillis < 0) {
+            throw new IllegalArgumentException("Invalid id generator settings.");
+        }
+        this.maxDriftMillis = maxDriftMillis;
+        this.clock = clock;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 다음 id
+     *
+     * @throws IllegalStateException 노드 id를 빌리지 못했거나, 시계가 max-clock-drift 넘게 뒤로 갔을 때
+     */
+    public long nextId() {
+        Lease current = lease;
+        if (current.nodeId() < 0 || (current.expires() && nanoClock.getAsLong() - current.validUntilNanos() >= 0)) {
+            throw new IllegalStateException("Node id lease is not held.");
+        }
+
+        long next;
+        while (true) {
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long previous = state.get();
+            next = Math.max(previous + 1, now << SEQUENCE_BITS);
+            if ((next >>> SEQUENCE_BITS) - now > maxDriftMillis) {
+                throw new IllegalStateException("Clock moved backwards. ahead: %dms".formatted((next >>> SEQUENCE_BITS) - now));
+            }
+            if (state.compareAndSet(previous, next)) {
+                break;
+            }
+        }
+        return (next >>> SEQUENCE_BITS) << (NODE_ID_BITS + SEQUENCE_BITS)
+                | (long) current.nodeId() << SEQUENCE_BITS
+                | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * 노드 id를 빌렸을 때 (NodeIdLease)
+     *
+     * @param floorMillis     이 노드 id로 이미 만들어졌을 수 있는 가장 늦은 시각. 이후의 id는 이 시각보다 뒤에서 시작한다.
+     * @param validUntilNanos 이 시각(System.nanoTime 기준)이 지나면 갱신되기 전까지 id를 만들지 않는다.
+     */
+    public void leased(int nodeId, long floorMillis, long validUntilNanos) {
+        lease(nodeId, floorMillis, true, validUntilNanos);
+    }
+
+    //설정으로 고정한 노드 id (만료 없음)
+    public void leased(int nodeId, long floorMillis) {
+        lease(nodeId, floorMillis, false, 0);
+    }
+
+    public void renewed(long validUntilNanos) {
+        Lease current = lease;
+        if (current.nodeId() >= 0 && current.expires()) {
+            lease = new Lease(current.nodeId(), true, validUntilNanos);
+        }
+    }
+
+    public void revoked() {
+        lease = NO_LEASE;
+    }
+
+    //지금까지 만든 id 중 가장 늦은 시각 (없으면 EPOCH)
+    public long lastTimestampMillis() {
+        return (state.get() >>> SEQUENCE_BITS) + EPOCH_MILLIS;
+    }
+
+    public static long timestampMillis(long id) {
+        return (id >>> (NODE_ID_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    //이 시각(ms)에 만들어질 수 있는 가장 작은 id (이 id보다 작으면 그 시각 전에 만든 것)
+    public static long firstIdAt(long millis) {
+        return Math.max(0, millis - EPOCH_MILLIS) << (NODE_ID_BITS + SEQUENCE_BITS);
+    }
+
+    public static int nodeId(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    private void lease(int nodeId, long floorMillis, boolean expires, long validUntilNanos) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Invalid node id: " + nodeId);
+        }
+        long floor = Math.max(0, floorMillis - EPOCH_MILLIS) << SEQUENCE_BITS | SEQUENCE_MASK;
+        state.accumulateAndGet(floor, Math::max);
+        lease = new Lease(nodeId, expires, validUntilNanos);
+    }
+
+    private record Lease(int nodeId, boolean expires, long validUntilNanos) {
+    }
+}
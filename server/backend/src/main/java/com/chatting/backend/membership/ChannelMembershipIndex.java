@@ -0,0 +1,310 @@
+package com.chatting.backend.membership;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.repository.BroadcastChannelRepository;
+import com.chatting.backend.repository.UserChannelRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 채널 참여자 bitmap + broadcast 채널 여부 메모리 인덱스
+ *
+ * 메시지를 보낼 때마다 channel_user에서 참여자 목록을 읽고, 한 명씩 UserId/List로 만들어 Redis와 대조하던 것을
+ * 채널별 참여자 bitmap(MemberBitmap)과 이 노드의 online bitmap의 AND 한 번으로 바꾸기 위한 인덱스이다.
+ *
+ * - 로딩: 처음 조회될 때 channel_user를 user_id 순서로 page-size씩 읽어 한 번에 만든다. (lazy)
+ * - 갱신: create/join/quit가 커밋된 뒤에 이미 올라와 있는 채널의 bitmap만 바꾼다. (바뀐 구간만 복사)
+ * - 다른 노드: bitmap은 노드마다 따로 있으므로, 바뀐 채널 id를 Redis pub/sub(MEMBERSHIP_CHANNEL)으로 알린다.
+ *   알림을 받은 노드는 그 채널의 bitmap을 버리고 다음 조회 때 DB에서 읽는다. (탈퇴한 사용자가 다른 노드에서 계속 보내거나 읽지 않게)
+ *   알림이 실패하거나 유실돼도 bitmap은 entry-ttl 뒤에 다시 읽는다.
+ * - 로딩 중 변경: ConnectionGraphIndex와 같이 채널 id 구간(stripe)별 변경 버전을 읽기 전/후로 비교해서,
+ *   읽는 사이에 참여자가 바뀌었으면 캐시에 넣지 않고 다시 읽는다.
+ * - 메모리 예산: 추정 크기 합이 max-bytes를 넘으면 가장 오래 조회되지 않은 채널부터 예산의 3/4까지 비운다.
+ * - broadcast 여부는 채널이 만들어질 때 정해지고 바뀌지 않으므로 한 번 읽은 값을 계속 쓴다.
+ */
+@Slf4j
+@Component
+public class ChannelMembershipIndex implements MessageListener {
+
+    public static final String MEMBERSHIP_CHANNEL = "message:membership";
+
+    private static final int VERSION_STRIPES = 256;     //2의 거듭제곱이어야 한다.
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final BroadcastChannelRepository broadcastChannelRepository;
+    private final UserChannelRepository userChannelRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final int pageSize;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Long, Boolean> broadcastFlags = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    @Autowired
+    public ChannelMembershipIndex(
+            BroadcastChannelRepository broadcastChannelRepository,
+            UserChannelRepository userChannelRepository,
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${message.membership.load-page-size:10000}") int pageSize,
+            @Value("${message.membership.max-bytes:33554432}") long maxBytes,
+            @Value("${message.membership.entry-ttl:1m}") Duration ttl) {
+        this(broadcastChannelRepository, userChannelRepository, stringRedisTemplate, pageSize, maxBytes, ttl.toNanos(), System::nanoTime);
+    }
+
+    ChannelMembershipIndex(BroadcastChannelRepository broadcastChannelRepository,
+                           UserChannelRepository userChannelRepository,
+                           StringRedisTemplate stringRedisTemplate,
+                           int pageSize, long maxBytes, long ttlNanos, LongSupplier clock) {
+        if (pageSize <= 0 || maxBytes <= 0 || ttlNanos <= 0) {
+            throw new IllegalArgumentException("Invalid channel membership settings.");
+        }
+        this.broadcastChannelRepository = broadcastChannelRepository;
+        this.userChannelRepository = userChannelRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.pageSize = pageSize;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+    }
+
+    public boolean isBroadcast(ChannelId channelId) {
+        return broadcastFlags.computeIfAbsent(channelId.id(), broadcastChannelRepository::existsById);
+    }
+
+    //채널의 참여자 집합 (불변 스냅샷)
+    public MemberBitmap getMembers(ChannelId channelId) {
+        Entry entry = entries.get(channelId.id());
+        if (entry != null) {
+            long now = clock.getAsLong();
+            if (now - entry.loadedAt < ttlNanos) {
+                entry.lastAccess = now;
+                return entry.members;
+            }
+            //entry-ttl이 지났으면 다른 노드의 알림을 놓쳤을 수 있으므로 다시 읽는다.
+            if (entries.remove(channelId.id(), entry)) {
+                usedBytes.addAndGet(-entry.members.estimatedBytes());
+            }
+        }
+
+        MemberBitmap loaded = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            int stripe = stripe(channelId.id());
+            long version = versions.get(stripe);
+            loaded = load(channelId.id());
+
+            long loadedAt = clock.getAsLong();
+            Entry candidate = new Entry(loaded, loadedAt, loadedAt);
+            Entry cached = entries.compute(channelId.id(), (key, existing) -> {
+                if (existing != null) {
+                    return existing;
+                }
+                if (versions.get(stripe) != version) {
+                    return null;    //읽는 사이에 바뀌었으므로 캐시하지 않는다.
+                }
+                usedBytes.addAndGet(candidate.members.estimatedBytes());
+                return candidate;
+            });
+            if (cached != null) {
+                evictIfNeeded();
+                return cached.members;
+            }
+        }
+
+        log.warn("Channel member load kept racing with updates. channelId: {}", channelId);
+        return loaded;
+    }
+
+    /**
+     * 채널 생성 (트랜잭션 안이면 커밋 후에 반영하고 다른 노드에 알린다)
+     */
+    public void created(ChannelId channelId, List<UserId> memberIds, boolean broadcast) {
+        long[] ids = memberIds.stream().mapToLong(UserId::id).toArray();
+        afterCommit(() -> {
+            broadcastFlags.put(channelId.id(), broadcast);
+            versions.incrementAndGet(stripe(channelId.id()));
+            long now = clock.getAsLong();
+            Entry entry = new Entry(MemberBitmap.of(ids), now, now);
+            Entry previous = entries.put(channelId.id(), entry);
+            usedBytes.addAndGet(entry.members.estimatedBytes() - (previous == null ? 0 : previous.members.estimatedBytes()));
+            evictIfNeeded();
+            publish(channelId.id());
+        });
+    }
+
+    /**
+     * 참여 (트랜잭션 안이면 커밋 후에 반영하고 다른 노드에 알린다)
+     */
+    public void joined(ChannelId channelId, UserId userId) {
+        afterCommit(() -> {
+            update(channelId.id(), userId.id(), true);
+            publish(channelId.id());
+        });
+    }
+
+    /**
+     * 탈퇴 (트랜잭션 안이면 커밋 후에 반영하고 다른 노드에 알린다)
+     */
+    public void quit(ChannelId channelId, UserId userId) {
+        afterCommit(() -> {
+            update(channelId.id(), userId.id(), false);
+            publish(channelId.id());
+        });
+    }
+
+    //다른 노드의 변경 "nodeId:channelId": 그 채널의 bitmap을 버린다.
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = payload.lastIndexOf(':');
+        if (separator < 0 || nodeId.equals(payload.substring(0, separator))) {
+            return;
+        }
+        try {
+            invalidate(Long.parseLong(payload.substring(separator + 1)));
+        } catch (NumberFormatException ex) {
+            log.error("Invalid channel membership change. payload: {}", payload);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(entries.size(), usedBytes.get(), maxBytes);
+    }
+
+    public record Stats(int channels, long usedBytes, long maxBytes) {
+    }
+
+    //id 배열은 bitmap을 만드는 동안만 쓰고 버린다. (10만 명이면 약 800KB)
+    private MemberBitmap load(long channelId) {
+        long[] ids = new long[Math.min(pageSize, 1024)];
+        int size = 0;
+        long cursor = 0;
+        List<Long> page;
+        do {
+            page = userChannelRepository.findUserIdsByChannelId(channelId, cursor, Limit.of(pageSize));
+            if (size + page.size() > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + page.size()));
+            }
+            for (Long userId : page) {
+                ids[size++] = userId;
+            }
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1);
+            }
+        } while (page.size() == pageSize);
+        return MemberBitmap.of(Arrays.copyOf(ids, size));
+    }
+
+    private void update(long channelId, long userId, boolean joined) {
+        //버전을 먼저 올려야 지금 DB를 읽고 있는 로더가 낡은 값을 캐시하지 않는다.
+        versions.incrementAndGet(stripe(channelId));
+        entries.computeIfPresent(channelId, (key, entry) -> {
+            MemberBitmap updated = joined ? entry.members.with(userId) : entry.members.without(userId);
+            usedBytes.addAndGet(updated.estimatedBytes() - entry.members.estimatedBytes());
+            return new Entry(updated, entry.loadedAt, entry.lastAccess);
+        });
+    }
+
+    private void invalidate(long channelId) {
+        //update와 같이 버전을 먼저 올려서 지금 DB를 읽고 있는 로더가 낡은 값을 캐시하지 않게 한다.
+        versions.incrementAndGet(stripe(channelId));
+        Entry removed = entries.remove(channelId);
+        if (removed != null) {
+            usedBytes.addAndGet(-removed.members.estimatedBytes());
+        }
+    }
+
+    private void publish(long channelId) {
+        try {
+            stringRedisTemplate.convertAndSend(MEMBERSHIP_CHANNEL, "%s:%d".formatted(nodeId, channelId));
+        } catch (Exception ex) {
+            //다른 노드의 bitmap은 entry-ttl 뒤에 다시 읽힌다.
+            log.error("Channel membership change publish failed. channelId: {}, cause: {}", channelId, ex.getMessage());
+        }
+    }
+
+    //예산을 넘었으면 lastAccess가 오래된 채널부터 예산의 3/4까지 비운다. (ConnectionGraphIndex와 같은 방식)
+    private void evictIfNeeded() {
+        if (usedBytes.get() <= maxBytes || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long target = maxBytes - maxBytes / 4;
+            List<EvictionCandidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((channelId, entry) -> candidates.add(new EvictionCandidate(channelId, entry, entry.lastAccess)));
+            candidates.sort(Comparator.comparingLong(EvictionCandidate::lastAccess));
+
+            for (EvictionCandidate candidate : candidates) {
+                if (usedBytes.get() <= target) {
+                    break;
+                }
+                if (entries.remove(candidate.channelId(), candidate.entry())) {
+                    usedBytes.addAndGet(-candidate.entry().members.estimatedBytes());
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int stripe(long channelId) {
+        return (int) (channelId ^ (channelId >>> 32)) & (VERSION_STRIPES - 1);
+    }
+
+    private record EvictionCandidate(Long channelId, Entry entry, long lastAccess) {
+    }
+
+    private static final class Entry {
+
+        private final MemberBitmap members;
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        private Entry(MemberBitmap members, long loadedAt, long lastAccess) {
+            this.members = members;
+            this.loadedAt = loadedAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
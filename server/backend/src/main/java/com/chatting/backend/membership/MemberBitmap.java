@@ -0,0 +1,432 @@
+package com.chatting.backend.membership;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * userId 집합 (압축 bitmap) - 채널 참여자, 이 노드의 online 사용자(접속/채널 보는 중)
+ *
+ * 1만~10만 명 채널의 참여자를 long[]로 들고 있으면 채널 하나에 최대 800KB가 든다.
+ * userId를 상위 비트(id >>> 16)로 나눈 구간(container)마다
+ * - 참여자가 적은 구간(4096명 이하): 하위 16비트를 정렬된 char[]로 (원소당 2byte)
+ * - 참여자가 많은 구간: 65536비트 bitset(long[1024], 8KB 고정)으로
+ * 저장한다. (Roaring bitmap과 같은 방식) 가입 순서대로 id가 붙으므로 큰 채널은 대부분 bitset 구간 몇 개로 끝난다.
+ *
+ * 불변(immutable) 객체이며, 추가/삭제 시에는 바뀐 구간만 복사한 새 객체를 돌려준다. (copy-on-write, AdjacencySet과 같은 방식)
+ * → 전송(fan-out) 중인 스레드는 락 없이 예전 집합을 끝까지 순회할 수 있다.
+ *
+ * 전송 대상 = 참여자 bitmap AND online bitmap. 교집합을 새 bitmap으로 만들지 않고 구간끼리 바로 맞춰 보며(forEachAnd)
+ * long으로 넘겨주므로, 메시지마다 Long 박싱이나 UserId/List 할당이 없다.
+ */
+public final class MemberBitmap {
+
+    public static final MemberBitmap EMPTY = new MemberBitmap(new long[0], new Container[0], 0);
+
+    private static final int ARRAY_MAX = 4096;      //이보다 많아지면 bitset으로 바꾼다. (char[4096] = 8KB = bitset 크기)
+    private static final int LOW_BITS = 16;
+    private static final int LOW_MASK = 0xFFFF;
+
+    private final long[] keys;              //구간 번호(id >>> 16), 오름차순
+    private final Container[] containers;   //keys와 같은 순서
+    private final int cardinality;
+
+    private MemberBitmap(long[] keys, Container[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    //DB에서 읽은 userId들로 만든다. (정렬되어 있지 않거나 중복이 있어도 된다)
+    public static MemberBitmap of(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+
+        long[] keys = new long[sorted.length == 0 ? 0 : (int) Math.min(sorted.length, (sorted[sorted.length - 1] >>> LOW_BITS) - (sorted[0] >>> LOW_BITS) + 1)];
+        Container[] containers = new Container[keys.length];
+        int containerCount = 0;
+        int cardinality = 0;
+
+        int from = 0;
+        while (from < sorted.length) {
+            long key = sorted[from] >>> LOW_BITS;
+            int to = from;
+            while (to < sorted.length && sorted[to] >>> LOW_BITS == key) {
+                to++;
+            }
+
+            char[] lows = new char[to - from];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                char low = (char) (sorted[i] & LOW_MASK);
+                if (size == 0 || lows[size - 1] != low) {
+                    lows[size++] = low;
+                }
+            }
+            keys[containerCount] = key;
+            containers[containerCount++] = size > ARRAY_MAX
+                    ? BitsetContainer.of(lows, size)
+                    : new ArrayContainer(Arrays.copyOf(lows, size));
+            cardinality += size;
+            from = to;
+        }
+
+        return new MemberBitmap(Arrays.copyOf(keys, containerCount), Arrays.copyOf(containers, containerCount), cardinality);
+    }
+
+    public boolean contains(long id) {
+        int index = Arrays.binarySearch(keys, id >>> LOW_BITS);
+        return index >= 0 && containers[index].contains((char) (id & LOW_MASK));
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public MemberBitmap with(long id) {
+        long key = id >>> LOW_BITS;
+        char low = (char) (id & LOW_MASK);
+        int index = Arrays.binarySearch(keys, key);
+
+        if (index >= 0) {
+            Container updated = containers[index].with(low);
+            if (updated == containers[index]) {
+                return this;
+            }
+            Container[] copy = containers.clone();
+            copy[index] = updated;
+            return new MemberBitmap(keys, copy, cardinality + 1);
+        }
+
+        int insertAt = -index - 1;
+        long[] newKeys = new long[keys.length + 1];
+        Container[] newContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertAt);
+        System.arraycopy(containers, 0, newContainers, 0, insertAt);
+        newKeys[insertAt] = key;
+        newContainers[insertAt] = new ArrayContainer(new char[]{low});
+        System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+        System.arraycopy(containers, insertAt, newContainers, insertAt + 1, containers.length - insertAt);
+        return new MemberBitmap(newKeys, newContainers, cardinality + 1);
+    }
+
+    public MemberBitmap without(long id) {
+        int index = Arrays.binarySearch(keys, id >>> LOW_BITS);
+        if (index < 0) {
+            return this;
+        }
+        Container updated = containers[index].without((char) (id & LOW_MASK));
+        if (updated == containers[index]) {
+            return this;
+        }
+        if (updated.cardinality() > 0) {
+            Container[] copy = containers.clone();
+            copy[index] = updated;
+            return new MemberBitmap(keys, copy, cardinality - 1);
+        }
+
+        //빈 구간은 지운다.
+        long[] newKeys = new long[keys.length - 1];
+        Container[] newContainers = new Container[containers.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(containers, 0, newContainers, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(containers, index + 1, newContainers, index, containers.length - index - 1);
+        return new MemberBitmap(newKeys, newContainers, cardinality - 1);
+    }
+
+    //모든 참여자 id를 오름차순으로 넘겨준다.
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << LOW_BITS, 0, LOW_MASK + 1, action);
+        }
+    }
+
+    //[fromInclusive, toExclusive) 구간의 참여자 id를 오름차순으로 넘겨준다. (fan-out 샤드 하나)
+    public void forEachInRange(long fromInclusive, long toExclusive, LongConsumer action) {
+        if (fromInclusive >= toExclusive) {
+            return;
+        }
+        int index = Arrays.binarySearch(keys, fromInclusive >>> LOW_BITS);
+        for (int i = index >= 0 ? index : -index - 1; i < keys.length; i++) {
+            long base = keys[i] << LOW_BITS;
+            if (base >= toExclusive) {
+                break;
+            }
+            int lowFrom = (int) Math.max(0, fromInclusive - base);
+            int lowTo = (int) Math.min(LOW_MASK + 1, toExclusive - base);
+            containers[i].forEach(base, lowFrom, lowTo, action);
+        }
+    }
+
+    //this AND other 의 id를 오름차순으로 넘겨준다. (교집합 bitmap을 만들지 않는다)
+    public void forEachAnd(MemberBitmap other, LongConsumer action) {
+        forEachAndInRange(other, 0, Long.MAX_VALUE, action);
+    }
+
+    //[fromInclusive, toExclusive) 구간에서 this AND other 의 id를 오름차순으로 넘겨준다. (fan-out 샤드 하나)
+    public void forEachAndInRange(MemberBitmap other, long fromInclusive, long toExclusive, LongConsumer action) {
+        if (fromInclusive >= toExclusive) {
+            return;
+        }
+        int index = Arrays.binarySearch(keys, fromInclusive >>> LOW_BITS);
+        int otherIndex = 0;
+        for (int i = index >= 0 ? index : -index - 1; i < keys.length; i++) {
+            long base = keys[i] << LOW_BITS;
+            if (base >= toExclusive) {
+                break;
+            }
+            //두 bitmap의 구간 번호는 모두 오름차순이므로 앞에서 찾은 위치 이후만 본다.
+            otherIndex = Arrays.binarySearch(other.keys, otherIndex, other.keys.length, keys[i]);
+            if (otherIndex < 0) {
+                otherIndex = -otherIndex - 1;
+                continue;
+            }
+            int lowFrom = (int) Math.max(0, fromInclusive - base);
+            int lowTo = (int) Math.min(LOW_MASK + 1, toExclusive - base);
+            containers[i].forEachAnd(other.containers[otherIndex], base, lowFrom, lowTo, action);
+        }
+    }
+
+    /**
+     * 참여자를 약 shardSize명씩 나누는 id 구간 경계
+     * 반환값 [b0, b1, ..., bn]에서 i번째 샤드는 [b(i), b(i+1)) 이다. (참여자가 없으면 길이 0)
+     */
+    public long[] shardBounds(int shardSize) {
+        if (cardinality == 0) {
+            return new long[0];
+        }
+        long[] bounds = new long[(cardinality + shardSize - 1) / shardSize + 1];
+        int[] seen = {0};
+        long[] last = {0};
+        forEach(id -> {
+            if (seen[0] % shardSize == 0) {
+                bounds[seen[0] / shardSize] = id;
+            }
+            seen[0]++;
+            last[0] = id;
+        });
+        bounds[bounds.length - 1] = last[0] + 1;
+        return bounds;
+    }
+
+    //대략적인 heap 사용량 (통계용)
+    public long estimatedBytes() {
+        long bytes = 16L + 16 + keys.length * 8L + 16 + containers.length * 4L;
+        for (Container container : containers) {
+            bytes += container.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 구간 하나 (하위 16비트 집합). 불변이며, 바뀌지 않았으면 with/without이 this를 돌려준다.
+     */
+    private interface Container {
+
+        boolean contains(char low);
+
+        Container with(char low);
+
+        Container without(char low);
+
+        int cardinality();
+
+        //[lowFrom, lowTo) 범위의 원소를 base + low로 넘겨준다.
+        void forEach(long base, int lowFrom, int lowTo, LongConsumer action);
+
+        //[lowFrom, lowTo) 범위에서 other에도 있는 원소만 base + low로 넘겨준다.
+        void forEachAnd(Container other, long base, int lowFrom, int lowTo, LongConsumer action);
+
+        long estimatedBytes();
+    }
+
+    private static final class ArrayContainer implements Container {
+
+        private final char[] lows;
+
+        private ArrayContainer(char[] lows) {
+            this.lows = lows;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(lows, low) >= 0;
+        }
+
+        @Override
+        public Container with(char low) {
+            int index = Arrays.binarySearch(lows, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (lows.length == ARRAY_MAX) {
+                return BitsetContainer.of(lows, lows.length).with(low);
+            }
+            int insertAt = -index - 1;
+            char[] copy = new char[lows.length + 1];
+            System.arraycopy(lows, 0, copy, 0, insertAt);
+            copy[insertAt] = low;
+            System.arraycopy(lows, insertAt, copy, insertAt + 1, lows.length - insertAt);
+            return new ArrayContainer(copy);
+        }
+
+        @Override
+        public Container without(char low) {
+            int index = Arrays.binarySearch(lows, low);
+            if (index < 0) {
+                return this;
+            }
+            char[] copy = new char[lows.length - 1];
+            System.arraycopy(lows, 0, copy, 0, index);
+            System.arraycopy(lows, index + 1, copy, index, lows.length - index - 1);
+            return new ArrayContainer(copy);
+        }
+
+        @Override
+        public int cardinality() {
+            return lows.length;
+        }
+
+        @Override
+        public void forEach(long base, int lowFrom, int lowTo, LongConsumer action) {
+            int index = Arrays.binarySearch(lows, (char) lowFrom);
+            for (int i = index >= 0 ? index : -index - 1; i < lows.length && lows[i] < lowTo; i++) {
+                action.accept(base + lows[i]);
+            }
+        }
+
+        @Override
+        public void forEachAnd(Container other, long base, int lowFrom, int lowTo, LongConsumer action) {
+            if (other instanceof ArrayContainer array && array.lows.length < lows.length) {
+                //작은 쪽을 돌면서 큰 쪽을 찾는다.
+                array.forEachAnd(this, base, lowFrom, lowTo, action);
+                return;
+            }
+            int index = Arrays.binarySearch(lows, (char) lowFrom);
+            for (int i = index >= 0 ? index : -index - 1; i < lows.length && lows[i] < lowTo; i++) {
+                if (other.contains(lows[i])) {
+                    action.accept(base + lows[i]);
+                }
+            }
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 16L + 16 + lows.length * 2L;
+        }
+    }
+
+    private static final class BitsetContainer implements Container {
+
+        private final long[] words;     //길이 1024 (65536비트)
+        private final int cardinality;
+
+        private BitsetContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static BitsetContainer of(char[] lows, int size) {
+            long[] words = new long[(LOW_MASK + 1) >>> 6];
+            for (int i = 0; i < size; i++) {
+                words[lows[i] >>> 6] |= 1L << lows[i];
+            }
+            return new BitsetContainer(words, size);
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public Container with(char low) {
+            if (contains(low)) {
+                return this;
+            }
+            long[] copy = words.clone();
+            copy[low >>> 6] |= 1L << low;
+            return new BitsetContainer(copy, cardinality + 1);
+        }
+
+        @Override
+        public Container without(char low) {
+            if (!contains(low)) {
+                return this;
+            }
+            if (cardinality - 1 <= ARRAY_MAX) {
+                //다시 작아지면 정렬 배열로 되돌린다.
+                char[] lows = new char[cardinality - 1];
+                int[] size = {0};
+                forEach(0, 0, LOW_MASK + 1, value -> {
+                    if (value != low) {
+                        lows[size[0]++] = (char) value;
+                    }
+                });
+                return new ArrayContainer(lows);
+            }
+            long[] copy = words.clone();
+            copy[low >>> 6] &= ~(1L << low);
+            return new BitsetContainer(copy, cardinality - 1);
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public void forEach(long base, int lowFrom, int lowTo, LongConsumer action) {
+            if (lowFrom >= lowTo) {
+                return;
+            }
+            int firstWord = lowFrom >>> 6;
+            int lastWord = (lowTo - 1) >>> 6;
+            for (int w = firstWord; w <= lastWord; w++) {
+                long word = words[w];
+                if (w == firstWord) {
+                    word &= -1L << lowFrom;
+                }
+                if (w == lastWord) {
+                    word &= -1L >>> (63 - ((lowTo - 1) & 63));
+                }
+                while (word != 0) {
+                    action.accept(base + ((long) w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public void forEachAnd(Container other, long base, int lowFrom, int lowTo, LongConsumer action) {
+            if (!(other instanceof BitsetContainer bitset)) {
+                other.forEachAnd(this, base, lowFrom, lowTo, action);
+                return;
+            }
+            if (lowFrom >= lowTo) {
+                return;
+            }
+            //bitset끼리는 64개씩 word AND
+            int firstWord = lowFrom >>> 6;
+            int lastWord = (lowTo - 1) >>> 6;
+            for (int w = firstWord; w <= lastWord; w++) {
+                long word = words[w] & bitset.words[w];
+                if (w == firstWord) {
+                    word &= -1L << lowFrom;
+                }
+                if (w == lastWord) {
+                    word &= -1L >>> (63 - ((lowTo - 1) & 63));
+                }
+                while (word != 0) {
+                    action.accept(base + ((long) w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 24L + 16 + words.length * 8L;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.chatting.backend.repository;
+
+import com.chatting.backend.entity.BroadcastChannelEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BroadcastChannelRepository extends JpaRepository<BroadcastChannelEntity, Long> {
+}
@@ -0,0 +1,31 @@
+package com.chatting.backend.repository;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * channel.head_count 조건부 UPDATE (ChannelRepository fragment)
+ *
+ * JPQL bulk update는 Hibernate가 channel 2차 캐시 region 전체를 무효화해서, join/quit 한 번에 모든 채널의 제목/초대코드가 캐시에서 빠졌다.
+ * 그래서 JDBC로 직접 UPDATE하고, 커밋된 뒤 바뀐 채널 하나만 캐시에서 뺀다. (ChannelHeadCountRepositoryImpl)
+ */
+public interface ChannelHeadCountRepository {
+
+    /**
+     * [중요] head_count 증가: "조건부 UPDATE" 한 문장으로 인원 제한 검사와 증가를 같이 처리한다.
+     *
+     * UPDATE channel SET head_count = head_count + 1 WHERE channel_id = ? AND head_count < ?
+     *
+     * 왜 비관적 락(SELECT ... FOR UPDATE)을 쓰지 않나?
+     * - FOR UPDATE는 "읽고 → 애플리케이션에서 비교하고 → 다시 쓰는" 동안 계속 row 락을 잡고 있어서,
+     *   인기 초대코드가 공유되면 모든 join이 그 한 row 앞에서 줄을 선다. (InnoDB lock wait)
+     * - 조건부 UPDATE는 DB가 row 락을 잡은 상태에서 조건 검사 + 증가를 한 번에 하므로 99→100, 100→101 같은 경쟁에서도 한계를 넘지 않는다.
+     *   (동시에 들어온 UPDATE는 앞의 트랜잭션 커밋 후 최신 값으로 WHERE를 다시 평가한다)
+     *
+     * @return 변경된 row 수 (1: 성공, 0: 채널이 없거나 인원 제한에 걸림)
+     */
+    int increaseHeadCount(@NonNull Long channelId, int limit);
+
+    //head_count 감소: 0 밑으로 내려가지 않도록 조건부로 감소시킨다.
+    //UPDATE channel SET head_count = head_count - 1 WHERE channel_id = ? AND head_count > 0
+    int decreaseHeadCount(@NonNull Long channelId);
+}
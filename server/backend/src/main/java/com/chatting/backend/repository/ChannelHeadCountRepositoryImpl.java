@@ -0,0 +1,63 @@
+package com.chatting.backend.repository;
+
+import com.chatting.backend.entity.ChannelEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * ChannelHeadCountRepository 구현
+ *
+ * - JdbcTemplate은 JpaTransactionManager가 열어 둔 같은 커넥션/트랜잭션에서 실행된다.
+ * - 실행 전에 영속성 컨텍스트를 flush한다. (@Modifying(flushAutomatically = true)와 같이 channel_user insert가 먼저 나가고,
+ *   인기 채널 row 락은 트랜잭션의 마지막 문장부터 잡는다)
+ * - Hibernate를 거치지 않으므로 2차 캐시는 직접 정리한다: 커밋된 뒤 그 채널 하나만 channel region에서 뺀다.
+ *   (커밋 전에 빼면 다른 트랜잭션이 옛 head_count를 다시 읽어 넣을 수 있다)
+ */
+@RequiredArgsConstructor
+class ChannelHeadCountRepositoryImpl implements ChannelHeadCountRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int increaseHeadCount(@NonNull Long channelId, int limit) {
+        entityManager.flush();
+        int updated = jdbcTemplate.update("UPDATE channel SET head_count = head_count + 1 WHERE channel_id = ? AND head_count < ?", channelId, limit);
+        if (updated > 0) {
+            evictAfterCommit(channelId);
+        }
+        return updated;
+    }
+
+    @Override
+    public int decreaseHeadCount(@NonNull Long channelId) {
+        entityManager.flush();
+        int updated = jdbcTemplate.update("UPDATE channel SET head_count = head_count - 1 WHERE channel_id = ? AND head_count > 0", channelId);
+        if (updated > 0) {
+            evictAfterCommit(channelId);
+        }
+        return updated;
+    }
+
+    private void evictAfterCommit(Long channelId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entityManagerFactory.getCache().evict(ChannelEntity.class, channelId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(ChannelEntity.class, channelId);
+            }
+        });
+    }
+}
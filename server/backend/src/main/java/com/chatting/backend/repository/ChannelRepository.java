@@ -1,45 +1,45 @@
 package com.chatting.backend.repository;
 
-import com.chatting.backend.dto.projection.ChannelProjection;
 import com.chatting.backend.dto.projection.ChannelTitleProjection;
+import com.chatting.backend.dto.projection.IdInviteCodeProjection;
 import com.chatting.backend.dto.projection.InviteCodeProjection;
 import com.chatting.backend.entity.ChannelEntity;
-import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ChannelRepository extends JpaRepository<ChannelEntity, Long> {
+//head_count 조건부 증가/감소는 ChannelHeadCountRepository (JDBC + 바뀐 채널만 캐시에서 뺀다)
+public interface ChannelRepository extends JpaRepository<ChannelEntity, Long>, ChannelHeadCountRepository {
 
-    //channelId로 채널명(title) 찾기
-    //SELECT title FROM channel WHERE channelId = ?
-    Optional<ChannelTitleProjection> findChannelTitleByChannelId(@NonNull Long channelId);
+    //channelId로 채널명(title) 찾기 (EnterRequest마다 호출)
+    //projection 쿼리는 2차 캐시를 타지 않으므로 findById()로 엔티티 캐시(channel region)를 거쳐서 읽는다.
+    //(쿼리 캐시는 head_count가 바뀔 때마다 channel 테이블 전체가 무효화되어 효과가 없다)
+    default Optional<ChannelTitleProjection> findChannelTitleByChannelId(@NonNull Long channelId) {
+        return findById(channelId).map(channelEntity -> channelEntity::getTitle);
+    }
 
-    //채팅방의 초대코드를 찾기
-    //SELECT channel_invite_code FROM channel WHERE channel_id = ?
-    Optional<InviteCodeProjection> findChannelInviteCodeByChannelId(@NonNull Long channelId);
+    //채팅방의 초대코드를 찾기 (엔티티 캐시 사용)
+    default Optional<InviteCodeProjection> findChannelInviteCodeByChannelId(@NonNull Long channelId) {
+        return findById(channelId).map(channelEntity -> channelEntity::getInviteCode);
+    }
 
     //초대코드로 채널id 찾기(초대코드로 채팅방 참여하기 위한 기능을 위해 사용)
     //SELECT channel_id FROM channel WHERE invite_code = ?
-    Optional<ChannelProjection> findChannelByInviteCode(@NonNull String inviteCode);
-
-    /**
-     * [중요] head_count를 증가/감소시키는 시나리오에서 사용할 "행 잠금" 조회 : headCount를 증가시키거나 감소시킬 때 rock 설정
-     *
-     * @Lock(PESSIMISTIC_WRITE)
-     * - DB가 해당 row에 "배타적 잠금"을 건다(SELECT ... FOR UPDATE)
-     * - 같은 row를 수정하려는 다른 트랜잭션은 이 락이 풀릴 때까지 대기(혹은 타임아웃)
-     *
-     * 왜 필요?
-     * - 동시에 여러 사용자가 같은 채널에 join() 하면, 둘 다 head_count를 99→100으로 만들려고 할 수 있다.
-     * - 락 없이 처리하면 서로 덮어쓰거나, 101이 되거나, 한계(100)를 넘겨 무너질 수 있다.
-     * - 락으로 "한 번에 한 명씩" head_count를 보고/수정하게 만들어 정합성을 보장한다.
-     */
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Optional<ChannelEntity> findForUpdateByChannelId(@NonNull Long channelId);
+    //InviteCodeCache의 positive 캐시/필터에 걸리지 않은 경우에만 호출된다. 채널 정보는 findById()로 channel region을 거쳐 읽는다.
+    //(쿼리 캐시는 head_count가 바뀔 때마다 무효화되어 join 때마다 DB를 읽었다)
+    @Query("SELECT c.channelId FROM ChannelEntity c WHERE c.inviteCode = :inviteCode")
+    Optional<Long> findChannelIdByInviteCode(@NonNull @Param("inviteCode") String inviteCode);
+
+    //초대코드 필터 재구축용 keyset 페이지 조회
+    //SELECT channel_id, invite_code FROM channel WHERE channel_id > ? ORDER BY channel_id LIMIT ?
+    @Query("SELECT c.channelId AS id, c.inviteCode AS inviteCode FROM ChannelEntity c WHERE c.channelId > :cursor ORDER BY c.channelId")
+    List<IdInviteCodeProjection> findInviteCodes(@NonNull @Param("cursor") Long cursor, Limit limit);
 
 }
@@ -1,9 +1,9 @@
 package com.chatting.backend.repository;
 
-import com.chatting.backend.entity.MessageEntity;
+import com.chatting.backend.entity.MessageShardEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface MessageRepository extends JpaRepository<MessageEntity, Long> {
-}
\ No newline at end of file
+public interface MessageShardRepository extends JpaRepository<MessageShardEntity, String> {
+}
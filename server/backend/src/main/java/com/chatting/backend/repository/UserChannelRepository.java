@@ -5,7 +5,9 @@ import com.chatting.backend.dto.projection.ChannelProjection;
 import com.chatting.backend.dto.projection.UserIdProjection;
 import com.chatting.backend.entity.UserChannelId;
 import com.chatting.backend.entity.UserChannelEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
@@ -24,6 +26,16 @@ public interface UserChannelRepository extends JpaRepository<UserChannelEntity,
     //SELECT user_id FROM user_channel WHERE channel_id = ?
     List<UserIdProjection> findUserIdsByChannelId(@NonNull Long channelId);
 
+    //채널 참여자 bitmap 로딩용 keyset 페이지 조회 (idx_channel_id에 PK(user_id)가 붙어 있어 user_id 순서로 읽힌다)
+    //SELECT user_id FROM channel_user WHERE channel_id = ? AND user_id > ? ORDER BY user_id LIMIT ?
+    @Query("SELECT uc.userId FROM UserChannelEntity uc WHERE uc.channelId = :channelId AND uc.userId > :cursor ORDER BY uc.userId")
+    List<Long> findUserIdsByChannelId(@NonNull @Param("channelId") Long channelId, @NonNull @Param("cursor") Long cursor, Limit limit);
+
+    //사용자가 참여한 채널 id (메시지 검색 필터용, PK(user_id, channel_id) 범위 읽기)
+    //SELECT channel_id FROM channel_user WHERE user_id = ? ORDER BY channel_id
+    @Query("SELECT uc.channelId FROM UserChannelEntity uc WHERE uc.userId = :userId ORDER BY uc.channelId")
+    List<Long> findChannelIdsByUserId(@NonNull @Param("userId") Long userId);
+
     //userId(내 id)로 채팅방 목록 보기
     @Query("SELECT c.channelId AS channelId, c.title AS title, c.headCount AS headCount FROM UserChannelEntity uc " +
             "INNER JOIN ChannelEntity c ON uc.channelId = c.channelId WHERE uc.userId = :userId")
@@ -31,5 +43,8 @@ public interface UserChannelRepository extends JpaRepository<UserChannelEntity,
 
 
     //채널(채팅방)에 해당 사용자 삭제하기(탈퇴기능)
-    void deleteByUserIdAndChannelId(@NonNull Long userId, @NonNull Long channelId);
+    //파생 deleteBy는 엔티티를 먼저 SELECT 해온 뒤 지우므로, DELETE 한 문장으로 지우고 삭제된 row 수를 돌려준다. (0이면 참여자가 아님)
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM UserChannelEntity uc WHERE uc.userId = :userId AND uc.channelId = :channelId")
+    int deleteByUserIdAndChannelId(@NonNull @Param("userId") Long userId, @NonNull @Param("channelId") Long channelId);
 }
@@ -0,0 +1,36 @@
+package com.chatting.backend.repository;
+
+import com.chatting.backend.dto.projection.CountProjection;
+import com.chatting.backend.entity.UserConnectionCountEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserConnectionCountRepository extends JpaRepository<UserConnectionCountEntity, Long> {
+
+    //userId로 연결 수 찾기
+    //SELECT connection_count FROM user_connection_count WHERE user_id = ?
+    Optional<CountProjection> findCountByUserId(@NonNull Long userId);
+
+    /**
+     * 연결 수 증가: 한도 검사와 증가를 조건부 UPDATE 한 문장으로 처리한다. (SELECT ... FOR UPDATE 없음)
+     *
+     * UPDATE user_connection_count SET connection_count = connection_count + 1 WHERE user_id = ? AND connection_count < ?
+     *
+     * @return 1: 성공, 0: 한도에 도달함
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserConnectionCountEntity c SET c.connectionCount = c.connectionCount + 1 WHERE c.userId = :userId AND c.connectionCount < :limit")
+    int increaseConnectionCount(@NonNull @Param("userId") Long userId, @Param("limit") int limit);
+
+    //연결 수 감소: 0 밑으로 내려가지 않도록 조건부로 감소시킨다. (0이면 이미 0이었음)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserConnectionCountEntity c SET c.connectionCount = c.connectionCount - 1 WHERE c.userId = :userId AND c.connectionCount > 0")
+    int decreaseConnectionCount(@NonNull @Param("userId") Long userId);
+}
@@ -0,0 +1,87 @@
+package com.chatting.backend.repository;
+
+import com.chatting.backend.constant.UserConnectionStatus;
+import com.chatting.backend.dto.projection.UserIdUsernameProjection;
+import com.chatting.backend.entity.UserConnectionEdgeEntity;
+import com.chatting.backend.entity.UserConnectionEdgeId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 연결 목록 조회용 인접 리스트(user_connection_edge) 레포지토리
+ *
+ * user_connection의 상태가 바뀌는 곳(UserConnectionService.setStatus, UserConnectionLimitService.accept/disconnect)에서
+ * 같은 트랜잭션으로 두 방향의 행을 함께 바꾼다.
+ */
+@Repository
+public interface UserConnectionEdgeRepository extends JpaRepository<UserConnectionEdgeEntity, UserConnectionEdgeId> {
+
+    /**
+     * 두 방향의 행을 한 번에 저장 (없으면 INSERT, 있으면 status/inviter를 UPDATE)
+     * UserConnectionRepository.upsertStatus()와 짝으로 호출한다.
+     */
+    @Modifying
+    @Transactional
+    @Query(
+            value = "INSERT INTO user_connection_edge (user_id, partner_user_id, status, inviter_user_id, created_at, updated_at) "
+                    + "VALUES (:userAId, :userBId, :status, :inviterUserId, NOW(), NOW()), "
+                    + "(:userBId, :userAId, :status, :inviterUserId, NOW(), NOW()) "
+                    + "ON DUPLICATE KEY UPDATE status = VALUES(status), inviter_user_id = VALUES(inviter_user_id), updated_at = VALUES(updated_at)",
+            nativeQuery = true)
+    int upsertEdges(
+            @NonNull @Param("userAId") Long userAId,
+            @NonNull @Param("userBId") Long userBId,
+            @NonNull @Param("status") String status,
+            @NonNull @Param("inviterUserId") Long inviterUserId);
+
+    /**
+     * 두 방향의 행 상태 전이 (UserConnectionRepository.updateStatus()와 짝)
+     * (A,B), (B,A) 두 행을 PK 두 개로 바로 찾는다. (user_id만 조건으로 쓰면 인기 사용자의 인접 행 전체를 훑게 된다)
+     *
+     * @return 바뀐 행 수 (정상이면 2)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserConnectionEdgeEntity e SET e.status = :to, e.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE (e.userId, e.partnerUserId) IN ((:userAId, :userBId), (:userBId, :userAId)) AND e.status = :from")
+    int updateStatus(
+            @NonNull @Param("userAId") Long userAId,
+            @NonNull @Param("userBId") Long userBId,
+            @NonNull @Param("from") UserConnectionStatus from,
+            @NonNull @Param("to") UserConnectionStatus to);
+
+    /**
+     * 연결 목록 한 페이지 조회 (keyset pagination)
+     *
+     * (user_id, status, partner_user_id) 인덱스를 cursor 다음부터 limit개만 읽는다. OFFSET을 쓰지 않으므로 뒤 페이지로 갈수록 느려지지 않는다.
+     * ACCEPTED가 아닌 상태(PENDING 등)는 초대를 받은 사람에게만 보여야 하므로 내가 초대한 행은 뺀다.
+     *
+     * @param cursor 이전 페이지의 마지막 partner_user_id (첫 페이지는 0)
+     */
+    @Query("SELECT e.partnerUserId AS userId, u.username AS username "
+            + "FROM UserConnectionEdgeEntity e "
+            + "INNER JOIN UserEntity u ON u.userId = e.partnerUserId "
+            + "WHERE e.userId = :userId AND e.status = :status AND e.partnerUserId > :cursor "
+            + "AND (e.status = com.chatting.backend.constant.UserConnectionStatus.ACCEPTED OR e.inviterUserId <> :userId) "
+            + "ORDER BY e.partnerUserId")
+    List<UserIdUsernameProjection> findPartners(
+            @NonNull @Param("userId") Long userId,
+            @NonNull @Param("status") UserConnectionStatus status,
+            @NonNull @Param("cursor") Long cursor,
+            @NonNull Limit limit);
+
+    /**
+     * 특정 상태인 상대 userId 전체 (ConnectionGraphIndex 로딩용, partner_user_id 오름차순)
+     * (user_id, status, partner_user_id) 인덱스만 읽고 끝난다.
+     */
+    @Query("SELECT e.partnerUserId FROM UserConnectionEdgeEntity e "
+            + "WHERE e.userId = :userId AND e.status = :status ORDER BY e.partnerUserId")
+    List<Long> findPartnerUserIds(@NonNull @Param("userId") Long userId, @NonNull @Param("status") UserConnectionStatus status);
+}
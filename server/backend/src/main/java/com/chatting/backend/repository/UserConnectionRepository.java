@@ -2,15 +2,18 @@ package com.chatting.backend.repository;
 
 import com.chatting.backend.constant.UserConnectionStatus;
 import com.chatting.backend.dto.projection.InviterUserIdProjection;
+import com.chatting.backend.dto.projection.UserConnectionStateProjection;
 import com.chatting.backend.dto.projection.UserConnectionStatusProjection;
 import com.chatting.backend.dto.projection.UserIdUsernameInviterUserIdProjection;
 import com.chatting.backend.entity.UserConnectionEntity;
 import com.chatting.backend.entity.UserConnectionId;
 import io.lettuce.core.dynamic.annotation.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
@@ -41,6 +44,71 @@ public interface UserConnectionRepository extends JpaRepository<UserConnectionEn
     long countByPartnerAUserIdAndPartnerBUserIdInAndStatus(@NonNull Long partnerAUserId, @NonNull Collection<Long> partnerBUserIds, @NonNull UserConnectionStatus status);
     long countByPartnerBUserIdAndPartnerAUserIdInAndStatus(@NonNull Long partnerBUserId, @NonNull Collection<Long> partnerAUserIds,@NonNull UserConnectionStatus status);
 
+    /**
+     * 관계 상태 저장 (없으면 INSERT, 있으면 status/inviter를 UPDATE)
+     *
+     * save()로 저장하면 복합키 엔티티가 이미 있는지 확인하기 위해 SELECT를 먼저 날린다.
+     * MySQL의 INSERT ... ON DUPLICATE KEY UPDATE를 사용해 한 번의 쿼리로 처리한다.
+     */
+    @Modifying
+    @Transactional
+    @Query(
+            value = "INSERT INTO user_connection (partner_a_user_id, partner_b_user_id, status, inviter_user_id, created_at, updated_at) "
+                    + "VALUES (:partnerAUserId, :partnerBUserId, :status, :inviterUserId, NOW(), NOW()) "
+                    + "ON DUPLICATE KEY UPDATE status = VALUES(status), inviter_user_id = VALUES(inviter_user_id), updated_at = VALUES(updated_at)",
+            nativeQuery = true)
+    int upsertStatus(
+            @NonNull @Param("partnerAUserId") Long partnerAUserId,
+            @NonNull @Param("partnerBUserId") Long partnerBUserId,
+            @NonNull @Param("status") String status,
+            @NonNull @Param("inviterUserId") Long inviterUserId);
+
+    /**
+     * 관계 상태 한 번에 조회 (상대방 id/username + 내 username/연결 수 + 관계 status/inviter)
+     *
+     * 수락 한 번에 getUserId(username) → inviter 조회 → status 조회 → getUsername(나) 처럼 쿼리가 4~5번 나가던 것을
+     * message_user(상대방) 기준으로 나머지를 LEFT JOIN 해서 한 번에 가져온다.
+     * (A,B)는 항상 작은 id가 partner_a 이므로 LEAST/GREATEST로 정규화해서 조인한다.
+     */
+    String CONNECTION_STATE_QUERY =
+            "SELECT p.user_id AS partnerUserId, p.username AS partnerUsername, "
+                    + "me.username AS requesterUsername, c.connection_count AS requesterConnectionCount, "
+                    + "uc.status AS status, uc.inviter_user_id AS inviterUserId "
+                    + "FROM message_user p "
+                    + "LEFT JOIN message_user me ON me.user_id = :requesterUserId "
+                    + "LEFT JOIN user_connection_count c ON c.user_id = :requesterUserId "
+                    + "LEFT JOIN user_connection uc ON uc.partner_a_user_id = LEAST(p.user_id, :requesterUserId) "
+                    + "AND uc.partner_b_user_id = GREATEST(p.user_id, :requesterUserId) ";
+
+    //상대방을 username으로 찾기 (수락/거절/연결끊기)
+    @Query(value = CONNECTION_STATE_QUERY + "WHERE p.username = :partnerUsername", nativeQuery = true)
+    Optional<UserConnectionStateProjection> findConnectionStateByPartnerUsername(
+            @NonNull @Param("requesterUserId") Long requesterUserId,
+            @NonNull @Param("partnerUsername") String partnerUsername);
+
+    //상대방을 userId로 찾기 (초대: 초대코드는 InviteCodeCache에서 userId로 바꾼 뒤 호출)
+    @Query(value = CONNECTION_STATE_QUERY + "WHERE p.user_id = :partnerUserId", nativeQuery = true)
+    Optional<UserConnectionStateProjection> findConnectionStateByPartnerUserId(
+            @NonNull @Param("requesterUserId") Long requesterUserId,
+            @NonNull @Param("partnerUserId") Long partnerUserId);
+
+    /**
+     * 관계 상태 전이 (예: PENDING → ACCEPTED, ACCEPTED → DISCONNECTED)
+     *
+     * 현재 상태가 from일 때만 to로 바꾼다. 엔티티를 읽어와서 비교하지 않고 DB가 WHERE로 한 번에 판단하므로,
+     * 같은 초대를 동시에 두 번 수락해도 한 번만 1 row가 바뀐다.
+     *
+     * @return 1: 성공, 0: 관계가 없거나 현재 상태가 from이 아님
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserConnectionEntity uc SET uc.status = :to, uc.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE uc.partnerAUserId = :partnerAUserId AND uc.partnerBUserId = :partnerBUserId AND uc.status = :from")
+    int updateStatus(
+            @NonNull @Param("partnerAUserId") Long partnerAUserId,
+            @NonNull @Param("partnerBUserId") Long partnerBUserId,
+            @NonNull @Param("from") UserConnectionStatus from,
+            @NonNull @Param("to") UserConnectionStatus to);
+
     // ─────────────────────────────────────────────────────────────────────────────
     // 연결 목록(리스트) 조회 쿼리 ①: 내가 partnerA(작은 ID)인 행들
     // ─────────────────────────────────────────────────────────────────────────────
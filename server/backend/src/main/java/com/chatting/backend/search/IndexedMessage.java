@@ -0,0 +1,8 @@
+package com.chatting.backend.search;
+
+/**
+ * 검색 인덱스에 저장하는 메시지 한 건
+ * 검색 결과를 MySQL 없이 만들 수 있도록 보낸 사람 username과 원문을 함께 저장한다.
+ */
+public record IndexedMessage(long messageSequence, long channelId, long userId, String username, String content) {
+}
@@ -0,0 +1,94 @@
+package com.chatting.backend.search;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+/**
+ * 아직 세그먼트로 내리지 않은 메시지의 인덱스 (메모리)
+ *
+ * 색인 스레드 하나만 add하고, 검색 스레드들은 동시에 읽는다. (모든 접근을 this로 동기화)
+ * flush-messages개가 차면 MessageSearchIndex가 새 MemoryIndex로 바꾸고 이것을 세그먼트로 쓴다. (그 뒤로는 읽기만 한다)
+ */
+final class MemoryIndex {
+
+    private final long generation;
+    private final TreeMap<Long, IndexedMessage> documents = new TreeMap<>();
+    private final Map<String, TreeMap<Long, Sequences>> postings = new HashMap<>();
+
+    MemoryIndex(long generation) {
+        this.generation = generation;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    synchronized void add(IndexedMessage message) {
+        if (documents.putIfAbsent(message.messageSequence(), message) != null) {
+            return;
+        }
+        for (String token : MessageTokenizer.tokenize(message.content())) {
+            postings.computeIfAbsent(token, key -> new TreeMap<>())
+                    .computeIfAbsent(message.channelId(), key -> new Sequences())
+                    .add(message.messageSequence());
+        }
+    }
+
+    synchronized void postings(String term, LongPredicate channelFilter, Postings.Consumer consumer) {
+        TreeMap<Long, Sequences> channels = postings.get(term);
+        if (channels == null) {
+            return;
+        }
+        channels.forEach((channelId, sequences) -> {
+            if (channelFilter.test(channelId)) {
+                consumer.accept(channelId, sequences.toSortedArray());
+            }
+        });
+    }
+
+    synchronized IndexedMessage document(long sequence) {
+        return documents.get(sequence);
+    }
+
+    synchronized int size() {
+        return documents.size();
+    }
+
+    //세그먼트로 쓴다. (더 이상 add되지 않는 상태에서 부른다)
+    synchronized void writeTo(SearchSegment.Writer writer) throws IOException {
+        for (IndexedMessage message : documents.values()) {
+            writer.addDocument(message);
+        }
+        for (Map.Entry<String, TreeMap<Long, Sequences>> term : new TreeMap<>(postings).entrySet()) {
+            TreeMap<Long, long[]> channels = new TreeMap<>();
+            term.getValue().forEach((channelId, sequences) -> channels.put(channelId, sequences.toSortedArray()));
+            writer.addTerm(term.getKey(), Postings.encode(channels));
+        }
+    }
+
+    //채널 하나의 sequence 목록 (비동기로 들어오므로 대부분 오름차순이지만 섞일 수 있다)
+    private static final class Sequences {
+
+        private long[] values = new long[4];
+        private int size;
+        private boolean sorted = true;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (size > 0 && values[size - 1] >= value) {
+                sorted = false;
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            return sorted ? Arrays.copyOf(values, size) : Postings.sortedDistinct(values, size);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.chatting.backend.search;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.StoredMessage;
+import com.chatting.backend.id.SnowflakeIdGenerator;
+import com.chatting.backend.service.UserService;
+import com.chatting.backend.shard.ShardedMessageStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * 노드가 시작할 때 검색 인덱스에 빠진 메시지를 샤드에서 읽어 채운다.
+ *
+ * 다른 노드가 저장한 메시지는 Redis pub/sub으로 받아 색인하므로(MessageSearchIndex), 이 노드가 꺼져 있던 동안이나
+ * 알림이 유실된 메시지는 인덱스에 없다. 그래서 시작할 때 한 번 모든 샤드를 채널 순서로 훑어서 채운다.
+ *
+ * - 시작점: 세그먼트에 있던 가장 최근 메시지 시각 - backfill-overlap (그 직전에 저장되던 메시지는 늦게 커밋될 수 있다)
+ *   인덱스가 비어 있거나 너무 오래됐으면 backfill-window 전부터. (그보다 오래된 메시지는 보관소로 옮겨질 수 있다)
+ * - 채널마다 channel_message PK(channel_id, message_sequence) 범위 읽기로 page-size씩 읽는다.
+ * - 백그라운드 스레드 하나에서 실행하므로 시작을 막지 않는다. 그동안 들어오는 새 메시지는 평소처럼 색인된다.
+ */
+@Slf4j
+@Component
+public class MessageSearchBackfill {
+
+    private final MessageSearchIndex messageSearchIndex;
+    private final ShardedMessageStore shardedMessageStore;
+    private final UserService userService;
+    private final long windowMillis;
+    private final long overlapMillis;
+    private final int pageSize;
+    private final LongSupplier clock;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "message-search-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public MessageSearchBackfill(
+            MessageSearchIndex messageSearchIndex,
+            ShardedMessageStore shardedMessageStore,
+            UserService userService,
+            @Value("${message.search.backfill-window:30d}") Duration window,
+            @Value("${message.search.backfill-overlap:1m}") Duration overlap,
+            @Value("${message.search.backfill-page-size:1000}") int pageSize) {
+        this(messageSearchIndex, shardedMessageStore, userService, window.toMillis(), overlap.toMillis(), pageSize, System::currentTimeMillis);
+    }
+
+    MessageSearchBackfill(MessageSearchIndex messageSearchIndex, ShardedMessageStore shardedMessageStore, UserService userService,
+                          long windowMillis, long overlapMillis, int pageSize, LongSupplier clock) {
+        if (windowMillis <= 0 || overlapMillis < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid message search backfill settings.");
+        }
+        this.messageSearchIndex = messageSearchIndex;
+        this.shardedMessageStore = shardedMessageStore;
+        this.userService = userService;
+        this.windowMillis = windowMillis;
+        this.overlapMillis = overlapMillis;
+        this.pageSize = pageSize;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.execute(() -> {
+            try {
+                run();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Exception ex) {
+                log.error("Message search backfill failed. cause: {}", ex.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //채운 메시지 수
+    long run() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long afterSequence = SnowflakeIdGenerator.firstIdAt(fromMillis()) - 1;
+        Map<Long, String> usernames = new HashMap<>();
+        long count = 0;
+        for (String shard : shardedMessageStore.getShardNames()) {
+            long channelCursor = 0;
+            List<Long> channelIds;
+            do {
+                channelIds = shardedMessageStore.findChannelIds(shard, channelCursor, pageSize);
+                for (Long channelId : channelIds) {
+                    count += backfillChannel(shard, new ChannelId(channelId), afterSequence, usernames);
+                }
+                if (!channelIds.isEmpty()) {
+                    channelCursor = channelIds.get(channelIds.size() - 1);
+                }
+            } while (channelIds.size() == pageSize);
+        }
+        log.info("Message search backfill finished. messages: {}, elapsed: {}ms", count, (System.nanoTime() - startNanos) / 1_000_000);
+        return count;
+    }
+
+    private long fromMillis() {
+        long windowStart = clock.getAsLong() - windowMillis;
+        long newest = messageSearchIndex.getNewestAtStart();
+        if (newest == 0) {
+            return windowStart;
+        }
+        return Math.max(windowStart, SnowflakeIdGenerator.timestampMillis(newest) - overlapMillis);
+    }
+
+    private long backfillChannel(String shard, ChannelId channelId, long afterSequence, Map<Long, String> usernames) throws InterruptedException {
+        long cursor = afterSequence;
+        long count = 0;
+        List<StoredMessage> page;
+        do {
+            page = shardedMessageStore.findOlderThan(shard, channelId, cursor, Long.MAX_VALUE, pageSize);
+            List<IndexedMessage> messages = new ArrayList<>(page.size());
+            for (StoredMessage message : page) {
+                String username = usernames.computeIfAbsent(message.userId().id(),
+                        userId -> userService.getUsername(message.userId()).orElse(""));
+                messages.add(new IndexedMessage(message.messageSequence(), channelId.id(), message.userId().id(), username, message.content()));
+            }
+            if (!messages.isEmpty()) {
+                messageSearchIndex.backfill(messages);
+                cursor = page.get(page.size() - 1).messageSequence();
+                count += messages.size();
+            }
+        } while (page.size() == pageSize);
+        return count;
+    }
+}
@@ -0,0 +1,599 @@
+package com.chatting.backend.search;
+
+import com.chatting.backend.dto.domain.StoredMessage;
+import com.chatting.backend.json.JsonUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+/**
+ * 메시지 본문 검색 인덱스 (이 프로세스 안의 역색인, 로컬 디스크에 저장)
+ *
+ * MySQL에서 content LIKE '%단어%'로 찾으면 테이블 전체를 읽어야 하므로, 토큰 → (채널 → message_sequence 목록) 역색인을 따로 둔다.
+ * 검색은 이 인덱스만 읽는다. (결과에 필요한 username/원문도 인덱스에 저장한다)
+ *
+ * - 색인: 메시지가 저장된 뒤 MessageService가 add를 부르면 색인 스레드 하나가 큐에서 꺼내
+ *   WAL(wal-{세대}.log)에 덧붙이고 메모리 인덱스(MemoryIndex)에 넣는다. 요청 스레드는 기다리지 않는다.
+ *   큐가 가득 차면 버리고 개수만 센다. (검색에서 빠질 뿐 메시지 저장/전송에는 영향이 없다)
+ * - 다른 노드: 검색 요청은 어느 노드로든 들어오므로 모든 노드가 모든 메시지를 색인한다.
+ *   add한 메시지를 Redis pub/sub(SEARCH_CHANNEL)으로 보내고, 다른 노드는 받은 메시지를 같은 큐로 색인한다.
+ *   노드가 꺼져 있던 동안이나 알림이 유실된 메시지는 시작할 때 MessageSearchBackfill이 샤드에서 읽어 채운다.
+ * - flush: 메모리 인덱스가 flush-messages개가 되거나 flush-interval마다 세그먼트 파일(segment-{세대}.idx, SearchSegment)로 쓰고
+ *   fsync + rename 한 뒤 그 세대의 WAL을 지운다. 재시작하면 세그먼트가 없는 WAL을 다시 읽어 세그먼트로 만든다.
+ *   WAL은 fsync하지 않으므로 프로세스가 아니라 OS가 죽으면 마지막 몇 ms의 색인이 빠질 수 있다.
+ * - 병합: 세그먼트가 max-segments개를 넘으면 메시지 수가 가장 적은 merge-factor개를 하나로 합친다.
+ *   (토큰 사전을 k-way로 합치고 같은 토큰의 posting list를 채널별로 합친다)
+ * - 검색: 검색어 토큰마다 posting list를 읽어 채널별로 교집합을 구하고, 최신 메시지부터 원문에 검색어 구간이 그대로 있는지 확인한다.
+ *   channelFilter(검색한 사람이 참여한 채널)를 통과하지 못한 채널은 posting list를 풀지 않는다.
+ *
+ * 색인/flush/병합은 모두 색인 스레드 하나에서 하고, 검색 스레드는 불변 스냅샷(View)만 읽는다.
+ */
+@Slf4j
+@Component
+public class MessageSearchIndex implements MessageListener {
+
+    public static final String SEARCH_CHANNEL = "message:search";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_EXTENSION = ".idx";
+    private static final String WAL_PREFIX = "wal-";
+    private static final String WAL_EXTENSION = ".log";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    //검색이 읽는 상태 (불변): 세그먼트 + 아직 세그먼트로 쓰지 않은 메모리 인덱스
+    private record View(List<SearchSegment> segments, MemoryIndex active) {
+    }
+
+    //다른 노드에 보내는 색인 요청
+    record Published(String nodeId, IndexedMessage message) {
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JsonUtil jsonUtil;
+    private final Path directory;
+    private final int flushMessages;
+    private final int maxSegments;
+    private final int mergeFactor;
+    private final ThreadPoolExecutor indexer;
+    private final LongAdder dropped = new LongAdder();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile View view;
+    private volatile long newestAtStart;
+
+    //아래는 색인 스레드에서만 쓴다. (start/shutdown 제외)
+    private long nextGeneration;
+    private DataOutputStream wal;
+
+    @Autowired
+    public MessageSearchIndex(
+            StringRedisTemplate stringRedisTemplate,
+            JsonUtil jsonUtil,
+            @Value("${message.search.directory:./data/message-search}") String directory,
+            @Value("${message.search.flush-messages:10000}") int flushMessages,
+            @Value("${message.search.max-segments:8}") int maxSegments,
+            @Value("${message.search.merge-factor:4}") int mergeFactor,
+            @Value("${message.search.queue-capacity:100000}") int queueCapacity) {
+        this(stringRedisTemplate, jsonUtil, Path.of(directory), flushMessages, maxSegments, mergeFactor, queueCapacity);
+    }
+
+    MessageSearchIndex(StringRedisTemplate stringRedisTemplate, JsonUtil jsonUtil,
+                       Path directory, int flushMessages, int maxSegments, int mergeFactor, int queueCapacity) {
+        if (flushMessages <= 0 || maxSegments <= 0 || mergeFactor < 2 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid message search settings.");
+        }
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.jsonUtil = jsonUtil;
+        this.directory = directory;
+        this.flushMessages = flushMessages;
+        this.maxSegments = maxSegments;
+        this.mergeFactor = mergeFactor;
+        this.indexer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "message-search-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.toList();
+        }
+
+        List<SearchSegment> segments = new ArrayList<>();
+        TreeMap<Long, Path> wals = new TreeMap<>();
+        long maxGeneration = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(TEMP_EXTENSION)) {
+                Files.delete(file);
+            } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION)) {
+                segments.add(SearchSegment.open(file));
+                maxGeneration = Math.max(maxGeneration, generation(name, SEGMENT_PREFIX, SEGMENT_EXTENSION));
+            } else if (name.startsWith(WAL_PREFIX) && name.endsWith(WAL_EXTENSION)) {
+                wals.put(generation(name, WAL_PREFIX, WAL_EXTENSION), file);
+            }
+        }
+        nextGeneration = Math.max(maxGeneration, wals.isEmpty() ? 0 : wals.lastKey()) + 1;
+
+        //세그먼트로 쓰기 전에 멈춘 WAL을 다시 읽어 세그먼트로 만든다. (이미 세그먼트가 있는 세대는 지우기만)
+        MemoryIndex recovered = new MemoryIndex(nextGeneration++);
+        for (Map.Entry<Long, Path> entry : wals.entrySet()) {
+            if (!Files.exists(segmentPath(entry.getKey()))) {
+                replay(entry.getValue(), recovered);
+            }
+        }
+        if (recovered.size() > 0) {
+            segments.add(write(recovered));
+        }
+        for (Path file : wals.values()) {
+            Files.delete(file);
+        }
+
+        MemoryIndex active = new MemoryIndex(nextGeneration++);
+        wal = openWal(active.generation());
+        view = new View(List.copyOf(segments), active);
+        newestAtStart = segments.stream().filter(segment -> segment.documentCount() > 0)
+                .mapToLong(SearchSegment::maxSequence).max().orElse(0);
+        log.info("Message search index opened. segments: {}, recovered: {}", segments.size(), recovered.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            indexer.execute(this::flushActive);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Message search index flush on shutdown skipped. Queue is full.");
+        }
+        indexer.shutdown();
+        try {
+            if (!indexer.awaitTermination(10, TimeUnit.SECONDS)) {
+                indexer.shutdownNow();
+            }
+            wal.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.warn("Message search WAL close failed. cause: {}", ex.getMessage());
+        }
+    }
+
+    //저장된 메시지를 색인 큐에 넣고 다른 노드에도 보낸다. (기다리지 않는다)
+    public void add(StoredMessage message, String username) {
+        IndexedMessage indexed = new IndexedMessage(message.messageSequence(), message.channelId().id(), message.userId().id(),
+                username, message.content());
+        enqueue(indexed);
+        publish(indexed);
+    }
+
+    //다른 노드가 저장한 메시지
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        jsonUtil.fromJson(new String(message.getBody(), StandardCharsets.UTF_8), Published.class)
+                .filter(published -> !nodeId.equals(published.nodeId()))
+                .ifPresent(published -> enqueue(published.message()));
+    }
+
+    /**
+     * 샤드에서 읽은 메시지를 채운다. (MessageSearchBackfill)
+     * 큐가 차 있어도 버리지 않고 자리가 날 때까지 기다리며, 이미 색인된 메시지는 건너뛴다.
+     */
+    public void backfill(List<IndexedMessage> messages) throws InterruptedException {
+        while (true) {
+            try {
+                indexer.submit(() -> messages.forEach(message -> {
+                    if (document(view, message.messageSequence()) == null) {
+                        index(message);
+                    }
+                })).get();
+                return;
+            } catch (RejectedExecutionException ex) {
+                Thread.sleep(10);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+    }
+
+    //시작할 때 세그먼트에 있던 가장 최근 메시지의 sequence (없으면 0)
+    public long getNewestAtStart() {
+        return newestAtStart;
+    }
+
+    @Scheduled(fixedDelayString = "${message.search.flush-interval:30s}")
+    public void flush() {
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            log.warn("Message search index queue was full. dropped: {}", droppedCount);
+        }
+        try {
+            indexer.execute(this::flushActive);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Message search index flush skipped. Queue is full.");
+        }
+    }
+
+    /**
+     * 검색어의 모든 토큰이 들어 있는 메시지를 최신순으로 limit개
+     * @param channelFilter  검색할 채널 (검색한 사람이 참여한 채널)
+     * @param beforeSequence 이 sequence보다 앞선 메시지만 (다음 페이지)
+     */
+    public List<IndexedMessage> search(String query, LongPredicate channelFilter, long beforeSequence, int limit) {
+        List<String> tokens = MessageTokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        View current = view;
+
+        //1) 토큰마다 채널별 sequence 목록을 모아서 앞 토큰의 결과와 교집합
+        Map<Long, long[]> matched = null;
+        for (String token : tokens) {
+            Map<Long, long[]> previous = matched;
+            LongPredicate filter = previous == null ? channelFilter : previous::containsKey;
+            Map<Long, Collector> found = new HashMap<>();
+            Postings.Consumer consumer = (channelId, sequences) -> found.computeIfAbsent(channelId, key -> new Collector()).add(sequences);
+            current.segments().forEach(segment -> segment.postings(token, filter, consumer));
+            current.active().postings(token, filter, consumer);
+
+            Map<Long, long[]> next = new HashMap<>();
+            found.forEach((channelId, collector) -> {
+                long[] sequences = collector.sortedDistinct();
+                if (previous != null) {
+                    sequences = intersect(previous.get(channelId), sequences);
+                }
+                if (sequences.length > 0) {
+                    next.put(channelId, sequences);
+                }
+            });
+            if (next.isEmpty()) {
+                return List.of();
+            }
+            matched = next;
+        }
+
+        //2) 최신순으로 원문을 읽어 검색어 구간이 그대로 들어 있는지 확인 (한글 bigram이 떨어져서 나온 경우를 거른다)
+        Collector candidates = new Collector();
+        matched.values().forEach(candidates::add);
+        long[] sequences = candidates.sortedDistinct();
+        List<String> runs = MessageTokenizer.runs(query);
+        List<IndexedMessage> results = new ArrayList<>();
+        for (int i = sequences.length - 1; i >= 0 && results.size() < limit; i--) {
+            if (sequences[i] >= beforeSequence) {
+                continue;
+            }
+            IndexedMessage message = document(current, sequences[i]);
+            if (message != null && containsAll(MessageTokenizer.normalize(message.content()), runs)) {
+                results.add(message);
+            }
+        }
+        return results;
+    }
+
+    int segmentCount() {
+        return view.segments().size();
+    }
+
+    //색인 스레드가 큐를 다 처리하고 WAL을 내릴 때까지 기다린다. (테스트용)
+    void awaitIndexed() throws Exception {
+        indexer.submit(() -> {
+            wal.flush();
+            return null;
+        }).get();
+    }
+
+    //색인 스레드가 큐를 다 처리하고 메모리 인덱스를 세그먼트로 쓸 때까지 기다린다. (테스트, 벤치마크용)
+    void awaitFlush() throws Exception {
+        indexer.submit(this::flushActive).get();
+    }
+
+    private void enqueue(IndexedMessage message) {
+        try {
+            indexer.execute(() -> index(message));
+        } catch (RejectedExecutionException ex) {
+            dropped.increment();
+        }
+    }
+
+    private void publish(IndexedMessage message) {
+        try {
+            jsonUtil.toJson(new Published(nodeId, message))
+                    .ifPresent(payload -> stringRedisTemplate.convertAndSend(SEARCH_CHANNEL, payload));
+        } catch (Exception ex) {
+            //다른 노드는 다음에 시작할 때 샤드에서 채운다.
+            log.error("Message search publish failed. messageSequence: {}, cause: {}", message.messageSequence(), ex.getMessage());
+        }
+    }
+
+    // === 색인 스레드 ===
+
+    private void index(IndexedMessage message) {
+        try {
+            writeWal(message);
+            view.active().add(message);
+            if (view.active().size() >= flushMessages) {
+                flushActive();
+            }
+            if (indexer.getQueue().isEmpty()) {
+                wal.flush();
+            }
+        } catch (Exception ex) {
+            log.error("Message indexing failed. messageSequence: {}, cause: {}", message.messageSequence(), ex.getMessage());
+        }
+    }
+
+    private void flushActive() {
+        View current = view;
+        MemoryIndex active = current.active();
+        if (active.size() == 0) {
+            return;
+        }
+        try {
+            SearchSegment segment = write(active);
+            MemoryIndex next = new MemoryIndex(nextGeneration++);
+            DataOutputStream previousWal = wal;
+            wal = openWal(next.generation());
+            List<SearchSegment> segments = new ArrayList<>(current.segments());
+            segments.add(segment);
+            view = new View(List.copyOf(segments), next);
+            previousWal.close();
+            Files.deleteIfExists(walPath(active.generation()));
+        } catch (IOException ex) {
+            //실패하면 메모리 인덱스와 WAL을 그대로 두고 다음 flush에서 다시 쓴다.
+            log.error("Message search index flush failed. cause: {}", ex.getMessage());
+            return;
+        }
+        merge();
+    }
+
+    //세그먼트가 많으면 작은 것부터 merge-factor개씩 합친다.
+    private void merge() {
+        while (view.segments().size() > maxSegments) {
+            View current = view;
+            List<SearchSegment> inputs = current.segments().stream()
+                    .sorted(Comparator.comparingInt(SearchSegment::documentCount))
+                    .limit(mergeFactor)
+                    .toList();
+            long startNanos = System.nanoTime();
+            SearchSegment merged;
+            try {
+                merged = writeMerged(inputs);
+            } catch (IOException ex) {
+                log.error("Message search segment merge failed. cause: {}", ex.getMessage());
+                return;
+            }
+            List<SearchSegment> segments = new ArrayList<>(current.segments());
+            segments.removeAll(inputs);
+            segments.add(merged);
+            view = new View(List.copyOf(segments), current.active());
+            //mmap은 GC가 풀 때까지 남아 있지만 파일은 지워도 된다. (진행 중인 검색은 그대로 읽는다)
+            inputs.forEach(input -> {
+                try {
+                    Files.deleteIfExists(input.path());
+                } catch (IOException ex) {
+                    log.warn("Message search segment delete failed. path: {}, cause: {}", input.path(), ex.getMessage());
+                }
+            });
+            log.info("Message search segments merged. inputs: {}, messages: {}, elapsed: {}ms",
+                    inputs.size(), merged.documentCount(), (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    private SearchSegment write(MemoryIndex index) throws IOException {
+        return writeSegment(segmentPath(index.generation()), index::writeTo);
+    }
+
+    private SearchSegment writeMerged(List<SearchSegment> inputs) throws IOException {
+        return writeSegment(segmentPath(nextGeneration++), writer -> {
+            //메시지: sequence 순서로 k-way 병합 (같은 sequence는 하나만)
+            PriorityQueue<int[]> documents = new PriorityQueue<>(
+                    Comparator.comparingLong((int[] cursor) -> inputs.get(cursor[0]).sequenceAt(cursor[1])));
+            for (int i = 0; i < inputs.size(); i++) {
+                if (inputs.get(i).documentCount() > 0) {
+                    documents.add(new int[]{i, 0});
+                }
+            }
+            long last = Long.MIN_VALUE;
+            while (!documents.isEmpty()) {
+                int[] cursor = documents.poll();
+                SearchSegment segment = inputs.get(cursor[0]);
+                if (segment.sequenceAt(cursor[1]) != last) {
+                    IndexedMessage message = segment.documentByOrdinal(cursor[1]);
+                    writer.addDocument(message);
+                    last = message.messageSequence();
+                }
+                if (++cursor[1] < segment.documentCount()) {
+                    documents.add(cursor);
+                }
+            }
+
+            //토큰: 사전 순서로 k-way 병합, 같은 토큰의 posting list는 채널별로 합친다.
+            PriorityQueue<int[]> terms = new PriorityQueue<>(
+                    Comparator.comparing((int[] cursor) -> inputs.get(cursor[0]).term(cursor[1])));
+            for (int i = 0; i < inputs.size(); i++) {
+                if (inputs.get(i).termCount() > 0) {
+                    terms.add(new int[]{i, 0});
+                }
+            }
+            while (!terms.isEmpty()) {
+                String term = inputs.get(terms.peek()[0]).term(terms.peek()[1]);
+                TreeMap<Long, Collector> channels = new TreeMap<>();
+                while (!terms.isEmpty() && inputs.get(terms.peek()[0]).term(terms.peek()[1]).equals(term)) {
+                    int[] cursor = terms.poll();
+                    SearchSegment segment = inputs.get(cursor[0]);
+                    ByteBuffer postings = segment.postingsBuffer(cursor[1]);
+                    Postings.decode(postings, channelId -> true,
+                            (channelId, sequences) -> channels.computeIfAbsent(channelId, key -> new Collector()).add(sequences));
+                    if (++cursor[1] < segment.termCount()) {
+                        terms.add(cursor);
+                    }
+                }
+                TreeMap<Long, long[]> merged = new TreeMap<>();
+                channels.forEach((channelId, collector) -> merged.put(channelId, collector.sortedDistinct()));
+                writer.addTerm(term, Postings.encode(merged));
+            }
+        });
+    }
+
+    private interface SegmentContent {
+        void writeTo(SearchSegment.Writer writer) throws IOException;
+    }
+
+    //임시 파일에 쓰고 fsync한 뒤 rename
+    private SearchSegment writeSegment(Path path, SegmentContent content) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_EXTENSION);
+        try {
+            try (SearchSegment.Writer writer = new SearchSegment.Writer(temp)) {
+                content.writeTo(writer);
+                writer.finish();
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return SearchSegment.open(path);
+    }
+
+    // === WAL: [sequence 8][channelId 8][userId 8][username UTF][content UTF] ===
+
+    private DataOutputStream openWal(long generation) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(walPath(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    private void writeWal(IndexedMessage message) throws IOException {
+        wal.writeLong(message.messageSequence());
+        wal.writeLong(message.channelId());
+        wal.writeLong(message.userId());
+        wal.writeUTF(message.username());
+        wal.writeUTF(message.content());
+    }
+
+    private static void replay(Path path, MemoryIndex index) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                long sequence;
+                try {
+                    sequence = in.readLong();
+                } catch (EOFException ex) {
+                    return;
+                }
+                try {
+                    index.add(new IndexedMessage(sequence, in.readLong(), in.readLong(), in.readUTF(), in.readUTF()));
+                } catch (EOFException ex) {
+                    //마지막 레코드를 쓰다가 멈춘 경우
+                    log.warn("Message search WAL ends with a partial record. path: {}", path);
+                    return;
+                }
+            }
+        }
+    }
+
+    private Path segmentPath(long generation) {
+        return directory.resolve(SEGMENT_PREFIX + generation + SEGMENT_EXTENSION);
+    }
+
+    private Path walPath(long generation) {
+        return directory.resolve(WAL_PREFIX + generation + WAL_EXTENSION);
+    }
+
+    private static long generation(String name, String prefix, String extension) {
+        return Long.parseLong(name.substring(prefix.length(), name.length() - extension.length()));
+    }
+
+    private static IndexedMessage document(View view, long sequence) {
+        IndexedMessage message = view.active().document(sequence);
+        for (int i = view.segments().size() - 1; message == null && i >= 0; i--) {
+            message = view.segments().get(i).document(sequence);
+        }
+        return message;
+    }
+
+    private static boolean containsAll(String content, List<String> runs) {
+        for (String run : runs) {
+            if (!content.contains(run)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] intersect(long[] left, long[] right) {
+        if (left == null) {
+            return new long[0];
+        }
+        long[] result = new long[Math.min(left.length, right.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < left.length && j < right.length; ) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    //여러 세그먼트에서 읽은 sequence 목록을 모은다.
+    private static final class Collector {
+
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long[] sequences) {
+            if (size + sequences.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + sequences.length));
+            }
+            System.arraycopy(sequences, 0, values, size, sequences.length);
+            size += sequences.length;
+        }
+
+        long[] sortedDistinct() {
+            return Postings.sortedDistinct(values, size);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.chatting.backend.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 메시지 검색용 토큰 분리기 (한국어 + 영어)
+ *
+ * - 정규화: NFKC(전각/반각, 호환 문자) + 소문자
+ * - 영문/숫자(한글이 아닌 글자와 숫자)가 이어진 구간: 구간 전체가 토큰 하나 ("Spring", "2025")
+ * - 한글이 이어진 구간: 두 글자씩 겹쳐 자른다(bigram). "회의실에서" → 회의, 의실, 실에, 에서
+ *   형태소 분석기 없이도 조사가 붙은 단어("회의는", "회의를")에서 "회의"를 찾을 수 있다. 한 글자 구간은 그 글자 하나가 토큰이다.
+ * - 나머지(공백, 문장부호, 이모지 등)는 구분자
+ *
+ * 검색어도 같은 규칙으로 자르고, 모든 토큰이 들어 있는 메시지를 찾는다. (bigram이 떨어져서 나온 경우는 MessageSearchIndex가 원문으로 한 번 더 거른다)
+ */
+public final class MessageTokenizer {
+
+    //이보다 긴 영문/숫자 구간은 앞부분만 쓴다. (URL, 붙여 넣은 긴 문자열이 사전을 키우지 않게)
+    static final int MAX_TOKEN_LENGTH = 32;
+
+    private MessageTokenizer() {
+    }
+
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    //중복 없이, 나온 순서대로
+    public static List<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String run : runs(text)) {
+            if (!isHangul(run.codePointAt(0))) {
+                tokens.add(run.length() > MAX_TOKEN_LENGTH ? run.substring(0, MAX_TOKEN_LENGTH) : run);
+            } else if (run.length() == 1) {
+                tokens.add(run);
+            } else {
+                for (int i = 0; i + 1 < run.length(); i++) {
+                    tokens.add(run.substring(i, i + 2));
+                }
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    //정규화한 글에서 한글 구간과 영문/숫자 구간을 나눠 꺼낸다.
+    static List<String> runs(String text) {
+        String normalized = normalize(text);
+        List<String> runs = new ArrayList<>();
+        int start = -1;
+        boolean hangul = false;
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            boolean word = Character.isLetterOrDigit(codePoint);
+            boolean isHangul = word && isHangul(codePoint);
+            if (start >= 0 && (!word || isHangul != hangul)) {
+                runs.add(normalized.substring(start, i));
+                start = -1;
+            }
+            if (word && start < 0) {
+                start = i;
+                hangul = isHangul;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            runs.add(normalized.substring(start));
+        }
+        return runs;
+    }
+
+    //완성형 한글 음절 + 자모(ㅋㅋ, ㅎㅎ: 호환용 자모는 NFKC를 거치면 첫가끝 자모가 된다)
+    private static boolean isHangul(int codePoint) {
+        return (codePoint >= 0xAC00 && codePoint <= 0xD7A3) || (codePoint >= 0x1100 && codePoint <= 0x11FF)
+                || (codePoint >= 0x3131 && codePoint <= 0x318E);
+    }
+}
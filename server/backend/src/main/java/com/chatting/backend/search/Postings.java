@@ -0,0 +1,105 @@
+package com.chatting.backend.search;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.LongPredicate;
+
+/**
+ * 토큰 하나의 posting list 인코딩 (채널별로 묶은 message_sequence 목록)
+ *
+ * [채널 수 varint]
+ * 채널마다 (channel_id 오름차순)
+ *   [이전 channel_id와의 차이 varint][sequence 수 varint][sequence 부분 byte 수 varint]
+ *   [첫 sequence varint][이전 sequence와의 차이 varint ...]
+ *
+ * Snowflake id는 8byte지만 같은 채널의 이웃한 메시지끼리 차이는 대개 2~4byte로 줄어든다.
+ * 채널마다 byte 수를 적어 두므로 검색한 사람이 참여하지 않은 채널은 풀지 않고 건너뛴다.
+ */
+final class Postings {
+
+    //채널 하나의 sequence 목록 (오름차순, 중복 없음)
+    interface Consumer {
+        void accept(long channelId, long[] sequences);
+    }
+
+    private Postings() {
+    }
+
+    static byte[] encode(SortedMap<Long, long[]> channels) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream sequences = new ByteArrayOutputStream();
+        writeVarLong(out, channels.size());
+        long previousChannel = 0;
+        for (Map.Entry<Long, long[]> entry : channels.entrySet()) {
+            long[] values = entry.getValue();
+            sequences.reset();
+            long previous = 0;
+            for (long value : values) {
+                writeVarLong(sequences, value - previous);
+                previous = value;
+            }
+            writeVarLong(out, entry.getKey() - previousChannel);
+            writeVarLong(out, values.length);
+            writeVarLong(out, sequences.size());
+            out.writeBytes(sequences.toByteArray());
+            previousChannel = entry.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    static void decode(ByteBuffer buffer, LongPredicate channelFilter, Consumer consumer) {
+        int channels = (int) readVarLong(buffer);
+        long channelId = 0;
+        for (int i = 0; i < channels; i++) {
+            channelId += readVarLong(buffer);
+            int count = (int) readVarLong(buffer);
+            int bytes = (int) readVarLong(buffer);
+            if (!channelFilter.test(channelId)) {
+                buffer.position(buffer.position() + bytes);
+                continue;
+            }
+            long[] sequences = new long[count];
+            long value = 0;
+            for (int j = 0; j < count; j++) {
+                value += readVarLong(buffer);
+                sequences[j] = value;
+            }
+            consumer.accept(channelId, sequences);
+        }
+    }
+
+    //정렬하고 중복을 뺀다. (여러 세그먼트/비동기 색인 순서가 섞여도 오름차순이 되게)
+    static long[] sortedDistinct(long[] values, int size) {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.chatting.backend.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * 검색 인덱스 세그먼트 파일 (쓰고 나면 바뀌지 않는다)
+ *
+ * 파일 구조 (big-endian)
+ * - 메시지  : 메시지마다 [sequence 8][channelId 8][userId 8][username 길이 4][username][content 길이 4][content] (sequence 오름차순)
+ * - 메시지 index : 메시지마다 [sequence 8][offset 8] (고정 길이라 mmap 위에서 바로 이진 탐색)
+ * - postings : 토큰마다 Postings 인코딩
+ * - 사전    : 토큰마다 [길이 4][토큰 UTF-8][postings offset 8][postings byte 수 4] (토큰 오름차순)
+ * - footer  : [메시지 수 4][메시지 index offset 8][토큰 수 4][사전 offset 8][가장 작은 sequence 8][가장 큰 sequence 8][version 4][magic 4]
+ *
+ * 열 때 사전만 힙에 올리고(토큰 → postings 위치), 메시지와 postings는 mmap에서 필요한 부분만 읽는다.
+ */
+final class SearchSegment {
+
+    private static final int MAGIC = 0x4D534958;    //"MSIX"
+    private static final int VERSION = 1;
+    private static final int FOOTER_BYTES = 48;
+    private static final int DOCUMENT_INDEX_ENTRY_BYTES = 16;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int documentCount;
+    private final int documentIndexOffset;
+    private final long maxSequence;
+    private final String[] terms;
+    private final long[] postingsOffsets;
+    private final int[] postingsLengths;
+
+    private SearchSegment(Path path, MappedByteBuffer buffer, int documentCount, int documentIndexOffset, long maxSequence,
+                          String[] terms, long[] postingsOffsets, int[] postingsLengths) {
+        this.path = path;
+        this.buffer = buffer;
+        this.documentCount = documentCount;
+        this.documentIndexOffset = documentIndexOffset;
+        this.maxSequence = maxSequence;
+        this.terms = terms;
+        this.postingsOffsets = postingsOffsets;
+        this.postingsLengths = postingsLengths;
+    }
+
+    static SearchSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid search segment: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int footer = (int) size - FOOTER_BYTES;
+            if (buffer.getInt(footer + 44) != MAGIC || buffer.getInt(footer + 40) != VERSION) {
+                throw new IOException("Invalid search segment: " + path);
+            }
+            int documentCount = buffer.getInt(footer);
+            int documentIndexOffset = (int) buffer.getLong(footer + 4);
+            int termCount = buffer.getInt(footer + 12);
+            int dictionaryOffset = (int) buffer.getLong(footer + 16);
+            long maxSequence = buffer.getLong(footer + 32);
+
+            String[] terms = new String[termCount];
+            long[] offsets = new long[termCount];
+            int[] lengths = new int[termCount];
+            ByteBuffer dictionary = buffer.duplicate().position(dictionaryOffset);
+            for (int i = 0; i < termCount; i++) {
+                byte[] term = new byte[dictionary.getInt()];
+                dictionary.get(term);
+                terms[i] = new String(term, StandardCharsets.UTF_8);
+                offsets[i] = dictionary.getLong();
+                lengths[i] = dictionary.getInt();
+            }
+            return new SearchSegment(path, buffer, documentCount, documentIndexOffset, maxSequence, terms, offsets, lengths);
+        }
+    }
+
+    //토큰의 posting list에서 channelFilter를 통과한 채널만 꺼낸다.
+    void postings(String term, LongPredicate channelFilter, Postings.Consumer consumer) {
+        int index = Arrays.binarySearch(terms, term);
+        if (index >= 0) {
+            Postings.decode(postingsBuffer(index), channelFilter, consumer);
+        }
+    }
+
+    IndexedMessage document(long sequence) {
+        int low = 0;
+        int high = documentCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = buffer.getLong(documentIndexOffset + middle * DOCUMENT_INDEX_ENTRY_BYTES);
+            if (value < sequence) {
+                low = middle + 1;
+            } else if (value > sequence) {
+                high = middle - 1;
+            } else {
+                return documentAt((int) buffer.getLong(documentIndexOffset + middle * DOCUMENT_INDEX_ENTRY_BYTES + 8));
+            }
+        }
+        return null;
+    }
+
+    // === 병합(MessageSearchIndex.merge)용 ===
+
+    long sequenceAt(int ordinal) {
+        return buffer.getLong(documentIndexOffset + ordinal * DOCUMENT_INDEX_ENTRY_BYTES);
+    }
+
+    //sequence 순서로 ordinal번째 메시지
+    IndexedMessage documentByOrdinal(int ordinal) {
+        return documentAt((int) buffer.getLong(documentIndexOffset + ordinal * DOCUMENT_INDEX_ENTRY_BYTES + 8));
+    }
+
+    ByteBuffer postingsBuffer(int termIndex) {
+        return buffer.slice((int) postingsOffsets[termIndex], postingsLengths[termIndex]);
+    }
+
+    String term(int termIndex) {
+        return terms[termIndex];
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    int documentCount() {
+        return documentCount;
+    }
+
+    long maxSequence() {
+        return maxSequence;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    private IndexedMessage documentAt(int offset) {
+        ByteBuffer record = buffer.duplicate().position(offset);
+        long sequence = record.getLong();
+        long channelId = record.getLong();
+        long userId = record.getLong();
+        byte[] username = new byte[record.getInt()];
+        record.get(username);
+        byte[] content = new byte[record.getInt()];
+        record.get(content);
+        return new IndexedMessage(sequence, channelId, userId,
+                new String(username, StandardCharsets.UTF_8), new String(content, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 세그먼트 쓰기: 메시지를 sequence 오름차순으로 모두 넣은 뒤 토큰을 오름차순으로 넣고 finish
+     */
+    static final class Writer implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final ByteArrayList postings = new ByteArrayList();
+        private final ByteArrayList dictionary = new ByteArrayList();
+        private long[] documentIndex = new long[1024];
+        private int documentCount;
+        private int termCount;
+        private long offset;
+        private long minSequence = Long.MAX_VALUE;
+        private long maxSequence = Long.MIN_VALUE;
+        private String lastTerm;
+
+        Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+
+        void addDocument(IndexedMessage message) throws IOException {
+            if (documentCount > 0 && message.messageSequence() <= maxSequence) {
+                throw new IllegalArgumentException("Documents must be ascending.");
+            }
+            if (documentCount * 2 == documentIndex.length) {
+                documentIndex = Arrays.copyOf(documentIndex, documentIndex.length * 2);
+            }
+            documentIndex[documentCount * 2] = message.messageSequence();
+            documentIndex[documentCount * 2 + 1] = offset;
+            documentCount++;
+            minSequence = Math.min(minSequence, message.messageSequence());
+            maxSequence = message.messageSequence();
+
+            byte[] username = message.username().getBytes(StandardCharsets.UTF_8);
+            byte[] content = message.content().getBytes(StandardCharsets.UTF_8);
+            out.writeLong(message.messageSequence());
+            out.writeLong(message.channelId());
+            out.writeLong(message.userId());
+            out.writeInt(username.length);
+            out.write(username);
+            out.writeInt(content.length);
+            out.write(content);
+            offset += 8 * 3 + 4 + username.length + 4 + content.length;
+        }
+
+        void addTerm(String term, byte[] encodedPostings) {
+            if (lastTerm != null && lastTerm.compareTo(term) >= 0) {
+                throw new IllegalArgumentException("Terms must be ascending.");
+            }
+            lastTerm = term;
+            byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+            dictionary.writeInt(bytes.length);
+            dictionary.write(bytes);
+            dictionary.writeLong(postings.size());
+            dictionary.writeInt(encodedPostings.length);
+            postings.write(encodedPostings);
+            termCount++;
+        }
+
+        void finish() throws IOException {
+            long documentIndexOffset = offset;
+            for (int i = 0; i < documentCount; i++) {
+                out.writeLong(documentIndex[i * 2]);
+                out.writeLong(documentIndex[i * 2 + 1]);
+            }
+            long postingsOffset = documentIndexOffset + (long) documentCount * DOCUMENT_INDEX_ENTRY_BYTES;
+            postings.writeTo(out);
+            //사전의 postings offset은 postings 영역 안의 위치로 적었으므로 파일 위치로 바꿔서 쓴다.
+            ByteBuffer entries = ByteBuffer.wrap(dictionary.array(), 0, dictionary.size());
+            while (entries.hasRemaining()) {
+                byte[] term = new byte[entries.getInt()];
+                entries.get(term);
+                out.writeInt(term.length);
+                out.write(term);
+                out.writeLong(postingsOffset + entries.getLong());
+                out.writeInt(entries.getInt());
+            }
+            long dictionaryOffset = postingsOffset + postings.size();
+
+            out.writeInt(documentCount);
+            out.writeLong(documentIndexOffset);
+            out.writeInt(termCount);
+            out.writeLong(dictionaryOffset);
+            out.writeLong(documentCount == 0 ? 0 : minSequence);
+            out.writeLong(documentCount == 0 ? 0 : maxSequence);
+            out.writeInt(VERSION);
+            out.writeInt(MAGIC);
+            out.flush();
+            //rename 전에 디스크에 내려 둔다. (rename 뒤 WAL을 지우므로)
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    //힙 byte 버퍼 (ByteArrayOutputStream은 내부 배열을 복사 없이 꺼낼 수 없으므로)
+    private static final class ByteArrayList {
+
+        private byte[] bytes = new byte[1 << 12];
+        private int size;
+
+        void write(byte[] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            ByteBuffer.wrap(bytes, size, 4).putInt(value);
+            size += 4;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            ByteBuffer.wrap(bytes, size, 8).putLong(value);
+            size += 8;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.chatting.backend.service;
+
+import com.chatting.backend.dto.restapi.CacheRegionStatsResponse;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hibernate 2차 캐시 region별 hit/miss 통계 조회
+ * (hibernate.generate_statistics=true 일 때만 값이 쌓인다)
+ */
+@Service
+@RequiredArgsConstructor
+public class CacheStatisticsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public List<CacheRegionStatsResponse> getRegionStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> toResponse(region, statistics.getCacheRegionStatistics(region)))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private CacheRegionStatsResponse toResponse(String region, CacheRegionStatistics regionStatistics) {
+        if (regionStatistics == null) {
+            return null;
+        }
+        long hitCount = regionStatistics.getHitCount();
+        long missCount = regionStatistics.getMissCount();
+        long total = hitCount + missCount;
+        double hitRate = total == 0 ? 0 : (double) hitCount / total;
+
+        return new CacheRegionStatsResponse(region, hitCount, missCount, regionStatistics.getPutCount(), hitRate);
+    }
+}
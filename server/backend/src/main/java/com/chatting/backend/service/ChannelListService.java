@@ -0,0 +1,155 @@
+package com.chatting.backend.service;
+
+import com.chatting.backend.cache.ChannelListCache;
+import com.chatting.backend.constant.ChannelListChange;
+import com.chatting.backend.dto.domain.Channel;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.ChannelListSnapshot;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.outbound.ChannelListNotification;
+import com.chatting.backend.json.JsonUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 채팅방 목록(로비) 스냅샷 조회 + 변경분 알림
+ *
+ * - 조회: ChannelListCache에 올라와 있는 스냅샷을 돌려준다. (없으면 DB에서 한 번 읽는다)
+ * - 변경: create/join/quit 가 "커밋된 뒤" 핸들러가 호출한다. 스냅샷이 올라와 있는 사용자만 고치고,
+ *   그 사용자에게 (이전 버전, 새 버전)이 담긴 NOTIFY_CHANNEL_LIST를 notifier로 보낸다.
+ *   (목록을 한 번도 받아가지 않은 사용자는 변경분을 적용할 목록이 없으므로 보내지 않는다)
+ * - broadcast 채널: 참여/탈퇴마다 최대 10만 명의 목록을 고치지 않도록 본인의 목록만 바꾼다.
+ *   다른 참여자의 인원 수는 다음 목록 조회(스냅샷을 다시 읽을 때) 반영된다.
+ * - 다른 노드: 스냅샷은 노드마다 따로 있으므로, 목록이 바뀐 사용자 id들을 Redis pub/sub(CHANNEL_LIST_CHANNEL)으로 알린다.
+ *   알림을 받은 다른 노드는 그 사용자들의 스냅샷을 버리고(invalidate) 다음 조회 때 다시 읽는다. (자기가 보낸 알림은 무시한다)
+ *   알림이 실패하거나 유실돼도 스냅샷은 snapshot-ttl 뒤에 다시 읽는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChannelListService implements MessageListener {
+
+    public static final String CHANNEL_LIST_CHANNEL = "message:channel-list";
+
+    //목록이 바뀐 사용자들 (nodeId: 보낸 노드)
+    public record Invalidation(String nodeId, List<Long> userIds) {
+    }
+
+    private final ChannelService channelService;
+    private final ChannelListCache channelListCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JsonUtil jsonUtil;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // === 내 채팅방 목록 스냅샷 ===
+    public ChannelListSnapshot getChannelsList(UserId userId) {
+        return channelListCache.get(userId, () -> channelService.getChannelsList(userId));
+    }
+
+    /**
+     * 채널 생성: 개설자 + 참여자 모두의 목록에 추가
+     */
+    public void created(Channel channel, List<UserId> memberIds, BiConsumer<UserId, ChannelListNotification> notifier) {
+        memberIds.forEach(memberId -> channelListCache.added(memberId, channel)
+                .ifPresent(change -> notifier.accept(memberId, notification(ChannelListChange.ADDED, channel, change))));
+        publish(memberIds);
+    }
+
+    /**
+     * 초대코드로 참여: 참여한 사람의 목록에는 추가, 기존 참여자들의 목록에는 인원 수 변경
+     */
+    public void joined(ChannelId channelId, UserId userId, BiConsumer<UserId, ChannelListNotification> notifier) {
+        //동시에 여러 명이 참여할 수 있으므로 커밋된 현재 인원 수를 다시 읽는다.
+        Optional<Channel> channel = channelService.getChannel(channelId);
+        if (channel.isEmpty()) {
+            log.warn("Channel list update skipped. Channel does not exist. channelId: {}", channelId);
+            return;
+        }
+
+        if (channelService.isBroadcast(channelId)) {
+            channelListCache.added(userId, channel.get())
+                    .ifPresent(change -> notifier.accept(userId, notification(ChannelListChange.ADDED, channel.get(), change)));
+            publish(List.of(userId));
+            return;
+        }
+
+        List<UserId> participantIds = channelService.getParticipantIds(channelId);
+        participantIds.forEach(memberId -> {
+            ChannelListChange type = memberId.equals(userId) ? ChannelListChange.ADDED : ChannelListChange.UPDATED;
+            Optional<ChannelListCache.Change> change = type == ChannelListChange.ADDED
+                    ? channelListCache.added(memberId, channel.get())
+                    : channelListCache.updated(memberId, channel.get());
+            change.ifPresent(c -> notifier.accept(memberId, notification(type, channel.get(), c)));
+        });
+        publish(participantIds);
+    }
+
+    /**
+     * 채널 탈퇴: 탈퇴한 사람의 목록에서는 삭제, 남은 참여자들의 목록에는 인원 수 변경
+     */
+    public void quit(ChannelId channelId, UserId userId, BiConsumer<UserId, ChannelListNotification> notifier) {
+        Optional<Channel> channel = channelService.getChannel(channelId);
+        if (channel.isEmpty()) {
+            channelListCache.removed(userId, channelId);
+            publish(List.of(userId));
+            return;
+        }
+
+        channelListCache.removed(userId, channelId)
+                .ifPresent(change -> notifier.accept(userId, notification(ChannelListChange.REMOVED, channel.get(), change)));
+
+        if (channelService.isBroadcast(channelId)) {
+            publish(List.of(userId));
+            return;
+        }
+
+        List<UserId> participantIds = channelService.getParticipantIds(channelId);
+        participantIds.forEach(memberId -> channelListCache.updated(memberId, channel.get())
+                .ifPresent(change -> notifier.accept(memberId, notification(ChannelListChange.UPDATED, channel.get(), change))));
+
+        List<UserId> changed = new ArrayList<>(participantIds);
+        changed.add(userId);
+        publish(changed);
+    }
+
+    //사용자의 마지막 기기가 끊기면 스냅샷을 내린다.
+    public void evict(UserId userId) {
+        channelListCache.evict(userId);
+    }
+
+    //다른 노드가 보낸 변경: 그 사용자들의 스냅샷을 버린다.
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        jsonUtil.fromJson(new String(message.getBody(), StandardCharsets.UTF_8), Invalidation.class)
+                .filter(invalidation -> !nodeId.equals(invalidation.nodeId()))
+                .ifPresent(invalidation -> invalidation.userIds().forEach(id -> channelListCache.invalidate(new UserId(id))));
+    }
+
+    private void publish(List<UserId> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            jsonUtil.toJson(new Invalidation(nodeId, userIds.stream().map(UserId::id).toList()))
+                    .ifPresent(payload -> stringRedisTemplate.convertAndSend(CHANNEL_LIST_CHANNEL, payload));
+        } catch (Exception ex) {
+            //다른 노드의 스냅샷은 snapshot-ttl 뒤에 다시 읽힌다.
+            log.error("Channel list invalidation publish failed. userIds: {}, cause: {}", userIds, ex.getMessage());
+        }
+    }
+
+    private ChannelListNotification notification(ChannelListChange type, Channel channel, ChannelListCache.Change change) {
+        return new ChannelListNotification(type, channel, change.previousVersion(), change.version());
+    }
+}
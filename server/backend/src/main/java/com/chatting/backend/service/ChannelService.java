@@ -1,24 +1,30 @@
 package com.chatting.backend.service;
 
+import com.chatting.backend.cache.InviteCodeCache;
 import com.chatting.backend.constant.ResultType;
-import com.chatting.backend.constant.UserConnectionStatus;
 import com.chatting.backend.dto.domain.Channel;
 import com.chatting.backend.dto.domain.ChannelId;
 import com.chatting.backend.dto.domain.InviteCode;
 import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.projection.ChannelTitleProjection;
 import com.chatting.backend.dto.projection.InviteCodeProjection;
+import com.chatting.backend.entity.BroadcastChannelEntity;
 import com.chatting.backend.entity.ChannelEntity;
 import com.chatting.backend.entity.UserChannelEntity;
+import com.chatting.backend.graph.ConnectionGraphIndex;
+import com.chatting.backend.membership.ChannelMembershipIndex;
+import com.chatting.backend.membership.MemberBitmap;
+import com.chatting.backend.repository.BroadcastChannelRepository;
 import com.chatting.backend.repository.ChannelRepository;
 import com.chatting.backend.repository.UserChannelRepository;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -36,11 +42,15 @@ import java.util.stream.Collectors;
 public class ChannelService {
 
     private static final int LIMIT_HEAD_COUNT = 100;             // 채널 당 최대 수용 인원(개설자 포함)
+    private static final int LIMIT_BROADCAST_HEAD_COUNT = 100_000;  // broadcast(대규모 공지) 채널 최대 수용 인원(개설자 포함)
 
     private final SessionService sessionService;                // 활성 채널을 Redis에 기록(TTL 관리)
-    private final UserConnectionService userConnectionService;
+    private final ConnectionGraphIndex connectionGraphIndex;        // 개설자와 참여자의 ACCEPTED 관계 확인(메모리 인덱스)
     private final ChannelRepository channelRepository;          // channel 테이블 접근
     private final UserChannelRepository userChannelRepository;  // channel_user 테이블 접근
+    private final InviteCodeCache inviteCodeCache;              // 초대코드 → channelId 해석(없는 코드는 DB 조회 없이 거절)
+    private final BroadcastChannelRepository broadcastChannelRepository;  // broadcast_channel 테이블 접근
+    private final ChannelMembershipIndex channelMembershipIndex;      // broadcast 채널 여부 + 채널별 참여자 bitmap(메모리)
 
 
 
@@ -50,6 +60,24 @@ public class ChannelService {
     }
 
 
+    // === broadcast(대규모 공지) 채널인지 확인 (메모리, 채널마다 처음 한 번만 DB 조회) ===
+    public boolean isBroadcast(ChannelId channelId) {
+        return channelMembershipIndex.isBroadcast(channelId);
+    }
+
+
+    // === 채널의 참여자 집합 (메모리 bitmap, 불변 스냅샷) ===
+    public MemberBitmap getMembers(ChannelId channelId) {
+        return channelMembershipIndex.getMembers(channelId);
+    }
+
+
+    // === 이 노드에서 채널 화면을 보고 있는 사용자 집합 (메모리 bitmap, 불변 스냅샷) ===
+    public MemberBitmap getViewers(ChannelId channelId) {
+        return sessionService.getViewers(channelId);
+    }
+
+
     // === 특정 채널 참여자들의 userId 목록 조회 ===
     public List<UserId> getParticipantIds(ChannelId channelId) {
         return userChannelRepository.findUserIdsByChannelId(channelId.id())
@@ -59,7 +87,15 @@ public class ChannelService {
     }
 
 
-    // === 채널(채팅방)의 초대코드 조회/찾기 ===
+    // === 사용자가 참여한 채널 id (오름차순) === (읽기 전용 → replica, 방금 참여/탈퇴한 사용자는 primary)
+    @Transactional(readOnly = true)
+    public long[] getJoinedChannelIds(UserId userId) {
+        return userChannelRepository.findChannelIdsByUserId(userId.id()).stream().mapToLong(Long::longValue).toArray();
+    }
+
+
+    // === 채널(채팅방)의 초대코드 조회/찾기 === (읽기 전용 → replica)
+    @Transactional(readOnly = true)
     public Optional<InviteCode> getInviteCode(ChannelId channelId) {
         Optional<InviteCode> inviteCode = channelRepository
                 .findChannelInviteCodeByChannelId(channelId.id())
@@ -74,16 +110,29 @@ public class ChannelService {
 
 
     // === 채널(채팅방) 초대코드로 해당 채널 정보 조회(channel 찾기) ===
+    // 초대코드 → channelId는 InviteCodeCache에서, 채널 정보는 channel region(엔티티 캐시)에서 읽는다.
     Optional<Channel> getChannel(InviteCode inviteCode) {
-        return channelRepository.findChannelByInviteCode(inviteCode.code())
-                .map(channelProjection -> new Channel(
-                        new ChannelId(channelProjection.getChannelId()),
-                        channelProjection.getTitle(),
-                        channelProjection.getHeadCount()));
+        return inviteCodeCache.resolveChannel(inviteCode)
+                .flatMap(channelId -> channelRepository.findById(channelId.id()))
+                .map(channelEntity -> new Channel(
+                        new ChannelId(channelEntity.getChannelId()),
+                        channelEntity.getTitle(),
+                        channelEntity.getHeadCount()));
+    }
+
+
+    // === channelId로 채널 정보 조회 (channel region 엔티티 캐시) ===
+    public Optional<Channel> getChannel(ChannelId channelId) {
+        return channelRepository.findById(channelId.id())
+                .map(channelEntity -> new Channel(
+                        new ChannelId(channelEntity.getChannelId()),
+                        channelEntity.getTitle(),
+                        channelEntity.getHeadCount()));
     }
 
 
     // === 내가 속한 채널 목록 조회(채팅방 목록) ===
+    //ChannelListCache가 오래 들고 있는 스냅샷을 채우므로 replica가 아니라 primary에서 읽는다. (늦은 replica에서 읽으면 다음 변경 전까지 낡은 목록이 남는다)
     public List<Channel> getChannelsList(UserId userId) {
         return userChannelRepository.findChannelsByUserId(userId.id())
                 .stream().
@@ -105,11 +154,11 @@ public class ChannelService {
 */
 
     //사용자들이 특정 채널에 온라인 상태인지 확인(현재 해당 채널의 화면을 보고 있는지)해서 온라인인 사용자들의 userId를 리턴
+    //참여자 bitmap AND 보고 있는 사용자 bitmap (Redis 조회 없음)
     public List<UserId> getOnlineParticipantIds(ChannelId channelId) {
-        //파라미터
-        // - 1번쨰 파라미터: 해당 채널 id
-        // - 2번째 파라미터: 해당 채널의 참여자
-        return sessionService.getOnlineParticipantUserIds(channelId, getParticipantIds(channelId));
+        List<UserId> onlineParticipantIds = new ArrayList<>();
+        getMembers(channelId).forEachAnd(getViewers(channelId), userId -> onlineParticipantIds.add(new UserId(userId)));
+        return onlineParticipantIds;
     }
 
 
@@ -125,6 +174,16 @@ public class ChannelService {
      */
     @Transactional// DB를 조작하는거라 사용
     public Pair<Optional<Channel>, ResultType> create(UserId senderUserId, List<UserId> participantIds, String title) {
+        return create(senderUserId, participantIds, title, false);
+    }
+
+    /**
+     * [채팅방 생성 - broadcast 여부 지정]
+     * broadcast 채널은 인원 제한이 LIMIT_BROADCAST_HEAD_COUNT이고, broadcast_channel에 표시 row를 같이 넣는다.
+     * 참여자는 보통 초대코드로 들어오므로 participantIds가 비어 있어도 된다.
+     */
+    @Transactional// DB를 조작하는거라 사용
+    public Pair<Optional<Channel>, ResultType> create(UserId senderUserId, List<UserId> participantIds, String title, boolean broadcast) {
 
         // 1) title 입력 검증(null X, Empty X)
         if (title == null || title.isEmpty()) {
@@ -135,7 +194,7 @@ public class ChannelService {
         //headCount 비교
         int headCount = participantIds.size() + 1; //채널 생성자 제외한 참여자 + 채널 생성자
 
-        if (headCount > LIMIT_HEAD_COUNT) { // 채널당 100명 수용 가능. 그것보다 더 많다면 튕겨내기
+        if (headCount > (broadcast ? LIMIT_BROADCAST_HEAD_COUNT : LIMIT_HEAD_COUNT)) { // 채널당 100명 수용 가능. 그것보다 더 많다면 튕겨내기
             log.warn("Over limit of channel. senderUserId(channelCreator): {}, participantIds count = {}, channel title = {}", senderUserId, participantIds.size(), title);
             return Pair.of(Optional.empty(), ResultType.OVER_LIMIT);
         }
@@ -143,7 +202,8 @@ public class ChannelService {
         // 1:1일 때: 둘의 관계를 알아보는 getStatus()만 사용해서 ACCEPTED인지만 보면 됐다.
         // 그룹채팅일 때: 채팅방 개설자와 참여자의 관계가 모두 ACCEPTED인지 확인해야 하고, "참여자의 수 = 개설자와 ACCEPTED인 참여자의 수" 여야 한다.
         // 즉, 10명의 참여자가 있다. 그 10명의 참여자와 모두 ACCEPTED여야 한다.
-        if (userConnectionService.countConnectionStatus(senderUserId, participantIds, UserConnectionStatus.ACCEPTED) != participantIds.size()) {
+        // 개설자의 인접 리스트(메모리)와 참여자 id의 교집합 크기로 확인한다. (user_connection COUNT 쿼리 없음)
+        if (connectionGraphIndex.countConnected(senderUserId, participantIds) != participantIds.size()) {
             log.warn("Included unconnected user. participantIds: {}", participantIds);
             return Pair.of(Optional.empty(), ResultType.NOT_ALLOWED);
         }
@@ -170,6 +230,17 @@ public class ChannelService {
             // 테이블에 저장
             userChannelRepository.saveAll(userChannelEntities);
 
+            // broadcast 채널이면 표시 row를 넣는다.
+            if (broadcast) {
+                broadcastChannelRepository.save(new BroadcastChannelEntity(channelId));
+            }
+            // 커밋되면 참여자 bitmap을 바로 만들어 둔다. (첫 메시지 때 channel_user를 다시 읽지 않게)
+            channelMembershipIndex.created(new ChannelId(channelId),
+                    userChannelEntities.stream().map(entity -> new UserId(entity.getUserId())).toList(), broadcast);
+
+            // 커밋되면 초대코드 필터/캐시에 넣는다. (다음 재구축 전에도 바로 참여할 수 있게)
+            inviteCodeCache.channelCreated(new InviteCode(channelEntity.getInviteCode()), new ChannelId(channelId));
+
             // ========== 3) 응답용 도메인 DTO 구성 ==========
             Channel channel = new Channel(new ChannelId(channelId), title, headCount);
 
@@ -248,14 +319,14 @@ public class ChannelService {
      *
      * 시나리오:
      *  1) 초대코드(inviteCode)로 채널 메타를 조회 (존재 여부, 현 head_count 등)
-     *  2) (락 없이) 1차 빠른 검사:
+     *  2) 1차 빠른 검사 (DB 쓰기 전):
      *     - 이미 참여한 사용자라면 ALREADY_JOINED
-     *     - 인원 제한을 넘는다면 OVER_LIMIT (빠른 차단; DB 락 획득 전에 종료해 서버 부하 절감)
-     *  3) 동시성 구간 진입:
-     *     - 채널 행을 PESSIMISTIC_WRITE 락으로 조회(findForUpdateByChannelId)
-     *     - 2차 최종 검사(락 이후):
-     *       → 그 사이 다른 사람이 들어왔을 수 있으니, 최신 head_count로 다시 확인
-     *       → OK면 head_count++ & channel_user에 (user_id, channel_id) insert
+     *     - 인원 제한을 넘는다면 OVER_LIMIT (빠른 차단)
+     *  3) 짧은 트랜잭션 하나로 최종 처리 (비관적 락 없음):
+     *     - channel_user에 (user_id, channel_id) insert
+     *     - 조건부 UPDATE(head_count < LIMIT 일 때만 +1)로 최종 검사 + 증가를 한 문장에 처리
+     *       → 0 row면 그 사이 다른 사람이 마지막 자리를 가져간 것이므로 insert까지 롤백하고 OVER_LIMIT
+     *     - UPDATE를 마지막 문장으로 두어 channel row 락은 커밋 직전의 아주 짧은 시간만 잡힌다.
      *  4) 성공 시 Pair(channel, SUCCESS) 반환
      *
      * 상위 레이어(핸들러)에서 해야 할 일:
@@ -282,21 +353,26 @@ public class ChannelService {
 
         if(isJoined(channel.channelId(), userId)){ // 1) 이미 그 채널에 참여한 유저라면 중복 가입 방지
             return Pair.of(Optional.empty(), ResultType.ALREADY_JOINED);
-        } else if (channel.headCount() >= LIMIT_HEAD_COUNT) { // 2) 1차 락: 현재 headCount가 한계에 도달했다면 즉시 거절 (락 전 빠른 차단)
+        }
+
+        int limitHeadCount = isBroadcast(channel.channelId()) ? LIMIT_BROADCAST_HEAD_COUNT : LIMIT_HEAD_COUNT;
+        if (channel.headCount() >= limitHeadCount) { // 2) 1차 검사: 현재 headCount가 한계에 도달했다면 즉시 거절 (DB 쓰기 전 빠른 차단)
             return Pair.of(Optional.empty(), ResultType.OVER_LIMIT);
         }
 
-        //락 잡기
-        //optional이 벗겨진 entity를 받는다
-        ChannelEntity channelEntity = channelRepository.findForUpdateByChannelId(channel.channelId().id())
-                .orElseThrow(() -> new EntityNotFoundException("Invalid channelId: " + channel.channelId()));
+        // channel_user insert를 먼저 하고, head_count 조건부 증가를 마지막에 실행한다.
+        userChannelRepository.save(new UserChannelEntity(userId.id(), channel.channelId().id(), 0));
 
-        // 2차 락: 락을 잡고 최신 head_count로 다시 확인(그 사이 누군가 들어왔을 수 있음)
-        if (channelEntity.getHeadCount() < LIMIT_HEAD_COUNT) {
-            channelEntity.setHeadCound(channelEntity.getHeadCount() + 1);
-            userChannelRepository.save(new UserChannelEntity(userId.id(), channel.channelId().id(), 0));
+        if (channelRepository.increaseHeadCount(channel.channelId().id(), limitHeadCount) == 0) {
+            // 최종 검사 실패: 인원 제한에 걸렸으므로 위의 insert까지 되돌린다.
+            log.warn("Join failed. Over limit of channel. channelId: {}, userId: {}", channel.channelId(), userId);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return Pair.of(Optional.empty(), ResultType.OVER_LIMIT);
         }
 
+        // 커밋 후 참여자 bitmap에 추가하고 다른 노드에 알린다. (broadcast/일반 채널 모두)
+        channelMembershipIndex.joined(channel.channelId(), userId);
+
         return Pair.of(Optional.of(channel), ResultType.SUCCESS);
     }
 
@@ -319,23 +395,19 @@ public class ChannelService {
     @Transactional // DB를 조작하는거라 사용
     public ResultType quit(ChannelId channelId, UserId userId) {
 
-        //사용자가 해당 채널 참여자인지 확인
-        if(!isJoined(channelId, userId)){
+        //channel_user 테이블에 대한 사용자에 대한 행(row) 삭제. 지워진 row가 없으면 참여자가 아니다.
+        //(exists 확인 후 삭제하면 동시에 두 번 탈퇴할 때 head_count가 두 번 줄어들 수 있으므로 삭제 결과로 판단한다)
+        if (userChannelRepository.deleteByUserIdAndChannelId(userId.id(), channelId.id()) == 0) {
             return ResultType.NOT_JOINED;
         }
 
-        ChannelEntity channelEntity = channelRepository.findForUpdateByChannelId(channelId.id()).orElseThrow(() ->
-                new EntityNotFoundException("Invalid channelId: " + channelId));
-
-        //HEAD_COUNT 비교: 0보다 커야 - 할 수 있다.
-        if(channelEntity.getHeadCount() > 0){
-            channelEntity.setHeadCound(channelEntity.getHeadCount() - 1);
-        }else{
+        //HEAD_COUNT 감소: 0보다 클 때만 조건부로 -1 한다.
+        if (channelRepository.decreaseHeadCount(channelId.id()) == 0) {
             log.error("Count is already zero. channelId: {}, userId: {}", channelId, userId);
         }
 
-        //channel_user 테이블에 대한 사용자에 대한 행(row) 삭제
-        userChannelRepository.deleteByUserIdAndChannelId(userId.id(), channelId.id());
+        // 커밋 후 참여자 bitmap에서 빼고 다른 노드에 알린다.
+        channelMembershipIndex.quit(channelId, userId);
 
         return ResultType.SUCCESS;
     }
@@ -0,0 +1,297 @@
+package com.chatting.backend.service;
+
+import com.chatting.backend.dto.domain.Channel;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.InboxDigest;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.outbound.InboxDigestNotification;
+import com.chatting.backend.membership.MemberBitmap;
+import com.chatting.backend.session.WebSocketSessionManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * [InboxService] 접속해 있지 않은 참여자의 받은 메시지함 (store-and-forward)
+ *
+ * 메시지는 그 채널을 보고 있는 참여자에게만 실시간으로 간다. 어느 노드에도 접속해 있지 않은 참여자에게는
+ * 메시지 자체가 아니라 "받을 메시지가 있다"는 항목(channelId, message_sequence)만 받은 메시지함에 넣어 두고,
+ * 다시 접속하면 채널별로 묶은 요약 한 프레임(InboxDigestNotification: "X에 새 메시지 42개")으로 알려준다.
+ * 메시지 본문은 클라이언트가 채널에 들어가서 기록(FetchMessagesRequest)으로 읽는다.
+ *
+ * Redis 구조
+ * - message:inbox:{userId}      (zset) : "번호:channelId:sequence" → 번호. 번호는 사용자마다 1씩 늘어난다. (Snowflake id는 double score에 정확히 담기지 않는다)
+ * - message:inbox:{userId}:meta (hash) : seq(마지막 번호), trimmed(용량을 넘어 버린 가장 큰 번호), cursor(그 사용자에게 보낸 마지막 번호)
+ *   필드는 이 세 개뿐이라 연결/세션이 늘어나도 커지지 않는다.
+ *   두 키 모두 항목이 들어올 때마다 retention으로 TTL을 다시 잡는다.
+ *
+ * - 채우기: 메시지 전송 경로에서 넘긴 참여자 중 보고 있지 않은 사람만 골라 batch-size명씩 Lua 스크립트 하나로 넣는다.
+ *   접속 여부(message:presence:{userId})는 스크립트 안에서 확인한다. 전송 경로를 막지 않도록 전용 스레드에서 비동기로 처리하고, 큐가 차면 버린다.
+ * - 사용자마다 최근 max-items개만 남긴다. 넘치면 가장 오래된 항목부터 버리고, 버린 적이 있으면 요약에 complete=false로 알린다.
+ * - 비우기: WebSocket이 연결되면 사용자의 cursor 이후 항목을 drain-batch-size개씩 읽는다.
+ *   읽기, cursor 갱신, 읽은 항목 지우기를 Lua 스크립트 하나로 묶어서, 동시에 두 번 연결돼도 한 항목은 한 번만 나간다. (at most once)
+ *   cursor는 사용자마다 하나이다. 새로 로그인해서(새 HTTP 세션) 연결해도 이미 받은 항목은 다시 받지 않는다.
+ *   여러 기기로 접속해 있으면 먼저 연결된 기기가 요약을 받는다. (나머지 기기는 채널 기록으로 읽는다)
+ * - broadcast 채널은 넣지 않는다. (참여자가 수만 명이라 메시지마다 그만큼 Redis에 쓰게 된다)
+ */
+@Slf4j
+@Service
+public class InboxService {
+
+    private static final String NAMESPACE = "message:inbox";
+    private static final String PRESENCE_NAMESPACE = PresenceService.PRESENCE_CHANNEL;
+
+    //KEYS: 참여자마다 [presence key, inbox key, meta key] / ARGV: channelId, sequence, max-items, retention(ms)
+    static final RedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>("""
+            local added = 0
+            for i = 1, #KEYS, 3 do
+                if redis.call('EXISTS', KEYS[i]) == 0 then
+                    local number = redis.call('HINCRBY', KEYS[i + 2], 'seq', 1)
+                    redis.call('ZADD', KEYS[i + 1], number, number .. ':' .. ARGV[1] .. ':' .. ARGV[2])
+                    if redis.call('ZCARD', KEYS[i + 1]) > tonumber(ARGV[3]) then
+                        local oldest = redis.call('ZPOPMIN', KEYS[i + 1])
+                        redis.call('HSET', KEYS[i + 2], 'trimmed', oldest[2])
+                    end
+                    redis.call('PEXPIRE', KEYS[i + 1], ARGV[4])
+                    redis.call('PEXPIRE', KEYS[i + 2], ARGV[4])
+                    added = added + 1
+                end
+            end
+            return added
+            """, Long.class);
+
+    //KEYS[1]=inbox key, KEYS[2]=meta key / ARGV: batch
+    //반환: [빠짐없는지(1/0), 항목...] 항목을 돌려주면서 cursor를 마지막 항목 번호로 올리고, 그 번호까지의 항목을 지운다.
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>("""
+            local cursor = tonumber(redis.call('HGET', KEYS[2], 'cursor') or '0')
+            local items = redis.call('ZRANGEBYSCORE', KEYS[1], '(' .. cursor, '+inf', 'LIMIT', 0, tonumber(ARGV[1]))
+            if #items > 0 then
+                local last = string.match(items[#items], '^(%d+):')
+                redis.call('HSET', KEYS[2], 'cursor', last)
+                redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', last)
+            end
+            local trimmed = tonumber(redis.call('HGET', KEYS[2], 'trimmed') or '0')
+            table.insert(items, 1, trimmed > cursor and '0' or '1')
+            return items
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ChannelListService channelListService;
+    private final WebSocketSessionManager webSocketSessionManager;
+    private final Executor executor;
+    private final int maxItems;
+    private final long retentionMillis;
+    private final int batchSize;
+    private final int drainBatchSize;
+    private final int digestChannels;
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public InboxService(
+            StringRedisTemplate stringRedisTemplate,
+            ChannelListService channelListService,
+            WebSocketSessionManager webSocketSessionManager,
+            @Value("${message.inbox.max-items:1000}") int maxItems,
+            @Value("${message.inbox.retention:7d}") Duration retention,
+            @Value("${message.inbox.batch-size:500}") int batchSize,
+            @Value("${message.inbox.drain-batch-size:500}") int drainBatchSize,
+            @Value("${message.inbox.digest-channels:20}") int digestChannels,
+            @Value("${message.inbox.queue-capacity:10000}") int queueCapacity) {
+        this(stringRedisTemplate, channelListService, webSocketSessionManager,
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "message-inbox");
+                    thread.setDaemon(true);
+                    return thread;
+                }),
+                maxItems, retention.toMillis(), batchSize, drainBatchSize, digestChannels);
+    }
+
+    InboxService(StringRedisTemplate stringRedisTemplate, ChannelListService channelListService, WebSocketSessionManager webSocketSessionManager,
+                 Executor executor, int maxItems, long retentionMillis, int batchSize, int drainBatchSize, int digestChannels) {
+        if (maxItems <= 0 || retentionMillis <= 0 || batchSize <= 0 || drainBatchSize <= 0 || digestChannels <= 0) {
+            throw new IllegalArgumentException("Invalid inbox settings.");
+        }
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.channelListService = channelListService;
+        this.webSocketSessionManager = webSocketSessionManager;
+        this.executor = executor;
+        this.maxItems = maxItems;
+        this.retentionMillis = retentionMillis;
+        this.batchSize = batchSize;
+        this.drainBatchSize = drainBatchSize;
+        this.digestChannels = digestChannels;
+    }
+
+    /**
+     * [받은 메시지함 채우기] 참여자 중 채널을 보고 있지 않은 사람(보낸 사람 제외)을 골라, 접속해 있지 않으면 항목을 넣는다. (기다리지 않는다)
+     */
+    public void store(ChannelId channelId, long messageSequence, MemberBitmap members, MemberBitmap viewers, long senderId) {
+        try {
+            executor.execute(() -> fill(channelId, messageSequence, members, viewers, senderId));
+        } catch (RejectedExecutionException ex) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * [받은 메시지함 비우기] 연결되면 사용자가 아직 받지 않은 항목을 채널별 요약 한 프레임으로 보낸다. (기다리지 않는다)
+     */
+    public void drain(UserId userId, WebSocketSession session) {
+        try {
+            executor.execute(() -> sendDigest(userId, session));
+        } catch (RejectedExecutionException ex) {
+            //cursor를 올리지 않았으므로 다음 연결 때 받는다.
+            log.warn("Inbox drain skipped. Queue is full. userId: {}", userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${message.inbox.report-interval:1m}")
+    public void reportDropped() {
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            log.warn("Inbox queue was full. dropped messages: {}", droppedCount);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private void fill(ChannelId channelId, long messageSequence, MemberBitmap members, MemberBitmap viewers, long senderId) {
+        List<String> keys = new ArrayList<>(batchSize * 3);
+        members.forEach(memberId -> {
+            if (memberId == senderId || viewers.contains(memberId)) {
+                return;
+            }
+            keys.add("%s:%d".formatted(PRESENCE_NAMESPACE, memberId));
+            keys.add(inboxKey(memberId));
+            keys.add(metaKey(memberId));
+            if (keys.size() == batchSize * 3) {
+                execute(keys, channelId, messageSequence);
+                keys.clear();
+            }
+        });
+        if (!keys.isEmpty()) {
+            execute(keys, channelId, messageSequence);
+        }
+    }
+
+    private void execute(List<String> keys, ChannelId channelId, long messageSequence) {
+        try {
+            stringRedisTemplate.execute(FILL_SCRIPT, List.copyOf(keys),
+                    channelId.id().toString(), String.valueOf(messageSequence), String.valueOf(maxItems), String.valueOf(retentionMillis));
+        } catch (Exception ex) {
+            log.error("Inbox fill failed. channelId: {}, members: {}, cause: {}", channelId, keys.size() / 3, ex.getMessage());
+        }
+    }
+
+    private void sendDigest(UserId userId, WebSocketSession session) {
+        Map<Long, Summary> summaries = new HashMap<>();
+        boolean complete = true;
+        try {
+            List<String> items;
+            boolean first = true;
+            do {
+                items = drainBatch(userId);
+                if (first) {
+                    complete = "1".equals(items.get(0));
+                    first = false;
+                }
+                for (String item : items.subList(1, items.size())) {
+                    //"번호:channelId:sequence"
+                    int channelStart = item.indexOf(':') + 1;
+                    int sequenceStart = item.indexOf(':', channelStart) + 1;
+                    long channelId = Long.parseLong(item.substring(channelStart, sequenceStart - 1));
+                    long sequence = Long.parseLong(item.substring(sequenceStart));
+                    summaries.computeIfAbsent(channelId, key -> new Summary()).add(sequence);
+                }
+            } while (items.size() - 1 == drainBatchSize);
+        } catch (Exception ex) {
+            //이미 읽은 batch는 cursor가 올라갔으므로 그만큼만 보낸다. (at most once)
+            log.error("Inbox drain failed. userId: {}, cause: {}", userId, ex.getMessage());
+        }
+        if (summaries.isEmpty()) {
+            return;
+        }
+        webSocketSessionManager.sendMessage(session, digest(userId, summaries, complete));
+        log.info("Inbox drained. userId: {}, channels: {}, messages: {}", userId, summaries.size(),
+                summaries.values().stream().mapToInt(summary -> summary.count).sum());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> drainBatch(UserId userId) {
+        List<String> items = stringRedisTemplate.execute(DRAIN_SCRIPT, List.of(inboxKey(userId.id()), metaKey(userId.id())),
+                String.valueOf(drainBatchSize));
+        return items == null || items.isEmpty() ? List.of("1") : items;
+    }
+
+    //최근 메시지가 온 채널부터 digest-channels개까지 (나머지는 전체 개수에만 더한다)
+    private InboxDigestNotification digest(UserId userId, Map<Long, Summary> summaries, boolean complete) {
+        Map<Long, String> titles = titles(userId);
+        List<InboxDigest> channels = summaries.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, Summary> entry) -> entry.getValue().lastSequence).reversed())
+                .limit(digestChannels)
+                .map(entry -> new InboxDigest(new ChannelId(entry.getKey()), titles.get(entry.getKey()),
+                        entry.getValue().count, entry.getValue().lastSequence))
+                .toList();
+        int messageCount = summaries.values().stream().mapToInt(summary -> summary.count).sum();
+        return new InboxDigestNotification(channels, summaries.size(), messageCount, complete);
+    }
+
+    //채널 이름은 채팅방 목록 스냅샷에서 꺼낸다. (못 읽으면 이름 없이 channelId만 보낸다)
+    private Map<Long, String> titles(UserId userId) {
+        try {
+            return channelListService.getChannelsList(userId).channels().stream()
+                    .collect(Collectors.toMap(channel -> channel.channelId().id(), Channel::title, (left, right) -> left));
+        } catch (Exception ex) {
+            log.warn("Inbox digest titles unavailable. userId: {}, cause: {}", userId, ex.getMessage());
+            return Map.of();
+        }
+    }
+
+    private static String inboxKey(long userId) {
+        return "%s:%d".formatted(NAMESPACE, userId);
+    }
+
+    private static String metaKey(long userId) {
+        return "%s:%d:meta".formatted(NAMESPACE, userId);
+    }
+
+    //채널 하나의 요약 (개수, 가장 최근 sequence)
+    private static final class Summary {
+
+        private int count;
+        private long lastSequence;
+
+        void add(long sequence) {
+            count++;
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+    }
+}
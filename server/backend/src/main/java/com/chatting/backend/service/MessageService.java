@@ -1,28 +1,56 @@
 package com.chatting.backend.service;
 
+import com.chatting.backend.archive.MessageArchive;
+import com.chatting.backend.cache.ClientMessageIdCache;
+import com.chatting.backend.cache.MessageHistoryCache;
+import com.chatting.backend.constant.ResultType;
 import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.StoredMessage;
 import com.chatting.backend.dto.domain.UserId;
-import com.chatting.backend.entity.MessageEntity;
-import com.chatting.backend.repository.MessageRepository;
+import com.chatting.backend.id.SnowflakeIdGenerator;
+import com.chatting.backend.membership.MemberBitmap;
+import com.chatting.backend.search.IndexedMessage;
+import com.chatting.backend.search.MessageSearchIndex;
+import com.chatting.backend.search.MessageTokenizer;
+import com.chatting.backend.session.BroadcastFanout;
+import com.chatting.backend.shard.ShardedMessageStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
 
 /**
  * [메시지 보내기 핵심 비즈니스 로직]
  * - 1) 메시지를 DB에 저장하고
  * - 2) 동일 채널에 참여 중이며, 현재 그 채널을 보고 있는 (online) 사용자들에게 실시간 알림(MessageNotification)을 전달한다.
+ * - 3) 채널의 지난 메시지(기록)를 페이지 단위로 읽는다.
+ * - 4) 참여 중인 채널의 메시지를 검색한다. (MessageSearchIndex, MySQL을 읽지 않는다)
+ *
+ * 채널을 보고 있지 않은 참여자 중 어느 노드에도 접속해 있지 않은 사람은 받은 메시지함(InboxService)에 항목만 넣어 두고, 다시 접속할 때 요약으로 알려준다.
+ *
+ * 메시지는 channel_id로 정해지는 샤드에 저장되고, 기록 조회도 그 샤드만 읽는다. (ShardedMessageStore)
+ * 오래된 메시지는 MessageArchiver가 샤드에서 보관소(MessageArchive, 압축 세그먼트 파일)로 옮긴다.
  *
  * 단일 스레드(순차 전송) → 멀티 스레드(병렬 전송)로 확장:
  * - 그룹 채팅: 수십/백 명에게 한 번에 보내야 할 수 있음
  * - I/O(웹소켓 전송)는 네트워크 지연이 있으므로 순차 처리 시 전체 전파가 느려짐
  * - 스레드 풀로 병렬 실행하면 전체 전파 지연을 줄일 수 있음
+ *
+ * 전송 대상은 메모리의 bitmap 두 개를 AND 해서 고른다. (channel_user 조회, Redis MGET, 수신자별 UserId/List 생성 없음)
+ * - 일반 채널: 참여자 bitmap AND 이 노드에서 그 채널을 보고 있는 사용자 bitmap
+ * - broadcast(대규모 공지) 채널: 참여자 bitmap AND 이 노드에 접속한 사용자 bitmap
+ *   수신자가 1만~10만 명이라 메시지 하나를 작업 하나로 돌리지 않고, 샤드로 나눠 BroadcastFanout의 전용 워커가 속도를 조절하며 보낸다.
  */
 @Slf4j
 @Service
@@ -39,9 +67,18 @@ public class MessageService {
      *  - @PreDestroy로 shutdown 처리도 고려(아래 주석 참고)
      */
     private static final int THREAD_POOL_SIZE = 10; // thread pool 만들기
+    private static final int MAX_QUERY_LENGTH = 100;  // 검색어 최대 길이
+    private static final int MAX_CLIENT_MESSAGE_ID_LENGTH = 64;  // 클라이언트 메시지 id 최대 길이
 
     private final ChannelService channelService;
-    private final MessageRepository messageRepository;
+    private final ShardedMessageStore shardedMessageStore;
+    private final MessageArchive messageArchive;
+    private final MessageHistoryCache messageHistoryCache;
+    private final MessageSearchIndex messageSearchIndex;
+    private final ClientMessageIdCache clientMessageIdCache;
+    private final BroadcastFanout broadcastFanout;
+    private final InboxService inboxService;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
     private final ExecutorService senderThreadPool = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
 
 
@@ -49,45 +86,163 @@ public class MessageService {
      * [채팅 메시지를 저장 + 대상자에게 병렬 전송 지시]
      *
      * 동작 순서:
+     *  0) clientMessageId가 있으면 중복 저장 방지 창(ClientMessageIdCache, Redis라 다른 노드로 온 재시도도 찾는다)에서 먼저 찾는다.
+     *     창 안에서 이미 저장한 id(전송 타임아웃 후 재시도)면 저장/전송 없이 처음 저장한 sequence를 돌려준다.
      *  1) DB에 메시지 저장 (영속화가 실패하면 이후 전송 자체를 하지 않음 → 메시지/알림 불일치 방지)
-     *  2) 현재 이 채널 화면을 보고 있는 참여자 목록 조회
+     *  2) 참여자 bitmap AND 현재 이 채널 화면을 보고 있는 사용자 bitmap을 순회
      *  3) 보낸 사람(나) 제외
-     *  4) 각 대상자에 대해 "비동기 전송 작업"을 스레드 풀에 제출(runAsync)
+     *  4) 남은 대상자에게 전송
      *
      * 멀티스레딩 포인트:
-     *  - 아래 forEach 내부의 runAsync(...) 가 바로 비동기/병렬 실행을 트리거하는 부분
-     *  - runAsync는 "현재 스레드에서 바로 전송"하지 않고, senderThreadPool의 워커 스레드가 전송을 수행
-     *  - 따라서 여러 수신자 전송이 동시에(최대 THREAD_POOL_SIZE개) 진행될 수 있음
+     *  - 교집합 순회 + 전송을 작업 하나로 묶어 senderThreadPool에 제출(runAsync)한다.
+     *  - 예전처럼 수신자마다 작업을 만들면 수신자 수만큼 람다/Future가 생기므로, 메시지 하나 = 작업 하나로 둔다.
+     *  - 서로 다른 메시지(채널)의 전송은 여전히 동시에(최대 THREAD_POOL_SIZE개) 진행된다.
      *
      * @param senderUserId  메시지를 보낸 사용자 ID
+     * @param senderUsername 메시지를 보낸 사용자 username (검색 결과에 쓰도록 검색 인덱스에 같이 저장)
+     * @param clientMessageId 클라이언트가 메시지마다 만든 id (재시도해도 같은 값, 없으면 null → 중복 확인 없음)
      * @param content       전송한 메시지 내용
      * @param channelId     메시지를 전송할 채널 ID
-     * @param messageSender 실제 전송 콜백 (ex. 특정 UserId의 WebSocketSession에 메시지 push)
+     * @param messageSenderFactory 저장된 message_sequence를 받아 실제 전송 콜백을 만드는 함수
+     *                             (알림에 sequence를 넣어 한 번만 직렬화하고, 재접속 시 재전송할 수 있게 하기 위함)
+     *                             콜백은 수신자 userId를 primitive long으로 받는다.
+     * @return 저장된 message_sequence (중복이면 처음 저장한 sequence)
+     *         같은 id의 처음 요청이 아직 저장 중이면 DUPLICATE (처음 요청의 응답으로 충분하다)
      */
-    public void sendMessage(UserId senderUserId, String content, ChannelId channelId, Consumer<UserId> messageSender) {
+    public Pair<Optional<Long>, ResultType> sendMessage(UserId senderUserId, String senderUsername, String clientMessageId, String content,
+                                                        ChannelId channelId, LongFunction<LongConsumer> messageSenderFactory) {
+        if (clientMessageId != null && (clientMessageId.isEmpty() || clientMessageId.length() > MAX_CLIENT_MESSAGE_ID_LENGTH)) {
+            return Pair.of(Optional.empty(), ResultType.INVALID_ARGS);
+        }
+
+        // 참여자 bitmap으로 보낸 사람이 참여자인지 먼저 확인한다. (참여자가 아니면 저장하지 않는다)
+        MemberBitmap members = channelService.getMembers(channelId);
+        if (!members.contains(senderUserId.id())) {
+            log.warn("Message rejected. Sender is not a member. channelId: {}, senderUserId: {}", channelId, senderUserId);
+            return Pair.of(Optional.empty(), ResultType.NOT_JOINED);
+        }
+
+        // 0) 재시도면 저장하지 않는다.
+        if (clientMessageId != null) {
+            Optional<Long> stored = clientMessageIdCache.reserve(senderUserId, clientMessageId);
+            if (stored.isPresent()) {
+                return stored.get() == ClientMessageIdCache.IN_PROGRESS
+                        ? Pair.of(Optional.empty(), ResultType.DUPLICATE)
+                        : Pair.of(stored, ResultType.SUCCESS);
+            }
+        }
 
+        long messageSequence;
+        LongConsumer messageSender;
         try {
             // 1) 메시지 저장 : 누가, 어떤 내용을 보내는지 저장 (반드시 DB에 먼저 저장 (실패 시 이후 전송 중단))
-            messageRepository.save(new MessageEntity(senderUserId.id(), content));
+            //    message_sequence는 INSERT 전에 만든다. (노드 id lease가 없거나 시계가 크게 틀어졌으면 예외 → 저장하지 않음)
+            //    채널의 주인 샤드에 저장된다.
+            messageSequence = snowflakeIdGenerator.nextId();
+            StoredMessage message = new StoredMessage(messageSequence, channelId, senderUserId, content);
+            shardedMessageStore.append(message);
+            // 저장된 메시지만 검색 인덱스에 넣는다. (색인 스레드가 비동기로 처리)
+            messageSearchIndex.add(message, senderUsername);
+            messageSender = messageSenderFactory.apply(messageSequence);
 
         } catch (Exception ex) {
-            // 저장 실패면 실시간 전송을 하지 않음(유실/불일치 방지).
+            // 저장 실패면 실시간 전송을 하지 않음(유실/불일치 방지). 재시도가 다시 저장할 수 있게 자리를 비운다.
+            if (clientMessageId != null) {
+                clientMessageIdCache.release(senderUserId, clientMessageId);
+            }
             log.error("Send message failed. cause: {}", ex.getMessage());
-            return; // 저장이 실패했으므로 전송 작업을 진행하지 않음
+            return Pair.of(Optional.empty(), ResultType.FAILED); // 저장이 실패했으므로 전송 작업을 진행하지 않음
         }
+        if (clientMessageId != null) {
+            clientMessageIdCache.complete(senderUserId, clientMessageId, messageSequence);
+        }
+
+        long senderId = senderUserId.id();
+        if (channelService.isBroadcast(channelId)) {
+            broadcastFanout.fanOut(members, senderId, messageSender);
+            return Pair.of(Optional.of(messageSequence), ResultType.SUCCESS);
+        }
+
+        // 2) 이 채널을 '지금 실제로 보고 있는(online)' 사용자 bitmap (이 노드 메모리, 불변 스냅샷)
+        MemberBitmap viewers = channelService.getViewers(channelId);
 
+        // 접속해 있지 않은 참여자는 받은 메시지함에 넣어 두고, 다시 접속하면 채널별 요약으로 알려준다. (비동기)
+        inboxService.store(channelId, messageSequence, members, viewers, senderId);
 
-        // 2) 이 채널을 '지금 실제로 보고 있는(online)' 참여자들 목록 조회
-        //    - 1:1에서는 isOnline(userId, channelId)로 한 명 검사면 됐지만,
-        //      그룹에서는 Redis MGET으로 한 번에 걸러내는 최적화를 ChannelService에서 수행하도록 설계되었을 수 있음.
-        //    - 여기서는 '이미 online만 걸러서' 반환한다고 가정.
-        channelService.getOnlineParticipantIds(channelId).stream() //// List<UserId>
-                //3) 참야자들 중에 "나"를 제외하고, 현재 이 채널을 보고있는(현재 채널에서 "활동"중인) 참여자에게만
-                .filter(participantId -> !senderUserId.equals(participantId))
-                // 4) 각 대상자에 대해 "비동기 전송 작업"을 스레드 풀에 제출
-                .forEach(participantId -> CompletableFuture.runAsync(
-                        // 실제 I/O 전송 (예: WebSocketSessionManager.sendMessage)
-                        () -> messageSender.accept(participantId), senderThreadPool) //senderThreadPool:  여기 때문에 멀티스레딩/병렬 수행이 됨
-                );
+        // 3), 4) 참여자 AND 보고 있는 사용자 중 "나"를 제외하고 전송 (senderThreadPool: 여기 때문에 요청 스레드와 분리되어 병렬 수행이 됨)
+        CompletableFuture.runAsync(() -> members.forEachAnd(viewers, participantId -> {
+            if (participantId != senderId) {
+                // 실제 I/O 전송 (예: WebSocketSessionManager.sendMessage)
+                messageSender.accept(participantId);
+            }
+        }), senderThreadPool);
+        return Pair.of(Optional.of(messageSequence), ResultType.SUCCESS);
+    }
+
+    /**
+     * [채널의 지난 메시지 조회]
+     * - 참여자만 볼 수 있다. (참여자 bitmap으로 확인)
+     * - 캐시 → 채널의 주인 샤드(재배치 중인 채널이면 이전 주인도 함께) → 보관소 순서로 읽는다.
+     *   샤드에서 limit개를 채우지 못하면 샤드에서 읽은 마지막 메시지 앞부터 보관소에서 이어 읽는다.
+     *   (보관소로 옮길 때는 세그먼트를 먼저 쓰고 샤드에서 지우므로 두 곳을 이어 읽어도 빠지는 메시지가 없다)
+     *
+     * @param cursor 이 sequence보다 앞선 메시지부터 (null이면 최신부터)
+     * @param limit  최대 개수
+     * @return 최신순 메시지 목록 / 결과
+     */
+    public Pair<Optional<List<StoredMessage>>, ResultType> getMessages(UserId userId, ChannelId channelId, Long cursor, int limit) {
+        if (!channelService.getMembers(channelId).contains(userId.id())) {
+            return Pair.of(Optional.empty(), ResultType.NOT_JOINED);
+        }
+        try {
+            long before = cursor == null ? Long.MAX_VALUE : cursor;
+            Optional<List<StoredMessage>> cached = messageHistoryCache.get(channelId, before, limit);
+            if (cached.isPresent()) {
+                return Pair.of(cached, ResultType.SUCCESS);
+            }
+
+            List<StoredMessage> messages = shardedMessageStore.findByChannelId(channelId, before, limit);
+            if (messages.size() < limit) {
+                long archiveBefore = messages.isEmpty() ? before : messages.get(messages.size() - 1).messageSequence();
+                List<StoredMessage> merged = new ArrayList<>(messages);
+                merged.addAll(messageArchive.findByChannelId(channelId, archiveBefore, limit - messages.size()));
+                messages = merged;
+            }
+            messageHistoryCache.put(channelId, before, limit, messages);
+            return Pair.of(Optional.of(messages), ResultType.SUCCESS);
+        } catch (Exception ex) {
+            log.error("Fetch messages failed. channelId: {}, cause: {}", channelId, ex.getMessage());
+            return Pair.of(Optional.empty(), ResultType.FAILED);
+        }
+    }
+
+    /**
+     * [메시지 검색]
+     * - 검색 인덱스(MessageSearchIndex)만 읽는다. (메시지 원문/username도 인덱스에 있으므로 MySQL을 읽지 않는다)
+     * - 검색한 사람이 참여한 채널만 찾는다. 참여한 채널 id를 검색 전에 한 번만 읽고(replica, channel_user PK 범위 읽기)
+     *   인덱스에 나온 채널을 그 목록과 대조한다. (채널마다 참여자 bitmap을 보면 캐시에 없는 채널을 primary에서 읽어 올리게 된다)
+     *
+     * @param channelId 이 채널에서만 찾는다 (null이면 참여한 모든 채널)
+     * @param cursor    이 sequence보다 앞선 메시지부터 (null이면 최신부터)
+     * @return 최신순 검색 결과 / 결과
+     */
+    public Pair<Optional<List<IndexedMessage>>, ResultType> searchMessages(UserId userId, String query, ChannelId channelId, Long cursor, int limit) {
+        if (query == null || query.length() > MAX_QUERY_LENGTH || MessageTokenizer.tokenize(query).isEmpty()) {
+            return Pair.of(Optional.empty(), ResultType.INVALID_ARGS);
+        }
+        try {
+            long[] joined = channelService.getJoinedChannelIds(userId);
+            if (channelId != null && Arrays.binarySearch(joined, channelId.id()) < 0) {
+                return Pair.of(Optional.empty(), ResultType.NOT_JOINED);
+            }
+            LongPredicate channelFilter = channelId == null
+                    ? id -> Arrays.binarySearch(joined, id) >= 0
+                    : id -> id == channelId.id();
+            long before = cursor == null ? Long.MAX_VALUE : cursor;
+            return Pair.of(Optional.of(messageSearchIndex.search(query, channelFilter, before, limit)), ResultType.SUCCESS);
+        } catch (Exception ex) {
+            log.error("Search messages failed. userId: {}, cause: {}", userId, ex.getMessage());
+            return Pair.of(Optional.empty(), ResultType.FAILED);
+        }
     }
 }
@@ -0,0 +1,183 @@
+package com.chatting.backend.service;
+
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.json.JsonUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * [PresenceService]
+ * - 사용자가 "어느 노드에든 접속해 있는지"를 Redis에 기록하고, 전체 기준으로 접속/접속 종료가 바뀌는 순간을 Redis pub/sub(PRESENCE_CHANNEL)으로 알린다.
+ * - 알림을 받아 ACCEPTED 관계인 사용자들에게 보내는 것은 각 노드의 PresenceBroadcaster가 한다.
+ *
+ * Redis 구조
+ * - message:presence:{userId}  (set)  : 그 사용자의 세션이 붙어 있는 노드 id들. 비어 있으면 offline
+ * - message:presence:leases    (zset) : "userId:nodeId" → 만료 시각(ms). KeepAlive마다 연장된다.
+ *   노드가 죽어서 접속 종료를 기록하지 못해도, 만료된 lease를 다른 노드가 reap()으로 지우면서 offline을 알린다.
+ *
+ * 상태 변경 + PUBLISH를 Lua 스크립트 하나로 묶어서, 여러 노드에서 동시에 바뀌어도 알림 순서가 실제 상태 순서와 같다.
+ */
+@Slf4j
+@Service
+public class PresenceService {
+
+    public static final String PRESENCE_CHANNEL = "message:presence";
+    private static final String LEASES_KEY = "message:presence:leases";
+
+    //KEYS[1]=사용자 key, KEYS[2]=leases / ARGV: nodeId, 만료 시각, lease member, key TTL(ms), channel, payload
+    private static final RedisScript<Long> ONLINE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[3])
+            local added = redis.call('SADD', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            if added == 1 and redis.call('SCARD', KEYS[1]) == 1 then
+                redis.call('PUBLISH', ARGV[5], ARGV[6])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    //KEYS[1]=사용자 key, KEYS[2]=leases / ARGV: nodeId, lease member, 기준 시각(이 시각 이후로 연장된 lease는 지우지 않는다, 없으면 ''), channel, payload
+    private static final RedisScript<Long> OFFLINE_SCRIPT = new DefaultRedisScript<>("""
+            if ARGV[3] ~= '' then
+                local score = redis.call('ZSCORE', KEYS[2], ARGV[2])
+                if score and tonumber(score) > tonumber(ARGV[3]) then
+                    return 0
+                end
+            end
+            redis.call('ZREM', KEYS[2], ARGV[2])
+            local removed = redis.call('SREM', KEYS[1], ARGV[1])
+            if removed == 1 and redis.call('SCARD', KEYS[1]) == 0 then
+                redis.call('PUBLISH', ARGV[4], ARGV[5])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JsonUtil jsonUtil;
+    private final long leaseMillis;
+    private final int reapBatchSize;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    //drain으로 presence를 다른 노드에 넘긴 뒤에는 연결이 닫혀도 offline을 기록하지 않는다. (lease 만료에 맡긴다)
+    private volatile boolean handedOver;
+
+    /**
+     * pub/sub으로 주고받는 상태 변경 이벤트
+     */
+    public record Event(long userId, boolean online) {
+    }
+
+    @Autowired
+    public PresenceService(
+            StringRedisTemplate stringRedisTemplate,
+            JsonUtil jsonUtil,
+            @Value("${message.presence.lease:3m}") Duration lease,
+            @Value("${message.presence.reap-batch-size:100}") int reapBatchSize) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.jsonUtil = jsonUtil;
+        this.leaseMillis = lease.toMillis();
+        this.reapBatchSize = reapBatchSize;
+    }
+
+    /**
+     * 이 노드에 사용자의 세션이 붙었을 때 (KeepAlive마다 다시 호출해서 lease를 연장하고, 어긋난 상태를 바로잡는다)
+     */
+    public void online(UserId userId) {
+        try {
+            long expireAt = System.currentTimeMillis() + leaseMillis;
+            stringRedisTemplate.execute(ONLINE_SCRIPT, List.of(buildPresenceKey(userId.id()), LEASES_KEY),
+                    nodeId, String.valueOf(expireAt), leaseMember(userId.id()), String.valueOf(leaseMillis * 2),
+                    PRESENCE_CHANNEL, payload(userId.id(), true));
+        } catch (Exception ex) {
+            log.error("Presence online failed. userId: {}, cause: {}", userId, ex.getMessage());
+        }
+    }
+
+    /**
+     * 이 노드에서 사용자의 마지막 세션이 닫혔을 때
+     */
+    public void offline(UserId userId) {
+        if (handedOver) {
+            return;
+        }
+        removeLease(userId.id(), nodeId, "");
+    }
+
+    /**
+     * [drain 시 presence 넘기기]
+     * 이 노드의 lease를 grace 뒤에 만료되도록 줄이고, 이후 연결이 닫혀도 offline을 알리지 않는다.
+     * grace 안에 다른 노드로 재접속하면 친구들에게는 접속 종료/접속 알림이 가지 않고, 재접속하지 않으면 reap()이 offline을 알린다.
+     */
+    public void handOver(List<UserId> userIds, Duration grace) {
+        handedOver = true;
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + grace.toMillis();
+        byte[] leasesKey = LEASES_KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                userIds.forEach(userId -> connection.zSetCommands().zAdd(
+                        leasesKey, expireAt, leaseMember(userId.id()).getBytes(StandardCharsets.UTF_8)));
+                return null;
+            });
+        } catch (Exception ex) {
+            log.error("Presence hand over failed. users: {}, cause: {}", userIds.size(), ex.getMessage());
+        }
+    }
+
+    /**
+     * 만료된 lease를 지우고 offline을 알린다. (어느 노드가 해도 결과가 같다. 같은 lease를 두 노드가 지워도 알림은 한 번)
+     */
+    @Scheduled(fixedDelayString = "${message.presence.reap-interval:30s}")
+    public void reap() {
+        try {
+            long now = System.currentTimeMillis();
+            Set<String> expired = stringRedisTemplate.opsForZSet().rangeByScore(LEASES_KEY, 0, now, 0, reapBatchSize);
+            if (expired == null) {
+                return;
+            }
+            for (String member : expired) {
+                int separator = member.indexOf(':');
+                removeLease(Long.parseLong(member.substring(0, separator)), member.substring(separator + 1), String.valueOf(now));
+            }
+        } catch (Exception ex) {
+            log.error("Presence reap failed. cause: {}", ex.getMessage());
+        }
+    }
+
+    private void removeLease(long userId, String leaseNodeId, String expiredBefore) {
+        try {
+            stringRedisTemplate.execute(OFFLINE_SCRIPT, List.of(buildPresenceKey(userId), LEASES_KEY),
+                    leaseNodeId, userId + ":" + leaseNodeId, expiredBefore, PRESENCE_CHANNEL, payload(userId, false));
+        } catch (Exception ex) {
+            log.error("Presence offline failed. userId: {}, cause: {}", userId, ex.getMessage());
+        }
+    }
+
+    private String payload(long userId, boolean online) {
+        return jsonUtil.toJson(new Event(userId, online)).orElseThrow();
+    }
+
+    private String leaseMember(long userId) {
+        return userId + ":" + nodeId;
+    }
+
+    private String buildPresenceKey(long userId) {
+        return "%s:%d".formatted(PRESENCE_CHANNEL, userId);
+    }
+}
@@ -3,8 +3,11 @@ package com.chatting.backend.service;
 import com.chatting.backend.constant.IdKey;
 import com.chatting.backend.dto.domain.ChannelId;
 import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.membership.MemberBitmap;
+import com.chatting.backend.session.ChannelViewerIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,9 +15,8 @@ import org.springframework.session.Session;
 import org.springframework.session.SessionRepository;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -26,7 +28,7 @@ import java.util.concurrent.TimeUnit;
  * 주요 기능:
  * 1) 로그인 세션 TTL(유효시간) 연장 → 사용자가 끊기지 않고 계속 접속할 수 있도록 보장
  * 2) 사용자가 현재 들어가 있는 채널(channel)을 Redis에 기록 → 실시간 알림/읽음 처리 등에 활용
- * 3) 사용자가 특정 채널에 "현재 온라인 상태인지" 확인 (isOnline)
+ * 3) 채널을 "현재 보고 있는" 사용자 bitmap 조회 (getViewers) → 이 노드가 기록한 활성 채널을 ChannelViewerIndex에 같이 반영해 둔다.
  *
  * 카카오톡 비유:
  * - TTL 연장: 카톡 앱이 "나 아직 살아있어요" 핑을 보내면 로그아웃되지 않고 유지
@@ -46,6 +48,9 @@ public class SessionService {
     // Redis에 문자열 기반 데이터 저장/조회용 템플릿(Redis 접근용 템플릿)
     private final StringRedisTemplate stringRedisTemplate;
 
+    // 이 노드에서 기록한 "활성 채널"의 채널별 bitmap (메시지 전송 대상을 고를 때 Redis MGET 대신 사용)
+    private final ChannelViewerIndex channelViewerIndex;
+
     // TTL 설정: Redis 키의 유효시간 (초 단위, 여기서는 300초 = 5분). 이 시간동안만 "활성 채널" 키가 유지되고, 이후 작동으로 삭제
     // KeepAlive로 주기적으로 연장해 주면 계속 살아있다
     private final long TTL = 300;
@@ -88,6 +93,7 @@ public class SessionService {
                 // 3) Redis의 활성 채널 키도 TTL을 함께 연장 (둘을 동일한 주기로 묶어 유지)
                 //      - Redis에서도 해당 키 TTL 연장
                 stringRedisTemplate.expire(channelIdKey, TTL, TimeUnit.SECONDS);
+                channelViewerIndex.refreshed(userId, TimeUnit.SECONDS.toMillis(TTL));
             }
         } catch (Exception ex) {
             // expire 실패 시에도 서비스 전체가 죽을 필요는 없으므로 로깅만 합니다.
@@ -99,6 +105,25 @@ public class SessionService {
 
 
 
+    /**
+     * [여러 사용자의 활성 채널 TTL 연장] : 노드 drain 시, 연결을 닫기 전에 접속 중인 사용자들의 "활성 채널" 키 TTL을 다시 채운다.
+     * - 다른 노드로 재접속해 KeepAlive를 다시 보내기 전까지 presence가 만료되어 메시지 수신 대상에서 빠지지 않게 하기 위함
+     * - 사용자 수만큼 EXPIRE를 pipeline으로 묶어서 Redis 왕복은 한 번
+     */
+    public void refreshActiveChannels(List<UserId> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                userIds.forEach(userId -> connection.keyCommands().expire(buildChannelIdKey(userId).getBytes(StandardCharsets.UTF_8), TTL));
+                return null;
+            });
+        } catch (Exception ex) {
+            log.error("Redis pipelined expire failed. users: {}, cause: {}", userIds.size(), ex.getMessage());
+        }
+    }
+
     /** [현재 활성 채널 기록] : 사용자의 "현재 활성 채널"을 Redis에 기록 (값 = channelId, TTL = 5분)
      *
      * 언제 호출?
@@ -118,6 +143,7 @@ public class SessionService {
 
         try {
             stringRedisTemplate.opsForValue().set(channelIdKey, channelId.id().toString(), TTL, TimeUnit.SECONDS);
+            channelViewerIndex.entered(userId, channelId, TimeUnit.SECONDS.toMillis(TTL));
             return true;
         } catch (Exception ex) {
             log.error("Redis set failed. key: {}, channelId: {}", channelIdKey, channelId);
@@ -137,6 +163,7 @@ public class SessionService {
 
         try{
             stringRedisTemplate.delete(channelIdKey);
+            channelViewerIndex.left(userId);
 
             return true;
         }catch (Exception ex){
@@ -179,78 +206,18 @@ public class SessionService {
 
 
     /**
-     * [현재 channelId 화면을 보고 있는 사용자만 선별해서 반환] : 추가 자세한 설명은 github commit 메시지에 넣어뒀습니다.
+     * [현재 channelId 화면을 보고 있는 사용자 bitmap 반환]
      *
-     * userIds 목록 중에서 **지금 이 방(channelId)** 을 실제로 보고 있는(= Redis에 저장된 "활성 채널" 값이 channelId와 같은)
-     * 사용자만 골라서 반환하는 **배치 조회 함수**.
+     * 예전에는 참여자 수만큼 "message:user:{userId}:channel_id" 키를 만들어 MGET으로 한 번에 읽고, 값이 channelId와 같은 사용자만 골랐다.
+     * (왕복은 1회지만 참여자마다 키 문자열/UserId/결과 리스트를 만들고, 10만 명 채널이면 10만 개 키를 읽어야 했다)
      *
-     * 왜 배치(멀티)로 보나?
-     * - 1:1일 때는 isOnline(userId, channelId)를 한 명에게만 호출하면 됐지만,
-     * - 그룹 채팅(최대 100명 등)에서는 같은 호출을 N번 반복하면 **Redis 네트워크 왕복이 N회** 발생 → 지연↑
-     * - 이 메서드는 **MGET**(multiGet)으로 한 번에 N명을 조회해 **왕복 1회**로 줄이는 최적화.
-     *
-     * 동작 요약
-     *  1) 각 userId에 대해 Redis 키 "message:user:{userId}:channel_id" 생성
-     *  2) multiGet으로 모든 키의 값을 **한 번에** 조회 → 각 사용자가 현재 보고 있는 채널 id 목록
-     *  3) (target) channelId 와 **값이 같은 사용자만** 선별해서 반환
-     *
-     * target channelId란?
-     * - 이 메서드 파라미터로 들어온 `channelId`가 바로 **검사 대상 방**(지금 메시지를 보낼/보고 있어야 하는 방)이다.
-     *
-     * 예시(인덱스 매칭 이해용):
-     *   userIds = [101, 102, 103]
-     *   keys = ["message:user:101:channel_id", "message:user:102:channel_id", "message:user:103:channel_id"]
-     *   Redis 값들(channelIds) = ["5", "7", "5"]   // multiGet은 요청 순서와 **동일한 순서**로 값을 반환(없으면 null)
-     *   target channelId = 5라면("5"와 문자열 비교)
-     *   → 101은 "5" 매칭(O), 102는 "7"(X), 103은 "5"(O)
-     *   → 반환: [101, 103]
-     *
-     * 시간 복잡도
-     * - 키 만들기 O(N) + MGET 네트워크 왕복 1회 + 선형 필터링 O(N) → 총 O(N) + 왕복 1
+     * 지금은 setActiveChannel/removeActiveChannel/refreshTTL이 Redis에 쓸 때 ChannelViewerIndex에도 같이 반영해 두고,
+     * 채널별 bitmap 스냅샷을 돌려준다. 호출하는 쪽은 참여자 bitmap과 AND 해서 전송 대상을 고른다.
+     * - 메시지는 이 노드에 붙은 세션으로만 나가므로 이 노드를 거쳐 기록된 값만 있으면 된다.
+     * - Redis key와 같은 TTL을 따르므로 연결이 잠깐 끊겨도 TTL 동안은 대상에 남는다. (재전송 버퍼 → resume)
      */
-    public List<UserId> getOnlineParticipantUserIds(ChannelId channelId, List<UserId> userIds){
-        // 1) 각 userId → Redis 키 문자열로 변환 (예: "message:user:12345:channel_id")
-        //    buildChannelIdKey(UserId)는 "현재 사용자가 보고 있는 채널을 기록한 Redis 키"를 만들어 주는 유틸입.
-        //    ※ 이 키에 들어있는 값(value)이 바로 "그 유저가 지금 보고 있는 채널 id"이다.
-        List<String> channelIdKeys = userIds.stream().map(this::buildChannelIdKey).toList(); //redis key값을 저장(key는 유저id, value는 채널id 이다)
-
-        try{
-            // 2) Redis MGET: 여러 키의 값을 한 번에 조회 (네트워크 왕복 1회)
-            //    반환 리스트의 **인덱스는 요청한 키들의 인덱스와 동일**하다.
-            //    값은 각 유저의 '활성 채널 id' (예: "7"). 키가 없거나 TTL 만료면 null.
-            List<String> channelIds = stringRedisTemplate.opsForValue().multiGet(channelIdKeys); //위에서 저장한 key에 대응되는 value값(채널id)을 저장
-
-            if (channelIds != null) {
-                // ─────────────────────────────────────────────────────────────
-                // 초기 용량 최적화: new ArrayList<>(channelIds.size())
-                // ─────────────────────────────────────────────────────────────
-                // 최대 userIds 수만큼 결과가 나올 수 있음을 **미리 알고** 있으므로,
-                // ArrayList 내부 배열 리사이즈(재할당)를 줄이기 위해 초기 용량을 미리 잡아둔다.
-                //
-                // 꼭 필요하진 않지만(없어도 동작함) 그룹 인원이 많을수록 메모리 재할당 비용 절감에 유리하다.
-                // 예: 단체방 100명 → 결과도 최대 100명까지 들어올 수 있음 → capacity를 100으로 선할당
-                List<UserId> onlineParticipantUserIds = new ArrayList<>(channelIds.size()); //현재 채널화면을 보고 있는 userId를 저장하기 위해 channelIds의 사이즈만큼의 자리를 만듦
-                String chId = channelId.id().toString(); // 문자열로 변환
-
-                // 3) 결과를 target channelId와 비교해 **매칭되는 사용자만** 수집
-                //    multiGet 결과는 요청한 keys 순서와 동일한 인덱스로 반환되므로,
-                //    i번째 값은 곧 i번째 userId의 "현재 활성 채널" 값입니다.
-                for(int idx = 0; idx < userIds.size(); idx++){ // for문으로 userIds(그룹채팅 참여자들)을 돌면서 해당 채널을 보고 있으면 위에서 만든 onlineParticipantUserIds에 넣기
-                    String value = channelIds.get(idx); // 해당 userIds[idx]의 현재 활성 채널 (예: "5" 또는 null)
-
-                    // value가 null이면 Redis에 키가 없거나 TTL로 만료된 상태
-                    if(value != null && value.equals(chId)){
-                        // 현재 이 채널을 보고 있는 사용자만 결과에 추가
-                        onlineParticipantUserIds.add(userIds.get(idx));
-                    }
-                }
-                return onlineParticipantUserIds; // online 대상만 반환
-            }
-        }catch (Exception ex){
-            // Redis 장애/일시 오류 등: 전체 서비스가 죽을 필요 없으니 로깅 후 빈 리스트 반환
-            log.error("Redis mget faild. key: {}, cause: {}", channelIdKeys, ex.getMessage());
-        }
-        return Collections.emptyList(); // 조회 실패/결과 없음 → 빈 리스트
+    public MemberBitmap getViewers(ChannelId channelId) {
+        return channelViewerIndex.getViewers(channelId);
     }
 
 
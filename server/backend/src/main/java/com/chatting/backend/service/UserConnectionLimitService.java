@@ -2,10 +2,10 @@ package com.chatting.backend.service;
 
 import com.chatting.backend.constant.UserConnectionStatus;
 import com.chatting.backend.dto.domain.UserId;
-import com.chatting.backend.entity.UserConnectionEntity;
-import com.chatting.backend.entity.UserEntity;
+import com.chatting.backend.graph.ConnectionGraphIndex;
+import com.chatting.backend.repository.UserConnectionCountRepository;
+import com.chatting.backend.repository.UserConnectionEdgeRepository;
 import com.chatting.backend.repository.UserConnectionRepository;
-import com.chatting.backend.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.Getter;
@@ -19,8 +19,10 @@ import java.util.function.Function;
 @RequiredArgsConstructor
 public class UserConnectionLimitService {
 
-    private final UserRepository userRepository;
+    private final UserConnectionCountRepository userConnectionCountRepository;
     private final UserConnectionRepository userConnectionRepository;
+    private final UserConnectionEdgeRepository userConnectionEdgeRepository;
+    private final ConnectionGraphIndex connectionGraphIndex;
 
     // 한 사용자가 가질 수 있는 "최대 연결 수" 제한.
     // 테스트에서 값을 바꿔가며 검증하기 위해 final 상수가 아닌 일반 필드로 한다.
@@ -39,109 +41,83 @@ public class UserConnectionLimitService {
 
     /**
      * - "초대 요청을 받은 사용자"가 수락할 때 호출됩니다.
-     * - 현재 두 사용자 사이의 관계가 PENDING(초대 대기) 상태인지 확인하고,
-     * 두 사용자 모두 "연결 수 제한(limitConnections)"을 넘지 않았는지 검사한 뒤,
-     * 정상이라면 둘의 connectionCount를 +1 하고, 관계 상태를 ACCEPTED로 변경합니다.
+     * - 두 사용자 사이의 관계를 PENDING → ACCEPTED로 바꾸고, 두 사용자의 연결 수를 각각 +1 합니다.
+     * - 비관적 락(SELECT ... FOR UPDATE)을 쓰지 않고, 모든 검사를 조건부 UPDATE의 WHERE 절에 맡깁니다.
      * <p>
      * [상세 흐름]
      * 1) 두 사용자 ID를 "정규화"해서 (작은 ID = partnerA, 큰 ID = partnerB)로 고정
-     * - user_connection 테이블의 PK가 (partner_a_user_id, partner_b_user_id)로 구성되었다고 가정
-     * - (A,B)와 (B,A)를 동일한 관계로 본다는 뜻 → 항상 같은 순서로 조회/저장!
-     * 2) 두 사용자 행(UserEntity)을 '쓰기 잠금'으로 조회
-     * - repository의 findForUpdate... 를 통해 DB에서 SELECT ... FOR UPDATE 실행 (비관적 락)
-     * - 동시에 여러 스레드가 수락을 눌러도 connectionCount가 꼬이지 않도록 보호
-     * 3) 두 사용자 사이의 관계(UserConnectionEntity)가 "PENDING"인지 확인 (없으면 예외)
-     * 4) 두 사용자 각각의 connectionCount가 limitConnections에 도달했는지 검사
-     * - 하나라도 제한에 걸리면 수락 불가(에러)
-     * 5) 둘 다 OK면 두 사용자 connectionCount를 +1, 관계 상태를 ACCEPTED로 변경
+     * - user_connection 테이블의 PK가 (partner_a_user_id, partner_b_user_id)로 구성되어 있음
+     * 2) 관계 상태 전이: UPDATE ... SET status = ACCEPTED WHERE ... AND status = PENDING
+     * - 0 row면 PENDING이 아니므로(이미 수락됨/없음) 실패
+     * 3) 연결 수 증가: UPDATE ... SET connection_count = connection_count + 1 WHERE user_id = ? AND connection_count < limit
+     * - 작은 ID → 큰 ID 순서로 실행해 두 트랜잭션이 서로 반대 순서로 row 락을 잡는 일(데드락)이 없도록 한다.
+     * - 0 row면 한도에 도달한 것이므로 예외를 던져 2)까지 롤백
+     * 4) 연결 목록 조회용 인접 리스트(user_connection_edge)의 두 방향 행도 같은 트랜잭션에서 ACCEPTED로 바꾼다. (2) 바로 뒤에 실행
+     * 5) 채널 생성 검사용 메모리 인덱스(ConnectionGraphIndex)에는 커밋 후에 반영한다.
+     * <p>
+     * row 락은 각 UPDATE 시점부터 커밋까지만 잡히고, 읽고-비교하고-쓰는 동안 잡고 있지 않아서 인기 사용자에 대한 대기가 짧다.
      *
      * @param acceptorUserId 초대 요청을 수락하는 사람(= 지금 이 메서드를 호출한 주체)
      * @param inviterUserId  초대를 보낸 사람
      */
-    // @Transactional 덕분에 메서드가 정상 종료되면 커밋되며,
-    // 위에서 잡은 DB 락도 해제된다
+    // @Transactional 덕분에 예외가 나면 위에서 실행한 UPDATE들이 모두 롤백된다.
     @Transactional
     public void accept(UserId acceptorUserId, UserId inviterUserId) {
         // (1) 두 사용자 ID를 "정규화"해서 항상 같은 순서로 다룸
-        //     - 이렇게 해야 같은 두 사람 간의 관계를 항상 동일한 키로 조회/갱신 가능
         Long firstUserId = Long.min(acceptorUserId.id(), inviterUserId.id());
         Long secondUserId = Long.max(acceptorUserId.id(), inviterUserId.id());
 
-        // (2) 두 사용자 정보를 '쓰기 잠금'으로 조회
-        //     - findForUpdateByUserId는 JPA의 PESSIMISTIC_WRITE(SELECT ... FOR UPDATE)를 사용하게끔 설계되어 있어야 함
-        //     - 이유: 동시에 여러 요청이 들어와 connectionCount가 꼬이거나 limit를 초과 저장하는 상황을 방지
-        UserEntity firstUserEntity = userRepository.findForUpdateByUserId(firstUserId)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid userId: " + firstUserId));
-        UserEntity secondUserEntity = userRepository.findForUpdateByUserId(secondUserId)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid userId: " + secondUserId));
-
-        // (3) 두 사용자 사이의 현재 관계가 "PENDING(대기)"인지 확인
-        //     - 초대를 보냈고 아직 수락/거절이 확정되지 않은 상태여야만 수락 가능
-        //SELECT * FROM user_connection WHERE partner_a_userId = ? AND partner_b_userId = ? AND status = ?
-        UserConnectionEntity userConnectionEntity
-                = userConnectionRepository.findByPartnerAUserIdAndPartnerBUserIdAndStatus(firstUserId, secondUserId, UserConnectionStatus.PENDING)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid status."));
-
-        // 에러를 구분해서 던져주기 어렵다. 왜? firstUserId에 뭐가 들어갈 지 모르는 상황이고 secondUserId에 뭐가 들어갈지 모르는 상황이기 때문이다. 이걸 찾는 함수가 필요하다.
-        // (4) 예외 메시지 생성기(람다) 준비
-        //     - 어떤 사용자가 limit를 넘었는지에 따라 에러 문구를 다르게 보여주기 위함
-        //     - java.util.function.Function<T, R>는 "입력 1개 → 출력 1개" 형태의 함수형 인터페이스
-        //     - 여기서는 (userId) -> (그 userId가 수락자면 메시지 A, 아니면 메시지 B)
+        // (2) PENDING인 경우에만 ACCEPTED로 바꾼다.
+        if (userConnectionRepository.updateStatus(firstUserId, secondUserId, UserConnectionStatus.PENDING, UserConnectionStatus.ACCEPTED) == 0) {
+            throw new EntityNotFoundException("Invalid status.");
+        }
+
+        // (2-1) 인접 리스트 동기화 (인기 사용자의 카운터 row 락을 잡기 전에 끝내서 락 보유 시간을 늘리지 않는다)
+        syncEdges(firstUserId, secondUserId, UserConnectionStatus.PENDING, UserConnectionStatus.ACCEPTED);
+
+        // (3) 어떤 사용자가 limit를 넘었는지에 따라 에러 문구를 다르게 보여주기 위한 함수
         Function<Long, String> getErrorMessage = userId
                 -> userId.equals(acceptorUserId.id()) ? "Connection limit reached." : "Connection limit reached by the other user.";
 
-        // (5) 각 사용자 현재 연결 수 확인
-        int firstConnectionCount = firstUserEntity.getConnectionCount();
-        int secondConnectionCount = secondUserEntity.getConnectionCount();
-
-        // (6) 연결 수 제한 검사
-        //     - "현재 연결 수 >= 최대 허용 수"이면 더 이상 새로운 연결을 만들 수 없음
-        //     - >= 를 쓰는 이유: 예) limitConnections=1000, 현재 1000이면 이미 한도에 도달 → 추가 불가
-        if (firstConnectionCount >= limitConnections) {
+        // (4) 한도 검사 + 증가 (0 row = 한도 도달)
+        if (userConnectionCountRepository.increaseConnectionCount(firstUserId, limitConnections) == 0) {
             throw new IllegalStateException(getErrorMessage.apply(firstUserId));
         }
-        if (secondConnectionCount >= limitConnections) {
+        if (userConnectionCountRepository.increaseConnectionCount(secondUserId, limitConnections) == 0) {
             throw new IllegalStateException(getErrorMessage.apply(secondUserId));
         }
 
-        // 업데이트하기
-        // (7) 둘 다 OK면 실제 반영
-        //     - 관계는 양방향 의미이므로 두 사용자 모두 connectionCount +1
-        firstUserEntity.setConnectionCount(firstConnectionCount + 1);
-        secondUserEntity.setConnectionCount(secondConnectionCount + 1);
-
-        //     - 관계 상태를 ACCEPTED로 바꿔서 "연결 완료"로 확정
-        userConnectionEntity.setStatus(UserConnectionStatus.ACCEPTED);
+        // (5) 메모리 연결 인덱스는 커밋된 뒤에 반영된다.
+        connectionGraphIndex.connected(acceptorUserId, inviterUserId);
     }
 
+    /**
+     * 연결 끊기: 관계를 ACCEPTED → DISCONNECTED로 바꾸고, 두 사용자의 연결 수를 각각 -1 합니다. (accept와 같은 방식)
+     */
     @Transactional
     public void disconnect(UserId senderUserId, UserId partnerUserId) {
         Long firstUserId = Long.min(senderUserId.id(), partnerUserId.id());
         Long secondUserId = Long.max(senderUserId.id(), partnerUserId.id());
 
-        UserEntity firstUserEntity = userRepository.findForUpdateByUserId(firstUserId)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid userId: " + firstUserId));
-        UserEntity secondUserEntity = userRepository.findForUpdateByUserId(secondUserId)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid userId: " + secondUserId));
-
-        UserConnectionEntity userConnectionEntity
-                = userConnectionRepository.findByPartnerAUserIdAndPartnerBUserIdAndStatus(firstUserId, secondUserId, UserConnectionStatus.ACCEPTED)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid status."));
-
-        int firstConnectionCount = firstUserEntity.getConnectionCount();
-        int secondConnectionCount = secondUserEntity.getConnectionCount();
+        if (userConnectionRepository.updateStatus(firstUserId, secondUserId, UserConnectionStatus.ACCEPTED, UserConnectionStatus.DISCONNECTED) == 0) {
+            throw new EntityNotFoundException("Invalid status.");
+        }
+        syncEdges(firstUserId, secondUserId, UserConnectionStatus.ACCEPTED, UserConnectionStatus.DISCONNECTED);
 
-        if (firstConnectionCount <= 0) {
+        if (userConnectionCountRepository.decreaseConnectionCount(firstUserId) == 0) {
             throw new IllegalStateException("Count is already zero. userId: " + firstUserId);
         }
-        if (secondConnectionCount <= 0) {
-            throw new IllegalStateException("Count is already zero. userId: " + senderUserId);
+        if (userConnectionCountRepository.decreaseConnectionCount(secondUserId) == 0) {
+            throw new IllegalStateException("Count is already zero. userId: " + secondUserId);
         }
 
-        firstUserEntity.setConnectionCount(firstConnectionCount - 1);
-        secondUserEntity.setConnectionCount(secondConnectionCount - 1);
+        connectionGraphIndex.disconnected(senderUserId, partnerUserId);
+    }
 
-        userConnectionEntity.setStatus(UserConnectionStatus.DISCONNECTED);
+    //user_connection과 인접 리스트가 어긋나 있으면(두 방향 행이 모두 바뀌지 않으면) 예외를 던져 전체를 롤백한다.
+    private void syncEdges(Long firstUserId, Long secondUserId, UserConnectionStatus from, UserConnectionStatus to) {
+        if (userConnectionEdgeRepository.updateStatus(firstUserId, secondUserId, from, to) != 2) {
+            throw new IllegalStateException("Connection edges are out of sync. userIds: %d, %d".formatted(firstUserId, secondUserId));
+        }
     }
 }
-
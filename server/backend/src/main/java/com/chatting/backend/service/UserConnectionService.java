@@ -1,21 +1,22 @@
 package com.chatting.backend.service;
 
+import com.chatting.backend.cache.InviteCodeCache;
 import com.chatting.backend.constant.UserConnectionStatus;
 import com.chatting.backend.dto.domain.InviteCode;
 import com.chatting.backend.dto.domain.User;
 import com.chatting.backend.dto.domain.UserId;
-import com.chatting.backend.dto.projection.UserIdUsernameInviterUserIdProjection;
-import com.chatting.backend.entity.UserConnectionEntity;
+import com.chatting.backend.dto.projection.UserConnectionStateProjection;
+import com.chatting.backend.repository.UserConnectionEdgeRepository;
 import com.chatting.backend.repository.UserConnectionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 /**
  * [UserConnectionService]
@@ -28,73 +29,39 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class UserConnectionService {
 
-    private final UserService userService;
     private final UserConnectionLimitService userConnectionLimitService;
     private final UserConnectionRepository userConnectionRepository;
+    private final UserConnectionEdgeRepository userConnectionEdgeRepository;
+    private final InviteCodeCache inviteCodeCache;
 
 
     /**
      * [연결 목록 조회 메서드]
      * <p>
      * 목적:
-     * - 로그인한 사용자(파라미터 userId)에 대해, 특정 연결 상태(status)를 가진 '상대 사용자 목록'을 반환한다.
-     * - 예: status = ACCEPTED 이면 "나와 연결된(친구가 된) 모든 사용자" 목록을 반환.
+     * - 로그인한 사용자(파라미터 userId)에 대해, 특정 연결 상태(status)를 가진 '상대 사용자 목록'을 한 페이지씩 반환한다.
+     * - 예: status = ACCEPTED 이면 "나와 연결된(친구가 된) 사용자" 목록을 partner userId 순서로 limit명씩 반환.
      * <p>
-     * 왜 두 쿼리인가?:
-     * - user_connection 테이블은 (partner_a_user_id, partner_b_user_id)를 복합키로 사용한다.
-     * - 서비스 레이어에서 canonical ordering(항상 작은 id를 partnerA, 큰 id를 partnerB)으로 저장/조회하기 때문에,
-     * "나"가 partnerA인 행과 "나"가 partnerB인 행이 따로 존재할 수 있다.
-     * - JPQL은 UNION 같은 문법을 편하게 지원하지 않으므로(혹은 네이티브 SQL을 쓰지 않는 한),
-     * 일반적으로 "내가 A인 경우"와 "내가 B인 경우" 두 쿼리를 각각 실행하여 결과를 합친다.
-     * <p>
-     * 반환 타입:
-     * - User: 도메인 DTO (UserId + username).
-     * <p>
-     * 구현 요약(단계):
-     * 1) repository.findByPartnerAUserIdAndStatus(userId, status) 호출 -> 내가 partnerA인 쪽(상대는 partnerB)
-     * 2) repository.findByPartnerBUserIdAndStatus(userId, status) 호출 -> 내가 partnerB인 쪽(상대는 partnerA)
-     * 3) 두 결과를 Stream.concat으로 합치고, 각 projection 요소를 도메인 User로 변환
-     * 4) 리스트로 수집하여 반환
-     * <p>
-     * 주의/확인 사항:
-     * - Projection( UserIdUsernameInviterUserIdProjection )은 DB에서 필요한 컬럼(userId, username)만 가져오기 때문에 성능상 이득(특히 많은 컬럼이 있는 엔티티일 때)
-     * - 합친 후 중복 제거가 필요한지(동일 상대가 두 번 들어올 가능성) 확인: canonical ordering이 올바르게 유지되면 중복이 없어야 한다.
-     * - 정렬(ordering)이 필요하면 서비스 레이어에서 정렬을 추가할 수 있다.
+     * 왜 인접 리스트(user_connection_edge)를 읽는가?:
+     * - user_connection은 (작은 id, 큰 id) 한 행만 있어서 "내가 partnerA인 행"과 "내가 partnerB인 행"을 두 번 조회해 합쳐야 했고,
+     * 연결이 1000명이면 1000명을 한 번에 읽어서 응답 하나에 담았다.
+     * - user_connection_edge는 관계를 방향별로 두 행씩 가지고 있어서 (user_id, status, partner_user_id) 인덱스 한 번으로 읽고,
+     * cursor(이전 페이지의 마지막 상대 userId) 다음부터 limit개만 잘라 읽는다. (keyset pagination)
+     * - ACCEPTED가 아닌 상태는 초대받은 사람에게만 보여야 하므로 내가 초대한 행은 쿼리에서 뺀다.
      *
      * @param userId 조회 대상(로그인한 사용자=나)
      * @param status 조회하고자 하는 연결 상태 (예: PENDING, ACCEPTED, REJECTED, NONE, DISCONNECTED)
-     * @return 해당 상태에 있는 상대 사용자들의 List<User> (각 User는 userId + username)
+     * @param cursor 이전 페이지의 마지막 상대 userId (첫 페이지는 null)
+     * @param limit  한 페이지의 최대 인원 수
+     * @return 해당 상태에 있는 상대 사용자들의 List<User> (userId 오름차순)
      */
-    @Transactional(readOnly = true) // 두 개의 쿼리를 동시에 사용
-    public List<User> getUserByStatus(UserId userId, UserConnectionStatus status) {
-        // 1) 내가 partnerA(작은 id)인 관계들: 여기서 반환되는 projection은 "상대 = partnerB" 의 id와 username을 담고 있다.
-        //    SQL/JPQL 레벨에서 user_connection.u.partnerB_user_id 와 user.username 을 조인해서 가져옴.
-        List<UserIdUsernameInviterUserIdProjection> usersA = userConnectionRepository.findByPartnerAUserIdAndStatus(userId.id(), status);
-        // 2) 내가 partnerB(큰 id)인 관계들: 여기서 반환되는 projection은 "상대 = partnerA" 의 id와 username을 담고 있다.
-        //    즉, repository 메서드는 반대편 칼럼을 기준으로 조인하도록 작성되어 있다.
-        List<UserIdUsernameInviterUserIdProjection> usersB = userConnectionRepository.findByPartnerBUserIdAndStatus(userId.id(), status);
-
-        if (status == UserConnectionStatus.ACCEPTED) {
-            // 3) 두 리스트를 합치고(UserIdUsernameInviterUserIdProjection -> User 도메인으로 매핑)
-            //    Stream.concat 를 사용하면 성능상 이점(중간 컬렉션 재할당을 최소화)과 가독성을 얻을 수 있다.
-            //    각 projection의 getUserId() / getUsername() 값을 새로운 User 도메인 객체로 변환하여 반환한다.
-            return Stream
-                    .concat(usersA.stream(), usersB.stream())
-                    // map 단계: Projection -> 도메인 User
-                    //   - UserIdUsernameInviterUserIdProjection.getUserId() 는 DB에서 가져온 상대방의 numeric id
-                    //   - new User(new UserId(...), username) 는 내부 도메인 DTO를 구성하는 표준 방식
-                    .map(item -> new User(new UserId(item.getUserId()), item.getUsername()))
-                    .toList();
-        } else { //ACCEPTED가 아닌 다른 연결상태로 들어오면
-            // 4) 필터를 해서 한번 걸려줘야 한다.
-            // 초대한 사람(A)만 PENDING 목록에서 상대(B)를 볼 수 있음. 하지만 초대받은 사람(B)은 아직 아무것도 수락하지 않았으므로 자신의 PENDING 목록에는 표시되지 않아야 함.
-            // 그렇기에 ACCEPTED이면 둘 다(수락자, 초대자) 연결상태가 보여도 되지만, ACCEPTED가 아닌 연결상태이면 초대자만 해당 연결상태가 보여져야 한다.
-            return Stream
-                    .concat(usersA.stream(), usersB.stream())
-                    .filter(item -> !item.getInviterUserId().equals(userId.id()))
-                    .map(item -> new User(new UserId(item.getUserId()), item.getUsername()))
-                    .toList();
-        }
+    @Transactional(readOnly = true)
+    public List<User> getUserByStatus(UserId userId, UserConnectionStatus status, UserId cursor, int limit) {
+        return userConnectionEdgeRepository
+                .findPartners(userId.id(), status, cursor == null ? 0L : cursor.id(), Limit.of(limit))
+                .stream()
+                .map(item -> new User(new UserId(item.getUserId()), item.getUsername()))
+                .toList();
     }
 
 
@@ -124,45 +91,45 @@ public class UserConnectionService {
      * @param inviterUserId 초대요청을 보내는 사람의 userId
      * @param inviteCode    초대요청을 받는 사람의 inviteCode
      */
+    //관계(user_connection)와 인접 리스트(user_connection_edge)를 함께 저장하므로 하나의 트랜잭션으로 묶는다.
+    @Transactional
     public Pair<Optional<UserId>, String> invite(UserId inviterUserId, InviteCode inviteCode) {
-        //1. 초대코드(inviteCode)로 파트너(초대 대상) 찾기
-        //User = usersId + username
-        Optional<User> partner = userService.getUser(inviteCode);
+        //1. 초대코드(inviteCode) → 파트너 userId (없는 코드는 InviteCodeCache 필터에서 DB 조회 없이 걸러진다)
+        //   파트너 id로 파트너 + 두 사람의 관계 + 내 username/연결 수를 한 번에 조회 (탈퇴 등으로 없어진 파트너면 empty)
+        Optional<UserConnectionStateProjection> state = inviteCodeCache.resolveUser(inviteCode)
+                .flatMap(partnerId -> userConnectionRepository.findConnectionStateByPartnerUserId(inviterUserId.id(), partnerId.id()));
 
         //2. 파트너 없음: 잘못된 초태코드: 잘못된 요청이 들어왔을 때(사용자가 보낸 초대코드와 실제 상대방의 초대코드가 다른 상황)
-        if (partner.isEmpty()) {
+        if (state.isEmpty()) {
             log.info("Invalid invite code. {}, from {}", inviteCode, inviterUserId);
 
             return Pair.of(Optional.empty(), "Invalid invite code.");
         }
 
         //Optional에서 값 추출
-        UserId partnerUserId = partner.get().userId();
-        String partnerUsername = partner.get().username();
+        UserId partnerUserId = new UserId(state.get().getPartnerUserId());
+        String partnerUsername = state.get().getPartnerUsername();
 
         //3. 자기 자신에게 보낸 초대인지 검사(자기 자신을 초대할 수 없음)
         if (partnerUserId.equals(inviterUserId)) {
             return Pair.of(Optional.empty(), "Can't self invite.");
         }
 
-        //4. 현재 두 사람 간 상태 조회(NONE, PENDING, ACCEPTED, DISCONNECTED, REJECTED)
-        UserConnectionStatus userConnectionStatus = getStatus(inviterUserId, partnerUserId);
+        //4. 현재 두 사람 간 상태(NONE, PENDING, ACCEPTED, DISCONNECTED, REJECTED)
+        UserConnectionStatus userConnectionStatus = statusOf(state.get());
 
         //5. 상태에 따른 분기 처리
         return switch (userConnectionStatus) {
             case NONE, DISCONNECTED -> {
                 //연결 한도에 도달했는지 확인
                 //초대자의 연결 한도 도달했는지 확인
-                if (userService
-                        .getConnectionCount(inviterUserId)
-                        .filter(count -> count >= userConnectionLimitService.getLimitConnections())
-                        .isPresent()) {
+                Integer connectionCount = state.get().getRequesterConnectionCount();
+                if (connectionCount != null && connectionCount >= userConnectionLimitService.getLimitConnections()) {
                     yield Pair.of(Optional.empty(), "Connection limit reached.");
                 }
 
-                //초대자의 이름 가져오기
-                //getUsername: userId로 username을 찾는 메서드
-                Optional<String> inviterUsername = userService.getUsername(inviterUserId);
+                //초대자(나)의 이름 (같은 조회 결과에 들어있다)
+                Optional<String> inviterUsername = Optional.ofNullable(state.get().getRequesterUsername());
 
                 //초대한 사람의 username을 못찾으면 실패 처리(초대자를 못찾은 상태)
                 if (inviterUsername.isEmpty()) {
@@ -221,31 +188,30 @@ public class UserConnectionService {
      * @param inviterUsername 초대한 사람의 username
      */
     public Pair<Optional<UserId>, String> accept(UserId acceptorUserId, String inviterUsername) {
-        //1. inviterUsername -> inviterUserId로 변환(username으로 userId를 찾아옴)
-        Optional<UserId> userId = userService.getUserId(inviterUsername);
+        //1. inviterUsername으로 초대한 사람 + 두 사람의 관계 + 내 username을 한 번에 조회
+        Optional<UserConnectionStateProjection> state =
+                userConnectionRepository.findConnectionStateByPartnerUsername(acceptorUserId.id(), inviterUsername);
 
         //2. 초대한 사람(inviter)이 존재하는지 확인
-        if (userId.isEmpty()) {
+        if (state.isEmpty()) {
             return Pair.of(Optional.empty(), "Invalid username."); // 잘못된 username(예: 변경되었거나 존재하지 않음)
         }
 
         //실제 inviterUserId
-        UserId inviterUserId = userId.get();
+        UserId inviterUserId = new UserId(state.get().getPartnerUserId());
 
         //3. 수락자와 초대한 사람이 동일한지 검사(자기 자신을 수락 불가)
         if (acceptorUserId.equals(inviterUserId)) {
             return Pair.of(Optional.empty(), "Can't self accept.");
         }
 
-        //4. DB에 저장된 invite4r_user_id와 지금 요청에서 온 inviterUserId가 일치하는지 확인
-        if (getInviterUserId(acceptorUserId, inviterUserId)
-                .filter(invitationSenderUserId -> invitationSenderUserId.equals(inviterUserId))
-                .isEmpty()) {
+        //4. DB에 저장된 inviter_user_id와 지금 요청에서 온 inviterUserId가 일치하는지 확인
+        if (!inviterUserId.id().equals(state.get().getInviterUserId())) {
             return Pair.of(Optional.empty(), "Invalid username."); // DB에 저장된 초대한 사람 정보가 지금 요청에서 온 inviterUserId와 일치하지 않음 -> 거부
         }
 
         //5. 현재 두 사람의 관계 상태를 확인(PENDING이어야만 수락 가능)
-        UserConnectionStatus userConnectionStatus = getStatus(inviterUserId, acceptorUserId);
+        UserConnectionStatus userConnectionStatus = statusOf(state.get());
 
         if (userConnectionStatus == UserConnectionStatus.ACCEPTED) {
             return Pair.of(Optional.empty(), "Already connected."); // 이미 수락되어 연결이 된 상태
@@ -255,8 +221,8 @@ public class UserConnectionService {
             return Pair.of(Optional.empty(), "Accept failed."); //PENDING이 아니면 수락할 수 없다.
         }
 
-        //6. 성공시 응답에 포함할 acceptor와 username을 미리 가져둔다.
-        Optional<String> acceptorUsername = userService.getUsername(acceptorUserId);
+        //6. 성공시 응답에 포함할 acceptor의 username (같은 조회 결과에 들어있다)
+        Optional<String> acceptorUsername = Optional.ofNullable(state.get().getRequesterUsername());
 
         // acceptor UserId가 이상하거나 DB에 문제가 있는 경우
         if (acceptorUsername.isEmpty()) {
@@ -298,18 +264,20 @@ public class UserConnectionService {
      */
     //accept() 메서드와 같이 실패조건들을 나열해서 상세하게 해도 되고,
     //reject() 메서드와 같이 간략하게 다 Reject failed라고 해도 된다. 편한 방식으로 개발하면 된다.
+    @Transactional
     public Pair<Boolean, String> reject(UserId rejectorUserId, String inviterUsername) {
 
-        //rejectorUserId와 inviterUserId가 같지 않아야 않다.(같다면 스스로가 보낸 요청을 스스로 거절하는 꼴이 되는 것임)
-        return userService.getUserId(inviterUsername)
-                .filter(inviterUserId -> !inviterUserId.equals(rejectorUserId))
-                .filter(inviterUserId -> getInviterUserId(inviterUserId, rejectorUserId).filter(invitationSenderUserId ->
-                        invitationSenderUserId.equals(inviterUserId)).isPresent())
+        //관계 정보를 한 번에 조회한 뒤 조건을 검사한다.
+        return userConnectionRepository.findConnectionStateByPartnerUsername(rejectorUserId.id(), inviterUsername)
+                //rejectorUserId와 inviterUserId가 같지 않아야 않다.(같다면 스스로가 보낸 요청을 스스로 거절하는 꼴이 되는 것임)
+                .filter(state -> !state.getPartnerUserId().equals(rejectorUserId.id()))
+                //DB에 저장된 초대자가 상대방이어야 한다.
+                .filter(state -> state.getPartnerUserId().equals(state.getInviterUserId()))
                 //PENDING 상태에서만 reject이 가능하다
-                .filter(inviterUserId -> getStatus(inviterUserId, rejectorUserId) == UserConnectionStatus.PENDING)
-                .map(inviterUserId -> {
+                .filter(state -> statusOf(state) == UserConnectionStatus.PENDING)
+                .map(state -> {
                     try {
-                        setStatus(inviterUserId, rejectorUserId, UserConnectionStatus.REJECTED);
+                        setStatus(new UserId(state.getPartnerUserId()), rejectorUserId, UserConnectionStatus.REJECTED);
 
                         return Pair.of(true, inviterUsername);
                     } catch (Exception ex) {
@@ -330,17 +298,18 @@ public class UserConnectionService {
      * @param partnerUsername 연결 끊기는 사람(상대방)
      */
     public Pair<Boolean, String> disconnect(UserId senderUserId, String partnerUsername) {
-        // 1) partnerUsername → partnerUserId 로 변환 시도
-        return userService
-                .getUserId(partnerUsername)
+        // 1) partnerUsername으로 상대방 + 관계 정보를 한 번에 조회
+        return userConnectionRepository
+                .findConnectionStateByPartnerUsername(senderUserId.id(), partnerUsername)
                 // 2) senderUserId와 partnerUserId가 같다면 "자기 자신을 끊기"가 되므로 허용하지 않는다.
-                .filter(partnerUserId -> !senderUserId.equals(partnerUserId))
-                // 3) map: 여기서부터는 "조건이 통과된 partnerUserId"에 대해 실제 끊기 로직을 수행.
+                .filter(state -> !senderUserId.id().equals(state.getPartnerUserId()))
+                // 3) map: 여기서부터는 "조건이 통과된 partner"에 대해 실제 끊기 로직을 수행.
                 .map(
-                        partnerUserId -> {
+                        state -> {
+                            UserId partnerUserId = new UserId(state.getPartnerUserId());
                             try {
-                                // 3-1) 현재 상태 조회
-                                UserConnectionStatus userConnectionStatus = getStatus(senderUserId, partnerUserId);
+                                // 3-1) 현재 상태
+                                UserConnectionStatus userConnectionStatus = statusOf(state);
 
                                 // 3-2) 케이스 A: 현재 ACCEPTED(서로 연결된 상태)라면
                                 if (userConnectionStatus == UserConnectionStatus.ACCEPTED) {
@@ -350,8 +319,7 @@ public class UserConnectionService {
                                 // 3-3) 케이스 B: 현재 REJECTED이고, 과거 DB에 기록된 '초대한 사람(inviter)'이 partner였다면(즉, "상대가 나에게 초대한 걸 내가 거절한 상태")
                                 // REJECTED 상태이면, 다시 연결 요청을 못한다. 그렇기에 DISCONNECTED 상태로 바꿔서 다시 요청할 수 있도록 한다.
                                 else if (userConnectionStatus == UserConnectionStatus.REJECTED &&
-                                        getInviterUserId(senderUserId, partnerUserId)
-                                                .filter(inviterUserId -> inviterUserId.equals(partnerUserId)).isPresent()) {
+                                        partnerUserId.id().equals(state.getInviterUserId())) {
                                     setStatus(senderUserId, partnerUserId, UserConnectionStatus.DISCONNECTED);
                                     return Pair.of(true, partnerUsername);
                                 }
@@ -410,26 +378,24 @@ public class UserConnectionService {
             throw new IllegalArgumentException("Can't set to accepted.");
         }
 
-        userConnectionRepository.save(new UserConnectionEntity(
+        //save()는 복합키 엔티티의 존재 여부를 SELECT로 확인한 뒤 INSERT/UPDATE 하므로, upsert 한 번으로 처리한다.
+        userConnectionRepository.upsertStatus(
                 Long.min(inviterUserId.id(), partnerUserId.id()),   // partnerA
                 Long.max(inviterUserId.id(), partnerUserId.id()),   // partnerB
-                userConnectionStatus, //비꿀 상태값
+                userConnectionStatus.name(), //비꿀 상태값
                 inviterUserId.id() // 초대한 사람 ID 저장
-        ));
+        );
+        //연결 목록 조회용 인접 리스트의 두 방향 행도 같은 값으로 맞춘다.
+        userConnectionEdgeRepository.upsertEdges(
+                inviterUserId.id(), partnerUserId.id(), userConnectionStatus.name(), inviterUserId.id());
     }
 
     /**
-     * [DB에 저장된 초대자 userId 조회 메서드]
-     * : 두 사용자 관계에서 실제 초대를 보낸 사람이 누구인지 확인하는 메서드
-     * <p>
-     * → 수락/거절 시 클라이언트가 보낸 inviterUsername이 실제 초대자와 일치하는지 검증하는데 사용
+     * [관계 조회 결과의 상태 변환 메서드]
+     * : 관계 row가 없으면(LEFT JOIN 결과 null) NONE
      */
-    private Optional<UserId> getInviterUserId(UserId partnerAUserId, UserId partnerBUserId) {
-        //SELECT inviter_user_id FROM user_connection WHERE partner_a_user_id = ? AND partner_b_user_id = ?
-        return userConnectionRepository.findInviterUserIdByPartnerAUserIdAndPartnerBUserId(
-                //partnerAUserId와 partnerBUserId를 파라미터로 봤을 때 누가 inviter이고 누가 acceptor인지 모른다.
-                Long.min(partnerAUserId.id(), partnerBUserId.id()),
-                Long.max(partnerAUserId.id(), partnerBUserId.id())).map(inviterUserIdProjection -> new UserId(inviterUserIdProjection.getInviterUserId()));
+    private static UserConnectionStatus statusOf(UserConnectionStateProjection state) {
+        return state.getStatus() == null ? UserConnectionStatus.NONE : UserConnectionStatus.valueOf(state.getStatus());
     }
 
 
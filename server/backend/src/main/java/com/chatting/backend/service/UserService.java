@@ -1,10 +1,13 @@
 package com.chatting.backend.service;
 
+import com.chatting.backend.cache.InviteCodeCache;
 import com.chatting.backend.dto.domain.InviteCode;
 import com.chatting.backend.dto.domain.User;
 import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.projection.UsernameProjection;
+import com.chatting.backend.entity.UserConnectionCountEntity;
 import com.chatting.backend.entity.UserEntity;
+import com.chatting.backend.repository.UserConnectionCountRepository;
 import com.chatting.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +33,12 @@ public class UserService {
     //사용자 정보를 CRUD할 수 있는 JPA repository
     private final UserRepository userRepository;
 
+    //사용자별 연결 수 카운터 (user_connection_count 테이블)
+    private final UserConnectionCountRepository userConnectionCountRepository;
+
+    //초대코드 → userId 해석 캐시 (가입/탈퇴 시 갱신)
+    private final InviteCodeCache inviteCodeCache;
+
     //비밀번호를 암호화할 때 사용하는 Spring Security 제공 인터페이스
     //주의: @RequiredArgsConstructor를 사용하려면 final 키워드를 붙여야 자동 생성됨
     private final PasswordEncoder passwordEncoder;
@@ -62,15 +71,18 @@ public class UserService {
 
     /**
      * 초대코드로 username을 찾는 메서드
+     * 없는 초대코드는 InviteCodeCache의 필터에서 DB 조회 없이 걸러진다.
      */
     public Optional<User> getUser(InviteCode inviteCode){
-        return userRepository.findByInviteCode(inviteCode.code())
+        return inviteCodeCache.resolveUser(inviteCode)
+                .flatMap(userId -> userRepository.findById(userId.id()))
                 .map(entity -> new User(new UserId(entity.getUserId()), entity.getUsername()));
     }
 
     /**
-     * userId로 inviteCode 찾는 메서드
+     * userId로 inviteCode 찾는 메서드 (읽기 전용 → replica)
      */
+    @Transactional(readOnly = true)
     public Optional<InviteCode> getInviteCode(UserId userId){
         return userRepository.findInviteCodeByUserId(userId.id()).map(inviteCodeProjection -> new InviteCode(inviteCodeProjection.getInviteCode()));
     }
@@ -79,7 +91,7 @@ public class UserService {
      * userId로 count를 찾는 메서드 (해당 userId를 가진 사용자의 연결수 찾기)
      */
     public Optional<Integer> getConnectionCount(UserId userId){
-        return userRepository.findCountByUserId(userId.id()).map(countProjection -> countProjection.getConnectionCount());
+        return userConnectionCountRepository.findCountByUserId(userId.id()).map(countProjection -> countProjection.getConnectionCount());
     }
 
     /**
@@ -96,6 +108,12 @@ public class UserService {
         //2. 상요자 정보를 DB에 저장
         messageUserEntity = userRepository.save(messageUserEntity);
 
+        //2-1. 연결 수 카운터 row도 같이 만든다. (수락 시 조건부 UPDATE로만 증가시키므로 row가 미리 있어야 한다)
+        userConnectionCountRepository.save(new UserConnectionCountEntity(messageUserEntity.getUserId()));
+
+        //2-2. 커밋되면 초대코드 필터/캐시에 넣는다. (다음 재구축을 기다리지 않고 바로 초대받을 수 있게)
+        inviteCodeCache.userCreated(new InviteCode(messageUserEntity.getInviteCode()), new UserId(messageUserEntity.getUserId()));
+
         // 3. 로그 출력 (등록 성공)
         log.info("User registered. UserId: {}, username: {}",messageUserEntity.getUserId(), messageUserEntity.getUsername());
 
@@ -119,6 +137,8 @@ public class UserService {
 
         // 3. 해당 사용자 ID로 사용자 삭제
         userRepository.deleteById(messageUserEntity.getUserId());
+        userConnectionCountRepository.deleteById(messageUserEntity.getUserId());
+        inviteCodeCache.userRemoved(new InviteCode(messageUserEntity.getInviteCode()));
 
         // 4. 로그 출력 (삭제 성공)
         log.info("User deleted. UserId: {}, username: {}", messageUserEntity.getUserId(), messageUserEntity.getUsername());
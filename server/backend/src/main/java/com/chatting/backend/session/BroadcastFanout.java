@@ -0,0 +1,111 @@
+package com.chatting.backend.session;
+
+import com.chatting.backend.membership.MemberBitmap;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * broadcast 채널 메시지를 샤드 단위로 나눠 보내는 전용 워커
+ *
+ * 일반 채널은 수신자마다 runAsync 작업을 하나씩 만든다. 10만 명 채널에서 같은 방식이면 메시지 하나가 작업 10만 개가 되어
+ * 전송 스레드 풀의 큐를 통째로 차지하고, 그 사이 다른 채널의 메시지는 모두 뒤로 밀린다.
+ *
+ * - 샤드: 참여자 bitmap을 약 shard-size명씩의 id 구간으로 나눈다. 작업 하나가 샤드 하나의 구간에서
+ *   참여자 bitmap AND 이 노드의 접속자 bitmap을 순회하며 보낸다. (미리 한 번만 직렬화한 프레임을 모두 같이 쓴다)
+ *   수신자마다 Long/UserId를 만들지 않으므로 메시지당 할당은 샤드 수만큼의 작업 객체뿐이다.
+ * - 워커: 일반 전송 풀과 분리된 workers개의 스레드에서만 실행되므로 broadcast가 많아도 일반 채널 전송은 막히지 않는다.
+ * - pacing: i번째 샤드는 i * (shard-size / recipients-per-second) 뒤에 시작하도록 예약한다.
+ *   메시지 하나가 초당 recipients-per-second명을 넘게 보내지 않으므로, 동시에 들어온 다른 broadcast의 샤드가 사이사이에 끼어든다.
+ */
+@Slf4j
+@Component
+public class BroadcastFanout {
+
+    private final WebSocketSessionManager webSocketSessionManager;
+    private final int shardSize;
+    private final long shardIntervalNanos;
+    private final ScheduledThreadPoolExecutor workers;
+
+    public BroadcastFanout(
+            WebSocketSessionManager webSocketSessionManager,
+            @Value("${message.broadcast.workers:4}") int workers,
+            @Value("${message.broadcast.shard-size:1000}") int shardSize,
+            @Value("${message.broadcast.recipients-per-second:100000}") long recipientsPerSecond) {
+        if (workers <= 0 || shardSize <= 0 || recipientsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid broadcast fan-out settings.");
+        }
+        this.webSocketSessionManager = webSocketSessionManager;
+        this.shardSize = shardSize;
+        this.shardIntervalNanos = TimeUnit.SECONDS.toNanos(1) * shardSize / recipientsPerSecond;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ScheduledThreadPoolExecutor(workers, runnable -> {
+            Thread thread = new Thread(runnable, "broadcast-fanout-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 참여자 중 보낸 사람을 뺀, 이 노드에 접속한 사용자에게 messageSender를 호출한다.
+     *
+     * @return 마지막 샤드까지 끝나면 실제로 보낸 사용자 수로 완료되는 future
+     */
+    public CompletableFuture<Integer> fanOut(MemberBitmap members, long senderUserId, LongConsumer messageSender) {
+        long[] bounds = members.shardBounds(shardSize);
+        int shardCount = Math.max(0, bounds.length - 1);
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        if (shardCount == 0) {
+            done.complete(0);
+            return done;
+        }
+
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            Runnable shard = () -> {
+                try {
+                    //pacing으로 늦게 시작하는 샤드도 그 시점의 접속자에게 보내도록 샤드마다 스냅샷을 새로 읽는다.
+                    members.forEachAndInRange(webSocketSessionManager.getConnectedUsers(), from, to, id -> {
+                        if (id != senderUserId) {
+                            messageSender.accept(id);
+                            delivered.incrementAndGet();
+                        }
+                    });
+                } catch (Exception ex) {
+                    log.error("Broadcast shard failed. range: [{}, {}), cause: {}", from, to, ex.getMessage());
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        done.complete(delivered.get());
+                    }
+                }
+            };
+
+            try {
+                workers.schedule(shard, i * shardIntervalNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ex) {
+                //종료 중이면 남은 샤드는 보내지 않는다.
+                log.warn("Broadcast fan-out rejected. remaining shards: {}", shardCount - i);
+                done.complete(delivered.get());
+                break;
+            }
+        }
+        return done;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+package com.chatting.backend.session;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.membership.MemberBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 이 노드에서 채널을 보고 있는(online) 사용자 bitmap
+ *
+ * "현재 활성 채널"은 Redis(SessionService)에 사용자별 key로 기록된다. 메시지마다 참여자 수만큼 key를 MGET 하는 대신,
+ * 이 노드를 거쳐 기록된 활성 채널을 채널별 bitmap으로 같이 들고 있다가 참여자 bitmap과 AND 해서 전송 대상을 고른다.
+ * (메시지 전송은 이 노드에 붙은 세션으로만 나가므로 이 노드가 기록한 값만 알면 된다)
+ *
+ * Redis key와 같은 수명을 따른다.
+ * - enter: 이전 채널에서 빼고 새 채널에 넣는다. (만료 시각 = 지금 + TTL)
+ * - KeepAlive: 만료 시각만 연장한다.
+ * - leave: 바로 뺀다.
+ * - 연결이 끊겨도 TTL 동안은 남아있다. (그 사이 메시지는 재전송 버퍼에 쌓여 resume 때 다시 보낸다)
+ * - sweep: 만료 시각이 지난 사용자를 뺀다.
+ */
+@Component
+public class ChannelViewerIndex {
+
+    private final LongKeyMap<Viewing> viewings = new LongKeyMap<>();
+    //채널별 bitmap 교체는 모두 this 락 안에서 한다. (읽는 쪽은 락 없이 스냅샷을 가져간다)
+    private final Map<Long, MemberBitmap> viewers = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    @Autowired
+    public ChannelViewerIndex() {
+        this(System::currentTimeMillis);
+    }
+
+    ChannelViewerIndex(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    //채널을 보고 있는 사용자 (불변 스냅샷)
+    public MemberBitmap getViewers(ChannelId channelId) {
+        return viewers.getOrDefault(channelId.id(), MemberBitmap.EMPTY);
+    }
+
+    public synchronized void entered(UserId userId, ChannelId channelId, long ttlMillis) {
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        Viewing previous = viewings.get(userId.id());
+        if (previous != null && previous.channelId != channelId.id()) {
+            remove(previous.channelId, userId.id());
+        }
+        viewings.compute(userId.id(), viewing -> new Viewing(userId.id(), channelId.id(), expiresAt));
+        viewers.compute(channelId.id(), (key, bitmap) -> (bitmap == null ? MemberBitmap.EMPTY : bitmap).with(userId.id()));
+    }
+
+    public synchronized void left(UserId userId) {
+        Viewing previous = viewings.remove(userId.id());
+        if (previous != null) {
+            remove(previous.channelId, userId.id());
+        }
+    }
+
+    //KeepAlive: 보고 있는 채널이 있으면 만료 시각만 늘린다. (bitmap은 바뀌지 않으므로 락이 필요 없다)
+    public void refreshed(UserId userId, long ttlMillis) {
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        viewings.compute(userId.id(), viewing -> viewing == null ? null : new Viewing(viewing.userId, viewing.channelId, expiresAt));
+    }
+
+    //만료된 사용자를 뺀다. (Redis key가 TTL로 사라지는 것과 맞춘다)
+    @Scheduled(fixedDelayString = "${message.viewers.sweep-interval:30s}")
+    public void sweep() {
+        long now = clock.getAsLong();
+        List<Long> expiredUserIds = new ArrayList<>();
+        viewings.forEachValue(viewing -> {
+            if (viewing.expiresAt <= now) {
+                expiredUserIds.add(viewing.userId);
+            }
+        });
+        if (expiredUserIds.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (Long userId : expiredUserIds) {
+                //sweep 사이에 KeepAlive/enter가 들어왔을 수 있으므로 다시 확인한다.
+                Viewing current = viewings.get(userId);
+                if (current != null && current.expiresAt <= now) {
+                    viewings.remove(userId);
+                    remove(current.channelId, userId);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return viewings.size();
+    }
+
+    private void remove(long channelId, long userId) {
+        viewers.computeIfPresent(channelId, (key, bitmap) -> {
+            MemberBitmap updated = bitmap.without(userId);
+            return updated.cardinality() == 0 ? null : updated;
+        });
+    }
+
+    //LongKeyMap은 value만 순회하므로 userId도 같이 들고 있는다.
+    private record Viewing(long userId, long channelId, long expiresAt) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.chatting.backend.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 여러 스레드가 동시에 같은 세션으로 전송할 수 있게 해주는 데코레이터 (ConcurrentWebSocketSessionDecorator 대체)
+ *
+ * ConcurrentWebSocketSessionDecorator는 세션마다 LinkedBlockingQueue + ReentrantLock 2개 + AtomicInteger를 미리 만들어 둔다.
+ * 대부분의 연결은 로비에서 놀고 있는(idle) 상태라 이 버퍼들은 거의 쓰이지 않는데도 연결 수만큼 heap을 차지한다.
+ *
+ * 여기서는
+ * - 전송 중 여부는 int 필드 하나를 CAS(AtomicIntegerFieldUpdater)로 관리하고 (객체 추가 할당 없음)
+ * - 버퍼(ArrayDeque)는 "다른 스레드가 전송 중이라 기다려야 하는 메시지"가 생겼을 때만 만들고, 다 비우면 다시 null로 돌려놓는다.
+ *
+ * 제한(sendTimeLimit, bufferSizeLimit)을 넘으면 ConcurrentWebSocketSessionDecorator와 같이
+ * SESSION_NOT_RELIABLE로 세션을 닫고 SessionLimitExceededException을 던진다.
+ */
+@Slf4j
+public class LazyBufferedWebSocketSession extends WebSocketSessionDecorator {
+
+    private static final AtomicIntegerFieldUpdater<LazyBufferedWebSocketSession> SENDING =
+            AtomicIntegerFieldUpdater.newUpdater(LazyBufferedWebSocketSession.class, "sending");
+
+    private final int sendTimeLimit;
+    private final int bufferSizeLimit;
+
+    private volatile int sending;           //1이면 어떤 스레드가 전송 중
+    private volatile long sendStartTime;    //현재 전송 시작 시각 (전송 중이 아니면 0)
+    private volatile boolean limitExceeded;
+
+    //아래 두 필드는 synchronized(this) 안에서만 접근
+    private ArrayDeque<WebSocketMessage<?>> buffer;
+    private int bufferSize;
+
+    public LazyBufferedWebSocketSession(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit) {
+        super(delegate);
+        this.sendTimeLimit = sendTimeLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (limitExceeded) {
+            return;
+        }
+
+        if (tryAcquire()) {
+            //아무도 전송 중이 아니고 버퍼도 비어 있을 때만 버퍼를 거치지 않고 바로 보낸다.
+            //버퍼에 먼저 들어온 메시지가 남아 있으면 (전송하던 스레드가 비우기 직전에 들어왔거나, 전송 실패로 멈췄을 때) 뒤에 넣고 순서대로 보낸다.
+            try {
+                if (hasBufferedMessages()) {
+                    enqueue(message);
+                } else {
+                    send(message);
+                }
+                flushBuffer();
+            } finally {
+                release();
+            }
+        } else {
+            //다른 스레드가 전송 중이면 버퍼에 넣어두고, 그 스레드가 이어서 보내준다.
+            enqueue(message);
+            checkSessionLimits();
+        }
+
+        //전송하던 스레드가 버퍼를 비우고 release 하기 직전에 넣은 메시지가 남아있을 수 있으므로 한 번 더 확인한다.
+        while (hasBufferedMessages() && tryAcquire()) {
+            try {
+                flushBuffer();
+            } finally {
+                release();
+            }
+        }
+    }
+
+    public synchronized int getBufferSize() {
+        return bufferSize;
+    }
+
+    //전송 중인 메시지도, 버퍼에 남은 메시지도 없는지 (drain 시 닫기 전에 확인)
+    public boolean isFlushed() {
+        return sending == 0 && !hasBufferedMessages();
+    }
+
+    //버퍼가 실제로 할당되어 있는지 (테스트/모니터링 용)
+    synchronized boolean isBufferAllocated() {
+        return buffer != null;
+    }
+
+    private boolean tryAcquire() {
+        return SENDING.compareAndSet(this, 0, 1);
+    }
+
+    private void release() {
+        sending = 0;
+    }
+
+    private void send(WebSocketMessage<?> message) throws IOException {
+        sendStartTime = System.currentTimeMillis();
+        try {
+            getDelegate().sendMessage(message);
+        } finally {
+            sendStartTime = 0;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        WebSocketMessage<?> message;
+        while ((message = poll()) != null) {
+            if (limitExceeded) {
+                return;
+            }
+            send(message);
+        }
+    }
+
+    private synchronized void enqueue(WebSocketMessage<?> message) {
+        if (buffer == null) {
+            buffer = new ArrayDeque<>(4);
+        }
+        buffer.add(message);
+        bufferSize += message.getPayloadLength();
+    }
+
+    private synchronized WebSocketMessage<?> poll() {
+        if (buffer == null) {
+            return null;
+        }
+        WebSocketMessage<?> message = buffer.poll();
+        if (message == null) {
+            //다 비웠으면 버퍼 자체를 버려서 idle 상태의 메모리를 0으로 만든다.
+            buffer = null;
+            bufferSize = 0;
+            return null;
+        }
+        bufferSize -= message.getPayloadLength();
+        return message;
+    }
+
+    private synchronized boolean hasBufferedMessages() {
+        return buffer != null && !buffer.isEmpty();
+    }
+
+    private void checkSessionLimits() {
+        long start = sendStartTime;
+        if (start != 0 && System.currentTimeMillis() - start > sendTimeLimit) {
+            limitExceeded("Send time %d (ms) for session '%s' exceeded the allowed limit %d".formatted(
+                    System.currentTimeMillis() - start, getId(), sendTimeLimit));
+        } else if (getBufferSize() > bufferSizeLimit) {
+            limitExceeded("Buffer size %d bytes for session '%s' exceeds the allowed limit %d".formatted(
+                    getBufferSize(), getId(), bufferSizeLimit));
+        }
+    }
+
+    private void limitExceeded(String reason) {
+        limitExceeded = true;
+        synchronized (this) {
+            buffer = null;
+            bufferSize = 0;
+        }
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException ex) {
+            log.error("Failed to close session. cause: {}", ex.getMessage());
+        }
+        throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+}
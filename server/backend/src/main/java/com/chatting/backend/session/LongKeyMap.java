@@ -0,0 +1,223 @@
+package com.chatting.backend.session;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * long(primitive) key -> value 맵 (세션 레지스트리 전용)
+ *
+ * ConcurrentHashMap<UserId, V>는 entry 하나마다 Node 객체 + UserId record + 박싱된 Long이 따로 생긴다.
+ * 유휴 연결이 노드당 10만개 이상이면 이 오버헤드만으로도 수십 MB가 되므로,
+ * key는 long[] 배열에, value는 Object[] 배열에 그대로 담는 open addressing(linear probing) 방식으로 저장한다.
+ *
+ * 동시성: key의 해시로 segment를 고르고, segment 단위로 synchronized 한다. (segment끼리는 서로 막지 않는다)
+ * 빈 칸은 value == null 로 판단하므로 value에는 null을 넣을 수 없다.
+ */
+final class LongKeyMap<V> {
+
+    private static final int SEGMENT_COUNT = 64;   //2의 거듭제곱이어야 한다.
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    LongKeyMap() {
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    V get(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * 현재 값(없으면 null)을 받아 새 값을 계산해 저장한다. 새 값이 null이면 key를 삭제한다.
+     * remapping 함수는 segment 락을 잡은 상태로 실행되므로 가볍게 유지해야 한다.
+     *
+     * @return 새로 저장된 값 (삭제되었으면 null)
+     */
+    V compute(long key, UnaryOperator<V> remapping) {
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, remapping);
+    }
+
+    V remove(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    void forEachValue(Consumer<V> action) {
+        for (Segment<V> segment : segments) {
+            segment.forEachValue(action);
+        }
+    }
+
+    private Segment<V> segmentFor(int hash) {
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+
+    //연속된 userId가 같은 segment/slot에 몰리지 않도록 비트를 섞는다. (murmur3 finalizer)
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static final class Segment<V> {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized V get(long key, int hash) {
+            int index = indexOf(key, hash);
+            return index < 0 ? null : value(index);
+        }
+
+        synchronized V compute(long key, int hash, UnaryOperator<V> remapping) {
+            int index = indexOf(key, hash);
+            V oldValue = index < 0 ? null : value(index);
+            V newValue = remapping.apply(oldValue);
+
+            if (newValue == null) {
+                if (index >= 0) {
+                    delete(index);
+                }
+                return null;
+            }
+
+            if (index >= 0) {
+                values[index] = newValue;
+            } else {
+                insert(key, hash, newValue);
+            }
+            return newValue;
+        }
+
+        synchronized V remove(long key, int hash) {
+            int index = indexOf(key, hash);
+            if (index < 0) {
+                return null;
+            }
+            V oldValue = value(index);
+            delete(index);
+            return oldValue;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        void forEachValue(Consumer<V> action) {
+            Object[] snapshot;
+            synchronized (this) {
+                if (size == 0) {
+                    return;
+                }
+                snapshot = Arrays.copyOf(values, values.length);
+            }
+            //락 밖에서 실행해 action(전송 등)이 segment를 오래 막지 않도록 한다.
+            for (Object value : snapshot) {
+                if (value != null) {
+                    @SuppressWarnings("unchecked") V v = (V) value;
+                    action.accept(v);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private V value(int index) {
+            return (V) values[index];
+        }
+
+        private int indexOf(long key, int hash) {
+            int mask = keys.length - 1;
+            //segment 선택에 쓴 하위 비트는 모든 key가 같으므로 slot 선택에는 상위 비트를 쓴다.
+            for (int index = (hash >>> 6) & mask; values[index] != null; index = (index + 1) & mask) {
+                if (keys[index] == key) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long key, int hash, Object value) {
+            //load factor 0.75를 넘으면 2배로 늘린다.
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length << 1);
+            }
+            int mask = keys.length - 1;
+            int index = (hash >>> 6) & mask;
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            size++;
+        }
+
+        /**
+         * linear probing에서는 그냥 비우면 뒤쪽 key를 못 찾게 되므로,
+         * 뒤따르는 entry들을 제자리(원래 해시 위치)에 더 가깝게 당겨온다. (backward shift deletion)
+         */
+        private void delete(int index) {
+            int mask = keys.length - 1;
+            int hole = index;
+            int next = (hole + 1) & mask;
+
+            while (values[next] != null) {
+                int home = (hash(keys[next]) >>> 6) & mask;
+                //home이 (hole, next] 구간 밖에 있으면 hole로 당겨와도 탐색 경로가 유지된다.
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+
+            keys[hole] = 0;
+            values[hole] = null;
+            size--;
+
+            //대량 접속 해제 후 메모리를 돌려주기 위해 1/8 이하로 줄면 절반으로 줄인다.
+            if (keys.length > INITIAL_CAPACITY && size * 8 < keys.length) {
+                resize(keys.length >>> 1);
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            size = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], hash(oldKeys[i]), oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.chatting.backend.session;
+
+import com.chatting.backend.dto.domain.UserId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 재접속(resume) 시 놓친 메시지를 다시 보내주기 위한 사용자별 재전송 버퍼
+ *
+ * 연결이 끊겨도 Redis의 "활성 채널" 키는 TTL 동안 남아있으므로, 그 사이 메시지는 수신 대상으로 골라지지만 보낼 세션이 없어서 사라진다.
+ * 그래서 수신 대상에게 보낸(또는 보내려던) 프레임을 message_sequence와 함께 사용자별로 최근 capacity개까지 들고 있다가,
+ * 클라이언트가 재접속해서 마지막으로 받은 sequence를 알려주면 그 뒤의 프레임만 순서대로 다시 보낸다.
+ *
+ * - 프레임(TextMessage)은 모든 수신자가 같은 객체를 공유하므로 엔트리당 참조 하나 + sequence + 시각만 차지한다.
+ * - 오래된 엔트리: capacity를 넘거나 retention이 지나면 버린다. 버린 가장 큰 sequence를 기억해 두었다가,
+ *   클라이언트가 그보다 이전 sequence로 재개를 요청하면 "일부를 다시 보낼 수 없음(complete=false)"으로 알려준다.
+ * - 버퍼가 비면 사용자 엔트리 자체를 지운다. (sweep) 지운 버퍼가 버렸던 가장 큰 sequence는 노드 전체 값(removedUpTo)으로 남겨서,
+ *   버퍼가 없는 사용자도 그 이후부터 받았다면 빠진 메시지가 없다고 판단할 수 있다.
+ *   이 노드가 시작되기 전(재시작 중)의 메시지는 알 수 없으므로, 첫 기록 이전 sequence로 재개하면 complete=false 이다.
+ */
+@Slf4j
+@Component
+public class MessageReplayBuffer {
+
+    private final LongKeyMap<UserReplay> buffers = new LongKeyMap<>();
+    private final AtomicLong firstAppended = new AtomicLong();   //이 노드가 처음 기록한 sequence (없으면 0)
+    private final AtomicLong removedUpTo = new AtomicLong();     //sweep으로 지운 버퍼들이 버렸던 가장 큰 sequence
+    private final int capacity;
+    private final long retentionMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public MessageReplayBuffer(
+            @Value("${message.replay.capacity:256}") int capacity,
+            @Value("${message.replay.retention:2m}") Duration retention) {
+        this(capacity, retention.toMillis(), System::currentTimeMillis);
+    }
+
+    MessageReplayBuffer(int capacity, long retentionMillis, LongSupplier clock) {
+        if (capacity <= 0 || retentionMillis <= 0) {
+            throw new IllegalArgumentException("Invalid message replay settings.");
+        }
+        this.capacity = capacity;
+        this.retentionMillis = retentionMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 재전송 결과
+     * @param frames   lastMessageSequence 이후의 프레임 (sequence 순서)
+     * @param complete 놓친 메시지를 모두 다시 보낼 수 있는지 (false면 버퍼에서 이미 버려진 메시지가 있을 수 있다)
+     */
+    public record Replay(List<TextMessage> frames, boolean complete) {
+    }
+
+    //수신 대상에게 보낸 프레임을 기록한다. (전송 스레드가 여러 개라 sequence 순서대로 들어오지 않을 수 있다)
+    public void append(UserId userId, long messageSequence, TextMessage frame) {
+        append(userId.id(), messageSequence, frame);
+    }
+
+    //메시지 전송 경로용 (수신자마다 UserId를 만들지 않는다)
+    public void append(long userId, long messageSequence, TextMessage frame) {
+        long now = clock.getAsLong();
+        firstAppended.compareAndSet(0, messageSequence);
+        buffers.compute(userId, replay -> {
+            UserReplay target = replay != null ? replay : new UserReplay(userId);
+            target.append(messageSequence, frame, now, capacity);
+            return target;
+        });
+    }
+
+    public Replay replay(UserId userId, long lastMessageSequence) {
+        //이 노드가 기록을 시작하기 전의 메시지나, 지워진 버퍼들이 버린 메시지보다 이전이면 다 보내줄 수 있는지 알 수 없다.
+        long first = firstAppended.get();
+        boolean covered = first != 0 && lastMessageSequence >= first - 1 && lastMessageSequence >= removedUpTo.get();
+
+        UserReplay replay = buffers.get(userId.id());
+        if (replay == null) {
+            return new Replay(List.of(), covered);
+        }
+        Replay result = replay.after(lastMessageSequence, clock.getAsLong() - retentionMillis);
+        return covered ? result : new Replay(result.frames(), false);
+    }
+
+    //retention이 지난 엔트리를 버리고, 빈 버퍼는 지운다.
+    @Scheduled(fixedDelayString = "${message.replay.sweep-interval:30s}")
+    public void sweep() {
+        long expireBefore = clock.getAsLong() - retentionMillis;
+        List<Long> emptyUserIds = new ArrayList<>();
+        buffers.forEachValue(replay -> {
+            if (replay.expire(expireBefore)) {
+                emptyUserIds.add(replay.userId);
+            }
+        });
+        //sweep 사이에 새 메시지가 들어왔을 수 있으므로 락 안에서 다시 확인하고 지운다.
+        emptyUserIds.forEach(userId -> buffers.compute(userId, replay -> {
+            if (replay == null || !replay.isEmpty()) {
+                return replay;
+            }
+            removedUpTo.accumulateAndGet(replay.droppedUpTo(), Math::max);
+            return null;
+        }));
+    }
+
+    int size() {
+        return buffers.size();
+    }
+
+    /**
+     * 사용자 한 명의 버퍼 (sequence 오름차순 원형 배열)
+     * 모든 접근은 this로 동기화한다. (append는 LongKeyMap의 segment 락 안에서도 호출된다)
+     */
+    private static final class UserReplay {
+
+        private long[] sequences = new long[8];
+        private long[] appendedAt = new long[8];
+        private TextMessage[] frames = new TextMessage[8];
+        private int head;           //가장 오래된 엔트리 위치
+        private int size;
+        private long droppedUpTo;   //버려진 엔트리 중 가장 큰 sequence (없으면 0)
+        private final long userId;
+
+        UserReplay(long userId) {
+            this.userId = userId;
+        }
+
+        synchronized void append(long sequence, TextMessage frame, long now, int capacity) {
+            if (size == capacity) {
+                droppedUpTo = Math.max(droppedUpTo, sequences[head]);
+                if (sequence <= sequences[head]) {
+                    //버퍼가 가득 찼는데 가장 오래된 것보다 더 오래된 메시지면 넣지 않는다.
+                    droppedUpTo = Math.max(droppedUpTo, sequence);
+                    return;
+                }
+                removeOldest();
+            }
+            if (size == sequences.length) {
+                grow(Math.min(capacity, sequences.length * 2));
+            }
+
+            //뒤에서부터 자리를 찾는다. (대부분 맨 뒤에 붙는다)
+            int position = size;
+            while (position > 0 && sequences[index(position - 1)] > sequence) {
+                int from = index(position - 1);
+                int to = index(position);
+                sequences[to] = sequences[from];
+                appendedAt[to] = appendedAt[from];
+                frames[to] = frames[from];
+                position--;
+            }
+            int slot = index(position);
+            sequences[slot] = sequence;
+            appendedAt[slot] = now;
+            frames[slot] = frame;
+            size++;
+        }
+
+        synchronized Replay after(long lastSequence, long expireBefore) {
+            List<TextMessage> result = new ArrayList<>();
+            long dropped = droppedUpTo;
+            for (int i = 0; i < size; i++) {
+                int slot = index(i);
+                if (appendedAt[slot] < expireBefore) {
+                    dropped = Math.max(dropped, sequences[slot]);
+                } else if (sequences[slot] > lastSequence) {
+                    result.add(frames[slot]);
+                }
+            }
+            return new Replay(result, lastSequence >= dropped);
+        }
+
+        //retention이 지난 엔트리를 버린다. 비었으면 true
+        synchronized boolean expire(long expireBefore) {
+            //append 순서와 sequence 순서가 거의 같으므로 앞쪽부터 본다.
+            while (size > 0 && appendedAt[head] < expireBefore) {
+                droppedUpTo = Math.max(droppedUpTo, sequences[head]);
+                removeOldest();
+            }
+            return size == 0;
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized long droppedUpTo() {
+            return droppedUpTo;
+        }
+
+        private void removeOldest() {
+            frames[head] = null;
+            head = (head + 1) % sequences.length;
+            size--;
+        }
+
+        private int index(int offset) {
+            return (head + offset) % sequences.length;
+        }
+
+        private void grow(int newLength) {
+            long[] newSequences = new long[newLength];
+            long[] newAppendedAt = new long[newLength];
+            TextMessage[] newFrames = new TextMessage[newLength];
+            for (int i = 0; i < size; i++) {
+                int slot = index(i);
+                newSequences[i] = sequences[slot];
+                newAppendedAt[i] = appendedAt[slot];
+                newFrames[i] = frames[slot];
+            }
+            sequences = newSequences;
+            appendedAt = newAppendedAt;
+            frames = newFrames;
+            head = 0;
+        }
+    }
+}
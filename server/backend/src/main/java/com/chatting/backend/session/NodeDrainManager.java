@@ -0,0 +1,196 @@
+package com.chatting.backend.session;
+
+import com.chatting.backend.auth.HandshakeAdmissionInterceptor;
+import com.chatting.backend.constant.IdKey;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.service.PresenceService;
+import com.chatting.backend.service.SessionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 노드 종료(롤링 배포) 시 연결을 천천히 다른 노드로 넘기는 drain 처리
+ *
+ * 그냥 종료하면 붙어있던 연결이 한꺼번에 끊기고, 모든 클라이언트가 같은 순간 다른 노드로 재접속해서 클러스터 전체에 지연이 튄다.
+ * 그래서 종료 전에
+ * 1. 새 핸드셰이크를 받지 않는다. (503 + Retry-After → 로드밸런서/클라이언트가 다른 노드로 붙는다)
+ * 2. 접속 중인 사용자의 "활성 채널" 키(Redis) TTL을 연장한다. 재접속하는 동안 presence가 만료되어 메시지 수신 대상에서 빠지지 않게 하기 위함
+ *    접속 상태(PresenceService)도 넘긴다. 재접속 시간(reconnect-window) 안에 다른 노드로 붙으면 친구들에게 접속 종료 알림이 가지 않는다.
+ * 3. 세션을 wave-size개씩 wave-interval 간격으로 닫는다. 닫기 전에 전송 버퍼에 남은 메시지를 flush-timeout까지 기다린다.
+ *    close code는 DRAIN_CLOSE_CODE, reason에는 reconnect-window(초)를 담는다.
+ *    클라이언트는 0 ~ reconnect-window 사이의 무작위 시간 뒤에 재접속해서 재접속이 시간상으로도 퍼진다.
+ *
+ * Spring 종료 시 웹 서버가 멈추기 전에 실행되도록 SmartLifecycle로 등록한다. (운영자가 admin API로 먼저 시작할 수도 있다)
+ * 재전송 버퍼(MessageReplayBuffer)는 노드 메모리에만 있으므로 넘기지 않는다. 다른 노드에서 resume하면 complete=false로 응답된다.
+ */
+@Slf4j
+@Component
+public class NodeDrainManager implements SmartLifecycle {
+
+    //서버가 drain 중이라 다른 노드로 재접속하라는 close code (4000~4999: 애플리케이션 정의 영역)
+    public static final int DRAIN_CLOSE_CODE = 4001;
+
+    private final WebSocketSessionManager webSocketSessionManager;
+    private final HandshakeAdmissionInterceptor handshakeAdmissionInterceptor;
+    private final SessionService sessionService;
+    private final PresenceService presenceService;
+    private final int waveSize;
+    private final long waveIntervalMillis;
+    private final long flushTimeoutMillis;
+    private final long reconnectWindowSeconds;
+
+    private volatile boolean running;
+    private CompletableFuture<Void> drain;  //synchronized(this) 안에서만 접근
+
+    @Autowired
+    public NodeDrainManager(
+            WebSocketSessionManager webSocketSessionManager,
+            HandshakeAdmissionInterceptor handshakeAdmissionInterceptor,
+            SessionService sessionService,
+            PresenceService presenceService,
+            @Value("${message.drain.wave-size:500}") int waveSize,
+            @Value("${message.drain.wave-interval:1s}") Duration waveInterval,
+            @Value("${message.drain.flush-timeout:5s}") Duration flushTimeout,
+            @Value("${message.drain.reconnect-window:10s}") Duration reconnectWindow) {
+        if (waveSize <= 0 || waveInterval.isNegative() || reconnectWindow.toSeconds() <= 0) {
+            throw new IllegalArgumentException("Invalid node drain settings.");
+        }
+        this.webSocketSessionManager = webSocketSessionManager;
+        this.handshakeAdmissionInterceptor = handshakeAdmissionInterceptor;
+        this.sessionService = sessionService;
+        this.presenceService = presenceService;
+        this.waveSize = waveSize;
+        this.waveIntervalMillis = waveInterval.toMillis();
+        this.flushTimeoutMillis = flushTimeout.toMillis();
+        this.reconnectWindowSeconds = reconnectWindow.toSeconds();
+    }
+
+    /**
+     * drain을 시작한다. 이미 시작했으면 진행 중인 drain을 돌려준다.
+     * @return 모든 세션을 닫으면 완료되는 future
+     */
+    public synchronized CompletableFuture<Void> drain() {
+        if (drain != null) {
+            return drain;
+        }
+
+        //1. 새 핸드셰이크 거절
+        handshakeAdmissionInterceptor.startDraining(reconnectWindowSeconds);
+
+        List<WebSocketSession> sessions = webSocketSessionManager.getSessions();
+        log.info("Node drain started. sessions: {}, waveSize: {}, waveInterval: {}ms", sessions.size(), waveSize, waveIntervalMillis);
+
+        //2. presence(활성 채널) TTL 연장: 사용자마다 한 번씩, Redis 왕복은 한 번
+        Set<UserId> userIds = new LinkedHashSet<>();
+        sessions.forEach(session -> {
+            UserId userId = (UserId) session.getAttributes().get(IdKey.USER_ID.getValue());
+            if (userId != null) {
+                userIds.add(userId);
+            }
+        });
+        sessionService.refreshActiveChannels(new ArrayList<>(userIds));
+        presenceService.handOver(new ArrayList<>(userIds), Duration.ofSeconds(reconnectWindowSeconds * 2));
+
+        //3. wave 단위로 닫기
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-drain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drain = new CompletableFuture<>();
+        drain.whenComplete((ignored, ex) -> scheduler.shutdown());
+        scheduler.execute(() -> closeWave(scheduler, sessions, 0));
+        return drain;
+    }
+
+    public boolean isDraining() {
+        return handshakeAdmissionInterceptor.isDraining();
+    }
+
+    private void closeWave(ScheduledExecutorService scheduler, List<WebSocketSession> sessions, int from) {
+        try {
+            int to = Math.min(sessions.size(), from + waveSize);
+            List<WebSocketSession> wave = sessions.subList(from, to);
+
+            awaitFlushed(wave);
+            CloseStatus closeStatus = new CloseStatus(DRAIN_CLOSE_CODE, String.valueOf(reconnectWindowSeconds));
+            wave.forEach(session -> close(session, closeStatus));
+
+            if (to < sessions.size()) {
+                scheduler.schedule(() -> closeWave(scheduler, sessions, to), waveIntervalMillis, TimeUnit.MILLISECONDS);
+            } else {
+                log.info("Node drain completed. closed: {}", sessions.size());
+                drain.complete(null);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Node drain failed. cause: {}", ex.getMessage());
+            drain.completeExceptionally(ex);
+        }
+    }
+
+    //전송 버퍼에 남은 메시지가 다 나갈 때까지 기다린다. (wave 전체에 flush-timeout 한 번)
+    private void awaitFlushed(List<WebSocketSession> wave) {
+        long deadline = System.currentTimeMillis() + flushTimeoutMillis;
+        for (WebSocketSession session : wave) {
+            if (!(session instanceof LazyBufferedWebSocketSession buffered)) {
+                continue;
+            }
+            while (!buffered.isFlushed() && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void close(WebSocketSession session, CloseStatus closeStatus) {
+        try {
+            session.close(closeStatus);
+        } catch (Exception ex) {
+            log.error("Failed to close session while draining. sessionId: {}, cause: {}", session.getId(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    //Spring 종료 시 호출된다. drain이 끝나야(또는 timeout-per-shutdown-phase가 지나야) 다음 단계(웹 서버 종료)로 넘어간다.
+    @Override
+    public void stop(Runnable callback) {
+        drain().whenComplete((ignored, ex) -> {
+            running = false;
+            callback.run();
+        });
+    }
+
+    @Override
+    public void stop() {
+        drain().join();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
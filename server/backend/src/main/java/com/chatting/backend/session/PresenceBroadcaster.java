@@ -0,0 +1,142 @@
+package com.chatting.backend.session;
+
+import com.chatting.backend.dto.domain.Presence;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.outbound.PresenceNotification;
+import com.chatting.backend.graph.ConnectionGraphIndex;
+import com.chatting.backend.json.JsonUtil;
+import com.chatting.backend.service.PresenceService;
+import com.chatting.backend.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 접속 상태 변경(PresenceService가 pub/sub으로 알린 이벤트)을 이 노드에 접속 중인 ACCEPTED 사용자들에게 보내는 컴포넌트
+ *
+ * - 대상: 변경된 사용자의 ACCEPTED 상대(ConnectionGraphIndex) 중 이 노드에 세션이 있는 사람만. (접속하지 않은 사람은 건너뛴다)
+ * - 모으기(coalesce): 받는 사람마다 coalesce-window 동안의 변경을 "변경된 사용자 → 마지막 상태"로 모아 두었다가 flush()에서 한 번에 보낸다.
+ *   네트워크가 불안정해서 접속/종료를 반복해도 window당 한 번만 보내고, window 안에서 원래 상태로 돌아왔으면 아예 보내지 않는다.
+ * - 묶기(batch): 한 사람에게 보낼 변경이 많으면(친구가 많은 사용자 여럿이 동시에 바뀐 경우) max-batch개씩 한 프레임으로 보낸다.
+ */
+@Slf4j
+@Component
+public class PresenceBroadcaster implements MessageListener {
+
+    private final ConnectionGraphIndex connectionGraphIndex;
+    private final UserService userService;
+    private final WebSocketSessionManager webSocketSessionManager;
+    private final JsonUtil jsonUtil;
+    private final int maxBatch;
+
+    //받는 사람 userId → (변경된 사용자 userId → 모아 둔 상태). 안쪽 Map은 바깥 Map의 compute 안에서만 고친다.
+    private final ConcurrentHashMap<Long, Map<Long, PendingPresence>> pending = new ConcurrentHashMap<>();
+
+    public PresenceBroadcaster(
+            ConnectionGraphIndex connectionGraphIndex,
+            UserService userService,
+            WebSocketSessionManager webSocketSessionManager,
+            JsonUtil jsonUtil,
+            @Value("${message.presence.max-batch:200}") int maxBatch) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Invalid presence batch size.");
+        }
+        this.connectionGraphIndex = connectionGraphIndex;
+        this.userService = userService;
+        this.webSocketSessionManager = webSocketSessionManager;
+        this.jsonUtil = jsonUtil;
+        this.maxBatch = maxBatch;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        jsonUtil.fromJson(new String(message.getBody(), StandardCharsets.UTF_8), PresenceService.Event.class)
+                .ifPresent(event -> changed(new UserId(event.userId()), event.online()));
+    }
+
+    /**
+     * 사용자의 접속 상태가 바뀌었을 때, 이 노드에 접속 중인 상대들에게 보낼 변경으로 모아 둔다.
+     */
+    public void changed(UserId userId, boolean online) {
+        String username = null;
+        for (long partnerId : connectionGraphIndex.getPartnerIds(userId)) {
+            if (!webSocketSessionManager.isConnected(new UserId(partnerId))) {
+                continue;
+            }
+            if (username == null) {
+                //받을 사람이 있을 때만 한 번 조회한다.
+                Optional<String> found = userService.getUsername(userId);
+                if (found.isEmpty()) {
+                    return;
+                }
+                username = found.get();
+            }
+            String subjectUsername = username;
+            pending.compute(partnerId, (key, changes) -> {
+                Map<Long, PendingPresence> target = changes != null ? changes : new LinkedHashMap<>();
+                PendingPresence presence = target.get(userId.id());
+                if (presence == null) {
+                    //첫 변경 직전의 상태(받는 사람이 알고 있는 상태)는 첫 변경의 반대다.
+                    target.put(userId.id(), new PendingPresence(subjectUsername, !online, online));
+                } else {
+                    presence.online = online;
+                }
+                return target;
+            });
+        }
+    }
+
+    /**
+     * 모아 둔 변경을 받는 사람마다 max-batch개씩 묶어서 보낸다.
+     */
+    @Scheduled(fixedDelayString = "${message.presence.coalesce-window:500ms}")
+    public void flush() {
+        for (Long recipientId : pending.keySet()) {
+            Map<Long, PendingPresence> changes = pending.remove(recipientId);
+            if (changes == null) {
+                continue;
+            }
+
+            List<Presence> presences = new ArrayList<>(changes.size());
+            changes.values().forEach(presence -> {
+                if (presence.online != presence.before) {
+                    presences.add(new Presence(presence.username, presence.online));
+                }
+            });
+
+            UserId recipient = new UserId(recipientId);
+            for (int from = 0; from < presences.size(); from += maxBatch) {
+                List<Presence> batch = presences.subList(from, Math.min(presences.size(), from + maxBatch));
+                webSocketSessionManager.sendMessage(recipient, new PresenceNotification(List.copyOf(batch)));
+            }
+        }
+    }
+
+    int pendingRecipients() {
+        return pending.size();
+    }
+
+    private static final class PendingPresence {
+
+        private final String username;
+        private final boolean before;
+        private boolean online;
+
+        private PendingPresence(String username, boolean before, boolean online) {
+            this.username = username;
+            this.before = before;
+            this.online = online;
+        }
+    }
+}
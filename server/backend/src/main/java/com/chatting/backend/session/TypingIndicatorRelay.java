@@ -0,0 +1,142 @@
+package com.chatting.backend.session;
+
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.Typing;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.websocket.outbound.TypingNotification;
+import com.chatting.backend.membership.MemberBitmap;
+import com.chatting.backend.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 입력 중(typing) 표시 중계기
+ *
+ * 입력 중 이벤트는 메시지보다 훨씬 자주 오지만 잃어버려도 상관없는 정보라서, 실제 메시지 전송을 밀어내지 않도록 최대한 싸게 처리한다.
+ * - DB에 저장하지 않는다.
+ * - 요청을 받는 스레드에서는 메모리만 만진다: 보낸 사람+채널마다 "시작"은 throttle 간격에 한 번만 받고, "종료"는 시작을 알렸을 때만 받는다.
+ * - tick마다 채널별로 모아 둔 변경을 처리한다. 받는 사람은 이 노드의 "채널을 보고 있는 사용자" bitmap(ChannelViewerIndex)에서 꺼낸다.
+ *   메모리만 읽고 DB/Redis는 읽지 않는다. (채널에 들어갈 때 참여 여부를 확인했으므로 보고 있는 사용자 = 참여자)
+ *   보낸 사람이 그 채널을 보고 있지 않으면 버린다. (참여자가 아니거나 이미 나간 경우)
+ * - 받는 사람마다 여러 채널/여러 사람의 변경을 한 프레임(TypingNotification)으로 보낸다.
+ */
+@Slf4j
+@Component
+public class TypingIndicatorRelay {
+
+    private final ChannelViewerIndex channelViewerIndex;
+    private final UserService userService;
+    private final WebSocketSessionManager webSocketSessionManager;
+    private final long throttleMillis;
+    private final LongSupplier clock;
+
+    //(보낸 사람, 채널) → 마지막으로 "시작"을 받은 시각. 종료를 받거나 오래되면 지운다.
+    private final ConcurrentHashMap<SenderChannel, Long> lastStarted = new ConcurrentHashMap<>();
+
+    //채널 id → (보낸 사람 id → 마지막 상태). 안쪽 Map은 바깥 Map의 compute 안에서만 고친다.
+    private final ConcurrentHashMap<Long, Map<Long, Boolean>> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TypingIndicatorRelay(
+            ChannelViewerIndex channelViewerIndex,
+            UserService userService,
+            WebSocketSessionManager webSocketSessionManager,
+            @Value("${message.typing.throttle:3s}") Duration throttle) {
+        this(channelViewerIndex, userService, webSocketSessionManager, throttle.toMillis(), System::currentTimeMillis);
+    }
+
+    TypingIndicatorRelay(ChannelViewerIndex channelViewerIndex, UserService userService, WebSocketSessionManager webSocketSessionManager,
+                         long throttleMillis, LongSupplier clock) {
+        this.channelViewerIndex = channelViewerIndex;
+        this.userService = userService;
+        this.webSocketSessionManager = webSocketSessionManager;
+        this.throttleMillis = throttleMillis;
+        this.clock = clock;
+    }
+
+    private record SenderChannel(long senderId, long channelId) {
+    }
+
+    /**
+     * 입력 중 시작/종료를 받는다. throttle에 걸리면 버린다.
+     */
+    public void typing(UserId senderUserId, ChannelId channelId, boolean typing) {
+        SenderChannel key = new SenderChannel(senderUserId.id(), channelId.id());
+        if (typing) {
+            long now = clock.getAsLong();
+            Long previous = lastStarted.get(key);
+            if (previous != null && now - previous < throttleMillis) {
+                return;
+            }
+            lastStarted.put(key, now);
+        } else if (lastStarted.remove(key) == null) {
+            //시작을 알린 적이 없으면 종료도 알릴 필요가 없다.
+            return;
+        }
+
+        pending.compute(channelId.id(), (id, changes) -> {
+            Map<Long, Boolean> target = changes != null ? changes : new LinkedHashMap<>();
+            target.put(senderUserId.id(), typing);
+            return target;
+        });
+    }
+
+    /**
+     * 모아 둔 변경을 채널마다 지금 보고 있는 참여자들에게 보낸다. (받는 사람당 한 프레임)
+     */
+    @Scheduled(fixedDelayString = "${message.typing.tick:300ms}")
+    public void flush() {
+        Map<Long, List<Typing>> byRecipient = new HashMap<>();
+        Map<Long, String> usernames = new HashMap<>();
+
+        for (Long channelId : pending.keySet()) {
+            Map<Long, Boolean> changes = pending.remove(channelId);
+            if (changes == null) {
+                continue;
+            }
+
+            ChannelId channel = new ChannelId(channelId);
+            MemberBitmap viewers = channelViewerIndex.getViewers(channel);
+
+            changes.forEach((senderId, typing) -> {
+                //그 채널을 보고 있지 않은 사람의 이벤트는 버린다.
+                if (!viewers.contains(senderId)) {
+                    return;
+                }
+                String username = usernames.computeIfAbsent(senderId, id -> userService.getUsername(new UserId(id)).orElse(null));
+                if (username == null) {
+                    return;
+                }
+                Typing item = new Typing(channel, username, typing);
+                viewers.forEach(viewerId -> {
+                    if (viewerId != senderId && webSocketSessionManager.isConnected(new UserId(viewerId))) {
+                        byRecipient.computeIfAbsent(viewerId, id -> new ArrayList<>()).add(item);
+                    }
+                });
+            });
+        }
+
+        byRecipient.forEach((recipientId, typings) ->
+                webSocketSessionManager.sendMessage(new UserId(recipientId), new TypingNotification(typings)));
+
+        //종료를 보내지 않고 사라진 사용자의 기록은 throttle의 몇 배가 지나면 지운다.
+        long expireBefore = clock.getAsLong() - throttleMillis * 4;
+        lastStarted.values().removeIf(startedAt -> startedAt < expireBefore);
+    }
+
+    int pendingChannels() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,95 @@
+package com.chatting.backend.session;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 한 사용자가 가진 WebSocket 세션(기기)들의 묶음
+ *
+ * 대부분의 사용자는 기기가 1~2개(폰 + PC)라서 List/Set 대신 길이가 딱 맞는 배열 하나만 들고 있는다.
+ * 불변(immutable) 객체이며, 추가/삭제 시에는 새 객체를 만들어 돌려준다. (copy-on-write)
+ * → ConcurrentHashMap.compute() 안에서 교체하면 읽는 쪽(fan-out)은 락 없이 배열을 그대로 순회할 수 있다.
+ */
+final class UserSessions {
+
+    private final WebSocketSession[] sessions;
+
+    private UserSessions(WebSocketSession[] sessions) {
+        this.sessions = sessions;
+    }
+
+    static UserSessions of(WebSocketSession session) {
+        return new UserSessions(new WebSocketSession[]{session});
+    }
+
+    /**
+     * 세션을 추가한 새 묶음을 돌려준다. (같은 id의 세션이 이미 있으면 교체)
+     */
+    UserSessions add(WebSocketSession session) {
+        int index = indexOf(session.getId());
+        WebSocketSession[] copy;
+        if (index >= 0) {
+            copy = sessions.clone();
+            copy[index] = session;
+        } else {
+            copy = Arrays.copyOf(sessions, sessions.length + 1);
+            copy[sessions.length] = session;
+        }
+        return new UserSessions(copy);
+    }
+
+    /**
+     * 해당 id의 세션을 뺀 새 묶음을 돌려준다. 남은 세션이 없으면 null (Map에서 key를 지우기 위함)
+     */
+    UserSessions remove(String sessionId) {
+        int index = indexOf(sessionId);
+        if (index < 0) {
+            return this;
+        }
+        if (sessions.length == 1) {
+            return null;
+        }
+
+        WebSocketSession[] copy = new WebSocketSession[sessions.length - 1];
+        System.arraycopy(sessions, 0, copy, 0, index);
+        System.arraycopy(sessions, index + 1, copy, index, sessions.length - index - 1);
+        return new UserSessions(copy);
+    }
+
+    WebSocketSession find(String sessionId) {
+        int index = indexOf(sessionId);
+        return index < 0 ? null : sessions[index];
+    }
+
+    //가장 마지막에 연결된 기기의 세션
+    WebSocketSession latest() {
+        return sessions[sessions.length - 1];
+    }
+
+    int size() {
+        return sessions.length;
+    }
+
+    List<WebSocketSession> asList() {
+        return List.of(sessions);
+    }
+
+    //fan-out 용: 리스트를 만들지 않고 배열을 바로 순회한다.
+    void forEach(Consumer<WebSocketSession> action) {
+        for (WebSocketSession session : sessions) {
+            action.accept(session);
+        }
+    }
+
+    private int indexOf(String sessionId) {
+        for (int i = 0; i < sessions.length; i++) {
+            if (sessions[i].getId().equals(sessionId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
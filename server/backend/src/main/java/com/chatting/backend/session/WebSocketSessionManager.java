@@ -3,15 +3,16 @@ package com.chatting.backend.session;
 import com.chatting.backend.dto.domain.UserId;
 import com.chatting.backend.dto.websocket.outbound.BaseMessage;
 import com.chatting.backend.json.JsonUtil;
+import com.chatting.backend.membership.MemberBitmap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -23,7 +24,15 @@ public class WebSocketSessionManager {
     ///key: id, value: session으로 등록
     //원래는 세션을 관리하는 key 값으로 sessionId로 했는데 이건 unique한 값을 찾기 위해서 임시로 sessionId로 key 값을 지정한 것이고ㅡ
     //이제는 userId가 생겨서 userId로 key 값을 변경!
-    private final Map<UserId, WebSocketSession> sessions = new ConcurrentHashMap<>(); //멀티스레드로 접근할 것이기에 ConcurrentHashMap 사용
+    //한 사용자가 여러 기기(폰, PC)로 동시에 접속할 수 있으므로 value는 해당 사용자의 세션 묶음(UserSessions)이다.
+    //유휴 연결이 많아도 heap을 아끼기 위해 UserId(record)/Long 박싱 없이 primitive long(userId.id())을 key로 쓴다.
+    private final LongKeyMap<UserSessions> sessions = new LongKeyMap<>(); //멀티스레드로 접근할 것이기에 segment 단위로 동기화된 맵 사용
+
+    //이 노드에 접속중인 사용자 bitmap (broadcast 채널 전송 대상 = 참여자 bitmap AND 이 bitmap)
+    //사용자의 첫 기기가 붙거나 마지막 기기가 끊길 때만 바뀐다. 바꾸는 쪽은 해당 key의 segment 락 안에서 다시 connectedUsersLock을 잡으므로
+    //같은 사용자의 접속/종료 순서가 뒤집히지 않는다. 읽는 쪽은 락 없이 불변 스냅샷을 가져간다.
+    private final Object connectedUsersLock = new Object();
+    private volatile MemberBitmap connectedUsers = MemberBitmap.EMPTY;
 
     private final JsonUtil jsonUtil;
 
@@ -31,47 +40,167 @@ public class WebSocketSessionManager {
      * 전체 session 리스트를 리턴하는 메서드
      */
     public List<WebSocketSession> getSessions(){
-        return sessions.values().stream().toList(); //List로 변환
+        List<WebSocketSession> allSessions = new ArrayList<>();
+        sessions.forEachValue(userSessions -> userSessions.forEach(allSessions::add));
+        return allSessions;
+    }
+
+    /**
+     * 현재 접속중인 사용자 수
+     */
+    public int getUserCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 이 노드에 접속중인 기기가 하나라도 있는지
+     */
+    public boolean isConnected(UserId userId) {
+        return sessions.containsKey(userId.id());
+    }
+
+    /**
+     * 이 노드에 접속중인 사용자 bitmap (불변 스냅샷)
+     */
+    public MemberBitmap getConnectedUsers() {
+        return connectedUsers;
+    }
+
+    /**
+     * userId로 해당 사용자의 모든 기기 session을 리턴하는 메서드 (접속중이 아니면 빈 리스트)
+     */
+    public List<WebSocketSession> getSessions(UserId userId) {
+        UserSessions userSessions = sessions.get(userId.id());
+        return userSessions == null ? List.of() : userSessions.asList();
     }
 
     /**
      * userId로 하나의 session을 리턴하는 메서드
+     * 여러 기기로 접속중이면 가장 마지막에 연결된 기기의 session을 리턴한다.
+     * 알림처럼 모든 기기로 보내야 하는 경우에는 sendMessage(UserId, ...)를 사용한다.
      */
     public WebSocketSession getSession(UserId userId) {
-        return sessions.get(userId);
+        UserSessions userSessions = sessions.get(userId.id());
+        return userSessions == null ? null : userSessions.latest();
     }
 
     /**
      * session을 등록(저장)하는 메서드
+     * 기존 기기의 session은 덮어쓰지 않고 묶음에 추가한다.
      */
     public void putSessions(UserId userId, WebSocketSession webSocketSession) {
         log.info("Store Session {}", webSocketSession.getId());
 
-        //key: userId, value: session으로 등록
-        sessions.put(userId, webSocketSession);
+        //key: userId, value: 세션 묶음에 현재 세션을 추가
+        sessions.compute(userId.id(), userSessions -> {
+            if (userSessions == null) {
+                updateConnectedUsers(userId.id(), true);
+                return UserSessions.of(webSocketSession);
+            }
+            return userSessions.add(webSocketSession);
+        });
     }
 
     /**
-     * session을 삭제하는 메서드
+     * 특정 기기의 session 하나만 삭제하는 메서드 (연결 종료/에러 시)
+     * 같은 사용자의 다른 기기 session은 그대로 유지된다.
      */
-    public void closeSession(UserId userId) {
-        try{
-            WebSocketSession webSocketSession = sessions.remove(userId);
+    public void closeSession(UserId userId, WebSocketSession webSocketSession) {
+        String sessionId = webSocketSession.getId();
+        WebSocketSession[] removed = new WebSocketSession[1];
 
-            if(webSocketSession != null) { //null이 아니면 닫아준다.
-                //닫기 전에 닫을 세션이 무엇인지 로그로 남김
-                log.info("Remove session: {}", userId);
+        sessions.compute(userId.id(), userSessions -> {
+            if (userSessions == null) {
+                return null;
+            }
+            removed[0] = userSessions.find(sessionId);
+            UserSessions remaining = userSessions.remove(sessionId);  //남은 세션이 없으면 null -> key 삭제
+            if (remaining == null) {
+                updateConnectedUsers(userId.id(), false);
+            }
+            return remaining;
+        });
 
-                webSocketSession.close();
+        if (removed[0] != null) {
+            log.info("Remove session: {} of {}", sessionId, userId);
+            close(userId, removed[0]);
+        }
+    }
 
-                //닫은 세션이 무엇인지 로그로 남김
-                log.info("Close session: {}", userId);
+    /**
+     * 사용자의 모든 기기 session을 삭제하는 메서드
+     */
+    public void closeSession(UserId userId) {
+        UserSessions[] removed = new UserSessions[1];
+        sessions.compute(userId.id(), userSessions -> {
+            if (userSessions != null) {
+                removed[0] = userSessions;
+                updateConnectedUsers(userId.id(), false);
             }
+            return null;
+        });
+        UserSessions userSessions = removed[0];
+
+        if(userSessions != null) { //null이 아니면 닫아준다.
+            //닫기 전에 닫을 세션이 무엇인지 로그로 남김
+            log.info("Remove session: {}", userId);
+
+            userSessions.forEach(webSocketSession -> close(userId, webSocketSession));
+        }
+    }
+
+    private void updateConnectedUsers(long userId, boolean connected) {
+        synchronized (connectedUsersLock) {
+            connectedUsers = connected ? connectedUsers.with(userId) : connectedUsers.without(userId);
+        }
+    }
+
+    private void close(UserId userId, WebSocketSession webSocketSession) {
+        try{
+            webSocketSession.close();
+
+            //닫은 세션이 무엇인지 로그로 남김
+            log.info("Close session: {}", userId);
         }catch (Exception ex){
             log.error("Failed WebSocketSession close, userId: {}", userId);
         }
     }
 
+    /**
+     * 메시지를 전송용 프레임(TextMessage)으로 한 번만 직렬화하는 메서드
+     * 같은 메시지를 여러 세션(여러 사용자, 여러 기기)에 보낼 때 JSON 직렬화를 반복하지 않기 위해 사용한다.
+     */
+    public Optional<TextMessage> encode(BaseMessage message) {
+        return jsonUtil.toJson(message).map(TextMessage::new);
+    }
+
+    /**
+     * 사용자의 모든 기기로 메시지를 보내는 메서드 (접속중이 아니면 아무것도 하지 않는다)
+     */
+    public void sendMessage(UserId userId, BaseMessage message) {
+        if (sessions.containsKey(userId.id())) {
+            encode(message).ifPresent(frame -> sendMessage(userId, frame));
+        }
+    }
+
+    /**
+     * 이미 직렬화된 프레임을 사용자의 모든 기기로 보내는 메서드
+     */
+    public void sendMessage(UserId userId, TextMessage frame) {
+        sendMessage(userId.id(), frame);
+    }
+
+    /**
+     * 메시지 전송 경로용 (bitmap에서 꺼낸 userId를 UserId로 감싸지 않고 바로 보낸다)
+     */
+    public void sendMessage(long userId, TextMessage frame) {
+        UserSessions userSessions = sessions.get(userId);
+
+        if (userSessions != null) {
+            userSessions.forEach(session -> sendMessage(session, frame));
+        }
+    }
+
     /**
      * 각 세션을 메시지를 보내는 메서드
      */
@@ -82,15 +211,20 @@ public class WebSocketSessionManager {
      */
     public void sendMessage(WebSocketSession session, BaseMessage message) {
 
-        jsonUtil.toJson(message).ifPresent(msg -> {
-           try{
-               session.sendMessage(new TextMessage(msg));
+        encode(message).ifPresent(frame -> sendMessage(session, frame));
 
-               log.info("send message: {} to {}", msg, session.getId());
-           }catch(Exception ex){
-               log.error("메시지 전송 실패. cause: {}", ex.getMessage());
-           }
-        });
+    }
+
+    /**
+     * 이미 직렬화된 프레임을 특정 세션(기기 하나)으로 보내는 메서드 (재접속한 기기에만 놓친 메시지를 다시 보낼 때 사용)
+     */
+    public void sendMessage(WebSocketSession session, TextMessage frame) {
+        try{
+            session.sendMessage(frame);
 
+            log.info("send message: {} to {}", frame.getPayload(), session.getId());
+        }catch(Exception ex){
+            log.error("메시지 전송 실패. cause: {}", ex.getMessage());
+        }
     }
 }
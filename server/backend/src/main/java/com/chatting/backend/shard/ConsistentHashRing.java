@@ -0,0 +1,94 @@
+package com.chatting.backend.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * channel_id → 메시지 샤드 이름 (consistent hashing, 불변)
+ *
+ * 샤드마다 virtualNodes개의 점을 64bit 원 위에 뿌려 두고, channel_id를 해시한 위치에서 시계 방향으로 처음 만나는 점의 샤드가 주인이다.
+ * - 샤드를 하나 추가하면 새 샤드의 점 앞 구간에 있던 채널만 옮겨 간다. (전체의 약 1/(N+1), 나머지는 그대로)
+ * - 점의 위치는 샤드 이름만으로 정해지므로 모든 노드가 같은 이름 목록이면 같은 주인을 고른다.
+ * - 조회는 정렬된 long[]에서 이진 탐색 한 번 (객체 생성 없음)
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> shards;
+    private final long[] points;
+    private final String[] owners;
+
+    private ConsistentHashRing(List<String> shards, long[] points, String[] owners) {
+        this.shards = shards;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    public static ConsistentHashRing of(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("Invalid hash ring settings.");
+        }
+        List<String> names = shards.stream().sorted().distinct().toList();
+
+        long[][] entries = new long[names.size() * virtualNodes][];
+        int index = 0;
+        for (int shard = 0; shard < names.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[index++] = new long[]{hash(names.get(shard) + "#" + node), shard};
+            }
+        }
+        //위치가 겹치면 이름 순서가 앞선 샤드가 가진다. (모든 노드에서 같은 결과)
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        long[] points = new long[entries.length];
+        String[] owners = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = names.get((int) entries[i][1]);
+        }
+        return new ConsistentHashRing(names, points, owners);
+    }
+
+    public String owner(long channelId) {
+        long position = mix(channelId);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[middle], position) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        //마지막 점보다 뒤면 원을 한 바퀴 돌아 첫 점
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public boolean contains(String shard) {
+        return shards.contains(shard);
+    }
+
+    //FNV-1a 64 + 섞기 (String.hashCode보다 넓게 퍼진다)
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    //SplitMix64 finalizer: 연속된 channel_id도 원 위에 고르게 흩어지게 한다.
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
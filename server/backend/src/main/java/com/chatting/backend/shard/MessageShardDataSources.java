@@ -0,0 +1,53 @@
+package com.chatting.backend.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 이 노드가 접속할 수 있는 메시지 샤드 (이름 → DataSource)
+ *
+ * DataSource 빈으로 등록하면 Map<String, DataSource> 주입이나 DataSource 자동 설정과 섞이므로 한 번 감싸서 둔다.
+ * 설정에서 만든 풀만 종료 시 닫는다. (primary 풀은 DataSourceConfig가 관리)
+ */
+public class MessageShardDataSources implements AutoCloseable {
+
+    public static final String PRIMARY_SHARD = "primary";
+
+    private final Map<String, DataSource> dataSources;
+    private final boolean owned;
+
+    private MessageShardDataSources(Map<String, DataSource> dataSources, boolean owned) {
+        this.dataSources = Map.copyOf(dataSources);
+        this.owned = owned;
+    }
+
+    //message.shard.datasources가 없으면 primary 하나를 샤드로 쓴다. (예전과 같은 단일 DB)
+    public static MessageShardDataSources primaryOnly(DataSource primaryDataSource) {
+        return new MessageShardDataSources(Map.of(PRIMARY_SHARD, primaryDataSource), false);
+    }
+
+    public static MessageShardDataSources of(Map<String, DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("No message shard.");
+        }
+        return new MessageShardDataSources(dataSources, true);
+    }
+
+    public Map<String, DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    @Override
+    public void close() {
+        if (!owned) {
+            return;
+        }
+        dataSources.values().forEach(dataSource -> {
+            if (dataSource instanceof HikariDataSource hikariDataSource) {
+                hikariDataSource.close();
+            }
+        });
+    }
+}
@@ -0,0 +1,391 @@
+package com.chatting.backend.shard;
+
+import com.chatting.backend.constant.MessageShardState;
+import com.chatting.backend.constant.ResultType;
+import com.chatting.backend.dto.domain.ChannelId;
+import com.chatting.backend.dto.domain.StoredMessage;
+import com.chatting.backend.dto.domain.UserId;
+import com.chatting.backend.dto.restapi.MessageShardStatsResponse;
+import com.chatting.backend.entity.MessageShardEntity;
+import com.chatting.backend.id.SnowflakeIdGenerator;
+import com.chatting.backend.repository.MessageShardRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * channel_id로 샤드를 골라 메시지를 저장/조회하는 저장소
+ *
+ * - 쓰기(MessageService)와 채널 기록 조회는 그 채널의 주인 샤드 하나에만 간다. (ConsistentHashRing)
+ * - 링 구성은 primary의 message_shard 테이블에서 refresh-interval마다 읽는다. 모든 노드가 같은 링을 쓴다.
+ * - 샤드 추가(addShard): JOINING으로 등록 → 모든 노드가 새 링으로 쓰기 시작할 때까지 기다렸다가 → 주인이 바뀐 채널의 메시지를
+ *   이전 샤드에서 새 샤드로 백그라운드에서 복사/삭제한다. 끝나면 ACTIVE로 바꾼다.
+ *   그동안 옮겨 가는 채널의 조회는 새 주인과 이전 주인을 함께 읽어서 합친다. (복사와 삭제 사이에 겹친 메시지는 sequence로 중복 제거)
+ * - 여러 샤드를 모두 읽는 scatter-gather는 운영용 조회(getShardStats → AdminController)에서만 쓴다.
+ */
+@Slf4j
+@Component
+public class ShardedMessageStore {
+
+    private static final String SCHEMA = "message-shard-schema.sql";
+
+    private static final String INSERT =
+            "INSERT INTO channel_message (channel_id, message_sequence, user_id, content, created_at) VALUES (?, ?, ?, ?, ?)";
+    //재배치는 중간에 멈췄다 다시 돌 수 있으므로 이미 복사된 메시지는 건너뛴다.
+    private static final String INSERT_IGNORE =
+            "INSERT IGNORE INTO channel_message (channel_id, message_sequence, user_id, content, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_HISTORY =
+            "SELECT channel_id, message_sequence, user_id, content FROM channel_message WHERE channel_id = ? AND message_sequence < ? ORDER BY message_sequence DESC LIMIT ?";
+    private static final String SELECT_CHANNEL_IDS =
+            "SELECT DISTINCT channel_id FROM channel_message WHERE channel_id > ? ORDER BY channel_id LIMIT ?";
+    private static final String SELECT_CHANNEL_PAGE =
+            "SELECT channel_id, message_sequence, user_id, content FROM channel_message WHERE channel_id = ? ORDER BY message_sequence LIMIT ?";
+    private static final String DELETE =
+            "DELETE FROM channel_message WHERE channel_id = ? AND message_sequence = ?";
+    private static final String COUNT = "SELECT COUNT(*) FROM channel_message";
+    private static final String SELECT_OLDER_PAGE =
+            "SELECT channel_id, message_sequence, user_id, content FROM channel_message WHERE channel_id = ? AND message_sequence > ? AND message_sequence < ? ORDER BY message_sequence LIMIT ?";
+    private static final String DELETE_UP_TO =
+            "DELETE FROM channel_message WHERE channel_id = ? AND message_sequence <= ?";
+
+    private static final RowMapper<StoredMessage> ROW_MAPPER = (resultSet, rowNum) -> new StoredMessage(
+            resultSet.getLong("message_sequence"),
+            new ChannelId(resultSet.getLong("channel_id")),
+            new UserId(resultSet.getLong("user_id")),
+            resultSet.getString("content"));
+
+    //current: 지금 주인, previous: 재배치 중일 때 JOINING 샤드를 뺀 링 (아니면 null)
+    record Routing(ConsistentHashRing current, ConsistentHashRing previous, Map<String, MessageShardState> states) {
+    }
+
+    private final MessageShardRepository messageShardRepository;
+    private final Map<String, DataSource> dataSources;
+    private final Map<String, JdbcTemplate> shards = new LinkedHashMap<>();
+    private final int virtualNodes;
+    private final int rebalancePageSize;
+    private final long rebalanceDelayMillis;
+    private final ScheduledExecutorService rebalancer;
+    private final ExecutorService scatterPool;
+    private final AtomicBoolean rebalancing = new AtomicBoolean();
+
+    private volatile Routing routing;
+
+    @Autowired
+    public ShardedMessageStore(
+            MessageShardRepository messageShardRepository,
+            MessageShardDataSources messageShardDataSources,
+            @Value("${message.shard.virtual-nodes:128}") int virtualNodes,
+            @Value("${message.shard.rebalance-page-size:1000}") int rebalancePageSize,
+            @Value("${message.shard.refresh-interval:5s}") Duration refreshInterval) {
+        //다른 노드가 다음 refresh에서 새 링을 읽을 때까지 (진행 중인 refresh 한 번 + 주기 한 번) 기다린 뒤 옮긴다.
+        this(messageShardRepository, messageShardDataSources.getDataSources(), virtualNodes, rebalancePageSize, refreshInterval.toMillis() * 2);
+    }
+
+    ShardedMessageStore(MessageShardRepository messageShardRepository, Map<String, DataSource> dataSources,
+                        int virtualNodes, int rebalancePageSize, long rebalanceDelayMillis) {
+        if (dataSources.isEmpty() || virtualNodes <= 0 || rebalancePageSize <= 0 || rebalanceDelayMillis < 0) {
+            throw new IllegalArgumentException("Invalid message shard settings.");
+        }
+        this.messageShardRepository = messageShardRepository;
+        this.dataSources = dataSources;
+        dataSources.forEach((name, dataSource) -> shards.put(name, new JdbcTemplate(dataSource)));
+        this.virtualNodes = virtualNodes;
+        this.rebalancePageSize = rebalancePageSize;
+        this.rebalanceDelayMillis = rebalanceDelayMillis;
+        this.rebalancer = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "message-shard-rebalancer"));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatterPool = Executors.newFixedThreadPool(Math.min(dataSources.size(), 8),
+                runnable -> daemon(runnable, "message-shard-scatter-" + threadNumber.incrementAndGet()));
+    }
+
+    @PostConstruct
+    public void start() {
+        dataSources.forEach((name, dataSource) -> new ResourceDatabasePopulator(new ClassPathResource(SCHEMA)).execute(dataSource));
+
+        //처음 띄울 때는 설정된 샤드 전체가 링이 된다. (여러 노드가 동시에 띄워도 먼저 넣은 쪽이 남는다)
+        if (messageShardRepository.count() == 0) {
+            try {
+                messageShardRepository.saveAll(shards.keySet().stream()
+                        .map(name -> new MessageShardEntity(name, MessageShardState.ACTIVE))
+                        .toList());
+            } catch (DataIntegrityViolationException ex) {
+                log.info("Message shards already registered by another node.");
+            }
+        }
+
+        refresh();
+        if (routing == null) {
+            throw new IllegalStateException("Message shard ring is not available.");
+        }
+        //재배치 도중 멈췄던 경우 이어서 한다.
+        if (routing.previous() != null) {
+            scheduleRebalance();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebalancer.shutdownNow();
+        scatterPool.shutdownNow();
+    }
+
+    //message_shard 테이블을 다시 읽어서 링을 바꾼다.
+    @Scheduled(fixedDelayString = "${message.shard.refresh-interval:5s}")
+    public void refresh() {
+        Map<String, MessageShardState> states = new TreeMap<>();
+        messageShardRepository.findAll().forEach(entity -> states.put(entity.getName(), entity.getState()));
+        if (states.isEmpty()) {
+            return;
+        }
+        Routing current = routing;
+        if (current != null && current.states().equals(states)) {
+            return;
+        }
+
+        //이 노드가 접속할 수 없는 샤드가 링에 있으면 그 샤드의 채널을 읽고 쓸 수 없으므로 이전 링을 계속 쓴다.
+        List<String> unknown = states.keySet().stream().filter(name -> !shards.containsKey(name)).toList();
+        if (!unknown.isEmpty()) {
+            log.error("Message shard is not configured on this node. shards: {}", unknown);
+            return;
+        }
+
+        List<String> active = states.entrySet().stream()
+                .filter(entry -> entry.getValue() == MessageShardState.ACTIVE)
+                .map(Map.Entry::getKey)
+                .toList();
+        ConsistentHashRing ring = ConsistentHashRing.of(states.keySet(), virtualNodes);
+        ConsistentHashRing previous = active.isEmpty() || active.size() == states.size() ? null : ConsistentHashRing.of(active, virtualNodes);
+        routing = new Routing(ring, previous, Map.copyOf(states));
+        log.info("Message shard ring updated. shards: {}", states);
+    }
+
+    //채널의 주인 샤드에 저장한다. created_at은 id에 들어 있는 시각이다.
+    public void append(StoredMessage message) {
+        shards.get(routing.current().owner(message.channelId().id()))
+                .update(INSERT, message.channelId().id(), message.messageSequence(), message.userId().id(), message.content(),
+                        new Timestamp(SnowflakeIdGenerator.timestampMillis(message.messageSequence())));
+    }
+
+    //beforeSequence보다 앞선 메시지를 최신순으로 limit개
+    public List<StoredMessage> findByChannelId(ChannelId channelId, long beforeSequence, int limit) {
+        Routing current = routing;
+        String owner = current.current().owner(channelId.id());
+        List<StoredMessage> messages = shards.get(owner).query(SELECT_HISTORY, ROW_MAPPER, channelId.id(), beforeSequence, limit);
+        if (current.previous() == null) {
+            return messages;
+        }
+        String previousOwner = current.previous().owner(channelId.id());
+        if (previousOwner.equals(owner)) {
+            return messages;
+        }
+        //옮겨 가는 중인 채널: 두 샤드를 합치고 중복(복사 후 삭제 전)을 뺀다.
+        List<StoredMessage> moving = shards.get(previousOwner).query(SELECT_HISTORY, ROW_MAPPER, channelId.id(), beforeSequence, limit);
+        return mergeLatest(List.of(messages, moving), limit);
+    }
+
+    public String getOwner(ChannelId channelId) {
+        return routing.current().owner(channelId.id());
+    }
+
+    /**
+     * 샤드 추가 (운영용)
+     * 접속 정보(message.shard.datasources)는 모든 노드에 먼저 배포되어 있어야 한다.
+     */
+    public ResultType addShard(String name) {
+        if (!shards.containsKey(name)) {
+            return ResultType.NOT_FOUND;
+        }
+        if (messageShardRepository.existsById(name)) {
+            return ResultType.ALREADY_JOINED;
+        }
+        try {
+            messageShardRepository.save(new MessageShardEntity(name, MessageShardState.JOINING));
+        } catch (DataIntegrityViolationException ex) {
+            return ResultType.ALREADY_JOINED;
+        }
+        refresh();
+        scheduleRebalance();
+        log.info("Message shard joining. shard: {}", name);
+        return ResultType.SUCCESS;
+    }
+
+    public boolean isRebalancing() {
+        return routing.previous() != null;
+    }
+
+    // === 운영용 scatter-gather (모든 샤드를 읽는다. 사용자 요청 처리에서는 쓰지 않는다) ===
+
+    public List<MessageShardStatsResponse> getShardStats() {
+        Map<String, MessageShardState> states = routing.states();
+        List<String> names = List.copyOf(new TreeMap<>(states).keySet());
+        List<Long> counts = scatter(names, jdbcTemplate -> List.of(jdbcTemplate.queryForObject(COUNT, Long.class)));
+        List<MessageShardStatsResponse> stats = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            stats.add(new MessageShardStatsResponse(names.get(i), states.get(names.get(i)), counts.get(i)));
+        }
+        return stats;
+    }
+
+    // === 보관(MessageArchiver)용: 샤드 하나를 지정해서 읽고 지운다 ===
+
+    public List<String> getShardNames() {
+        return routing.current().shards();
+    }
+
+    //afterChannelId보다 큰 channel_id를 오름차순으로 limit개
+    public List<Long> findChannelIds(String shard, long afterChannelId, int limit) {
+        return shards.get(shard).queryForList(SELECT_CHANNEL_IDS, Long.class, afterChannelId, limit);
+    }
+
+    //afterSequence < sequence < beforeSequence인 메시지를 오래된 순으로 limit개
+    public List<StoredMessage> findOlderThan(String shard, ChannelId channelId, long afterSequence, long beforeSequence, int limit) {
+        return shards.get(shard).query(SELECT_OLDER_PAGE, ROW_MAPPER, channelId.id(), afterSequence, beforeSequence, limit);
+    }
+
+    //lastSequence까지(포함) 지운다.
+    public int deleteUpTo(String shard, ChannelId channelId, long lastSequence) {
+        return shards.get(shard).update(DELETE_UP_TO, channelId.id(), lastSequence);
+    }
+
+    // === 재배치 ===
+
+    private void scheduleRebalance() {
+        rebalancer.schedule(this::rebalance, rebalanceDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void rebalance() {
+        if (!rebalancing.compareAndSet(false, true)) {
+            return;
+        }
+        boolean failed = false;
+        try {
+            refresh();
+            Routing current = routing;
+            if (current.previous() == null) {
+                return;
+            }
+
+            //이전 링으로 쓰던 노드가 늦게 넣은 메시지까지 옮기도록, 한 번 훑어서 옮길 것이 없을 때까지 반복한다.
+            long moved;
+            long total = 0;
+            do {
+                moved = 0;
+                for (String source : current.current().shards()) {
+                    moved += moveMisplaced(source, current.current());
+                }
+                total += moved;
+            } while (moved > 0);
+
+            current.states().forEach((name, state) -> {
+                if (state == MessageShardState.JOINING) {
+                    messageShardRepository.findById(name).ifPresent(entity -> {
+                        entity.setState(MessageShardState.ACTIVE);
+                        messageShardRepository.save(entity);
+                    });
+                }
+            });
+            refresh();
+            log.info("Message shard rebalance finished. moved: {}", total);
+        } catch (Exception ex) {
+            log.error("Message shard rebalance failed. cause: {}", ex.getMessage());
+            failed = true;
+        } finally {
+            rebalancing.set(false);
+        }
+        if (failed && !rebalancer.isShutdown()) {
+            scheduleRebalance();
+        }
+    }
+
+    //source에 있지만 주인이 다른 채널의 메시지를 주인에게 옮긴다.
+    private long moveMisplaced(String source, ConsistentHashRing ring) {
+        JdbcTemplate sourceShard = shards.get(source);
+        long moved = 0;
+        long cursor = Long.MIN_VALUE;
+        while (true) {
+            List<Long> channelIds = sourceShard.queryForList(SELECT_CHANNEL_IDS, Long.class, cursor, rebalancePageSize);
+            for (long channelId : channelIds) {
+                String owner = ring.owner(channelId);
+                if (!owner.equals(source)) {
+                    moved += moveChannel(channelId, sourceShard, shards.get(owner));
+                }
+            }
+            if (channelIds.size() < rebalancePageSize) {
+                return moved;
+            }
+            cursor = channelIds.get(channelIds.size() - 1);
+        }
+    }
+
+    //한 채널의 메시지를 page 단위로 복사한 뒤 복사한 것만 지운다. (복사 중 들어온 메시지는 다음 page에서 옮긴다)
+    private long moveChannel(long channelId, JdbcTemplate source, JdbcTemplate target) {
+        long moved = 0;
+        while (true) {
+            List<StoredMessage> page = source.query(SELECT_CHANNEL_PAGE, ROW_MAPPER, channelId, rebalancePageSize);
+            if (page.isEmpty()) {
+                return moved;
+            }
+            target.batchUpdate(INSERT_IGNORE, page, page.size(), (statement, message) -> {
+                statement.setLong(1, message.channelId().id());
+                statement.setLong(2, message.messageSequence());
+                statement.setLong(3, message.userId().id());
+                statement.setString(4, message.content());
+                statement.setTimestamp(5, new Timestamp(SnowflakeIdGenerator.timestampMillis(message.messageSequence())));
+            });
+            source.batchUpdate(DELETE, page, page.size(), (statement, message) -> {
+                statement.setLong(1, message.channelId().id());
+                statement.setLong(2, message.messageSequence());
+            });
+            moved += page.size();
+        }
+    }
+
+    private <T> List<T> scatter(List<String> names, Function<JdbcTemplate, List<T>> query) {
+        List<CompletableFuture<List<T>>> futures = names.stream()
+                .map(name -> CompletableFuture.supplyAsync(() -> query.apply(shards.get(name)), scatterPool))
+                .toList();
+        List<T> results = new ArrayList<>();
+        futures.forEach(future -> results.addAll(future.join()));
+        return results;
+    }
+
+    //최신순으로 합치고 같은 sequence는 하나만 남긴다.
+    private static List<StoredMessage> mergeLatest(List<List<StoredMessage>> lists, int limit) {
+        Map<Long, StoredMessage> merged = new TreeMap<>(Comparator.reverseOrder());
+        lists.forEach(list -> list.forEach(message -> merged.putIfAbsent(message.messageSequence(), message)));
+        return merged.values().stream().limit(limit).toList();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
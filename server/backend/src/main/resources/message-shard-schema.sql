@@ -0,0 +1,13 @@
+-- 메시지 샤드마다 ShardedMessageStore가 시작할 때 실행한다. (spring.sql.init은 primary에만 적용되므로)
+-- 기존 message 테이블은 channel_id가 없어서 샤드 키로 쓸 수 없으므로 새 테이블로 둔다. (CREATE TABLE IF NOT EXISTS만으로 적용)
+
+-- channel_message: 채널별 메시지. channel_id로 샤드가 정해진다.
+-- PK를 (channel_id, message_sequence)로 두어 한 채널의 메시지가 InnoDB에서 sequence 순서대로 모여 있게 한다. (기록 조회는 범위 읽기 한 번)
+CREATE TABLE IF NOT EXISTS channel_message(
+    channel_id BIGINT NOT NULL,       -- 메시지를 보낸 채널
+    message_sequence BIGINT NOT NULL, -- SnowflakeIdGenerator가 만든 id (전체에서 겹치지 않고 시간 순서)
+    user_id BIGINT NOT NULL,          -- 보낸 사람
+    content VARCHAR(1000) NOT NULL,   -- 메시지 내용
+    created_at TIMESTAMP NOT NULL,
+PRIMARY KEY(channel_id, message_sequence)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
@@ -3,7 +3,6 @@ CREATE TABLE IF NOT EXISTS message_user(
     username VARCHAR(20) NOT NULL,
     password VARCHAR(255) NOT NULL,
     invite_code VARCHAR(100) NOT NULL, -- 초대코드(중복되면 안된다): 사용자마다 고유한 초대 코드. 다른 사용자가 이 코드를 주면 초대 대상(코드 주인)을 찾을 수 있음.
-    connection_count INT NOT NULL, -- 친구/연결 수 카운트(한명당 1000명까지의 연결만 가능하다. 그 이상은 X)
     created_at TIMESTAMP NOT NULL,
     updated_at TIMESTAMP NOT NULL,
 PRIMARY KEY(user_id),
@@ -11,8 +10,19 @@ CONSTRAINT unique_username UNIQUE (username), --제약 조건
 CONSTRAINT unique_invite_code UNIQUE (invite_code) --제약 조건
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
+-- user_connection_count: 사용자별 연결(친구) 수 카운터 (한명당 1000명까지의 연결만 가능하다. 그 이상은 X)
+-- message_user row를 잠그지 않고 조건부 UPDATE(connection_count < limit)로 증가/감소시키기 위해 별도 테이블로 분리
+CREATE TABLE IF NOT EXISTS user_connection_count(
+    user_id BIGINT NOT NULL, -- message_user의 PK
+    connection_count INT NOT NULL DEFAULT 0,
+PRIMARY KEY(user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+-- 기존 사용자의 카운트 옮기기(와 message_user.connection_count 삭제)는 한 번만 실행하는 스크립트로 둔다. (db/migration/V2__move_connection_count.sql)
+
+-- (더 이상 쓰지 않음) 메시지는 채널별로 샤드의 channel_message 테이블에 저장한다. (message-shard-schema.sql)
 CREATE TABLE IF NOT EXISTS message(
-    message_sequence BIGINT AUTO_INCREMENT,
+    message_sequence BIGINT NOT NULL, -- AUTO_INCREMENT 안쓴다. 서버(SnowflakeIdGenerator)가 시간 순서 id를 만들어서 insert
     user_id BIGINT NOT NULL, -- 메시지를 보내는 사람의 userId
     content VARCHAR(1000) NOT NULL, -- 메시지 내용
     created_at TIMESTAMP NOT NULL,
@@ -34,6 +44,22 @@ INDEX idx_partner_b_usr_id_status (partner_b_user_id, status),
 INDEX idx_partner_a_b_user_id_status(partner_a_user_id, partner_b_user_id, status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
+-- user_connection_edge: 연결 목록 조회용 인접 리스트 (user_connection의 한 관계를 방향별로 두 행씩 복제)
+-- "내 친구 목록"을 partner_a/partner_b 두 번 조회하지 않고 (user_id, status, partner_user_id) 인덱스 한 번으로,
+-- partner_user_id 순서대로 잘라서(keyset pagination) 읽기 위한 테이블. user_connection과 같은 트랜잭션에서 변경된다.
+CREATE TABLE IF NOT EXISTS user_connection_edge(
+    user_id BIGINT NOT NULL, -- 목록의 주인(나)
+    partner_user_id BIGINT NOT NULL, -- 상대방
+    status VARCHAR(20) NOT NULL, -- user_connection.status와 같은 값
+    inviter_user_id BIGINT NOT NULL, -- user_connection.inviter_user_id와 같은 값
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+PRIMARY KEY(user_id, partner_user_id),
+INDEX idx_user_id_status_partner_user_id (user_id, status, partner_user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+-- 기존 관계 옮기기는 기동할 때마다 user_connection 전체를 읽지 않도록 한 번만 실행하는 스크립트로 둔다. (db/migration/V1__backfill_user_connection_edge.sql)
+
 -- 복합키?
 -- 한 테이블에서 PK(Primary Key)를 여러 컬럼을 묶어서 만드는 것
 -- 즉, 한 컬럼만으로는 행(row)을 유일하게 식별할 수 없을 때 여러 컬럼을 합쳐서 유일성을 보장하는 방법
@@ -70,6 +96,25 @@ PRIMARY KEY (user_id, channel_id),
 INDEX idx_channel_id (channel_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
+-- broadcast_channel: 대규모(공지) 채널 표시. 여기에 row가 있는 channel만 broadcast 채널이다.
+-- channel에 컬럼을 추가하지 않고 별도 테이블로 두어 기존 channel 테이블은 그대로 둔다. (CREATE TABLE IF NOT EXISTS만으로 적용)
+CREATE TABLE IF NOT EXISTS broadcast_channel(
+    channel_id BIGINT NOT NULL, -- channel의 PK
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+PRIMARY KEY (channel_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+-- message_shard: 메시지 샤드 링 구성. 모든 노드가 주기적으로 읽어서 같은 링을 쓴다. (ShardedMessageStore)
+-- JOINING: 추가되어 옮겨올 메시지를 복사 중, ACTIVE: 복사가 끝남
+CREATE TABLE IF NOT EXISTS message_shard(
+    name VARCHAR(50) NOT NULL, -- message.shard.datasources의 이름 (설정이 없으면 primary)
+    state VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+PRIMARY KEY (name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
 -- channel_user에서의 복합키는?
 -- channel_user 테이블에서는 user_id + channel_id를 합쳐야 한 행이 유일함을 보장
 -- 즉, 같은 사용자가 같은 채널에 중복으로 들어갈 수 없게 하는 것
\ No newline at end of file
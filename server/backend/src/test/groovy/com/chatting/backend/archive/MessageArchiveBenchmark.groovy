@@ -0,0 +1,99 @@
+package com.chatting.backend.archive
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.StoredMessage
+import com.chatting.backend.dto.domain.UserId
+import groovy.transform.CompileStatic
+import spock.lang.Specification
+import spock.lang.Tag
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * 보관소 임의 페이지 읽기 (pages/s, µs/page)
+ *
+ * 한 채널에 MESSAGES개를 SEGMENT_MESSAGES개씩 세그먼트로 쓰고, 무작위 cursor에서 50개짜리 페이지를 DURATION 동안 읽는다.
+ * - segment: 열어 둔 세그먼트 하나에서 바로 읽기 (index 이진 탐색 + block 1~2개 압축 풀기)
+ * - archive: MessageArchive.findByChannelId (채널 디렉터리 목록 + 세그먼트 열기(LRU) 포함, 실제 조회 경로)
+ * 샌드박스에서는 OS page cache를 비울 수 없으므로 "디스크에서 처음 읽는" 비용은 포함되지 않는다.
+ * 실행: gradle benchmark
+ */
+@Tag("benchmark")
+class MessageArchiveBenchmark extends Specification {
+
+    static final int MESSAGES = 1_000_000
+    static final int SEGMENT_MESSAGES = 20_000
+    static final int PAGE = 50
+    static final long DURATION_NANOS = 2_000_000_000L
+
+    @TempDir
+    Path directory
+
+    def "세그먼트에서 임의 페이지 읽기"() {
+        given:
+        def channelId = new ChannelId(1)
+        def archive = new MessageArchive(directory.resolve("archive"), 16384, 256)
+        long rawBytes = 0
+        for (int start = 0; start < MESSAGES; start += SEGMENT_MESSAGES) {
+            List<StoredMessage> messages = (start..<start + SEGMENT_MESSAGES).collect { int i ->
+                new StoredMessage(i + 1, channelId, new UserId(i % 100), "message $i: 오늘 회의는 3시에 시작합니다. see you there")
+            }
+            rawBytes += messages.sum { it.content().bytes.length + 20 } as long
+            archive.write(channelId, messages)
+        }
+        long diskBytes = Files.walk(directory).withCloseable { files -> files.filter(Files::isRegularFile).mapToLong(Files::size).sum() }
+        def segmentPath = directory.resolve("archive/1").toFile().listFiles().sort { it.name }[0].toPath()
+        def segment = MessageSegment.open(segmentPath)
+
+        Loop.segment(segment, SEGMENT_MESSAGES, DURATION_NANOS / 4 as long)    //워밍업
+        Loop.archive(archive, channelId, MESSAGES, DURATION_NANOS / 4 as long)
+
+        when:
+        long segmentPages = Loop.segment(segment, SEGMENT_MESSAGES, DURATION_NANOS)
+        long archivePages = Loop.archive(archive, channelId, MESSAGES, DURATION_NANOS)
+
+        println "[message archive] ${String.format('%,d', MESSAGES)} messages, ${MESSAGES / SEGMENT_MESSAGES} segments, " +
+                "raw ${rawBytes >> 20}MB → disk ${diskBytes >> 20}MB (${String.format('%.1f', rawBytes / diskBytes)}x)"
+        println "[message archive] segment: ${String.format('%,d', segmentPages / 2 as long)} pages/s (${String.format('%.1f', DURATION_NANOS / 1000.0 / segmentPages)}µs/page), " +
+                "archive: ${String.format('%,d', archivePages / 2 as long)} pages/s (${String.format('%.1f', DURATION_NANOS / 1000.0 / archivePages)}µs/page), page=$PAGE"
+
+        then:
+        segmentPages > 0
+        archivePages > 0
+    }
+
+    @CompileStatic
+    static class Loop {
+
+        static long segment(MessageSegment segment, int messages, long durationNanos) {
+            long pages = 0
+            long end = System.nanoTime() + durationNanos
+            ThreadLocalRandom random = ThreadLocalRandom.current()
+            List<StoredMessage> out = new ArrayList<>(PAGE)
+            while (System.nanoTime() < end) {
+                out.clear()
+                long before = segment.firstSequence + PAGE + random.nextInt(messages - PAGE)
+                segment.read(before, PAGE, out)
+                assert out.size() == PAGE && out[0].messageSequence() == before - 1
+                pages++
+            }
+            return pages
+        }
+
+        static long archive(MessageArchive archive, ChannelId channelId, int messages, long durationNanos) {
+            long pages = 0
+            long end = System.nanoTime() + durationNanos
+            ThreadLocalRandom random = ThreadLocalRandom.current()
+            while (System.nanoTime() < end) {
+                long before = PAGE + 1 + random.nextInt(messages - PAGE)
+                List<StoredMessage> page = archive.findByChannelId(channelId, before, PAGE)
+                assert page.size() == PAGE && page[0].messageSequence() == before - 1
+                pages++
+            }
+            return pages
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.chatting.backend.archive
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.StoredMessage
+import com.chatting.backend.dto.domain.UserId
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * 메시지 보관소(세그먼트 파일) 테스트 코드
+ */
+class MessageArchiveSpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    ChannelId channelId = new ChannelId(42)
+
+    def "세그먼트는 여러 block으로 압축해서 쓰고, cursor 앞에서부터 최신순으로 block을 넘나들며 읽는다."() {
+        given:
+        def messages = messages(1000, 1, 2)
+        def path = directory.resolve("segment.seg")
+        MessageSegment.write(path, channelId, messages, 1024)
+
+        when:
+        def segment = MessageSegment.open(path)
+
+        then:
+        segment.channelId == channelId
+        segment.firstSequence == 1
+        segment.lastSequence == 1999
+        segment.messageCount == 1000
+        segment.blockCount > 10
+        Files.size(path) < messages.sum { it.content().bytes.length } / 2
+
+        and:
+        read(segment, Long.MAX_VALUE, 3) == messages.reverse().take(3)
+        read(segment, 1001, 200) == messages.findAll { it.messageSequence() < 1001 }.reverse().take(200)
+        read(segment, 2, 10)*.messageSequence() == [1L]
+        read(segment, 1, 10).isEmpty()
+        read(segment, Long.MAX_VALUE, 2000) == messages.reverse()
+    }
+
+    def "순서가 틀리거나 다른 채널의 메시지가 섞이면 쓰지 않는다."() {
+        when:
+        MessageSegment.write(directory.resolve("bad.seg"), channelId, [message(2), message(1)], 1024)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "보관소는 채널의 세그먼트들을 이어서 읽고, 마지막으로 보관한 sequence를 파일 이름으로 안다."() {
+        given:
+        def archive = new MessageArchive(directory, 1024, 2)
+        def first = messages(300, 1, 1)
+        def second = messages(300, 301, 1)
+        def third = messages(300, 601, 1)
+
+        expect:
+        archive.lastArchivedSequence(channelId) == 0
+        archive.findByChannelId(channelId, Long.MAX_VALUE, 10).isEmpty()
+
+        when:
+        [first, second, third].each { archive.write(channelId, it) }
+
+        then:
+        archive.lastArchivedSequence(channelId) == 900
+        archive.findByChannelId(new ChannelId(7), Long.MAX_VALUE, 10).isEmpty()
+        Files.list(directory.resolve("42")).withCloseable { files -> files.count() } == 3
+
+        and: "세그먼트 경계를 넘는 페이지"
+        archive.findByChannelId(channelId, 651, 100)*.messageSequence() == (650L..551L).toList()
+        archive.findByChannelId(channelId, 320, 50)*.messageSequence() == (319L..270L).toList()
+        archive.findByChannelId(channelId, Long.MAX_VALUE, 1000)*.messageSequence() == (900L..1L).toList()
+        archive.findByChannelId(channelId, 1, 10).isEmpty()
+    }
+
+    private static List<StoredMessage> read(MessageSegment segment, long before, int limit) {
+        List<StoredMessage> out = []
+        segment.read(before, limit, out)
+        return out
+    }
+
+    private List<StoredMessage> messages(int count, long start, long step) {
+        return (0..<count).collect { message(start + it * step) }
+    }
+
+    private StoredMessage message(long sequence) {
+        return new StoredMessage(sequence, channelId, new UserId(sequence % 5), "메시지 $sequence 안녕하세요 hello " * 3)
+    }
+}
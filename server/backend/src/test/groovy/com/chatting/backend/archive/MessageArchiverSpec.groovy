@@ -0,0 +1,191 @@
+package com.chatting.backend.archive
+
+import com.chatting.backend.cache.MessageHistoryCache
+import com.chatting.backend.constant.MessageShardState
+import com.chatting.backend.constant.ResultType
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.StoredMessage
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.entity.MessageShardEntity
+import com.chatting.backend.id.SnowflakeIdGenerator
+import com.chatting.backend.membership.MemberBitmap
+import com.chatting.backend.repository.MessageShardRepository
+import com.chatting.backend.service.ChannelService
+import com.chatting.backend.service.MessageService
+import com.chatting.backend.shard.ShardedMessageStore
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.data.redis.core.ValueOperations
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import javax.sql.DataSource
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+/**
+ * 오래된 메시지 보관(MySQL → 세그먼트 파일)과 이어 읽기 테스트 코드
+ *
+ * 샤드 두 개를 이름이 다른 H2 메모리 DB(MySQL 모드)로 띄운다.
+ */
+class MessageArchiverSpec extends Specification {
+
+    static final long DAY_MILLIS = 24 * 60 * 60 * 1000L
+    static int databaseNumber = 0
+
+    @TempDir
+    Path directory
+
+    Map<String, MessageShardEntity> registered = [:]
+    MessageShardRepository messageShardRepository = Stub() {
+        count() >> { registered.size() as long }
+        findAll() >> { registered.values().toList() }
+        saveAll(_) >> { args -> args[0].each { registered[it.name] = it }; args[0].toList() }
+    }
+    ChannelService channelService = Stub() {
+        getMembers(_) >> MemberBitmap.of([1L] as long[])
+    }
+    Map<String, DataSource> dataSources = (0..1).collectEntries { ["shard-$it" as String, database()] }
+    ShardedMessageStore store = new ShardedMessageStore(messageShardRepository, dataSources, 128, 1000, 60_000)
+    //lease: 다른 노드가 잡고 있지 않고, 갱신도 성공한다 (기본)
+    ValueOperations<String, String> valueOperations = Stub() {
+        setIfAbsent(*_) >> true
+    }
+    StringRedisTemplate stringRedisTemplate = Mock() {
+        opsForValue() >> valueOperations
+        execute(*_) >> 1L
+    }
+    MessageArchive archive
+    MessageArchiver archiver
+    MessageService messageService
+
+    ChannelId channelId = new ChannelId(1)
+    long now = System.currentTimeMillis()
+
+    def setup() {
+        store.start()
+        archive = new MessageArchive(directory, 1024, 4)
+        archiver = new MessageArchiver(store, archive, stringRedisTemplate, true, 60_000, 30 * DAY_MILLIS, 100, 30, { now })
+        messageService = new MessageService(channelService, store, archive, new MessageHistoryCache(100, Duration.ofMinutes(1)), null, null, null, null, null)
+    }
+
+    def cleanup() {
+        store.shutdown()
+    }
+
+    def "archive-after보다 오래된 메시지만 세그먼트로 옮기고, 기록 조회는 MySQL과 보관소를 이어서 읽는다."() {
+        given:
+        List<Long> old = write(channelId, now - 40 * DAY_MILLIS, 250)
+        List<Long> recent = write(channelId, now - DAY_MILLIS, 20)
+        List<Long> otherChannel = write(new ChannelId(2), now - 35 * DAY_MILLIS, 10)
+
+        when:
+        archiver.archive()
+
+        then:
+        count(channelId) == 20
+        count(new ChannelId(2)) == 0
+        archive.lastArchivedSequence(channelId) == old[-1]
+        archive.lastArchivedSequence(new ChannelId(2)) == otherChannel[-1]
+        segmentFiles(channelId) == 3
+
+        and: "클라이언트가 보는 페이지는 옮기기 전과 같다"
+        readAll(channelId, 50) == (old + recent).reverse()
+        readAll(channelId, 7) == (old + recent).reverse()
+
+        and: "캐시된 페이지로 다시 읽어도 같다"
+        readAll(channelId, 50) == (old + recent).reverse()
+    }
+
+    def "세그먼트를 쓰고 지우기 전에 멈췄어도, 다시 돌리면 세그먼트를 더 쓰지 않고 지우기만 한다."() {
+        given:
+        List<Long> old = write(channelId, now - 40 * DAY_MILLIS, 150)
+        archiver.archive()
+        //지우기 전에 멈춘 상태: 마지막 세그먼트의 메시지가 MySQL에도 남아 있다.
+        old.drop(100).each { store.append(new StoredMessage(it, channelId, new UserId(1), "m$it")) }
+
+        expect: "겹쳐 있는 동안에도 중복 없이 읽는다"
+        count(channelId) == 50
+        readAll(channelId, 40) == old.reverse()
+
+        when:
+        archiver.archive()
+
+        then:
+        count(channelId) == 0
+        segmentFiles(channelId) == 2
+        readAll(channelId, 40) == old.reverse()
+    }
+
+    def "다른 노드가 lease를 잡고 있으면 옮기지 않는다."() {
+        given:
+        write(channelId, now - 40 * DAY_MILLIS, 50)
+
+        when:
+        archiver.archive()
+
+        then:
+        stringRedisTemplate.opsForValue() >> Stub(ValueOperations) {
+            setIfAbsent(*_) >> false
+        }
+        0 * stringRedisTemplate.execute(*_)
+        count(channelId) == 50
+        !Files.exists(directory.resolve(Long.toString(channelId.id())))
+    }
+
+    def "옮기는 도중 lease를 잃으면(갱신 실패) 다음 채널부터는 옮기지 않고, 임시 파일을 남기지 않는다."() {
+        given:
+        write(channelId, now - 40 * DAY_MILLIS, 50)
+        write(new ChannelId(2), now - 40 * DAY_MILLIS, 50)
+
+        when:
+        archiver.archive()
+
+        then: "첫 채널은 갱신에 성공하고 두 번째 채널에서 실패한다"
+        2 * stringRedisTemplate.execute({ it.scriptAsString.contains('PEXPIRE') }, *_) >>> [1L, 0L]
+        1 * stringRedisTemplate.execute({ it.scriptAsString.contains('DEL') }, *_) >> 0L
+        count(channelId) + count(new ChannelId(2)) == 50
+        Files.walk(directory).withCloseable { files -> files.noneMatch { it.toString().endsWith(".tmp") } }
+    }
+
+    //cursor를 넘겨 가며 끝까지 읽은 sequence (최신순)
+    private List<Long> readAll(ChannelId channel, int limit) {
+        List<Long> sequences = []
+        Long cursor = null
+        while (true) {
+            def result = messageService.getMessages(new UserId(1), channel, cursor, limit)
+            assert result.getSecond() == ResultType.SUCCESS
+            def page = result.getFirst().get()
+            sequences.addAll(page*.messageSequence())
+            if (page.size() < limit) {
+                return sequences
+            }
+            cursor = page[-1].messageSequence()
+        }
+    }
+
+    //startMillis부터 1ms 간격으로 count개를 쓴 sequence (오름차순)
+    private List<Long> write(ChannelId channel, long startMillis, int count) {
+        return (0..<count).collect {
+            long sequence = SnowflakeIdGenerator.firstIdAt(startMillis + it) | 1L << 12
+            store.append(new StoredMessage(sequence, channel, new UserId(1), "m$sequence"))
+            sequence
+        }
+    }
+
+    private long count(ChannelId channel) {
+        return dataSources.values().sum { dataSource ->
+            new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM channel_message WHERE channel_id = ?", Long, channel.id())
+        } as long
+    }
+
+    private long segmentFiles(ChannelId channel) {
+        return Files.list(directory.resolve(Long.toString(channel.id()))).withCloseable { files -> files.count() }
+    }
+
+    private static DataSource database() {
+        return new DriverManagerDataSource("jdbc:h2:mem:message-archive-${databaseNumber++};MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")
+    }
+}
@@ -0,0 +1,101 @@
+package com.chatting.backend.auth
+
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.http.server.ServerHttpRequest
+import org.springframework.http.server.ServerHttpResponse
+import org.springframework.web.socket.WebSocketHandler
+import spock.lang.Specification
+
+/**
+ * 핸드셰이크 입장 제어 테스트 코드
+ */
+class HandshakeAdmissionInterceptorSpec extends Specification {
+
+    long now = 0L
+    ServerHttpRequest request = Stub()
+    WebSocketHandler wsHandler = Stub()
+
+    def "토큰 버킷이 비면 503 + Retry-After로 거절하고, 시간이 지나면 다시 허용한다."() {
+        given:
+        def interceptor = new HandshakeAdmissionInterceptor(10, 1, 2, 1, { now })
+        def headers = new HttpHeaders()
+        ServerHttpResponse response = Mock()
+        response.getHeaders() >> headers
+
+        expect: "burst(2)만큼은 허용"
+        admit(interceptor, Stub(ServerHttpResponse))
+        admit(interceptor, Stub(ServerHttpResponse))
+
+        when: "토큰이 바닥난 상태에서 한 번 더 요청"
+        def admitted = interceptor.beforeHandshake(request, response, wsHandler, [:])
+
+        then:
+        !admitted
+        1 * response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE)
+        headers.getFirst(HttpHeaders.RETRY_AFTER) == "1"
+
+        when: "1초가 지나 토큰 하나가 찬다"
+        now += 1_000_000_000L
+
+        then:
+        admit(interceptor, Stub(ServerHttpResponse))
+    }
+
+    def "동시 핸드셰이크 개수를 넘으면 거절하고, afterHandshake에서 permit을 반납한다."() {
+        given:
+        def interceptor = new HandshakeAdmissionInterceptor(1, 100, 100, 3, { now })
+        def headers = new HttpHeaders()
+        ServerHttpResponse rejected = Stub()
+        rejected.getHeaders() >> headers
+
+        expect:
+        admit(interceptor, Stub(ServerHttpResponse))
+        !interceptor.beforeHandshake(request, rejected, wsHandler, [:])
+        headers.getFirst(HttpHeaders.RETRY_AFTER) == "3"
+
+        when:
+        interceptor.afterHandshake(request, Stub(ServerHttpResponse), wsHandler, null)
+
+        then:
+        interceptor.getAvailablePermits() == 1
+        admit(interceptor, Stub(ServerHttpResponse))
+    }
+
+    def "rate limit으로 거절되면 동시 핸드셰이크 permit을 잡고 있지 않는다."() {
+        given:
+        def interceptor = new HandshakeAdmissionInterceptor(5, 1, 1, 1, { now })
+        ServerHttpResponse response = Stub()
+        response.getHeaders() >> new HttpHeaders()
+
+        when:
+        interceptor.beforeHandshake(request, response, wsHandler, [:])
+        interceptor.beforeHandshake(request, response, wsHandler, [:])
+
+        then: "첫 번째만 permit 보유 중"
+        interceptor.getAvailablePermits() == 4
+    }
+
+    def "drain이 시작되면 토큰과 permit이 남아 있어도 drain 재접속 대기시간으로 거절한다."() {
+        given:
+        def interceptor = new HandshakeAdmissionInterceptor(5, 100, 100, 1, { now })
+        def headers = new HttpHeaders()
+        ServerHttpResponse response = Mock()
+        response.getHeaders() >> headers
+
+        when:
+        interceptor.startDraining(10)
+        def admitted = interceptor.beforeHandshake(request, response, wsHandler, [:])
+
+        then:
+        !admitted
+        interceptor.isDraining()
+        1 * response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE)
+        headers.getFirst(HttpHeaders.RETRY_AFTER) == "10"
+        interceptor.getAvailablePermits() == 5
+    }
+
+    private boolean admit(HandshakeAdmissionInterceptor interceptor, ServerHttpResponse response) {
+        interceptor.beforeHandshake(request, response, wsHandler, [:])
+    }
+}
@@ -0,0 +1,125 @@
+package com.chatting.backend.cache
+
+import com.chatting.backend.dto.domain.Channel
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.UserId
+import spock.lang.Specification
+
+/**
+ * 사용자별 채팅방 목록 스냅샷 테스트 코드
+ */
+class ChannelListCacheSpec extends Specification {
+
+    long now = 1_000_000
+    ChannelListCache cache = new ChannelListCache(60_000, { now })
+
+    def "처음 조회할 때만 DB에서 읽고, 이후에는 같은 버전의 스냅샷을 돌려준다."() {
+        given:
+        int loads = 0
+        def loader = { loads++; [channel(1, 2)] }
+
+        when:
+        def first = cache.get(new UserId(1), loader)
+        def second = cache.get(new UserId(1), loader)
+
+        then:
+        loads == 1
+        first.version() == second.version()
+        second.channels() == [channel(1, 2)]
+        cache.getHitCount() == 1
+        cache.getMissCount() == 1
+    }
+
+    def "추가/인원 변경/삭제는 이전 버전과 새 버전을 돌려주고, 버전은 계속 커진다."() {
+        given:
+        def snapshot = cache.get(new UserId(1), { [channel(1, 2)] })
+
+        when:
+        def added = cache.added(new UserId(1), channel(2, 3)).get()
+        def updated = cache.updated(new UserId(1), channel(1, 5)).get()
+        def removed = cache.removed(new UserId(1), new ChannelId(2)).get()
+        def current = cache.get(new UserId(1), { throw new IllegalStateException("should not load") })
+
+        then:
+        added.previousVersion() == snapshot.version()
+        updated.previousVersion() == added.version()
+        removed.previousVersion() == updated.version()
+        snapshot.version() < added.version() && added.version() < updated.version() && updated.version() < removed.version()
+        current.version() == removed.version()
+        current.channels()*.headCount() == [5]
+        current.channels()*.channelId() == [new ChannelId(1)]
+    }
+
+    def "스냅샷이 없는 사용자는 변경분을 만들지 않고, 다음 조회 때 DB에서 읽는다."() {
+        expect:
+        cache.added(new UserId(1), channel(1, 2)).isEmpty()
+
+        when:
+        cache.get(new UserId(1), { [channel(1, 2)] })
+        cache.evict(new UserId(1))
+
+        then:
+        cache.updated(new UserId(1), channel(1, 3)).isEmpty()
+        cache.get(new UserId(1), { [channel(1, 3)] }).channels()*.headCount() == [3]
+    }
+
+    def "DB를 읽는 사이에 목록이 바뀌면 읽은 값을 캐시하지 않는다."() {
+        given:
+        def loader = {
+            cache.added(new UserId(1), channel(9, 2))   //읽는 도중 다른 트랜잭션이 커밋됨
+            [channel(1, 2)]
+        }
+
+        when:
+        cache.get(new UserId(1), loader)
+        def reloaded = cache.get(new UserId(1), { [channel(1, 2), channel(9, 2)] })
+
+        then:
+        reloaded.channels()*.channelId() == [new ChannelId(1), new ChannelId(9)]
+        cache.getMissCount() == 2
+    }
+
+    def "DB 읽기가 끝나고 캐시에 넣기 직전에 바뀐 목록도 캐시에 남기지 않는다."() {
+        given: "첫 비교는 통과하고, 넣기 직전에 다른 스레드가 변경을 커밋한다 (스냅샷이 없어서 변경분은 건너뛴다)"
+        int checks = 0
+        def racingCache = new ChannelListCache(60_000, {
+            if (++checks == 2) {
+                racingCacheRef.added(new UserId(1), channel(9, 2))
+            }
+            now
+        })
+        racingCacheRef = racingCache
+
+        when:
+        racingCache.get(new UserId(1), { [channel(1, 2)] })
+        def reloaded = racingCache.get(new UserId(1), { [channel(1, 2), channel(9, 2)] })
+
+        then:
+        reloaded.channels()*.channelId() == [new ChannelId(1), new ChannelId(9)]
+    }
+
+    def "다른 노드의 변경으로 버린 스냅샷과 snapshot-ttl이 지난 스냅샷은 다시 읽는다."() {
+        given:
+        cache.get(new UserId(1), { [channel(1, 2)] })
+
+        when:
+        cache.invalidate(new UserId(1))
+
+        then:
+        cache.get(new UserId(1), { [channel(1, 3)] }).channels()*.headCount() == [3]
+
+        when: "변경분을 반영해도 만료 시각은 늘지 않는다"
+        cache.updated(new UserId(1), channel(1, 4))
+        now += 60_000
+
+        then:
+        cache.get(new UserId(1), { [channel(1, 5)] }).channels()*.headCount() == [5]
+        cache.getMissCount() == 3
+    }
+
+    private ChannelListCache racingCacheRef
+
+    private static Channel channel(long channelId, int headCount) {
+        return new Channel(new ChannelId(channelId), "channel" + channelId, headCount)
+    }
+}
@@ -0,0 +1,173 @@
+package com.chatting.backend.cache
+
+import com.chatting.backend.constant.ResultType
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.id.SnowflakeIdGenerator
+import com.chatting.backend.membership.MemberBitmap
+import com.chatting.backend.search.MessageSearchIndex
+import com.chatting.backend.service.ChannelService
+import com.chatting.backend.service.InboxService
+import com.chatting.backend.service.MessageService
+import com.chatting.backend.shard.ShardedMessageStore
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.data.redis.core.ValueOperations
+import org.springframework.data.util.Pair
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.LongConsumer
+
+/**
+ * 클라이언트 메시지 id 중복 저장 방지 창 테스트 코드
+ */
+class ClientMessageIdCacheSpec extends Specification {
+
+    static final long WINDOW = 60_000
+
+    //노드 여러 개가 같이 쓰는 Redis 대신 key → (값, 만료 시각) map
+    long now = 1_000_000
+    Map<String, List> redis = [:]
+    ValueOperations<String, String> valueOperations = Stub() {
+        setIfPresent(_ as String, _ as String, _ as Duration) >> { String key, String value, Duration ttl ->
+            if (get(key) == null) {
+                return false
+            }
+            redis[key] = [value, now + ttl.toMillis()]
+            return true
+        }
+    }
+    StringRedisTemplate stringRedisTemplate = Stub() {
+        opsForValue() >> valueOperations
+        execute(ClientMessageIdCache.RESERVE_SCRIPT, _ as List, *_) >> { args ->
+            String key = (args[1] as List)[0]
+            String current = get(key)
+            if (current != null) {
+                return current
+            }
+            redis[key] = [args[2][0], now + Long.parseLong(args[2][1] as String)]
+            return null
+        }
+        delete(_ as String) >> { String key -> redis.remove(key) != null }
+    }
+    ClientMessageIdCache cache = new ClientMessageIdCache(stringRedisTemplate, WINDOW)
+    UserId sender = new UserId(1)
+
+    def "처음 보는 id는 자리를 잡고, 저장이 끝나면 창 안의 재시도는 다른 노드로 와도 같은 sequence를 받는다."() {
+        given:
+        def otherNode = new ClientMessageIdCache(stringRedisTemplate, WINDOW)
+
+        expect:
+        cache.reserve(sender, "a").isEmpty()
+        otherNode.reserve(sender, "a") == Optional.of(ClientMessageIdCache.IN_PROGRESS)
+
+        when:
+        cache.complete(sender, "a", 42)
+
+        then:
+        otherNode.reserve(sender, "a") == Optional.of(42L)
+        otherNode.reserve(new UserId(2), "a").isEmpty()
+    }
+
+    def "저장이 실패해서 자리를 비우면 재시도가 다시 저장한다."() {
+        given:
+        cache.reserve(sender, "a")
+
+        when:
+        cache.release(sender, "a")
+
+        then:
+        cache.reserve(sender, "a").isEmpty()
+    }
+
+    def "창이 지난 id는 잊고, 창이 지난 뒤의 complete는 자리를 다시 만들지 않는다."() {
+        given:
+        cache.reserve(sender, "a")
+        cache.complete(sender, "a", 7)
+        cache.reserve(sender, "b")
+
+        when:
+        now += WINDOW
+        cache.complete(sender, "b", 8)
+
+        then:
+        cache.reserve(sender, "a").isEmpty()
+        redis["message:dedup:1:b"] == null
+    }
+
+    def "Redis에 접근하지 못하면 중복 확인 없이 저장하게 한다."() {
+        given:
+        StringRedisTemplate broken = Stub() {
+            execute(*_) >> { throw new IllegalStateException("redis down") }
+            opsForValue() >> { throw new IllegalStateException("redis down") }
+            delete(_ as String) >> { throw new IllegalStateException("redis down") }
+        }
+        def unavailable = new ClientMessageIdCache(broken, WINDOW)
+
+        when:
+        def reserved = unavailable.reserve(sender, "a")
+        unavailable.complete(sender, "a", 1)
+        unavailable.release(sender, "a")
+
+        then:
+        noExceptionThrown()
+        reserved.isEmpty()
+    }
+
+    def "같은 clientMessageId로 다시 보낸 메시지는 한 번만 저장하고 전송하며, 처음 저장한 sequence로 응답한다."() {
+        given:
+        ChannelService channelService = Stub() {
+            getMembers(_) >> MemberBitmap.of([1L, 2L] as long[])
+            getViewers(_) >> MemberBitmap.of([] as long[])
+        }
+        ShardedMessageStore store = Mock()
+        MessageSearchIndex searchIndex = Mock()
+        SnowflakeIdGenerator idGenerator = Stub() {
+            nextId() >>> [100L, 200L]
+        }
+        def messageService = new MessageService(channelService, store, null, null, searchIndex, cache, null, Stub(InboxService), idGenerator)
+        int senders = 0
+        def factory = { long sequence -> senders++; { long participantId -> } as LongConsumer }
+
+        when:
+        def first = messageService.sendMessage(sender, "user1", "client-1", "안녕", new ChannelId(1), factory)
+        def retry = messageService.sendMessage(sender, "user1", "client-1", "안녕", new ChannelId(1), factory)
+        def other = messageService.sendMessage(sender, "user1", "client-2", "안녕", new ChannelId(1), factory)
+
+        then:
+        2 * store.append(_)
+        2 * searchIndex.add(_, "user1")
+        senders == 2
+        first == Pair.of(Optional.of(100L), ResultType.SUCCESS)
+        retry == first
+        other.getFirst() == Optional.of(200L)
+    }
+
+    def "저장 중인 같은 id의 재시도는 DUPLICATE, 너무 긴 id는 INVALID_ARGS로 저장하지 않는다."() {
+        given:
+        ChannelService channelService = Stub() {
+            getMembers(_) >> MemberBitmap.of([1L] as long[])
+        }
+        ShardedMessageStore store = Mock()
+        def messageService = new MessageService(channelService, store, null, null, null, cache, null, null, null)
+        cache.reserve(sender, "in-flight")
+
+        when:
+        def duplicate = messageService.sendMessage(sender, "user1", "in-flight", "안녕", new ChannelId(1), { null })
+        def invalid = messageService.sendMessage(sender, "user1", "x" * 65, "안녕", new ChannelId(1), { null })
+
+        then:
+        0 * store.append(_)
+        duplicate.getSecond() == ResultType.DUPLICATE
+        invalid.getSecond() == ResultType.INVALID_ARGS
+    }
+
+    private String get(String key) {
+        List entry = redis[key]
+        if (entry == null || (entry[1] as long) <= now) {
+            redis.remove(key)
+            return null
+        }
+        return entry[0]
+    }
+}
@@ -0,0 +1,159 @@
+package com.chatting.backend.cache
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.InviteCode
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.dto.projection.IdInviteCodeProjection
+import com.chatting.backend.repository.ChannelRepository
+import com.chatting.backend.repository.UserRepository
+import org.springframework.data.domain.Limit
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.data.redis.core.ZSetOperations
+import spock.lang.Specification
+
+/**
+ * 초대코드 해석 캐시(positive LRU + Bloom filter) 테스트 코드
+ *
+ * Redis의 "최근 만든 코드" zset은 모든 노드가 함께 쓰는 map으로 흉내 낸다.
+ */
+class InviteCodeCacheSpec extends Specification {
+
+    UserRepository userRepository = Mock()
+    ChannelRepository channelRepository = Mock()
+
+    long now = 1_000_000
+    Map<String, Map<String, Double>> recent = [:].withDefault { [:] }
+    ZSetOperations<String, String> zSetOperations = Stub() {
+        add(_, _, _) >> { String key, String code, double score -> recent[key][code] = score; true }
+        score(_, _) >> { String key, String code -> recent[key][code] }
+    }
+    StringRedisTemplate stringRedisTemplate = Stub() {
+        opsForZSet() >> zSetOperations
+    }
+
+    def "필터를 재구축한 뒤에는 없는 초대코드를 DB 조회 없이 거절한다."() {
+        given:
+        def cache = newCache(2)
+        userRepository.count() >> 3
+        userRepository.findInviteCodes(0L, Limit.of(2)) >> [row(1, 'code1'), row(2, 'code2')]
+        userRepository.findInviteCodes(2L, Limit.of(2)) >> [row(3, 'code3')]
+        cache.rebuild()
+
+        when:
+        def result = cache.resolveUser(new InviteCode('no-such-code'))
+
+        then:
+        0 * userRepository.findUserIdByInviteCode(_)
+        result.isEmpty()
+        cache.getStats()[0].rejectCount() == 1
+        cache.getStats()[0].filterEntries() == 3
+    }
+
+    def "있는 초대코드는 처음 한 번만 DB에서 읽고 이후에는 positive 캐시에서 찾는다."() {
+        given:
+        def cache = newCache(100)
+        channelRepository.count() >> 1
+        channelRepository.findInviteCodes(0L, Limit.of(100)) >> [row(7, 'channel7')]
+        cache.rebuild()
+
+        when:
+        def first = cache.resolveChannel(new InviteCode('channel7'))
+        def second = cache.resolveChannel(new InviteCode('channel7'))
+
+        then:
+        1 * channelRepository.findChannelIdByInviteCode('channel7') >> Optional.of(7L)
+        first == Optional.of(new ChannelId(7))
+        second == Optional.of(new ChannelId(7))
+        cache.getStats()[1].hitCount() == 1
+        cache.getStats()[1].missCount() == 1
+    }
+
+    def "재구축 이후에 만들어진 코드도 다음 재구축을 기다리지 않고 찾을 수 있다."() {
+        given:
+        def cache = newCache(100)
+        userRepository.findInviteCodes(_ as Long, _ as Limit) >> []
+        cache.rebuild()
+
+        when: "트랜잭션 밖에서 호출하면 바로 반영된다."
+        cache.userCreated(new InviteCode('new-user'), new UserId(10))
+
+        then:
+        cache.resolveUser(new InviteCode('new-user')) == Optional.of(new UserId(10))
+
+        when: "탈퇴하면 positive 캐시에서 빠지고, 필터는 통과하지만 DB에 없으므로 false positive로 집계된다."
+        cache.userRemoved(new InviteCode('new-user'))
+        def removed = cache.resolveUser(new InviteCode('new-user'))
+
+        then:
+        1 * userRepository.findUserIdByInviteCode('new-user') >> Optional.empty()
+        removed.isEmpty()
+        cache.getStats()[0].falsePositiveCount() == 1
+    }
+
+    def "다른 노드에서 만든 코드는 이 노드의 필터에 없어도 Redis에서 확인하고 DB에서 찾는다."() {
+        given:
+        def cache = newCache(100)
+        def otherNode = newCache(100)
+        userRepository.findInviteCodes(_ as Long, _ as Limit) >> []
+        cache.rebuild()
+
+        when:
+        otherNode.userCreated(new InviteCode('other-node-user'), new UserId(20))
+        def created = cache.resolveUser(new InviteCode('other-node-user'))
+        def unknown = cache.resolveUser(new InviteCode('unknown'))
+
+        then:
+        1 * userRepository.findUserIdByInviteCode('other-node-user') >> Optional.of(20L)
+        0 * userRepository.findUserIdByInviteCode('unknown')
+        created == Optional.of(new UserId(20))
+        unknown.isEmpty()
+    }
+
+    def "필터가 recent-retention의 절반보다 오래되면(재구축 실패) 필터를 쓰지 않고 DB로 간다."() {
+        given:
+        def cache = newCache(100)
+        userRepository.findInviteCodes(_ as Long, _ as Limit) >> []
+        cache.rebuild()
+
+        when:
+        now += 31 * 60 * 1000
+        def result = cache.resolveUser(new InviteCode('unknown'))
+
+        then:
+        1 * userRepository.findUserIdByInviteCode('unknown') >> Optional.empty()
+        result.isEmpty()
+    }
+
+    def "재구축 전에는 필터가 없으므로 모든 조회가 DB로 간다."() {
+        given:
+        def cache = newCache(100)
+
+        when:
+        def result = cache.resolveUser(new InviteCode('unknown'))
+
+        then:
+        1 * userRepository.findUserIdByInviteCode('unknown') >> Optional.empty()
+        result.isEmpty()
+        cache.getStats()[0].falsePositiveCount() == 0
+    }
+
+    def "Bloom filter의 false positive 비율은 설정값(1%) 근처다."() {
+        given:
+        def filter = new BloomFilter(10_000, 0.01)
+        (0..<10_000).each { filter.put(UUID.randomUUID().toString().replace('-', '')) }
+
+        when:
+        def falsePositives = (0..<100_000).count { filter.mightContain(UUID.randomUUID().toString().replace('-', '')) }
+
+        then:
+        falsePositives / 100_000 < 0.02
+    }
+
+    private InviteCodeCache newCache(int pageSize) {
+        return new InviteCodeCache(userRepository, channelRepository, stringRedisTemplate, 100, 0.01, pageSize, 60 * 60 * 1000, { now })
+    }
+
+    private static IdInviteCodeProjection row(long id, String inviteCode) {
+        return [getId: { id }, getInviteCode: { inviteCode }] as IdInviteCodeProjection
+    }
+}
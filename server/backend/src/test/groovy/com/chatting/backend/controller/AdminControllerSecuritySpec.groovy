@@ -0,0 +1,85 @@
+package com.chatting.backend.controller
+
+import com.chatting.backend.auth.MessageUserDetails
+import com.chatting.backend.cache.InviteCodeCache
+import com.chatting.backend.config.SecurityConfig
+import com.chatting.backend.service.CacheStatisticsService
+import com.chatting.backend.session.NodeDrainManager
+import com.chatting.backend.shard.ShardedMessageStore
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
+import org.springframework.context.annotation.Import
+import org.springframework.security.core.userdetails.UserDetailsService
+import org.springframework.test.web.servlet.MockMvc
+import spock.lang.Specification
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+/**
+ * 운영 API 접근 권한 테스트 코드 (로그인만 한 일반 사용자는 403, 관리자만 호출 가능)
+ */
+@WebMvcTest(controllers = AdminController)
+@Import(SecurityConfig)
+class AdminControllerSecuritySpec extends Specification {
+
+    static final MessageUserDetails USER = new MessageUserDetails(1, "user", "", false)
+    static final MessageUserDetails ADMIN = new MessageUserDetails(2, "admin", "", true)
+
+    @Autowired
+    MockMvc mockMvc
+
+    @SpringBean
+    UserDetailsService userDetailsService = Stub()
+
+    @SpringBean
+    CacheStatisticsService cacheStatisticsService = Stub()
+
+    @SpringBean
+    InviteCodeCache inviteCodeCache = Stub()
+
+    @SpringBean
+    NodeDrainManager nodeDrainManager = Mock()
+
+    @SpringBean
+    ShardedMessageStore shardedMessageStore = Mock()
+
+    def "로그인한 일반 사용자는 운영 API를 호출할 수 없고, 관리자만 호출할 수 있다."() {
+        expect:
+        mockMvc.perform(get("/api/v1/admin/cache/stats").with(user(USER))).andExpect(status().isForbidden())
+        mockMvc.perform(get("/api/v1/admin/cache/stats").with(user(ADMIN))).andExpect(status().isOk())
+    }
+
+    def "일반 사용자는 노드를 drain할 수 없다. (한 번 시작하면 되돌릴 수 없으므로 관리자만)"() {
+        when:
+        def result = mockMvc.perform(post("/api/v1/admin/drain").with(user(USER)))
+
+        then:
+        result.andExpect(status().isForbidden())
+        0 * nodeDrainManager.drain()
+
+        when:
+        result = mockMvc.perform(post("/api/v1/admin/drain").with(user(ADMIN)))
+
+        then:
+        result.andExpect(status().isAccepted())
+        1 * nodeDrainManager.drain()
+    }
+
+    def "일반 사용자는 메시지 샤드를 추가(재배치 시작)할 수 없다."() {
+        when:
+        def result = mockMvc.perform(post("/api/v1/admin/message-shards/shard-9").with(user(USER)))
+
+        then:
+        result.andExpect(status().isForbidden())
+        0 * shardedMessageStore.addShard(_)
+    }
+
+    def "로그인하지 않은 요청은 운영 API를 호출할 수 없다."() {
+        expect:
+        mockMvc.perform(get("/api/v1/admin/cache/stats")).andExpect(status().is4xxClientError())
+    }
+}
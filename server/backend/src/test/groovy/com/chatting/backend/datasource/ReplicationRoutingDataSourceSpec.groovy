@@ -0,0 +1,233 @@
+package com.chatting.backend.datasource
+
+import com.chatting.backend.dto.domain.UserId
+import jakarta.persistence.EntityManager
+import org.hibernate.CacheMode
+import org.hibernate.Session
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.DataSourceTransactionManager
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy
+import org.springframework.orm.jpa.EntityManagerHolder
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.sql.SQLException
+import java.util.concurrent.TimeUnit
+
+/**
+ * 읽기/쓰기 DataSource 라우팅 테스트 코드
+ *
+ * MySQL replica 대신 이름이 다른 H2 메모리 DB 두 개를 primary, replica로 쓴다.
+ */
+class ReplicationRoutingDataSourceSpec extends Specification {
+
+    long nanos = 0
+    DataSource primary = database("primary")
+    DataSource replica = database("replica")
+    ReadYourWritesTracker tracker = new ReadYourWritesTracker(TimeUnit.SECONDS.toNanos(1), { nanos })
+
+    def cleanup() {
+        tracker.clear()
+    }
+
+    def "읽기 전용 트랜잭션은 replica로, 쓰기 트랜잭션과 트랜잭션 밖의 조회는 primary로 간다."() {
+        given:
+        def routing = new ReplicationRoutingDataSource(primary, replica, tracker, 10_000, { nanos })
+        def dataSource = new LazyConnectionDataSourceProxy(routing)
+        def jdbcTemplate = new JdbcTemplate(dataSource)
+        def transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+
+        expect:
+        read(transactions, jdbcTemplate) == "replica"
+        transactions.execute { whoAmI(jdbcTemplate) } == "primary"
+        whoAmI(jdbcTemplate) == "primary"
+    }
+
+    def "쓴 사용자의 읽기는 창(sticky-window + replica 지연) 동안 primary로 가고, 다른 사용자는 계속 replica를 읽는다."() {
+        given:
+        def routing = new ReplicationRoutingDataSource(primary, replica, tracker, 10_000, { nanos })
+        def dataSource = new LazyConnectionDataSourceProxy(routing)
+        def jdbcTemplate = new JdbcTemplate(dataSource)
+        def transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+        tracker.replicaLag(500)
+
+        when:
+        tracker.bind(new UserId(1))
+        transactions.execute { jdbcTemplate.update("INSERT INTO writes(user_id) VALUES (1)") }
+
+        then:
+        read(transactions, jdbcTemplate) == "primary"
+
+        when:
+        tracker.bind(new UserId(2))
+
+        then:
+        read(transactions, jdbcTemplate) == "replica"
+
+        when:
+        tracker.bind(new UserId(1))
+        nanos = TimeUnit.MILLISECONDS.toNanos(1_499)
+
+        then:
+        read(transactions, jdbcTemplate) == "primary"
+
+        when:
+        nanos = TimeUnit.MILLISECONDS.toNanos(1_500)
+
+        then:
+        read(transactions, jdbcTemplate) == "replica"
+
+        when:
+        tracker.sweep()
+
+        then:
+        tracker.size() == 0
+    }
+
+    def "롤백된 쓰기는 기록하지 않는다."() {
+        given:
+        def routing = new ReplicationRoutingDataSource(primary, replica, tracker, 10_000, { nanos })
+        def dataSource = new LazyConnectionDataSourceProxy(routing)
+        def jdbcTemplate = new JdbcTemplate(dataSource)
+        def transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+        tracker.bind(new UserId(1))
+
+        when:
+        transactions.execute { status ->
+            jdbcTemplate.update("INSERT INTO writes(user_id) VALUES (1)")
+            status.setRollbackOnly()
+        }
+
+        then:
+        tracker.size() == 0
+        read(transactions, jdbcTemplate) == "replica"
+    }
+
+    def "replica로 간 트랜잭션의 세션은 2차 캐시에 넣지 않고(CacheMode.GET), 트랜잭션이 끝나면 원래대로 돌린다."() {
+        given:
+        def routing = new ReplicationRoutingDataSource(primary, replica, tracker, 10_000, { nanos })
+        def dataSource = new LazyConnectionDataSourceProxy(routing)
+        def jdbcTemplate = new JdbcTemplate(dataSource)
+        def transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+        def readOnly = new TransactionTemplate(transactions.getTransactionManager())
+        readOnly.setReadOnly(true)
+        Session session = Mock() {
+            isOpen() >> true
+        }
+        EntityManager entityManager = Stub() {
+            unwrap(Session) >> session
+        }
+        def key = new Object()
+
+        when:
+        def node = readOnly.execute {
+            TransactionSynchronizationManager.bindResource(key, new EntityManagerHolder(entityManager))
+            try {
+                return whoAmI(jdbcTemplate)
+            } finally {
+                TransactionSynchronizationManager.unbindResource(key)
+            }
+        }
+
+        then:
+        node == "replica"
+        _ * session.getCacheMode() >> CacheMode.NORMAL
+        1 * session.setCacheMode(CacheMode.GET)
+
+        then:
+        1 * session.setCacheMode(CacheMode.NORMAL)
+
+        when: "primary로 간 트랜잭션은 그대로 둔다"
+        transactions.execute {
+            TransactionSynchronizationManager.bindResource(key, new EntityManagerHolder(entityManager))
+            try {
+                return whoAmI(jdbcTemplate)
+            } finally {
+                TransactionSynchronizationManager.unbindResource(key)
+            }
+        }
+
+        then:
+        0 * session.setCacheMode(_)
+    }
+
+    def "replica 커넥션을 얻지 못하면 primary로 보내고, retry-interval 동안은 replica를 시도하지 않는다."() {
+        given:
+        DataSource brokenReplica = Mock()
+        def routing = new ReplicationRoutingDataSource(primary, brokenReplica, tracker, 10_000, { nanos })
+        def dataSource = new LazyConnectionDataSourceProxy(routing)
+        def jdbcTemplate = new JdbcTemplate(dataSource)
+        def transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+
+        when:
+        def first = read(transactions, jdbcTemplate)
+        def second = read(transactions, jdbcTemplate)
+
+        then:
+        1 * brokenReplica.getConnection() >> { throw new SQLException("replica down") }
+        first == "primary"
+        second == "primary"
+
+        when:
+        nanos = TimeUnit.MILLISECONDS.toNanos(10_000)
+        read(transactions, jdbcTemplate)
+
+        then:
+        1 * brokenReplica.getConnection() >> replica.getConnection()
+    }
+
+    def "replica 지연이 max-lag를 넘거나 복제가 멈추면 읽기도 primary로 보내고, 돌아오면 다시 replica를 쓴다."() {
+        given:
+        def routing = new ReplicationRoutingDataSource(primary, replica, tracker, 10_000, { nanos })
+        def dataSource = new LazyConnectionDataSourceProxy(routing)
+        def jdbcTemplate = new JdbcTemplate(dataSource)
+        def transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+        JdbcTemplate replicaJdbcTemplate = Stub()
+        List<Long> lags = [10_000L]
+        replicaJdbcTemplate.query("SHOW REPLICA STATUS", _) >> { lags }
+        def monitor = new ReplicaLagMonitor(replicaJdbcTemplate, routing, tracker, 5_000)
+
+        when:
+        monitor.check()
+
+        then:
+        read(transactions, jdbcTemplate) == "primary"
+
+        when:
+        lags = [null]
+        monitor.check()
+
+        then:
+        read(transactions, jdbcTemplate) == "primary"
+
+        when:
+        lags = []
+        monitor.check()
+
+        then:
+        read(transactions, jdbcTemplate) == "replica"
+    }
+
+    private static DataSource database(String name) {
+        def dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-${name};DB_CLOSE_DELAY=-1", "sa", "")
+        def jdbcTemplate = new JdbcTemplate(dataSource)
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node(name VARCHAR(20))")
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS writes(user_id BIGINT)")
+        jdbcTemplate.update("DELETE FROM node")
+        jdbcTemplate.update("INSERT INTO node(name) VALUES (?)", name)
+        return dataSource
+    }
+
+    private static String read(TransactionTemplate transactions, JdbcTemplate jdbcTemplate) {
+        def readOnly = new TransactionTemplate(transactions.getTransactionManager())
+        readOnly.setReadOnly(true)
+        return readOnly.execute { whoAmI(jdbcTemplate) }
+    }
+
+    private static String whoAmI(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String)
+    }
+}
@@ -3,11 +3,16 @@ package com.chatting.backend.dto
 import com.chatting.backend.dto.websocket.inbound.AcceptRequest
 import com.chatting.backend.dto.websocket.inbound.BaseRequest
 import com.chatting.backend.dto.websocket.inbound.DisconnectRequest
+import com.chatting.backend.dto.websocket.inbound.FetchChannelsListRequest
 import com.chatting.backend.dto.websocket.inbound.FetchConnectionsRequest
+import com.chatting.backend.dto.websocket.inbound.FetchMessagesRequest
 import com.chatting.backend.dto.websocket.inbound.FetchUserInvitecodeRequest
 import com.chatting.backend.dto.websocket.inbound.InviteRequest
 import com.chatting.backend.dto.websocket.inbound.KeepAlive
 import com.chatting.backend.dto.websocket.inbound.RejectRequest
+import com.chatting.backend.dto.websocket.inbound.ResumeRequest
+import com.chatting.backend.dto.websocket.inbound.SearchMessagesRequest
+import com.chatting.backend.dto.websocket.inbound.TypingRequest
 import com.chatting.backend.dto.websocket.inbound.WriteMessage
 import com.chatting.backend.json.JsonUtil
 import com.fasterxml.jackson.databind.ObjectMapper
@@ -31,12 +36,19 @@ class RequestTypeMappingSpec extends Specification {
         where:
         payload                                                             | expectedClass              | validate
         '{"type": "FETCH_USER_INVITECODE_REQUEST"}'                         | FetchUserInvitecodeRequest | { req -> (req as FetchUserInvitecodeRequest).getType() == 'FETCH_USER_INVITECODE_REQUEST' }
-        '{"type": "FETCH_CONNECTIONS_REQUEST", "status": "ACCEPTED"}'       | FetchConnectionsRequest    | { req -> (req as FetchConnectionsRequest).status.name() == 'ACCEPTED' }
+        '{"type": "FETCH_CONNECTIONS_REQUEST", "status": "ACCEPTED"}'       | FetchConnectionsRequest    | { req -> (req as FetchConnectionsRequest).status.name() == 'ACCEPTED' && (req as FetchConnectionsRequest).cursor == null }
+        '{"type": "FETCH_CONNECTIONS_REQUEST", "status": "PENDING", "cursor": 42}' | FetchConnectionsRequest | { req -> (req as FetchConnectionsRequest).status.name() == 'PENDING' && (req as FetchConnectionsRequest).cursor == 42L }
+        '{"type": "FETCH_CHANNELS_LIST_REQUEST", "version": 7}'             | FetchChannelsListRequest   | { req -> (req as FetchChannelsListRequest).version == 7L }
+        '{"type": "FETCH_MESSAGES_REQUEST", "channelId": 3, "cursor": 99}'  | FetchMessagesRequest       | { req -> (req as FetchMessagesRequest).channelId.id() == 3L && (req as FetchMessagesRequest).cursor == 99L }
+        '{"type": "SEARCH_MESSAGES_REQUEST", "query": "회의", "channelId": 3}' | SearchMessagesRequest | { req -> (req as SearchMessagesRequest).query == '회의' && (req as SearchMessagesRequest).channelId.id() == 3L && (req as SearchMessagesRequest).cursor == null }
         '{"type": "INVITE_REQUEST", "userInviteCode": "TestInviteCode123"}' | InviteRequest              | { req -> (req as InviteRequest).userInviteCode.code() == 'TestInviteCode123' }
         '{"type": "ACCEPT_REQUEST", "username": "testuser"}'                | AcceptRequest              | { req -> (req as AcceptRequest).username == 'testuser' }
         '{"type": "DISCONNECT_REQUEST", "username": "testuser"}'            | DisconnectRequest          | { req -> (req as DisconnectRequest).username == 'testuser' }
         '{"type": "REJECT_REQUEST", "username": "testuser"}'                | RejectRequest              | { req -> (req as RejectRequest).username == 'testuser' }
+        '{"type": "RESUME_REQUEST", "lastMessageSequence": 5}'             | ResumeRequest              | { req -> (req as ResumeRequest).lastMessageSequence == 5L }
         '{"type": "WRITE_MESSAGE", "content" : "test message"}'             | WriteMessage               | { req -> (req as WriteMessage).getContent() == 'test message' }
+        '{"type": "WRITE_MESSAGE", "content" : "retry", "clientMessageId": "c-1"}' | WriteMessage          | { req -> (req as WriteMessage).getClientMessageId() == 'c-1' }
+        '{"type": "TYPING", "channelId": 3, "typing": true}'               | TypingRequest              | { req -> (req as TypingRequest).channelId.id() == 3L && (req as TypingRequest).typing }
         '{"type": "KEEP_ALIVE"}'                                            | KeepAlive                  | { req -> (req as KeepAlive).getType() == 'KEEP_ALIVE' }
 
     }
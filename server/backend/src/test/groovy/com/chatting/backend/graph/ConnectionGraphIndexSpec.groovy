@@ -0,0 +1,174 @@
+package com.chatting.backend.graph
+
+import com.chatting.backend.constant.UserConnectionStatus
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.repository.UserConnectionEdgeRepository
+import org.springframework.data.redis.connection.DefaultMessage
+import org.springframework.data.redis.core.StringRedisTemplate
+import spock.lang.Specification
+
+/**
+ * ACCEPTED 연결 메모리 인덱스 테스트 코드
+ */
+class ConnectionGraphIndexSpec extends Specification {
+
+    static final long TTL = 1_000_000
+
+    long now = 0
+    StringRedisTemplate stringRedisTemplate = Mock()
+
+    def "처음 조회할 때만 DB에서 읽고, 중복/모르는 id는 COUNT 쿼리와 같은 결과를 낸다."() {
+        given:
+        UserConnectionEdgeRepository repository = Mock()
+        def index = new ConnectionGraphIndex(repository, stringRedisTemplate, 1_000_000, TTL, { now })
+
+        when:
+        def first = index.countConnected(new UserId(1), ids(2, 3, 3, 9))
+        def second = index.countConnected(new UserId(1), ids(4, 2, 3))
+
+        then:
+        1 * repository.findPartnerUserIds(1L, UserConnectionStatus.ACCEPTED) >> [2L, 3L, 4L]
+        first == 2      //3은 중복, 9는 연결 안됨
+        second == 3
+        index.getStats().hits() == 1
+        index.getStats().misses() == 1
+    }
+
+    def "accept/disconnect는 이미 올라와 있는 두 사용자의 리스트를 DB를 다시 읽지 않고 고친다."() {
+        given:
+        UserConnectionEdgeRepository repository = Mock()
+        repository.findPartnerUserIds(_ as Long, UserConnectionStatus.ACCEPTED) >> []
+        def index = new ConnectionGraphIndex(repository, stringRedisTemplate, 1_000_000, TTL, { now })
+        index.isConnected(new UserId(1), new UserId(2))
+        index.isConnected(new UserId(2), new UserId(1))
+
+        when:
+        index.connected(new UserId(1), new UserId(2))
+
+        then:
+        0 * repository._
+        index.isConnected(new UserId(1), new UserId(2))
+        index.isConnected(new UserId(2), new UserId(1))
+
+        when:
+        index.disconnected(new UserId(2), new UserId(1))
+
+        then:
+        0 * repository._
+        !index.isConnected(new UserId(1), new UserId(2))
+        !index.isConnected(new UserId(2), new UserId(1))
+    }
+
+    def "DB를 읽는 사이에 관계가 바뀌면 읽은 값을 캐시하지 않고 다시 읽는다."() {
+        given:
+        UserConnectionEdgeRepository repository = Stub()
+        def index = new ConnectionGraphIndex(repository, stringRedisTemplate, 1_000_000, TTL, { now })
+        int loads = 0
+        repository.findPartnerUserIds(1L, UserConnectionStatus.ACCEPTED) >> {
+            loads++
+            if (loads == 1) {
+                //1번 로딩이 DB를 읽은 직후 다른 트랜잭션에서 1-5가 커밋되었다.
+                index.connected(new UserId(1), new UserId(5))
+                return [2L]
+            }
+            return [2L, 5L]
+        }
+
+        expect:
+        index.isConnected(new UserId(1), new UserId(5))
+        loads == 2
+    }
+
+    def "메모리 예산을 넘으면 가장 오래 조회되지 않은 사용자부터 비운다."() {
+        given: "사용자당 96 + 8 * 100 = 896 byte, 예산은 약 4명분"
+        UserConnectionEdgeRepository repository = Stub()
+        repository.findPartnerUserIds(_ as Long, UserConnectionStatus.ACCEPTED) >> { Long userId, status -> (1000L..1099L).toList() }
+        def index = new ConnectionGraphIndex(repository, stringRedisTemplate, 896 * 4, TTL, { now })
+
+        when:
+        (1L..4L).each { now++; index.isConnected(new UserId(it), new UserId(1000)) }
+        now++; index.isConnected(new UserId(1), new UserId(1000))    //1번은 다시 조회해서 최근 사용자가 된다.
+        now++; index.isConnected(new UserId(5), new UserId(1000))    //예산 초과 → 예산의 3/4(3명분)까지 비운다.
+
+        then:
+        def stats = index.getStats()
+        stats.usedBytes() <= 896 * 3
+        stats.users() == 3
+        stats.evictions() == 2
+
+        when: "남은 사용자는 1번(최근 조회), 4번, 5번이고 2번, 3번은 다시 읽어야 한다"
+        long missesBefore = index.getStats().misses()
+        [1L, 4L, 5L].each { index.isConnected(new UserId(it), new UserId(1000)) }
+
+        then:
+        index.getStats().misses() == missesBefore
+    }
+
+    def "커밋된 변경은 다른 노드에 알리고, 다른 노드의 알림을 받으면 두 사용자의 리스트를 버리고 DB에서 다시 읽는다."() {
+        given:
+        UserConnectionEdgeRepository repository = Mock()
+        def index = new ConnectionGraphIndex(repository, stringRedisTemplate, 1_000_000, TTL, { now })
+        String published = null
+
+        when:
+        index.isConnected(new UserId(1), new UserId(2))
+        index.disconnected(new UserId(1), new UserId(3))
+
+        then:
+        1 * repository.findPartnerUserIds(1L, UserConnectionStatus.ACCEPTED) >> [2L, 3L]
+        1 * stringRedisTemplate.convertAndSend(ConnectionGraphIndex.CONNECTION_GRAPH_CHANNEL, _ as String) >> { args -> published = args[1]; 1L }
+
+        when: "자기가 보낸 알림은 무시한다"
+        index.onMessage(new DefaultMessage(ConnectionGraphIndex.CONNECTION_GRAPH_CHANNEL.bytes, published.bytes), null)
+
+        then:
+        0 * repository._
+        index.isConnected(new UserId(1), new UserId(2))
+
+        when: "다른 노드에서 1-2가 끊겼다"
+        index.onMessage(new DefaultMessage(ConnectionGraphIndex.CONNECTION_GRAPH_CHANNEL.bytes, "other-node:2:1".bytes), null)
+        def connected = index.isConnected(new UserId(1), new UserId(2))
+
+        then:
+        1 * repository.findPartnerUserIds(1L, UserConnectionStatus.ACCEPTED) >> []
+        !connected
+        index.getStats().usedBytes() == AdjacencySet.of(new long[0]).estimatedBytes()
+    }
+
+    def "다른 노드의 알림을 놓쳤어도 entry-ttl이 지나면 DB에서 다시 읽는다."() {
+        given:
+        UserConnectionEdgeRepository repository = Mock()
+        def index = new ConnectionGraphIndex(repository, stringRedisTemplate, 1_000_000, TTL, { now })
+
+        when:
+        index.isConnected(new UserId(1), new UserId(2))
+        now += TTL - 1
+        index.isConnected(new UserId(1), new UserId(2))
+
+        then:
+        1 * repository.findPartnerUserIds(1L, UserConnectionStatus.ACCEPTED) >> [2L]
+
+        when:
+        now += 1
+        def connected = index.isConnected(new UserId(1), new UserId(2))
+
+        then:
+        1 * repository.findPartnerUserIds(1L, UserConnectionStatus.ACCEPTED) >> []
+        !connected
+    }
+
+    def "AdjacencySet 추가/삭제는 정렬을 유지한다."() {
+        given:
+        def set = AdjacencySet.of([5L, 1L, 3L] as long[])
+
+        expect:
+        set.with(4).with(0).with(3).countIntersection([0L, 1L, 3L, 4L, 5L] as long[]) == 5
+        set.without(3).countIntersection([1L, 3L, 5L] as long[]) == 2
+        set.with(2).size() == 4
+        set.without(7).is(set)
+    }
+
+    private static List<UserId> ids(long... values) {
+        return values.collect { new UserId(it) }
+    }
+}
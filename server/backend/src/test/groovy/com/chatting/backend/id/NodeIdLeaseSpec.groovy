@@ -0,0 +1,112 @@
+package com.chatting.backend.id
+
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.data.redis.core.ValueOperations
+import org.springframework.data.redis.core.script.RedisScript
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Snowflake 노드 id lease 테스트 코드
+ */
+class NodeIdLeaseSpec extends Specification {
+
+    ValueOperations<String, String> valueOperations = Mock()
+    StringRedisTemplate stringRedisTemplate = Mock() {
+        opsForValue() >> valueOperations
+    }
+    long nanos = 0
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(60_000, System::currentTimeMillis, { nanos })
+    NodeIdLease lease = new NodeIdLease(stringRedisTemplate, generator, -1, 10_000, { nanos })
+
+    def "다른 노드가 쓰는 id는 건너뛰고 처음 비어 있는 id를 빌려서, 그 id의 high-water 뒤부터 만든다."() {
+        given:
+        long highWater = System.currentTimeMillis() + 30_000
+        Set<String> taken = []
+
+        when:
+        lease.start()
+
+        then:
+        (1.._) * valueOperations.setIfAbsent(_ as String, _ as String, 10_000, TimeUnit.MILLISECONDS) >> { String key, String token, long ttl, TimeUnit unit ->
+            taken.size() < 3 ? !taken.add(key) : true
+        }
+        1 * valueOperations.get({ it.endsWith(":high-water") }) >> String.valueOf(highWater)
+
+        and:
+        lease.getNodeId() >= 0
+        "message:id:node:${lease.getNodeId()}" as String !in taken
+        SnowflakeIdGenerator.nodeId(generator.nextId()) == lease.getNodeId()
+        SnowflakeIdGenerator.timestampMillis(generator.nextId()) > highWater
+    }
+
+    def "갱신하지 못하면 유효 기간(TTL의 90%)이 지난 뒤 id를 만들지 않고, 다른 노드가 가져갔으면 새 id를 빌린다."() {
+        given:
+        valueOperations.setIfAbsent(*_) >> true
+        lease.start()
+        int first = lease.getNodeId()
+
+        when:
+        lease.renew()
+        nanos = TimeUnit.MILLISECONDS.toNanos(9_000)
+
+        then:
+        1 * stringRedisTemplate.execute(_ as RedisScript, _ as List, *_) >> { throw new IllegalStateException("redis down") }
+
+        when:
+        generator.nextId()
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        lease.renew()
+
+        then:
+        1 * stringRedisTemplate.execute(_ as RedisScript, ["message:id:node:$first" as String, "message:id:node:$first:high-water" as String], *_) >> 0L
+        lease.getNodeId() >= 0
+        generator.nextId() > 0
+    }
+
+    def "종료할 때는 갱신으로 올려 둔 high-water 대신 실제로 쓴 마지막 시각을 남긴다."() {
+        given:
+        valueOperations.setIfAbsent(*_) >> true
+        lease.start()
+        int nodeId = lease.getNodeId()
+        long id = generator.nextId()
+
+        List<String> releaseArgs = null
+
+        when:
+        lease.release()
+
+        then:
+        1 * stringRedisTemplate.execute(NodeIdLease.RELEASE_SCRIPT,
+                ["message:id:node:$nodeId" as String, "message:id:node:$nodeId:high-water" as String], *_) >> { args -> releaseArgs = args[2] as List; 1L }
+        releaseArgs[1] == String.valueOf(SnowflakeIdGenerator.timestampMillis(id))
+        !NodeIdLease.RELEASE_SCRIPT.scriptAsString.contains("tonumber(current)")
+
+        when: "다음에 같은 id를 빌린 노드는 그 시각 뒤에서 바로 id를 만든다"
+        def next = new SnowflakeIdGenerator(5_000, System::currentTimeMillis, { nanos })
+        next.leased(nodeId, SnowflakeIdGenerator.timestampMillis(id), Long.MAX_VALUE)
+
+        then:
+        next.nextId() > 0
+    }
+
+    def "node-id를 설정하면 Redis를 쓰지 않는다."() {
+        given:
+        def fixed = new NodeIdLease(stringRedisTemplate, generator, 5, 10_000, { nanos })
+
+        when:
+        fixed.start()
+        fixed.renew()
+        fixed.release()
+
+        then:
+        0 * stringRedisTemplate._
+        fixed.getNodeId() == 5
+        SnowflakeIdGenerator.nodeId(generator.nextId()) == 5
+    }
+}
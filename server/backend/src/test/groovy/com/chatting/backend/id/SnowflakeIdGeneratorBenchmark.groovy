@@ -0,0 +1,58 @@
+package com.chatting.backend.id
+
+import groovy.transform.CompileStatic
+import spock.lang.Specification
+import spock.lang.Tag
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+/**
+ * Snowflake id 생성 처리량 (ids/s)
+ *
+ * 스레드 1개/4개가 각각 ROUNDS초 동안 nextId()만 호출한다. 같은 ms에서 4096개를 넘기면 다음 ms를 미리 쓰므로,
+ * 처리량 상한은 노드당 초당 약 409만 개이다. (그보다 빠르면 max-clock-drift까지 앞서 나간다)
+ * 실행: gradle benchmark
+ */
+@Tag("benchmark")
+class SnowflakeIdGeneratorBenchmark extends Specification {
+
+    static final long DURATION_NANOS = 1_000_000_000L
+
+    def "스레드 수별 초당 id 생성 수"() {
+        given:
+        def generator = new SnowflakeIdGenerator(60_000, System::currentTimeMillis, System::nanoTime)
+        generator.leased(1, 0)
+        Loop.run(generator, DURATION_NANOS)    //워밍업
+
+        when:
+        long single = Loop.run(generator, DURATION_NANOS)
+        def executor = Executors.newFixedThreadPool(4)
+        long multi = (0..<4).collect { executor.submit({ Loop.run(generator, DURATION_NANOS) } as Callable<Long>) }*.get().sum() as long
+        executor.shutdown()
+
+        println "[snowflake id] 1 thread: ${String.format('%,d', single)} ids/s, 4 threads: ${String.format('%,d', multi)} ids/s (cpus=${Runtime.runtime.availableProcessors()})"
+
+        then:
+        single > 1_000_000
+    }
+
+    @CompileStatic
+    static class Loop {
+
+        static long run(SnowflakeIdGenerator generator, long durationNanos) {
+            long count = 0
+            long last = 0
+            long end = System.nanoTime() + durationNanos
+            while (System.nanoTime() < end) {
+                for (int i = 0; i < 1000; i++) {
+                    long id = generator.nextId()
+                    assert id > last
+                    last = id
+                }
+                count += 1000
+            }
+            return count
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.chatting.backend.id
+
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+
+/**
+ * Snowflake id 생성기 테스트 코드
+ */
+class SnowflakeIdGeneratorSpec extends Specification {
+
+    long now = SnowflakeIdGenerator.EPOCH_MILLIS + 1_000
+    long nanos = 0
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(100, { now }, { nanos })
+
+    def "시각/노드 id가 id에 들어가고, 같은 ms에서 순번이 넘치면 다음 ms를 미리 쓴다."() {
+        given:
+        generator.leased(7, 0)
+
+        when:
+        List<Long> ids = (0..<5000).collect { generator.nextId() }
+
+        then:
+        ids == ids.toSorted()
+        ids.toSet().size() == 5000
+        ids.every { SnowflakeIdGenerator.nodeId(it) == 7 }
+        SnowflakeIdGenerator.timestampMillis(ids[0]) == now
+        SnowflakeIdGenerator.timestampMillis(ids[4095]) == now
+        SnowflakeIdGenerator.timestampMillis(ids[4096]) == now + 1
+    }
+
+    def "시계가 max-clock-drift 안에서 뒤로 가면 이전 시각에 이어서 만들고, 넘으면 예외를 던진다."() {
+        given:
+        generator.leased(1, 0)
+        long before = generator.nextId()
+
+        when:
+        now -= 50
+        long after = generator.nextId()
+
+        then:
+        after > before
+
+        when:
+        now -= 100
+        generator.nextId()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "빌린 노드 id가 없거나 유효 기간이 지나면 만들지 않고, high-water 뒤의 시각부터 만든다."() {
+        when:
+        generator.nextId()
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        generator.leased(3, now + 20, 1_000)
+        long id = generator.nextId()
+
+        then:
+        SnowflakeIdGenerator.timestampMillis(id) == now + 21
+
+        when:
+        nanos = 1_000
+        generator.nextId()
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        generator.renewed(2_000)
+
+        then:
+        generator.nextId() > id
+    }
+
+    def "여러 스레드에서 동시에 만들어도 겹치지 않는다."() {
+        given:
+        def realClock = new SnowflakeIdGenerator(5_000, System::currentTimeMillis, System::nanoTime)
+        realClock.leased(1, 0)
+        def executor = Executors.newFixedThreadPool(4)
+        Set<Long> ids = ConcurrentHashMap.newKeySet()
+
+        when:
+        def futures = (0..<4).collect {
+            executor.submit({
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(realClock.nextId())
+                }
+            } as Callable)
+        }
+        futures*.get()
+
+        then:
+        ids.size() == 200_000
+
+        cleanup:
+        executor.shutdown()
+    }
+}
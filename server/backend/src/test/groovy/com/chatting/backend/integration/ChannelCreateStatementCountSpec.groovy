@@ -0,0 +1,70 @@
+package com.chatting.backend.integration
+
+import com.chatting.backend.membership.ChannelMembershipIndex
+import com.chatting.backend.cache.InviteCodeCache
+import com.chatting.backend.constant.ResultType
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.graph.ConnectionGraphIndex
+import com.chatting.backend.repository.BroadcastChannelRepository
+import com.chatting.backend.repository.ChannelRepository
+import com.chatting.backend.repository.UserChannelRepository
+import com.chatting.backend.service.ChannelService
+import com.chatting.backend.service.SessionService
+import jakarta.persistence.EntityManager
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import spock.lang.Specification
+
+/**
+ * 100명 채널 생성 시 실행되는 SQL 개수 테스트 코드
+ *
+ * MySQL 없이 H2(MySQL 모드)로 실행한다.
+ * - channel_user 엔티티가 Persistable이므로 INSERT 전에 SELECT가 나가지 않아야 한다.
+ * - hibernate.jdbc.batch_size 설정으로 channel_user 100건은 배치 한 번으로 전송되어야 한다.
+ */
+@DataJpaTest(properties = [
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.chatting.backend.integration.SqlStatementCounter"
+])
+class ChannelCreateStatementCountSpec extends Specification {
+
+    @Autowired
+    ChannelRepository channelRepository
+
+    @Autowired
+    UserChannelRepository userChannelRepository
+
+    @Autowired
+    BroadcastChannelRepository broadcastChannelRepository
+
+    @Autowired
+    EntityManager entityManager
+
+    ConnectionGraphIndex connectionGraphIndex = Stub()
+    SessionService sessionService = Stub()
+    InviteCodeCache inviteCodeCache = Stub()
+    ChannelMembershipIndex channelMembershipIndex = Stub()
+
+    def "100명 채널 생성은 channel INSERT 1번 + channel_user 배치 INSERT 1번으로 끝난다."() {
+        given:
+        def channelService = new ChannelService(sessionService, connectionGraphIndex, channelRepository, userChannelRepository, inviteCodeCache,
+                broadcastChannelRepository, channelMembershipIndex)
+        def senderUserId = new UserId(1)
+        def participantIds = (2L..100L).collect { new UserId(it) }
+        connectionGraphIndex.countConnected(senderUserId, participantIds) >> participantIds.size()
+        SqlStatementCounter.clear()
+
+        when:
+        def result = channelService.create(senderUserId, participantIds, "group")
+        entityManager.flush()
+
+        then:
+        result.getSecond() == ResultType.SUCCESS
+        SqlStatementCounter.count("select") == 0
+        SqlStatementCounter.count("insert into channel ") == 1
+        SqlStatementCounter.count("insert into channel_user") == 1
+        SqlStatementCounter.statements.size() == 2
+        userChannelRepository.count() == 100
+    }
+}
@@ -0,0 +1,130 @@
+package com.chatting.backend.integration
+
+import com.chatting.backend.membership.ChannelMembershipIndex
+import com.chatting.backend.cache.InviteCodeCache
+import com.chatting.backend.constant.ResultType
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.InviteCode
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.entity.ChannelEntity
+import com.chatting.backend.graph.ConnectionGraphIndex
+import com.chatting.backend.repository.ChannelRepository
+import com.chatting.backend.repository.UserChannelRepository
+import com.chatting.backend.service.ChannelService
+import com.chatting.backend.service.SessionService
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+/**
+ * 초대코드 join/quit 동시성 스트레스 테스트 코드
+ *
+ * 비관적 락 없이 조건부 UPDATE(head_count < 100)만으로 인원 제한이 지켜지는지 확인한다.
+ * 스레드마다 별도 트랜잭션이 필요하므로 테스트 트랜잭션은 끈다.
+ */
+@DataJpaTest(properties = [
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+])
+@Import([ChannelService, InviteCodeCache, ChannelMembershipIndex])
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChannelJoinConcurrencySpec extends Specification {
+
+    @Autowired
+    ChannelService channelService
+
+    @Autowired
+    ChannelRepository channelRepository
+
+    @Autowired
+    UserChannelRepository userChannelRepository
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @SpringBean
+    SessionService sessionService = Stub()
+
+    @SpringBean
+    ConnectionGraphIndex connectionGraphIndex = Stub()
+
+    //초대코드 캐시의 "최근 만든 코드" zset (Redis 없이 띄운다)
+    @SpringBean
+    StringRedisTemplate stringRedisTemplate = Stub()
+
+    def setup() {
+        //같은 row에 UPDATE가 몰리므로 H2 기본 락 대기시간(1초)보다 넉넉하게 준다.
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 10000")
+    }
+
+    def cleanup() {
+        userChannelRepository.deleteAllInBatch()
+        channelRepository.deleteAllInBatch()
+    }
+
+    def "200명이 동시에 join 해도 head_count와 channel_user는 100명을 넘지 않는다."() {
+        given: "개설자 1명만 있는 채널"
+        ChannelEntity channelEntity = channelRepository.save(new ChannelEntity("popular", 1))
+        def inviteCode = new InviteCode(channelEntity.getInviteCode())
+        def channelId = channelEntity.getChannelId()
+
+        when:
+        def results = runConcurrently(200) { int index ->
+            channelService.join(inviteCode, new UserId(1000L + index)).getSecond()
+        }
+
+        then:
+        results.count { it == ResultType.SUCCESS } == 99
+        results.count { it == ResultType.OVER_LIMIT } == 101
+        channelRepository.findById(channelId).get().getHeadCount() == 100
+        userChannelRepository.findUserIdsByChannelId(channelId).size() == 99
+    }
+
+    def "join과 quit이 섞여도 head_count는 channel_user 행 수와 일치한다."() {
+        given: "이미 50명이 참여한 채널"
+        ChannelEntity channelEntity = channelRepository.save(new ChannelEntity("mixed", 0))
+        def inviteCode = new InviteCode(channelEntity.getInviteCode())
+        def channelId = channelEntity.getChannelId()
+        (0..<50).each { channelService.join(inviteCode, new UserId(2000L + it)) }
+
+        when: "앞의 50명은 탈퇴(같은 사람이 두 번 탈퇴 요청), 새로운 100명은 참여"
+        def results = runConcurrently(200) { int index ->
+            index < 100
+                    ? channelService.quit(new ChannelId(channelId), new UserId(2000L + (index % 50)))
+                    : channelService.join(inviteCode, new UserId(3000L + index)).getSecond()
+        }
+
+        then:
+        def headCount = channelRepository.findById(channelId).get().getHeadCount()
+        headCount == userChannelRepository.findUserIdsByChannelId(channelId).size()
+        headCount <= 100
+        results.count { it == ResultType.NOT_JOINED } >= 50
+    }
+
+    private static List<ResultType> runConcurrently(int count, Closure<ResultType> task) {
+        def executor = Executors.newFixedThreadPool(16)
+        def startLatch = new CountDownLatch(1)
+        try {
+            def futures = (0..<count).collect { int index ->
+                executor.submit({
+                    startLatch.await()
+                    task.call(index)
+                } as Callable<ResultType>)
+            }
+            startLatch.countDown()
+            return futures.collect { it.get() }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.chatting.backend.integration
+
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.graph.ConnectionGraphIndex
+import com.chatting.backend.repository.UserConnectionCountRepository
+import com.chatting.backend.service.UserConnectionLimitService
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.config.BeanPostProcessor
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.boot.test.context.TestConfiguration
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Import
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+import spock.lang.Tag
+
+import javax.sql.DataSource
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.sql.CallableStatement
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.Statement
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * 인기 사용자(hot user) 한 명에게 수락이 몰릴 때의 처리량 비교
+ *
+ * 기존 방식: 두 사용자의 카운터 row를 SELECT ... FOR UPDATE로 잠그고 → 관계 조회 → 3개 row UPDATE
+ * 변경 방식: 관계 상태 조건부 UPDATE + user_connection_count 조건부 UPDATE 2번 (UserConnectionLimitService.accept)
+ *
+ * H2(MySQL 모드)는 같은 JVM 안에 있어서 쿼리 왕복 시간이 0에 가깝다. 그러면 "락을 잡은 채로 몇 번 왕복하느냐"의 차이가 드러나지 않으므로,
+ * DataSource를 감싸서 statement 실행/commit마다 MySQL과의 네트워크 왕복(RTT_MICROS)만큼 지연을 넣는다.
+ * 절대값은 InnoDB와 다르고, 같은 환경에서의 상대 비교로만 본다.
+ * 실행: gradle benchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = [
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+])
+@Import([UserConnectionLimitService, ConnectionGraphIndex, NetworkLatencyConfig])
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConnectionAcceptBenchmark extends Specification {
+
+    static final long HOT_USER_ID = 1
+    static final int INVITERS = 3_000
+    static final int THREADS = 16
+    static final long RTT_MICROS = 300
+
+    //연결 관계 인덱스의 노드 간 변경 알림 (Redis 없이 띄운다)
+    @SpringBean
+    StringRedisTemplate stringRedisTemplate = Stub()
+
+    @Autowired
+    UserConnectionLimitService userConnectionLimitService
+
+    @Autowired
+    UserConnectionCountRepository userConnectionCountRepository
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    def setup() {
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 30000")
+        userConnectionLimitService.setLimitConnections(INVITERS + 1)
+    }
+
+    def "hot user 수락 처리량: 비관적 락 vs 조건부 UPDATE"() {
+        when: "JIT/커넥션 풀 워밍업을 위해 두 방식을 한 번씩 먼저 돌린다"
+        seed()
+        run { long inviterId -> legacyAccept(HOT_USER_ID, inviterId) }
+        seed()
+        run { long inviterId -> userConnectionLimitService.accept(new UserId(HOT_USER_ID), new UserId(inviterId)) }
+
+        and:
+        seed()
+        double legacyPerSecond = run { long inviterId -> legacyAccept(HOT_USER_ID, inviterId) }
+        int legacyCount = userConnectionCountRepository.findCountByUserId(HOT_USER_ID).get().getConnectionCount()
+
+        seed()
+        double lockFreePerSecond = run { long inviterId -> userConnectionLimitService.accept(new UserId(HOT_USER_ID), new UserId(inviterId)) }
+        int lockFreeCount = userConnectionCountRepository.findCountByUserId(HOT_USER_ID).get().getConnectionCount()
+
+        println "[connection accept] inviters=${INVITERS} threads=${THREADS} rtt=${RTT_MICROS}us " +
+                "pessimistic=${String.format('%.0f', legacyPerSecond)} accepts/s " +
+                "conditional-update=${String.format('%.0f', lockFreePerSecond)} accepts/s " +
+                "(x${String.format('%.2f', lockFreePerSecond / legacyPerSecond)})"
+
+        then: "두 방식 모두 카운트가 정확해야 한다"
+        legacyCount == INVITERS
+        lockFreeCount == INVITERS
+    }
+
+    //기존 UserConnectionLimitService.accept와 같은 순서의 SQL (message_user.connection_count는 지웠으므로 같은 방식으로 카운터 테이블을 잠근다)
+    private void legacyAccept(long acceptorUserId, long inviterUserId) {
+        long first = Long.min(acceptorUserId, inviterUserId)
+        long second = Long.max(acceptorUserId, inviterUserId)
+        new TransactionTemplate(transactionManager).executeWithoutResult {
+            int firstCount = jdbcTemplate.queryForObject("SELECT connection_count FROM user_connection_count WHERE user_id = ? FOR UPDATE", Integer, first)
+            int secondCount = jdbcTemplate.queryForObject("SELECT connection_count FROM user_connection_count WHERE user_id = ? FOR UPDATE", Integer, second)
+            jdbcTemplate.queryForObject("SELECT status FROM user_connection WHERE partner_a_user_id = ? AND partner_b_user_id = ? AND status = 'PENDING'", String, first, second)
+            jdbcTemplate.update("UPDATE user_connection_count SET connection_count = ? WHERE user_id = ?", firstCount + 1, first)
+            jdbcTemplate.update("UPDATE user_connection_count SET connection_count = ? WHERE user_id = ?", secondCount + 1, second)
+            jdbcTemplate.update("UPDATE user_connection SET status = 'ACCEPTED' WHERE partner_a_user_id = ? AND partner_b_user_id = ?", first, second)
+        }
+    }
+
+    //INVITERS개의 수락을 THREADS개 스레드로 동시에 실행하고 초당 처리량을 돌려준다.
+    private static double run(Closure task) {
+        def executor = Executors.newFixedThreadPool(THREADS)
+        def startLatch = new CountDownLatch(1)
+        def doneLatch = new CountDownLatch(INVITERS)
+        (2L..INVITERS + 1).each { long inviterId ->
+            executor.submit {
+                try {
+                    startLatch.await()
+                    task.call(inviterId)
+                } finally {
+                    doneLatch.countDown()
+                }
+            }
+        }
+        long start = System.nanoTime()
+        startLatch.countDown()
+        doneLatch.await(5, TimeUnit.MINUTES)
+        long elapsed = System.nanoTime() - start
+        executor.shutdownNow()
+        return INVITERS * 1_000_000_000.0 / elapsed
+    }
+
+    //statement 실행과 commit마다 RTT만큼 지연시키는 DataSource 프록시
+    @TestConfiguration
+    static class NetworkLatencyConfig {
+
+        static final Set<String> ROUND_TRIP_METHODS = ["execute", "executeQuery", "executeUpdate", "executeBatch", "commit", "rollback"] as Set
+        static final Set<Class<?>> PROXIED_TYPES = [Connection, Statement, PreparedStatement, CallableStatement] as Set
+
+        @Bean
+        static BeanPostProcessor networkLatencyDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? withLatency(bean, DataSource) : bean
+                }
+            }
+        }
+
+        static Object withLatency(Object target, Class<?> type) {
+            return Proxy.newProxyInstance(type.classLoader, [type] as Class[], { Object proxy, Method method, Object[] args ->
+                if (ROUND_TRIP_METHODS.contains(method.name)) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(RTT_MICROS))
+                }
+                try {
+                    def result = method.invoke(target, args)
+                    return PROXIED_TYPES.contains(method.returnType) ? withLatency(result, method.returnType) : result
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause()
+                }
+            } as InvocationHandler)
+        }
+    }
+
+    //hot user(1) + 초대한 사용자(2..INVITERS+1), 모두 hot user와 PENDING 상태
+    private void seed() {
+        ["user_connection", "user_connection_edge", "user_connection_count", "message_user"].each { jdbcTemplate.execute("DELETE FROM ${it}") }
+        def userIds = (1L..INVITERS + 1).toList()
+        jdbcTemplate.batchUpdate("INSERT INTO message_user (user_id, username, password, invite_code, created_at, updated_at) " +
+                "VALUES (?, ?, 'pw', ?, NOW(), NOW())", userIds.collect { [it, "user${it}", "code${it}"] as Object[] })
+        jdbcTemplate.batchUpdate("INSERT INTO user_connection_count (user_id, connection_count) VALUES (?, 0)",
+                userIds.collect { [it] as Object[] })
+        jdbcTemplate.batchUpdate("INSERT INTO user_connection (partner_a_user_id, partner_b_user_id, status, inviter_user_id, created_at, updated_at) " +
+                "VALUES (?, ?, 'PENDING', ?, NOW(), NOW())", userIds.tail().collect { [HOT_USER_ID, it, it] as Object[] })
+        jdbcTemplate.batchUpdate("INSERT INTO user_connection_edge (user_id, partner_user_id, status, inviter_user_id, created_at, updated_at) " +
+                "VALUES (?, ?, 'PENDING', ?, NOW(), NOW())", userIds.tail().collectMany { [[HOT_USER_ID, it, it] as Object[], [it, HOT_USER_ID, it] as Object[]] })
+    }
+}
@@ -0,0 +1,134 @@
+package com.chatting.backend.integration
+
+import com.chatting.backend.cache.InviteCodeCache
+import com.chatting.backend.constant.UserConnectionStatus
+import com.chatting.backend.dto.domain.InviteCode
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.entity.UserConnectionCountEntity
+import com.chatting.backend.entity.UserConnectionEdgeEntity
+import com.chatting.backend.entity.UserEntity
+import com.chatting.backend.graph.ConnectionGraphIndex
+import com.chatting.backend.repository.UserConnectionCountRepository
+import com.chatting.backend.repository.UserConnectionEdgeRepository
+import com.chatting.backend.repository.UserConnectionRepository
+import com.chatting.backend.repository.UserRepository
+import com.chatting.backend.service.UserConnectionLimitService
+import com.chatting.backend.service.UserConnectionService
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import spock.lang.Specification
+
+/**
+ * 연결 목록 인접 리스트(user_connection_edge) + keyset pagination 테스트 코드
+ *
+ * 초대(PENDING/REJECTED)는 INSERT ... ON DUPLICATE KEY UPDATE로 저장하므로 H2를 MySQL 모드로 띄운다.
+ */
+@DataJpaTest(properties = [
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:connection_list;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.hikari.driver-class-name=org.h2.Driver",
+        "spring.datasource.hikari.username=sa",
+        "spring.datasource.hikari.password="
+])
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import([UserConnectionService, UserConnectionLimitService, ConnectionGraphIndex, InviteCodeCache])
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConnectionListPaginationSpec extends Specification {
+
+    //초대코드 캐시의 "최근 만든 코드" zset (Redis 없이 띄운다)
+    @SpringBean
+    StringRedisTemplate stringRedisTemplate = Stub()
+
+    @Autowired
+    UserConnectionService userConnectionService
+
+    @Autowired
+    UserRepository userRepository
+
+    @Autowired
+    UserConnectionRepository userConnectionRepository
+
+    @Autowired
+    UserConnectionEdgeRepository userConnectionEdgeRepository
+
+    @Autowired
+    UserConnectionCountRepository userConnectionCountRepository
+
+    def cleanup() {
+        userConnectionRepository.deleteAllInBatch()
+        userConnectionEdgeRepository.deleteAllInBatch()
+        userConnectionCountRepository.deleteAllInBatch()
+        userRepository.deleteAllInBatch()
+    }
+
+    def "연결 목록을 cursor로 나눠 읽으면 빠짐없이, 중복없이 userId 순서대로 나온다."() {
+        given:
+        UserEntity me = userRepository.save(new UserEntity("me", "password"))
+        List<UserEntity> partners = (1..250).collect { userRepository.save(new UserEntity("friend" + it, "password")) }
+        //내가 partner_a인 관계와 partner_b인 관계가 섞여 있어도 인접 리스트에서는 모두 (나, 상대) 방향 행으로 읽힌다.
+        userConnectionEdgeRepository.saveAll(partners.collectMany {
+            [new UserConnectionEdgeEntity(me.getUserId(), it.getUserId(), UserConnectionStatus.ACCEPTED, it.getUserId()),
+             new UserConnectionEdgeEntity(it.getUserId(), me.getUserId(), UserConnectionStatus.ACCEPTED, it.getUserId())]
+        })
+
+        when:
+        List<List<String>> pages = []
+        UserId cursor = null
+        while (true) {
+            def page = userConnectionService.getUserByStatus(new UserId(me.getUserId()), UserConnectionStatus.ACCEPTED, cursor, 100)
+            if (page.isEmpty()) {
+                break
+            }
+            pages << page*.username()
+            cursor = page.last().userId()
+        }
+
+        then:
+        pages*.size() == [100, 100, 50]
+        pages.flatten() == partners*.username
+    }
+
+    def "PENDING 목록은 초대를 받은 사람에게만 보이고, 수락/연결끊기 후에는 인접 리스트도 함께 바뀐다."() {
+        given:
+        UserEntity inviter = saveUser("inviter")
+        UserEntity invitee = saveUser("invitee")
+        UserId inviterId = new UserId(inviter.getUserId())
+        UserId inviteeId = new UserId(invitee.getUserId())
+
+        when: "초대"
+        userConnectionService.invite(inviterId, new InviteCode(invitee.getInviteCode()))
+
+        then:
+        userConnectionService.getUserByStatus(inviteeId, UserConnectionStatus.PENDING, null, 100)*.username() == ["inviter"]
+        userConnectionService.getUserByStatus(inviterId, UserConnectionStatus.PENDING, null, 100).isEmpty()
+
+        when: "수락"
+        userConnectionService.accept(inviteeId, "inviter")
+
+        then:
+        userConnectionService.getUserByStatus(inviteeId, UserConnectionStatus.PENDING, null, 100).isEmpty()
+        userConnectionService.getUserByStatus(inviteeId, UserConnectionStatus.ACCEPTED, null, 100)*.username() == ["inviter"]
+        userConnectionService.getUserByStatus(inviterId, UserConnectionStatus.ACCEPTED, null, 100)*.username() == ["invitee"]
+
+        when: "연결 끊기"
+        userConnectionService.disconnect(inviterId, "invitee")
+
+        then:
+        userConnectionService.getUserByStatus(inviteeId, UserConnectionStatus.ACCEPTED, null, 100).isEmpty()
+        userConnectionService.getUserByStatus(inviterId, UserConnectionStatus.ACCEPTED, null, 100).isEmpty()
+        userConnectionEdgeRepository.findAll()*.status == [UserConnectionStatus.DISCONNECTED, UserConnectionStatus.DISCONNECTED]
+    }
+
+    private UserEntity saveUser(String username) {
+        UserEntity user = userRepository.save(new UserEntity(username, "password"))
+        userConnectionCountRepository.save(new UserConnectionCountEntity(user.getUserId()))
+        return user
+    }
+}
@@ -0,0 +1,148 @@
+package com.chatting.backend.integration
+
+import com.chatting.backend.cache.InviteCodeCache
+import com.chatting.backend.constant.UserConnectionStatus
+import com.chatting.backend.dto.domain.InviteCode
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.entity.UserConnectionCountEntity
+import com.chatting.backend.entity.UserConnectionEdgeEntity
+import com.chatting.backend.entity.UserConnectionEntity
+import com.chatting.backend.entity.UserEntity
+import com.chatting.backend.graph.ConnectionGraphIndex
+import com.chatting.backend.repository.UserConnectionCountRepository
+import com.chatting.backend.repository.UserConnectionEdgeRepository
+import com.chatting.backend.repository.UserConnectionRepository
+import com.chatting.backend.repository.UserRepository
+import com.chatting.backend.service.UserConnectionLimitService
+import com.chatting.backend.service.UserConnectionService
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import spock.lang.Specification
+
+/**
+ * 초대/수락/연결끊기 한 번에 실행되는 SQL 개수 테스트 코드
+ *
+ * 관계 정보(상대방 id/username, 내 username/연결 수, status, inviter)는 조회 한 번으로 가져오고,
+ * 수락/연결끊기는 쓰기 트랜잭션 하나(관계 상태 전이 + 두 사람의 연결 수 변경 + 인접 리스트 두 행 변경)로 끝나야 한다.
+ * 서비스의 트랜잭션 경계를 그대로 보기 위해 테스트 트랜잭션은 끈다.
+ */
+@DataJpaTest(properties = [
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.chatting.backend.integration.SqlStatementCounter"
+])
+@Import([UserConnectionService, UserConnectionLimitService, ConnectionGraphIndex, InviteCodeCache])
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConnectionStateStatementCountSpec extends Specification {
+
+    //초대코드 캐시의 "최근 만든 코드" zset (Redis 없이 띄운다)
+    @SpringBean
+    StringRedisTemplate stringRedisTemplate = Stub()
+
+    @Autowired
+    UserConnectionService userConnectionService
+
+    @Autowired
+    UserRepository userRepository
+
+    @Autowired
+    UserConnectionRepository userConnectionRepository
+
+    @Autowired
+    UserConnectionCountRepository userConnectionCountRepository
+
+    @Autowired
+    UserConnectionEdgeRepository userConnectionEdgeRepository
+
+    UserEntity inviter
+    UserEntity acceptor
+
+    def setup() {
+        inviter = userRepository.save(new UserEntity("inviter", "password"))
+        acceptor = userRepository.save(new UserEntity("acceptor", "password"))
+        userConnectionCountRepository.saveAll([new UserConnectionCountEntity(inviter.getUserId()), new UserConnectionCountEntity(acceptor.getUserId())])
+    }
+
+    def cleanup() {
+        userConnectionRepository.deleteAllInBatch()
+        userConnectionEdgeRepository.deleteAllInBatch()
+        userConnectionCountRepository.deleteAllInBatch()
+        userRepository.deleteAllInBatch()
+    }
+
+    def "수락은 관계 조회 SELECT 1번 + 쓰기 트랜잭션(UPDATE 4번)으로 끝난다."() {
+        given:
+        savePending()
+        SqlStatementCounter.clear()
+
+        when:
+        def result = userConnectionService.accept(new UserId(acceptor.getUserId()), "inviter")
+
+        then:
+        result.getFirst() == Optional.of(new UserId(inviter.getUserId()))
+        result.getSecond() == "acceptor"
+        SqlStatementCounter.count("select") == 1
+        SqlStatementCounter.count("update user_connection ") == 1
+        SqlStatementCounter.count("update user_connection_count") == 2
+        SqlStatementCounter.count("update user_connection_edge") == 1
+        SqlStatementCounter.statements.size() == 5
+
+        and:
+        userConnectionService.getStatus(new UserId(inviter.getUserId()), new UserId(acceptor.getUserId())) == UserConnectionStatus.ACCEPTED
+        userConnectionCountRepository.findCountByUserId(inviter.getUserId()).get().getConnectionCount() == 1
+        userConnectionCountRepository.findCountByUserId(acceptor.getUserId()).get().getConnectionCount() == 1
+        userConnectionEdgeRepository.findAll()*.status == [UserConnectionStatus.ACCEPTED, UserConnectionStatus.ACCEPTED]
+    }
+
+    def "연결 끊기도 관계 조회 SELECT 1번 + UPDATE 4번으로 끝난다."() {
+        given:
+        savePending()
+        userConnectionService.accept(new UserId(acceptor.getUserId()), "inviter")
+        SqlStatementCounter.clear()
+
+        when:
+        def result = userConnectionService.disconnect(new UserId(inviter.getUserId()), "acceptor")
+
+        then:
+        result == org.springframework.data.util.Pair.of(true, "acceptor")
+        SqlStatementCounter.count("select") == 1
+        SqlStatementCounter.statements.size() == 5
+        userConnectionCountRepository.findCountByUserId(inviter.getUserId()).get().getConnectionCount() == 0
+    }
+
+    def "초대 실패 판정(이미 초대함)은 초대코드가 캐시에 있으면 SELECT 1번으로 끝난다."() {
+        given:
+        savePending()
+        def inviteCode = new InviteCode(acceptor.getInviteCode())
+        SqlStatementCounter.clear()
+
+        when: "처음에는 초대코드 → userId 조회가 한 번 더 나간다."
+        def first = userConnectionService.invite(new UserId(inviter.getUserId()), inviteCode)
+
+        then:
+        first.getSecond() == "Already invited to acceptor"
+        SqlStatementCounter.statements.size() == 2
+
+        when: "두 번째부터는 InviteCodeCache에서 userId를 찾는다."
+        SqlStatementCounter.clear()
+        def second = userConnectionService.invite(new UserId(inviter.getUserId()), inviteCode)
+
+        then:
+        second.getSecond() == "Already invited to acceptor"
+        SqlStatementCounter.statements.size() == 1
+    }
+
+    private void savePending() {
+        Long partnerA = Long.min(inviter.getUserId(), acceptor.getUserId())
+        Long partnerB = Long.max(inviter.getUserId(), acceptor.getUserId())
+        userConnectionRepository.save(new UserConnectionEntity(partnerA, partnerB, UserConnectionStatus.PENDING, inviter.getUserId()))
+        userConnectionEdgeRepository.saveAll([
+                new UserConnectionEdgeEntity(partnerA, partnerB, UserConnectionStatus.PENDING, inviter.getUserId()),
+                new UserConnectionEdgeEntity(partnerB, partnerA, UserConnectionStatus.PENDING, inviter.getUserId())])
+    }
+}
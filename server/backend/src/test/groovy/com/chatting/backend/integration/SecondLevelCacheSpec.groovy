@@ -0,0 +1,144 @@
+package com.chatting.backend.integration
+
+import com.chatting.backend.config.HibernateCacheConfig
+import com.chatting.backend.entity.ChannelEntity
+import com.chatting.backend.entity.UserEntity
+import com.chatting.backend.repository.ChannelRepository
+import com.chatting.backend.repository.UserRepository
+import com.chatting.backend.service.CacheStatisticsService
+import jakarta.persistence.EntityManagerFactory
+import org.hibernate.SessionFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+/**
+ * 채널/사용자 메타데이터 2차 캐시 테스트 코드
+ *
+ * 트랜잭션마다 영속성 컨텍스트(1차 캐시)가 새로 생기므로, 테스트 트랜잭션을 끄고 조회마다 별도 트랜잭션으로 실행한다.
+ */
+@DataJpaTest(properties = [
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.chatting.backend.integration.SqlStatementCounter"
+])
+@Import([HibernateCacheConfig, CacheStatisticsService])
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheSpec extends Specification {
+
+    @Autowired
+    ChannelRepository channelRepository
+
+    @Autowired
+    UserRepository userRepository
+
+    @Autowired
+    CacheStatisticsService cacheStatisticsService
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    def "채널 제목/초대코드와 username 조회는 캐시에서 읽고 DB에 SELECT를 보내지 않는다."() {
+        given:
+        Long channelId = channelRepository.save(new ChannelEntity("cached", 2)).getChannelId()
+        Long userId = userRepository.save(new UserEntity("cacheuser", "password")).getUserId()
+        entityManagerFactory.unwrap(SessionFactory).getCache().evictAllRegions()
+        entityManagerFactory.unwrap(SessionFactory).getStatistics().clear()
+
+        when: "처음 한 번은 DB에서 읽어 캐시에 넣고"
+        channelRepository.findChannelTitleByChannelId(channelId)
+        userRepository.findByUserId(userId)
+        SqlStatementCounter.clear()
+
+        and: "그 다음부터는 캐시에서 읽는다"
+        def title = channelRepository.findChannelTitleByChannelId(channelId).get().getTitle()
+        def inviteCode = channelRepository.findChannelInviteCodeByChannelId(channelId).get().getInviteCode()
+        def username = userRepository.findByUserId(userId).get().getUsername()
+
+        then:
+        title == "cached"
+        inviteCode != null
+        username == "cacheuser"
+        SqlStatementCounter.count("select") == 0
+
+        and: "region별 hit 통계가 쌓인다"
+        def stats = cacheStatisticsService.getRegionStats().collectEntries { [(it.region()): it] }
+        stats[HibernateCacheConfig.CHANNEL_REGION].hitCount() == 2
+        stats[HibernateCacheConfig.CHANNEL_REGION].missCount() == 1
+        stats[HibernateCacheConfig.USER_REGION].hitCount() == 1
+        stats[HibernateCacheConfig.CHANNEL_REGION].hitRate() > 0.6
+    }
+
+    def "조건부 UPDATE로 head_count를 바꾸면 캐시된 채널이 무효화되어 새 값을 읽는다."() {
+        given:
+        def transactionTemplate = new TransactionTemplate(transactionManager)
+        Long channelId = channelRepository.save(new ChannelEntity("headcount", 2)).getChannelId()
+        channelRepository.findById(channelId)  //캐시에 올려둔다
+
+        when: "join처럼 조건부 UPDATE로 head_count 증가"
+        transactionTemplate.executeWithoutResult {
+            channelRepository.increaseHeadCount(channelId, 100)
+        }
+        SqlStatementCounter.clear()
+        def headCount = channelRepository.findById(channelId).get().getHeadCount()
+        def cachedAgain = channelRepository.findById(channelId).get().getHeadCount()
+
+        then: "옛 값이 캐시에 남지 않고, 한 번 DB에서 다시 읽은 뒤로는 캐시에서 읽는다"
+        headCount == 3
+        cachedAgain == 3
+        SqlStatementCounter.count("select") == 1
+    }
+
+    def "head_count를 바꿔도 그 채널만 캐시에서 빠지고 다른 채널은 캐시에서 읽는다."() {
+        given:
+        def transactionTemplate = new TransactionTemplate(transactionManager)
+        Long joinedId = channelRepository.save(new ChannelEntity("joined", 2)).getChannelId()
+        Long otherId = channelRepository.save(new ChannelEntity("other", 2)).getChannelId()
+        channelRepository.findById(joinedId)
+        channelRepository.findById(otherId)
+
+        when:
+        transactionTemplate.executeWithoutResult {
+            channelRepository.increaseHeadCount(joinedId, 100)
+            channelRepository.decreaseHeadCount(joinedId)
+            channelRepository.decreaseHeadCount(joinedId)
+        }
+        SqlStatementCounter.clear()
+        def other = channelRepository.findById(otherId).get().getTitle()
+        def otherSelects = SqlStatementCounter.count("select")
+        def headCount = channelRepository.findById(joinedId).get().getHeadCount()
+
+        then:
+        other == "other"
+        otherSelects == 0
+        headCount == 1
+        SqlStatementCounter.count("select") == 1
+    }
+
+    def "롤백된 head_count 변경은 캐시를 건드리지 않는다."() {
+        given:
+        def transactionTemplate = new TransactionTemplate(transactionManager)
+        Long channelId = channelRepository.save(new ChannelEntity("rollback", 2)).getChannelId()
+        channelRepository.findById(channelId)
+
+        when:
+        transactionTemplate.executeWithoutResult { status ->
+            channelRepository.increaseHeadCount(channelId, 100)
+            status.setRollbackOnly()
+        }
+        SqlStatementCounter.clear()
+        def headCount = channelRepository.findById(channelId).get().getHeadCount()
+
+        then:
+        headCount == 2
+        SqlStatementCounter.count("select") == 0
+    }
+}
@@ -0,0 +1,28 @@
+package com.chatting.backend.integration
+
+import org.hibernate.resource.jdbc.spi.StatementInspector
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Hibernate가 JDBC로 준비(prepare)하는 SQL을 기록하는 StatementInspector
+ * 배치 INSERT는 statement를 한 번만 준비하고 addBatch로 행을 쌓으므로, 여기 기록되는 개수 = DB 왕복 횟수가 된다.
+ */
+class SqlStatementCounter implements StatementInspector {
+
+    static final List<String> statements = new CopyOnWriteArrayList<>()
+
+    @Override
+    String inspect(String sql) {
+        statements << sql.toLowerCase()
+        return sql
+    }
+
+    static void clear() {
+        statements.clear()
+    }
+
+    static int count(String prefix) {
+        statements.count { it.startsWith(prefix) } as int
+    }
+}
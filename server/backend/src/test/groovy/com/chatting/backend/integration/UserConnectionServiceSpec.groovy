@@ -5,6 +5,7 @@ import com.chatting.backend.constant.UserConnectionStatus
 import com.chatting.backend.dto.domain.UserId
 import com.chatting.backend.entity.UserConnectionId
 import com.chatting.backend.repository.UserConnectionRepository
+import com.chatting.backend.repository.UserConnectionCountRepository
 import com.chatting.backend.repository.UserRepository
 import com.chatting.backend.service.UserConnectionLimitService
 import com.chatting.backend.service.UserConnectionService
@@ -47,6 +48,9 @@ class UserConnectionServiceSpec extends Specification {
     @Autowired
     UserRepository userRepository
 
+    @Autowired
+    UserConnectionCountRepository userConnectionCountRepository
+
     @Autowired
     UserConnectionRepository userConnectionRepository
 
@@ -191,6 +195,7 @@ class UserConnectionServiceSpec extends Specification {
             // PENDING인 사용자
             userService.getUserId("testuser${it}").ifPresent { userId ->
                 userRepository.deleteById(userId.id())
+                userConnectionCountRepository.deleteById(userId.id())
 
                 userConnectionRepository.findByPartnerAUserIdAndStatus(userId.id(), UserConnectionStatus.PENDING).each {
                     userConnectionRepository.deleteById(new UserConnectionId(
@@ -0,0 +1,73 @@
+package com.chatting.backend.membership
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.repository.BroadcastChannelRepository
+import com.chatting.backend.repository.UserChannelRepository
+import org.springframework.data.domain.Limit
+import org.springframework.data.redis.connection.DefaultMessage
+import org.springframework.data.redis.core.StringRedisTemplate
+import spock.lang.Specification
+
+/**
+ * 채널 참여자 bitmap 인덱스 테스트 코드
+ */
+class ChannelMembershipIndexSpec extends Specification {
+
+    static final long TTL = 1_000_000
+
+    long now = 0
+    BroadcastChannelRepository broadcastChannelRepository = Stub()
+    UserChannelRepository userChannelRepository = Mock()
+    StringRedisTemplate stringRedisTemplate = Mock()
+    ChannelMembershipIndex index = new ChannelMembershipIndex(broadcastChannelRepository, userChannelRepository, stringRedisTemplate, 1_000, 1_000_000, TTL, { now })
+
+    def "커밋된 변경은 다른 노드에 알리고, 다른 노드의 알림을 받으면 그 채널의 bitmap을 버리고 DB에서 다시 읽는다."() {
+        given:
+        String published = null
+
+        when:
+        index.getMembers(new ChannelId(1))
+        index.quit(new ChannelId(1), new UserId(3))
+
+        then:
+        1 * userChannelRepository.findUserIdsByChannelId(1L, 0L, _ as Limit) >> [2L, 3L]
+        1 * stringRedisTemplate.convertAndSend(ChannelMembershipIndex.MEMBERSHIP_CHANNEL, _ as String) >> { args -> published = args[1]; 1L }
+
+        when: "자기가 보낸 알림은 무시한다"
+        index.onMessage(new DefaultMessage(ChannelMembershipIndex.MEMBERSHIP_CHANNEL.bytes, published.bytes), null)
+        def members = index.getMembers(new ChannelId(1))
+
+        then:
+        0 * userChannelRepository._
+        members.contains(2)
+        !members.contains(3)
+
+        when: "다른 노드에서 2가 탈퇴했다"
+        index.onMessage(new DefaultMessage(ChannelMembershipIndex.MEMBERSHIP_CHANNEL.bytes, "other-node:1".bytes), null)
+        members = index.getMembers(new ChannelId(1))
+
+        then:
+        1 * userChannelRepository.findUserIdsByChannelId(1L, 0L, _ as Limit) >> []
+        members.cardinality() == 0
+        index.getStats().usedBytes() == MemberBitmap.EMPTY.estimatedBytes()
+    }
+
+    def "다른 노드의 알림을 놓쳤어도 entry-ttl이 지나면 DB에서 다시 읽는다."() {
+        when:
+        index.getMembers(new ChannelId(1))
+        now += TTL - 1
+        index.getMembers(new ChannelId(1))
+
+        then:
+        1 * userChannelRepository.findUserIdsByChannelId(1L, 0L, _ as Limit) >> [2L]
+
+        when:
+        now += 1
+        def members = index.getMembers(new ChannelId(1))
+
+        then:
+        1 * userChannelRepository.findUserIdsByChannelId(1L, 0L, _ as Limit) >> []
+        !members.contains(2)
+    }
+}
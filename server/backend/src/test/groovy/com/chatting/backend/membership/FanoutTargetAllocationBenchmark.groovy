@@ -0,0 +1,96 @@
+package com.chatting.backend.membership
+
+import com.chatting.backend.dto.domain.UserId
+import groovy.transform.CompileStatic
+import spock.lang.Specification
+import spock.lang.Tag
+
+import java.lang.management.ManagementFactory
+import java.util.function.LongConsumer
+
+/**
+ * 메시지 하나의 전송 대상 선택에 드는 할당량(bytes/message) 측정
+ *
+ * 기존 구조: channel_user 조회 결과를 List<UserId>로 만들고, 참여자마다 Redis key 문자열을 만들어 MGET 결과(값 리스트)와 비교해서
+ *           online List<UserId>를 다시 만든다. (DB/Redis 왕복 자체는 빼고 JVM 안에서 만드는 객체만 흉내낸다)
+ * 변경 구조: 참여자 bitmap AND online bitmap을 순회하며 long을 바로 넘긴다.
+ *
+ * 참여자 중 10%가 채널을 보고 있다고 가정한다.
+ * 실행: gradle benchmark
+ */
+@Tag("benchmark")
+class FanoutTargetAllocationBenchmark extends Specification {
+
+    static final int ROUNDS = 200
+
+    def "채널 크기별 메시지당 대상 선택 할당량 비교"() {
+        given:
+        def mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+        println "[fan-out target selection] allocated bytes per message (online = 10% of members)"
+
+        expect:
+        [10, 1_000, 100_000].each { int size ->
+            long[] memberIds = (1L..size) as long[]
+            long[] onlineIds = memberIds.findAll { it % 10 == 0 } as long[]
+            def members = MemberBitmap.of(memberIds)
+            def online = MemberBitmap.of(onlineIds)
+            Set<Long> onlineSet = onlineIds as Set<Long>
+
+            long legacy = measure(mx) { Selection.legacy(memberIds, onlineSet) }
+            long bitmap = measure(mx) { Selection.bitmap(members, online) }
+            println "  members=${size}: list + MGET filter ${legacy} B, bitmap AND ${bitmap} B"
+            assert bitmap < legacy
+        }
+    }
+
+    private static long measure(com.sun.management.ThreadMXBean mx, Closure<Long> selection) {
+        (0..<ROUNDS).each { selection() }    //워밍업
+        long thread = Thread.currentThread().id
+        long before = mx.getThreadAllocatedBytes(thread)
+        (0..<ROUNDS).each { selection() }
+        return (mx.getThreadAllocatedBytes(thread) - before).intdiv(ROUNDS)
+    }
+
+    @CompileStatic
+    static class Selection {
+
+        static long legacy(long[] memberIds, Set<Long> onlineSet) {
+            List<UserId> participants = new ArrayList<>()
+            for (long id : memberIds) {
+                participants.add(new UserId(id))
+            }
+            List<String> keys = new ArrayList<>(participants.size())
+            for (UserId userId : participants) {
+                keys.add("message:user:" + userId.id() + ":channel_id")
+            }
+            List<String> values = new ArrayList<>(keys.size())
+            for (UserId userId : participants) {
+                values.add(onlineSet.contains(userId.id()) ? "1" : null)
+            }
+            List<UserId> targets = new ArrayList<>(values.size())
+            for (int i = 0; i < participants.size(); i++) {
+                if (values.get(i) != null) {
+                    targets.add(participants.get(i))
+                }
+            }
+            return targets.size()
+        }
+
+        static long bitmap(MemberBitmap members, MemberBitmap online) {
+            Counter counter = new Counter()
+            members.forEachAnd(online, counter)
+            return counter.count
+        }
+    }
+
+    @CompileStatic
+    static class Counter implements LongConsumer {
+
+        long count
+
+        @Override
+        void accept(long value) {
+            count++
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.chatting.backend.membership
+
+import spock.lang.Specification
+
+/**
+ * 채널 참여자/online 사용자 압축 bitmap 테스트 코드
+ */
+class MemberBitmapSpec extends Specification {
+
+    def "정렬 배열 구간과 bitset 구간을 오가도 원소/순서/개수가 long 집합과 같다."() {
+        given:
+        Random random = new Random(42)
+        TreeSet<Long> expected = new TreeSet<>()
+        //구간 0은 촘촘하게(bitset), 구간 3은 드물게(정렬 배열)
+        (0..<6000).each { expected.add((long) random.nextInt(65536)) }
+        (0..<100).each { expected.add(3L * 65536 + random.nextInt(65536)) }
+        def bitmap = MemberBitmap.of(expected.collect { it } as long[])
+
+        when:
+        //bitset 구간이 4096개 아래로 내려가면 정렬 배열로, 배열 구간이 4096개를 넘으면 bitset으로 바뀐다.
+        def dense = expected.findAll { it < 65536 }
+        dense.take(dense.size() - 4000).each {
+            bitmap = bitmap.without(it)
+            expected.remove(it)
+        }
+        (0..<5000).each {
+            long id = 3L * 65536 + random.nextInt(65536)
+            bitmap = bitmap.with(id)
+            expected.add(id)
+        }
+
+        then:
+        bitmap.cardinality() == expected.size()
+        members(bitmap) == expected as List
+        expected.every { bitmap.contains(it) }
+        !bitmap.contains(2L * 65536)
+    }
+
+    def "with/without은 원본을 바꾸지 않고, 없는 id를 빼거나 있는 id를 넣으면 같은 객체를 돌려준다."() {
+        given:
+        def bitmap = MemberBitmap.of([5L, 1L, 5L, 70_000L] as long[])
+
+        when:
+        def added = bitmap.with(2)
+        def removed = bitmap.without(70_000)
+
+        then:
+        members(bitmap) == [1L, 5L, 70_000L]
+        members(added) == [1L, 2L, 5L, 70_000L]
+        members(removed) == [1L, 5L]
+        bitmap.with(5).is(bitmap)
+        bitmap.without(3).is(bitmap)
+    }
+
+    def "shardBounds로 나눈 구간을 차례로 돌면 모든 참여자를 한 번씩, 샤드당 최대 shardSize명씩 만난다."() {
+        given:
+        def ids = (1L..10_000L).findAll { it % 3 != 0 } + (200_000L..200_500L)
+        def bitmap = MemberBitmap.of(ids as long[])
+
+        when:
+        long[] bounds = bitmap.shardBounds(1000)
+        List<List<Long>> shards = (0..<bounds.length - 1).collect { i ->
+            List<Long> shard = []
+            bitmap.forEachInRange(bounds[i], bounds[i + 1], { long id -> shard.add(id) })
+            shard
+        }
+
+        then:
+        shards.size() == (int) Math.ceil(ids.size() / 1000d)
+        shards.every { it.size() <= 1000 }
+        shards.flatten() == ids
+        MemberBitmap.EMPTY.shardBounds(1000).length == 0
+    }
+
+    def "forEachAnd는 두 bitmap에 모두 있는 id만 순서대로 만나고, 구간을 주면 그 안에서만 만난다."() {
+        given:
+        Random random = new Random(7)
+        //구간 0: bitset AND bitset, 구간 1: bitset AND 배열, 구간 2: 배열 AND 배열, 구간 5: 한쪽에만 있음
+        TreeSet<Long> left = new TreeSet<>()
+        TreeSet<Long> right = new TreeSet<>()
+        (0..<8000).each { left.add((long) random.nextInt(65536)); right.add((long) random.nextInt(65536)) }
+        (0..<8000).each { left.add(65536L + random.nextInt(65536)) }
+        (0..<300).each { right.add(65536L + random.nextInt(65536)) }
+        (0..<500).each { left.add(2L * 65536 + random.nextInt(65536)); right.add(2L * 65536 + random.nextInt(65536)) }
+        (0..<100).each { left.add(5L * 65536 + random.nextInt(65536)) }
+        def a = MemberBitmap.of(left as long[])
+        def b = MemberBitmap.of(right as long[])
+        List<Long> expected = left.findAll { right.contains(it) } as List
+
+        when:
+        List<Long> forward = []
+        List<Long> backward = []
+        List<Long> ranged = []
+        a.forEachAnd(b, { long id -> forward.add(id) })
+        b.forEachAnd(a, { long id -> backward.add(id) })
+        a.forEachAndInRange(b, 30_000, 70_000, { long id -> ranged.add(id) })
+
+        then:
+        forward == expected
+        backward == expected
+        ranged == expected.findAll { it >= 30_000 && it < 70_000 }
+        collectAnd(a, MemberBitmap.EMPTY).isEmpty()
+    }
+
+    private static List<Long> collectAnd(MemberBitmap left, MemberBitmap right) {
+        List<Long> result = []
+        left.forEachAnd(right, { long id -> result.add(id) })
+        return result
+    }
+
+    private static List<Long> members(MemberBitmap bitmap) {
+        List<Long> result = []
+        bitmap.forEach({ long id -> result.add(id) })
+        return result
+    }
+}
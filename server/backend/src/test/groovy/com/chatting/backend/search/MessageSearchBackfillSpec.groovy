@@ -0,0 +1,77 @@
+package com.chatting.backend.search
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.StoredMessage
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.id.SnowflakeIdGenerator
+import com.chatting.backend.service.UserService
+import com.chatting.backend.shard.ShardedMessageStore
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * 시작할 때 샤드에서 검색 인덱스를 채우는 테스트 코드
+ */
+class MessageSearchBackfillSpec extends Specification {
+
+    static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + TimeUnit.DAYS.toMillis(100)
+    static final long WINDOW = TimeUnit.DAYS.toMillis(30)
+    static final long OVERLAP = 60_000
+
+    MessageSearchIndex index = Mock()
+    ShardedMessageStore store = Mock()
+    UserService userService = Stub() {
+        getUsername(new UserId(1)) >> Optional.of("user1")
+        getUsername(new UserId(2)) >> Optional.of("user2")
+    }
+    MessageSearchBackfill backfill = new MessageSearchBackfill(index, store, userService, WINDOW, OVERLAP, 2, { NOW })
+
+    def "모든 샤드의 채널을 page 단위로 훑어서 시작점 뒤의 메시지를 username과 함께 채운다."() {
+        given:
+        long newest = SnowflakeIdGenerator.firstIdAt(NOW - 3_600_000)
+        long after = SnowflakeIdGenerator.firstIdAt(NOW - 3_600_000 - OVERLAP) - 1
+        List<List<IndexedMessage>> batches = []
+
+        when:
+        long count = backfill.run()
+
+        then:
+        _ * index.getNewestAtStart() >> newest
+        1 * store.getShardNames() >> ["shard-a", "shard-b"]
+        1 * store.findChannelIds("shard-a", 0, 2) >> [10L, 11L]
+        1 * store.findChannelIds("shard-a", 11, 2) >> []
+        1 * store.findChannelIds("shard-b", 0, 2) >> [20L]
+        1 * store.findOlderThan("shard-a", new ChannelId(10), after, Long.MAX_VALUE, 2) >> [message(10, after + 1, 1), message(10, after + 2, 2)]
+        1 * store.findOlderThan("shard-a", new ChannelId(10), after + 2, Long.MAX_VALUE, 2) >> [message(10, after + 3, 1)]
+        1 * store.findOlderThan("shard-a", new ChannelId(11), after, Long.MAX_VALUE, 2) >> []
+        1 * store.findOlderThan("shard-b", new ChannelId(20), after, Long.MAX_VALUE, 2) >> [message(20, after + 4, 2)]
+        3 * index.backfill(_) >> { args -> batches << (args[0] as List) }
+
+        and:
+        count == 4
+        batches.flatten()*.messageSequence() == [after + 1, after + 2, after + 3, after + 4]
+        batches.flatten()*.username() == ["user1", "user2", "user1", "user2"]
+    }
+
+    def "인덱스가 비어 있거나 마지막 메시지가 backfill-window보다 오래됐으면 window 시작부터 채운다."() {
+        given:
+        long windowStart = SnowflakeIdGenerator.firstIdAt(NOW - WINDOW) - 1
+
+        when:
+        backfill.run()
+
+        then:
+        _ * index.getNewestAtStart() >> newest
+        1 * store.getShardNames() >> ["shard-a"]
+        1 * store.findChannelIds("shard-a", 0, 2) >> [10L]
+        1 * store.findOlderThan("shard-a", new ChannelId(10), windowStart, Long.MAX_VALUE, 2) >> []
+
+        where:
+        newest << [0L, SnowflakeIdGenerator.firstIdAt(NOW - TimeUnit.DAYS.toMillis(60))]
+    }
+
+    private static StoredMessage message(long channelId, long sequence, long userId) {
+        return new StoredMessage(sequence, new ChannelId(channelId), new UserId(userId), "공지 $sequence")
+    }
+}
@@ -0,0 +1,196 @@
+package com.chatting.backend.search
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.StoredMessage
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.json.JsonUtil
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.data.redis.connection.DefaultMessage
+import org.springframework.data.redis.core.StringRedisTemplate
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.util.function.LongPredicate
+
+/**
+ * 메시지 검색 인덱스(토큰 분리, 색인, 세그먼트 flush/병합, 재시작 복구, 노드 간 색인) 테스트 코드
+ */
+class MessageSearchIndexSpec extends Specification {
+
+    static final LongPredicate ALL = { long channelId -> true } as LongPredicate
+
+    @TempDir
+    Path directory
+
+    StringRedisTemplate stringRedisTemplate = Mock()
+    JsonUtil jsonUtil = new JsonUtil(new ObjectMapper())
+    MessageSearchIndex index
+    long sequence = 1000
+
+    def setup() {
+        index = open(1000, 8, 4)
+    }
+
+    def cleanup() {
+        index.shutdown()
+    }
+
+    def "한글은 두 글자씩, 영문/숫자는 구간 전체를 소문자로 자른다."() {
+        expect:
+        MessageTokenizer.tokenize(text) == tokens
+
+        where:
+        text                   | tokens
+        "회의실에서 만나요"         | ["회의", "의실", "실에", "에서", "만나", "나요"]
+        "Spring Boot 3.5 배포"  | ["spring", "boot", "3", "5", "배포"]
+        "ＡＢＣ 회의는, 회의를!"     | ["abc", "회의", "의는", "의를"]
+        "ㅋㅋㅋ 네"              | MessageTokenizer.tokenize("ㅋㅋ 네")
+        "... 🙂"               | []
+    }
+
+    def "모든 검색어 토큰이 들어 있고 검색어 구간이 원문에 그대로 있는 메시지만, 참여한 채널에서 최신순으로 찾는다."() {
+        given:
+        long first = add(1, "내일 회의실에서 만나요")
+        long second = add(1, "회의 자료는 Spring 폴더에")
+        long otherChannel = add(2, "회의실 예약했어요")
+        long scattered = add(1, "실에 가서 회의 준비")
+        add(1, "점심 뭐 먹지")
+        index.awaitIndexed()
+
+        expect:
+        search("회의", ALL)*.messageSequence() == [scattered, otherChannel, second, first]
+        search("회의", { long channelId -> channelId == 1L } as LongPredicate)*.messageSequence() == [scattered, second, first]
+        search("회의실", ALL)*.messageSequence() == [otherChannel, first]
+        search("SPRING 회의", ALL)*.messageSequence() == [second]
+        search("회의 저녁", ALL).isEmpty()
+        search("!!!", ALL).isEmpty()
+
+        and: "찾은 메시지에는 보여 줄 원문과 보낸 사람이 들어 있다"
+        with(search("Spring", ALL)[0]) {
+            channelId() == 1L
+            username() == "user1"
+            content() == "회의 자료는 Spring 폴더에"
+        }
+    }
+
+    def "cursor보다 앞선 메시지만 limit개씩 찾아서 페이지를 넘긴다."() {
+        given:
+        List<Long> sequences = (0..<25).collect { add(1, "배포 공지 $it") }
+        index.awaitIndexed()
+
+        when:
+        List<Long> pages = []
+        long cursor = Long.MAX_VALUE
+        while (true) {
+            List<IndexedMessage> page = index.search("배포", ALL, cursor, 10)
+            pages.addAll(page*.messageSequence())
+            if (page.size() < 10) {
+                break
+            }
+            cursor = page[-1].messageSequence()
+        }
+
+        then:
+        pages == sequences.reverse()
+    }
+
+    def "세그먼트가 max-segments보다 많아지면 병합하고, 병합 전후의 검색 결과는 같다."() {
+        given:
+        List<Long> expected = []
+        (0..<8).each { flush ->
+            (0..<5).each { expected << add(flush % 3 + 1, "배포 체크리스트 $flush-$it") }
+            index.awaitFlush()
+        }
+        List<Long> before = index.search("배포 체크리스트", ALL, Long.MAX_VALUE, 100)*.messageSequence()
+
+        when:
+        (0..<5).each { expected << add(1, "배포 체크리스트 마지막 $it") }
+        index.awaitFlush()
+
+        then:
+        index.segmentCount() <= 8
+        before == expected.take(40).reverse()
+        index.search("배포 체크리스트", ALL, Long.MAX_VALUE, 100)*.messageSequence() == expected.reverse()
+        search("마지막", ALL).size() == 5
+    }
+
+    def "재시작하면 세그먼트를 다시 열고, 세그먼트로 쓰기 전의 메시지는 WAL에서 복구한다."() {
+        given:
+        long flushed = add(1, "세그먼트에 쓴 메시지")
+        index.awaitFlush()
+        long pending = add(1, "WAL에만 있는 메시지")
+        index.awaitIndexed()
+
+        when: "flush 없이 멈춘 뒤 같은 디렉토리로 다시 연다"
+        MessageSearchIndex restarted = open(1000, 8, 4)
+
+        then:
+        restarted.search("메시지", ALL, Long.MAX_VALUE, 10)*.messageSequence() == [pending, flushed]
+        restarted.search("wal", ALL, Long.MAX_VALUE, 10)*.messageSequence() == [pending]
+        restarted.segmentCount() == 2
+
+        cleanup:
+        restarted?.shutdown()
+    }
+
+    def "저장한 메시지는 다른 노드에 보내고, 다른 노드가 보낸 메시지는 색인하고, 자기가 보낸 것은 무시한다."() {
+        given:
+        String published = null
+
+        when:
+        long local = add(1, "로컬 노드 배포")
+        index.awaitIndexed()
+
+        then:
+        1 * stringRedisTemplate.convertAndSend(MessageSearchIndex.SEARCH_CHANNEL, _ as String) >> { args -> published = args[1]; 1L }
+
+        when:
+        index.onMessage(new DefaultMessage(MessageSearchIndex.SEARCH_CHANNEL.bytes, published.bytes), null)
+        def remote = new IndexedMessage(sequence++, 2, 7, "user7", "다른 노드 배포")
+        index.onMessage(new DefaultMessage(MessageSearchIndex.SEARCH_CHANNEL.bytes,
+                jsonUtil.toJson(new MessageSearchIndex.Published("other-node", remote)).get().bytes), null)
+        index.awaitIndexed()
+
+        then:
+        0 * stringRedisTemplate._
+        search("배포", ALL)*.messageSequence() == [remote.messageSequence(), local]
+        search("다른", ALL)[0] == remote
+    }
+
+    def "채우기는 이미 색인된 메시지를 건너뛰고, 재시작하면 세그먼트의 마지막 sequence부터 채울 수 있게 알려준다."() {
+        given:
+        long flushed = add(1, "이미 색인된 공지")
+        index.awaitFlush()
+
+        when:
+        index.backfill([new IndexedMessage(flushed, 1, 1, "user1", "이미 색인된 공지"),
+                        new IndexedMessage(sequence++, 1, 1, "user1", "빠졌던 공지")])
+        index.awaitFlush()
+        MessageSearchIndex restarted = open(1000, 8, 4)
+
+        then:
+        index.search("공지", ALL, Long.MAX_VALUE, 10)*.messageSequence() == [flushed + 1, flushed]
+        index.segmentCount() == 2
+        restarted.getNewestAtStart() == flushed + 1
+
+        cleanup:
+        restarted?.shutdown()
+    }
+
+    private MessageSearchIndex open(int flushMessages, int maxSegments, int mergeFactor) {
+        MessageSearchIndex opened = new MessageSearchIndex(stringRedisTemplate, jsonUtil, directory, flushMessages, maxSegments, mergeFactor, 1000)
+        opened.start()
+        return opened
+    }
+
+    private long add(long channelId, String content) {
+        long messageSequence = sequence++
+        index.add(new StoredMessage(messageSequence, new ChannelId(channelId), new UserId(1), content), "user1")
+        return messageSequence
+    }
+
+    private List<IndexedMessage> search(String query, LongPredicate channelFilter) {
+        return index.search(query, channelFilter, Long.MAX_VALUE, 10)
+    }
+}
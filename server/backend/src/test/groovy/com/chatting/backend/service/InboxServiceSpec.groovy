@@ -0,0 +1,88 @@
+package com.chatting.backend.service
+
+import com.chatting.backend.dto.domain.Channel
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.ChannelListSnapshot
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.dto.websocket.outbound.InboxDigestNotification
+import com.chatting.backend.membership.MemberBitmap
+import com.chatting.backend.session.WebSocketSessionManager
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.web.socket.WebSocketSession
+import spock.lang.Specification
+
+/**
+ * 접속해 있지 않은 참여자의 받은 메시지함(채우기, 사용자별 비우기, 채널별 요약) 테스트 코드
+ *
+ * Redis 쪽 동작(접속 여부 확인, 용량 제한, cursor 갱신과 읽은 항목 지우기)은 Lua 스크립트 안에 있으므로 스크립트에 넘기는 key/인자와 결과 해석만 확인한다.
+ */
+class InboxServiceSpec extends Specification {
+
+    StringRedisTemplate stringRedisTemplate = Mock()
+    ChannelListService channelListService = Stub() {
+        getChannelsList(_) >> new ChannelListSnapshot(1, [new Channel(new ChannelId(10), "A", 3), new Channel(new ChannelId(20), "B", 2)])
+    }
+    WebSocketSessionManager webSocketSessionManager = Mock()
+    WebSocketSession session = Stub()
+
+    //전용 스레드 대신 호출한 스레드에서 바로 실행
+    InboxService inboxService = new InboxService(stringRedisTemplate, channelListService, webSocketSessionManager,
+            { Runnable task -> task.run() }, 1000, 60_000, 2, 2, 1)
+
+    def "채널을 보고 있는 참여자와 보낸 사람을 빼고 batch-size명씩 스크립트 하나로 넣는다."() {
+        when:
+        inboxService.store(new ChannelId(10), 777, MemberBitmap.of([1L, 2L, 3L, 4L, 5L] as long[]), MemberBitmap.of([2L] as long[]), 1)
+
+        then:
+        1 * stringRedisTemplate.execute(InboxService.FILL_SCRIPT,
+                ["message:presence:3", "message:inbox:3", "message:inbox:3:meta", "message:presence:4", "message:inbox:4", "message:inbox:4:meta"],
+                "10", "777", "1000", "60000")
+        1 * stringRedisTemplate.execute(InboxService.FILL_SCRIPT,
+                ["message:presence:5", "message:inbox:5", "message:inbox:5:meta"],
+                "10", "777", "1000", "60000")
+    }
+
+    def "연결되면 사용자가 받지 않은 항목을 끝까지 읽어 채널별 요약 한 프레임으로 보낸다."() {
+        when:
+        inboxService.drain(new UserId(1), session)
+
+        then: "drain-batch-size개가 꽉 찬 동안 이어서 읽는다"
+        1 * stringRedisTemplate.execute(InboxService.DRAIN_SCRIPT, ["message:inbox:1", "message:inbox:1:meta"], "2") >> ["1", "1:10:100", "2:10:101"]
+        1 * stringRedisTemplate.execute(InboxService.DRAIN_SCRIPT, ["message:inbox:1", "message:inbox:1:meta"], "2") >> ["1", "3:20:102"]
+        1 * webSocketSessionManager.sendMessage(session, _ as InboxDigestNotification) >> { WebSocketSession target, InboxDigestNotification digest ->
+            //digest-channels(1)개만 담고, 전체 수는 모든 채널 기준
+            assert digest.channels*.channelId() == [new ChannelId(20)]
+            assert digest.channels[0].title() == "B"
+            assert digest.channels[0].messageCount() == 1
+            assert digest.channels[0].lastMessageSequence() == 102
+            assert digest.channelCount == 2
+            assert digest.messageCount == 3
+            assert digest.complete
+        }
+    }
+
+    def "받을 항목이 없으면 보내지 않고, 용량을 넘어 버려진 항목이 있으면 complete=false로 알린다."() {
+        when:
+        inboxService.drain(new UserId(1), session)
+
+        then:
+        1 * stringRedisTemplate.execute(InboxService.DRAIN_SCRIPT, _, *_) >> ["1"]
+        0 * webSocketSessionManager.sendMessage(*_)
+
+        when:
+        inboxService.drain(new UserId(1), session)
+
+        then:
+        1 * stringRedisTemplate.execute(InboxService.DRAIN_SCRIPT, _, *_) >> ["0", "5:10:100"]
+        1 * webSocketSessionManager.sendMessage(session, { !it.complete && it.messageCount == 1 })
+    }
+
+    def "비우는 중에 Redis가 실패하면 이미 읽은(cursor를 올린) 항목까지만 보낸다."() {
+        when:
+        inboxService.drain(new UserId(1), session)
+
+        then:
+        2 * stringRedisTemplate.execute(InboxService.DRAIN_SCRIPT, _, *_) >>> [["1", "1:10:100", "2:10:101"]] >> { throw new IllegalStateException("redis down") }
+        1 * webSocketSessionManager.sendMessage(session, { it.messageCount == 2 })
+    }
+}
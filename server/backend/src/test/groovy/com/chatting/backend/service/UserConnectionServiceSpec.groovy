@@ -1,13 +1,13 @@
 package com.chatting.backend.service
 
+import com.chatting.backend.cache.InviteCodeCache
 import com.chatting.backend.constant.UserConnectionStatus
 import com.chatting.backend.dto.domain.InviteCode
-import com.chatting.backend.dto.domain.User
 import com.chatting.backend.dto.domain.UserId
-import com.chatting.backend.entity.UserConnectionEntity
-import com.chatting.backend.entity.UserEntity
+import com.chatting.backend.graph.ConnectionGraphIndex
 import com.chatting.backend.repository.UserConnectionRepository
-import com.chatting.backend.repository.UserRepository
+import com.chatting.backend.repository.UserConnectionCountRepository
+import com.chatting.backend.repository.UserConnectionEdgeRepository
 import org.springframework.data.util.Pair
 import spock.lang.Specification
 
@@ -17,8 +17,7 @@ import spock.lang.Specification
  * 해당 projection을 임포트 안해도 빨간줄이 안쳐지며 임포트 안했다고 알려주지도 않는다.
  * 해당 테스트 코드 등을 다 성공적으로 작성해도 해당 Projection을 import 안하면 코드를 통과하지 못하고 계속 에러 발생.
  */
-import com.chatting.backend.dto.projection.UserConnectionStatusProjection
-import com.chatting.backend.dto.projection.InviterUserIdProjection
+import com.chatting.backend.dto.projection.UserConnectionStateProjection
 
 /**
  * 사용자 연결 요청 테스트 코드
@@ -27,37 +26,32 @@ class UserConnectionServiceSpec extends Specification {
 
     UserConnectionService userConnectionService
     UserConnectionLimitService userConnectionLimitService
-    UserService userService = Stub()
-    UserRepository userRepository = Stub()
+    UserConnectionCountRepository userConnectionCountRepository = Stub()
     UserConnectionRepository userConnectionRepository = Stub()
+    UserConnectionEdgeRepository userConnectionEdgeRepository = Stub()
+    ConnectionGraphIndex connectionGraphIndex = Stub()
+    InviteCodeCache inviteCodeCache = Stub()
 
     /**
      * - 각 테스트 실행 전 공통적으로 초기화
      * - Service 클래스에 Stub/Repository 주입
      */
     def setup() {
-        userConnectionLimitService = new UserConnectionLimitService(userRepository, userConnectionRepository)
-        userConnectionService = new UserConnectionService(userService, userConnectionLimitService, userConnectionRepository)
+        userConnectionLimitService = new UserConnectionLimitService(userConnectionCountRepository, userConnectionRepository, userConnectionEdgeRepository, connectionGraphIndex)
+        userConnectionService = new UserConnectionService(userConnectionLimitService, userConnectionRepository, userConnectionEdgeRepository, inviteCodeCache)
+
+        //인접 리스트(두 방향 행)는 항상 user_connection과 맞춰져 있다고 가정한다.
+        userConnectionEdgeRepository.updateStatus(_ as Long, _ as Long, _ as UserConnectionStatus, _ as UserConnectionStatus) >> 2
     }
 
     def "사용자 연결 신청에 대한 테스트."() {
         given: "테스트를 위한 기본 동작 정의 (Stub)"
-        // 대상 사용자를 InviteCode로 조회
-        userService.getUser(inviteCodeOfTargetUser) >> Optional.of(new User(targetUserId, targetUsername))
-        // 연결 신청하는 사람의 ID로 username 조회
-        userService.getUsername(senderUserId) >> Optional.of(senderUsername)
-        // 연결 신청하는 사람의 연결 수 조회 (limit 테스트용)
-        userService.getConnectionCount(senderUserId) >> { senderUserId.id() != 8 ? Optional.of(0) : Optional.of(1_000) }
-
-        // 둘 사이의 현재 상태(연결상태) 가져오기 (projection 사용)
-        //예) NONE, PENDING, ACCEPTED, REJECTEC, DISCONNECTED 등 상태만 확인
-        //리턴: 실제 DB Entity를 가져오기 않고 "Projection"을 사용해 "상태(ststua)"만 가져온다.
-        //사용시점: 수락 전, 거절 전 등 "상태 확인용"으로 주로 사용
-        userConnectionRepository.findUserConnectionStatusByPartnerAUserIdAndPartnerBUserId(_ as Long, _ as Long) >> {
-            Optional.of(Stub(UserConnectionStatusProjection) {
-                getStatus() >> beforeConnectionStatus.name()
-            })
-        }
+        // 초대코드 → 대상 userId는 InviteCodeCache가 해석한다. 다른 초대코드로 조회하면 Stub 기본값(Optional.empty())이 돌아온다.
+        inviteCodeCache.resolveUser(inviteCodeOfTargetUser) >> Optional.of(targetUserId)
+        // 대상 userId로 대상 사용자 + 관계 + 연결 신청하는 사람의 username/연결 수(limit 테스트용)를 한 번에 조회
+        userConnectionRepository.findConnectionStateByPartnerUserId(senderUserId.id(), targetUserId.id()) >>
+                Optional.of(connectionState(targetUserId, targetUsername, senderUsername,
+                        senderUserId.id() != 8 ? 0 : 1_000, beforeConnectionStatus, Optional.empty()))
 
         when: "실제 invite 동작 호출"
         def result = userConnectionService.invite(senderUserId, usedInviteCode)
@@ -88,46 +82,19 @@ class UserConnectionServiceSpec extends Specification {
     def "사용자 연결 신청 수락에 대한 테스트."() {
 
         given:
-        userService.getUserId(targetUsername) >> Optional.of(targetUserId)
-        userService.getUsername(senderUserId) >> Optional.of(senderUsername)
-
-        // DB에서 신청 수락자 Entity 조회 (연결 한도 테스트용)
-        userRepository.findForUpdateByUserId(_ as Long) >> { Long userId ->
-            //entity 만들어주기
-            def entity = new UserEntity()
-            if (userId == 5 || userId == 7) {
-                entity.setConnectionCount(1000) // limit 초과 시뮬레이션
-            }
-            return Optional.of(entity)
-        }
-
-        // 두 사용자 간 연결 상태 조회
-        //UserConnectionStatus인 연결 Entity를 가져오기 위해 사용
-        //예. ACCEPTED 상태인 연결을 찾고, 해당 연결 Entity를 통해 업데이트나 삭제를 수행할 때 사용한다. > Entity 전체를 가져오므로 DB에서 필요한 모든 필드 접근 가능하다
-        //사용 시점: 연결을 실제로 수락, 거절, 끊기 할 때. 상태 확인 뿐 아니라 업데이트 작업을 위해 Entity가 필요할 때
-        userConnectionRepository.findByPartnerAUserIdAndPartnerBUserIdAndStatus(_ as Long, _ as Long, _ as UserConnectionStatus) >> {
-            inviterUserId.flatMap { UserId inviter ->
-                Optional.of(new UserConnectionEntity(senderUserId.id(), targetUserId.id(), UserConnectionStatus.PENDING, inviter.id()))
-            }
-        }
+        // 상대방(초대한 사람) + 관계 + 내 username을 한 번에 조회
+        userConnectionRepository.findConnectionStateByPartnerUsername(senderUserId.id(), targetUsername) >>
+                Optional.of(connectionState(targetUserId, targetUsername, senderUsername, 0, beforeConnectionStatus, inviterUserId))
 
-        // 둘 사이의 현재 상태(연결상태) 가져오기 (projection 사용)
-        //예) NONE, PENDING, ACCEPTED, REJECTEC, DISCONNECTED 등 상태만 확인
-        //리턴: 실제 DB Entity를 가져오기 않고 "Projection"을 사용해 "상태(ststua)"만 가져온다.
-        //사용시점: 수락 전, 거절 전 등 "상태 확인용"으로 주로 사용
-        userConnectionRepository.findUserConnectionStatusByPartnerAUserIdAndPartnerBUserId(_ as Long, _ as Long) >> {
-            Optional.of(Stub(UserConnectionStatusProjection) {
-                getStatus() >> beforeConnectionStatus.name()
-            })
+        // 연결 수 조건부 증가 (연결 한도 테스트용): 0이면 한도에 도달한 것
+        userConnectionCountRepository.increaseConnectionCount(_ as Long, _ as Integer) >> { Long userId, int limit ->
+            (userId == 5 || userId == 7) ? 0 : 1 // limit 초과 시뮬레이션
         }
 
-        // 초대한 사람의 userId 가져오기
-        userConnectionRepository.findInviterUserIdByPartnerAUserIdAndPartnerBUserId(_ as Long, _ as Long) >> {
-            inviterUserId.flatMap { UserId inviter ->
-                Optional.of(Stub(InviterUserIdProjection) {
-                    getInviterUserId() >> inviter.id()
-                })
-            }
+        // 두 사용자 간 관계 상태 전이 (PENDING → ACCEPTED)
+        //초대 관계가 있을 때만 1 row가 바뀐다.
+        userConnectionRepository.updateStatus(_ as Long, _ as Long, _ as UserConnectionStatus, _ as UserConnectionStatus) >> {
+            inviterUserId.isPresent() ? 1 : 0
         }
 
         when: "accept 동작 수행"
@@ -175,27 +142,9 @@ class UserConnectionServiceSpec extends Specification {
     def "사용자 연결 신청 거절에 대한 테스트."() {
 
         given:
-        userService.getUserId(targetUsername) >> Optional.of(targetUserId)
-        userService.getUsername(senderUserId) >> Optional.of(senderUsername)
-
-        // 둘 사이의 현재 상태(연결상태) 가져오기 (projection 사용)
-        //예) NONE, PENDING, ACCEPTED, REJECTEC, DISCONNECTED 등 상태만 확인
-        //리턴: 실제 DB Entity를 가져오기 않고 "Projection"을 사용해 "상태(ststua)"만 가져온다.
-        //사용시점: 수락 전, 거절 전 등 "상태 확인용"으로 주로 사용
-        userConnectionRepository.findUserConnectionStatusByPartnerAUserIdAndPartnerBUserId(_ as Long, _ as Long) >> {
-            Optional.of(Stub(UserConnectionStatusProjection) {
-                getStatus() >> beforeConnectionStatus.name()
-            })
-        }
-
-        // 초대한 사람의 userId 가져오기
-        userConnectionRepository.findInviterUserIdByPartnerAUserIdAndPartnerBUserId(_ as Long, _ as Long) >> {
-            inviterUserId.flatMap { UserId inviter ->
-                Optional.of(Stub(InviterUserIdProjection) {
-                    getInviterUserId() >> inviter.id()
-                })
-            }
-        }
+        // 상대방 + 관계 + 내 정보를 한 번에 조회
+        userConnectionRepository.findConnectionStateByPartnerUsername(senderUserId.id(), targetUsername) >>
+                Optional.of(connectionState(targetUserId, targetUsername, senderUsername, 0, beforeConnectionStatus, inviterUserId))
 
         when:
         def result = userConnectionService.reject(senderUserId, targetUsername)
@@ -232,46 +181,19 @@ class UserConnectionServiceSpec extends Specification {
 
     def "사용자 연결 끊기에 대한 테스트."() {
         given:
-        userService.getUserId(targetUsername) >> Optional.of(targetUserId)
-        userService.getUsername(senderUserId) >> Optional.of(senderUsername)
-
-        // DB에서 신청 수락자 Entity 조회 (연결 한도 테스트용)
-        userRepository.findForUpdateByUserId(_ as Long) >> { Long userId ->
-            def entity = new UserEntity()
-            if (userId != 8) {
-                entity.setConnectionCount(100) // limit 관련 시나리오 제외
-            }
-            return Optional.of(entity)
-        }
-
+        // 상대방 + 관계 + 내 정보를 한 번에 조회
+        userConnectionRepository.findConnectionStateByPartnerUsername(senderUserId.id(), targetUsername) >>
+                Optional.of(connectionState(targetUserId, targetUsername, senderUsername, 100, beforeConnectionStatus, inviterUserId))
 
-        // 둘 사이의 현재 상태(연결상태) 가져오기 (projection 사용)
-        //예) NONE, PENDING, ACCEPTED, REJECTEC, DISCONNECTED 등 상태만 확인
-        //리턴: 실제 DB Entity를 가져오기 않고 "Projection"을 사용해 "상태(ststua)"만 가져온다.
-        //사용시점: 수락 전, 거절 전 등 "상태 확인용"으로 주로 사용
-        userConnectionRepository.findUserConnectionStatusByPartnerAUserIdAndPartnerBUserId(_ as Long, _ as Long) >> {
-            Optional.of(Stub(UserConnectionStatusProjection) {
-                getStatus() >> beforeConnectionStatus.name()
-            })
+        // 연결 수 조건부 감소: 0이면 이미 0이었던 것
+        userConnectionCountRepository.decreaseConnectionCount(_ as Long) >> { Long userId ->
+            userId != 8 ? 1 : 0 // limit 관련 시나리오 제외
         }
 
-        // 초대한 사람의 userId 가져오기
-        userConnectionRepository.findInviterUserIdByPartnerAUserIdAndPartnerBUserId(_ as Long, _ as Long) >> {
-            inviterUserId.flatMap { UserId inviter ->
-                Optional.of(Stub(InviterUserIdProjection) {
-                    getInviterUserId() >> inviter.id()
-                })
-            }
-        }
 
-        // 두 사용자 간 연결 상태 조회
-        //UserConnectionStatus인 연결 Entity를 가져오기 위해 사용
-        //예. ACCEPTED 상태인 연결을 찾고, 해당 연결 Entity를 통해 업데이트나 삭제를 수행할 때 사용한다. > Entity 전체를 가져오므로 DB에서 필요한 모든 필드 접근 가능하다
-        //사용 시점: 연결을 실제로 수락, 거절, 끊기 할 때. 상태 확인 뿐 아니라 업데이트 작업을 위해 Entity가 필요할 때
-        userConnectionRepository.findByPartnerAUserIdAndPartnerBUserIdAndStatus(_ as Long, _ as Long, _ as UserConnectionStatus) >> {
-            inviterUserId.flatMap { UserId inviter ->
-                Optional.of(new UserConnectionEntity(senderUserId.id(), targetUserId.id(), UserConnectionStatus.ACCEPTED, inviter.id()))
-            }
+        // 두 사용자 간 관계 상태 전이 (ACCEPTED → DISCONNECTED)
+        userConnectionRepository.updateStatus(_ as Long, _ as Long, _ as UserConnectionStatus, _ as UserConnectionStatus) >> {
+            inviterUserId.isPresent() ? 1 : 0
         }
 
         when:
@@ -307,4 +229,20 @@ class UserConnectionServiceSpec extends Specification {
         //count가 최소 1이상은 있어야 하는데 조회했을 때 0이 나오면 실패해야 한다.
         'Wrong condition'       | new UserId(8) | 'userH'        | new UserId(9) | 'userI'        | Optional.of(new UserId(9)) | UserConnectionStatus.ACCEPTED     | Pair.of(false, 'Disconnect failed.')
     }
-}
\ No newline at end of file
+
+    /**
+     * 관계 한 번에 조회(findConnectionState...) 결과 Stub
+     * 관계가 없으면(NONE) status/inviter는 LEFT JOIN 결과처럼 null이다.
+     */
+    private UserConnectionStateProjection connectionState(UserId partnerUserId, String partnerUsername, String requesterUsername,
+                                                          int requesterConnectionCount, UserConnectionStatus status, Optional<UserId> inviterUserId) {
+        return Stub(UserConnectionStateProjection) {
+            getPartnerUserId() >> partnerUserId.id()
+            getPartnerUsername() >> partnerUsername
+            getRequesterUsername() >> requesterUsername
+            getRequesterConnectionCount() >> requesterConnectionCount
+            getStatus() >> (status == UserConnectionStatus.NONE ? null : status.name())
+            getInviterUserId() >> inviterUserId.map { it.id() }.orElse(null)
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.json.JsonUtil
+import com.chatting.backend.membership.MemberBitmap
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.web.socket.TextMessage
+import org.springframework.web.socket.WebSocketMessage
+import org.springframework.web.socket.WebSocketSession
+import org.springframework.web.socket.handler.WebSocketSessionDecorator
+import spock.lang.Specification
+import spock.lang.Tag
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 1만 명 broadcast 채널 메시지의 time-to-last-recipient 측정
+ *
+ * 기존 구조: 수신자마다 runAsync 작업 하나 (MessageService의 10개 스레드 풀)
+ * 변경 구조: 참여자 bitmap을 1000명 샤드로 나눠 BroadcastFanout 워커 4개가 보낸다. (pacing 없음 / 기본 pacing 100,000명/초)
+ *
+ * 소켓 쓰기 비용은 세션마다 SEND_COST_NANOS 만큼 CPU를 쓰는 것으로 흉내낸다.
+ * 같은 풀을 쓰는 작은 채널 메시지 하나가 broadcast 직후에 들어왔을 때 얼마나 기다리는지도 같이 잰다.
+ * 실행: gradle benchmark
+ */
+@Tag("benchmark")
+class BroadcastFanoutBenchmark extends Specification {
+
+    static final int MEMBERS = 10_000
+    static final int ROUNDS = 5
+    static final long SEND_COST_NANOS = 5_000
+
+    WebSocketSession delegate = Stub()
+    WebSocketSessionManager manager = new WebSocketSessionManager(new JsonUtil(new ObjectMapper()))
+    TextMessage frame = new TextMessage('{"type":"NOTIFY_MESSAGE","channelId":1,"messageSequence":1,"username":"notice","content":"hello"}')
+    volatile CountDownLatch latch
+    AtomicLong lastDeliveredNanos = new AtomicLong()
+
+    def setup() {
+        for (long id = 1; id <= MEMBERS + 1; id++) {
+            manager.putSessions(new UserId(id), new LazyBufferedWebSocketSession(new CountingSession(delegate, "s" + id), 5000, 100 * 1024))
+        }
+    }
+
+    def "1만 명 채널 메시지 하나의 time-to-last-recipient 비교"() {
+        given:
+        def members = MemberBitmap.of((1L..MEMBERS) as long[])
+        long senderUserId = 1
+        ExecutorService senderThreadPool = Executors.newFixedThreadPool(10)
+        def unpaced = new BroadcastFanout(manager, 4, 1000, 1_000_000_000L)
+        def paced = new BroadcastFanout(manager, 4, 1000, 100_000)
+
+        when:
+        def legacy = measure { CountDownLatch small ->
+            (2L..MEMBERS).each { id ->
+                CompletableFuture.runAsync({ manager.sendMessage(new UserId(id), frame) }, senderThreadPool)
+            }
+            //같은 풀에 들어오는 작은 채널 메시지 하나 (수신자 = MEMBERS + 1)
+            CompletableFuture.runAsync({ manager.sendMessage(new UserId(MEMBERS + 1), frame); small.countDown() }, senderThreadPool)
+        }
+        def sharded = measure { CountDownLatch small ->
+            unpaced.fanOut(members, senderUserId, { long userId -> manager.sendMessage(userId, frame) })
+            CompletableFuture.runAsync({ manager.sendMessage(new UserId(MEMBERS + 1), frame); small.countDown() }, senderThreadPool)
+        }
+        def pacedResult = measure { CountDownLatch small ->
+            paced.fanOut(members, senderUserId, { long userId -> manager.sendMessage(userId, frame) })
+            CompletableFuture.runAsync({ manager.sendMessage(new UserId(MEMBERS + 1), frame); small.countDown() }, senderThreadPool)
+        }
+
+        println "[broadcast fan-out] members=${MEMBERS} sendCost=${SEND_COST_NANOS / 1000}us (median of ${ROUNDS})"
+        println "  per-recipient runAsync : last recipient ${legacy.lastMillis} ms, small channel message waited ${legacy.smallMillis} ms"
+        println "  sharded (no pacing)    : last recipient ${sharded.lastMillis} ms, small channel message waited ${sharded.smallMillis} ms"
+        println "  sharded (100k/s pacing): last recipient ${pacedResult.lastMillis} ms, small channel message waited ${pacedResult.smallMillis} ms"
+
+        then:
+        sharded.small <= legacy.small
+
+        cleanup:
+        senderThreadPool.shutdown()
+        unpaced.shutdown()
+        paced.shutdown()
+    }
+
+    /**
+     * 보낸 사람을 뺀 MEMBERS - 1명 + 작은 채널 수신자 1명이 받을 때까지 기다린다.
+     * @return 시작부터 마지막 broadcast 수신자까지, 작은 채널 메시지가 도착하기까지 걸린 시간(ms)의 중앙값
+     */
+    private Map measure(Closure send) {
+        List<Double> lasts = []
+        List<Double> smalls = []
+        (ROUNDS + 1).times { round ->
+            latch = new CountDownLatch(MEMBERS)
+            lastDeliveredNanos.set(0)
+            CountDownLatch small = new CountDownLatch(1)
+            long start = System.nanoTime()
+            send(small)
+            small.await(30, TimeUnit.SECONDS)
+            long smallNanos = System.nanoTime() - start
+            assert latch.await(30, TimeUnit.SECONDS)
+            if (round > 0) {    //첫 회는 워밍업
+                lasts.add((lastDeliveredNanos.get() - start) / 1_000_000d)
+                smalls.add(smallNanos / 1_000_000d)
+            }
+        }
+        return [lastMillis: String.format('%.1f', median(lasts)), smallMillis: String.format('%.1f', median(smalls)), small: median(smalls)]
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = values.sort(false)
+        return sorted[sorted.size().intdiv(2)]
+    }
+
+    private class CountingSession extends WebSocketSessionDecorator {
+
+        private final String id
+
+        CountingSession(WebSocketSession delegate, String id) {
+            super(delegate)
+            this.id = id
+        }
+
+        @Override
+        String getId() {
+            return id
+        }
+
+        @Override
+        void sendMessage(WebSocketMessage<?> message) {
+            long until = System.nanoTime() + SEND_COST_NANOS
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait()
+            }
+            lastDeliveredNanos.accumulateAndGet(System.nanoTime(), Math::max)
+            latch.countDown()
+        }
+    }
+}
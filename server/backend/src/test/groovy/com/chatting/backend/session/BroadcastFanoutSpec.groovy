@@ -0,0 +1,70 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.membership.MemberBitmap
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * broadcast 채널 샤드 전송 테스트 코드
+ */
+class BroadcastFanoutSpec extends Specification {
+
+    WebSocketSessionManager webSocketSessionManager = Stub() {
+        //짝수 id만 이 노드에 접속해 있다.
+        getConnectedUsers() >> MemberBitmap.of((2L..2_000L).step(2) as long[])
+    }
+
+    def "보낸 사람과 접속하지 않은 참여자는 빼고, 나머지 참여자에게 한 번씩 보낸 뒤 보낸 수로 완료된다."() {
+        given:
+        def fanout = new BroadcastFanout(webSocketSessionManager, 2, 100, 1_000_000)
+        def members = MemberBitmap.of((1L..1_000L) as long[])
+        Set<Long> received = ConcurrentHashMap.newKeySet()
+        List<Long> duplicates = [].asSynchronized()
+
+        when:
+        int delivered = fanout.fanOut(members, 2, { long userId ->
+            if (!received.add(userId)) {
+                duplicates.add(userId)
+            }
+        }).get(5, TimeUnit.SECONDS)
+
+        then:
+        delivered == 499
+        received == ((4L..1_000L).step(2) as Set)
+        duplicates.isEmpty()
+
+        cleanup:
+        fanout.shutdown()
+    }
+
+    def "pacing: 샤드 시작 시각을 recipients-per-second에 맞춰 띄운다."() {
+        given:
+        //샤드 100명, 초당 1000명 → 샤드 사이 100ms. 샤드 5개면 마지막 샤드는 400ms 뒤에 시작한다.
+        def fanout = new BroadcastFanout(webSocketSessionManager, 4, 100, 1_000)
+        def members = MemberBitmap.of((1L..500L) as long[])
+
+        when:
+        long start = System.nanoTime()
+        fanout.fanOut(members, 0, {}).get(5, TimeUnit.SECONDS)
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+
+        then:
+        elapsedMillis >= 400
+
+        cleanup:
+        fanout.shutdown()
+    }
+
+    def "참여자가 없으면 바로 0으로 완료된다."() {
+        given:
+        def fanout = new BroadcastFanout(webSocketSessionManager, 1, 100, 1_000)
+
+        expect:
+        fanout.fanOut(MemberBitmap.EMPTY, 1, {}).get() == 0
+
+        cleanup:
+        fanout.shutdown()
+    }
+}
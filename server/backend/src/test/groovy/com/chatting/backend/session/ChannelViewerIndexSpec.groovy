@@ -0,0 +1,68 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.membership.MemberBitmap
+import spock.lang.Specification
+
+/**
+ * 채널별 "현재 보고 있는" 사용자 bitmap 테스트 코드
+ */
+class ChannelViewerIndexSpec extends Specification {
+
+    long now = 0
+    ChannelViewerIndex index = new ChannelViewerIndex({ now })
+    ChannelId first = new ChannelId(1)
+    ChannelId second = new ChannelId(2)
+
+    def "다른 채널로 enter 하면 이전 채널에서 빠지고, leave 하면 바로 빠진다."() {
+        when:
+        index.entered(new UserId(1), first, 1000)
+        index.entered(new UserId(2), first, 1000)
+        index.entered(new UserId(1), second, 1000)
+
+        then:
+        viewers(first) == [2L]
+        viewers(second) == [1L]
+
+        when:
+        index.left(new UserId(2))
+        index.left(new UserId(3))
+
+        then:
+        index.getViewers(first).is(MemberBitmap.EMPTY)
+        viewers(second) == [1L]
+        index.size() == 1
+    }
+
+    def "TTL이 지나면 sweep에서 빠지고, KeepAlive로 연장한 사용자는 남는다."() {
+        given:
+        index.entered(new UserId(1), first, 1000)
+        index.entered(new UserId(2), first, 1000)
+
+        when:
+        now = 900
+        index.refreshed(new UserId(2), 1000)
+        index.refreshed(new UserId(3), 1000)    //보고 있는 채널이 없으면 아무것도 하지 않는다.
+        now = 1000
+        index.sweep()
+
+        then:
+        viewers(first) == [2L]
+        index.size() == 1
+
+        when:
+        now = 1900
+        index.sweep()
+
+        then:
+        viewers(first).isEmpty()
+        index.size() == 0
+    }
+
+    private List<Long> viewers(ChannelId channelId) {
+        List<Long> result = []
+        index.getViewers(channelId).forEach({ long id -> result.add(id) })
+        return result
+    }
+}
@@ -0,0 +1,131 @@
+package com.chatting.backend.session
+
+import org.springframework.web.socket.CloseStatus
+import org.springframework.web.socket.TextMessage
+import org.springframework.web.socket.WebSocketSession
+import org.springframework.web.socket.handler.SessionLimitExceededException
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * 전송 버퍼를 지연 할당하는 세션 데코레이터 테스트 코드
+ */
+class LazyBufferedWebSocketSessionSpec extends Specification {
+
+    def "전송이 겹치지 않으면 버퍼를 할당하지 않는다."() {
+        given:
+        WebSocketSession delegate = Mock()
+        def session = new LazyBufferedWebSocketSession(delegate, 5000, 1024)
+
+        when:
+        session.sendMessage(new TextMessage("a"))
+        session.sendMessage(new TextMessage("b"))
+
+        then:
+        2 * delegate.sendMessage(_)
+        !session.isBufferAllocated()
+    }
+
+    def "전송 중에 들어온 메시지는 버퍼에 쌓였다가 순서대로 전송되고, 다 보내면 버퍼가 해제된다."() {
+        given:
+        def entered = new CountDownLatch(1)
+        def proceed = new CountDownLatch(1)
+        List<String> sent = Collections.synchronizedList([])
+        WebSocketSession delegate = Stub() {
+            sendMessage(_) >> { args ->
+                if (args[0].payload == "first") {
+                    entered.countDown()
+                    proceed.await(5, TimeUnit.SECONDS)
+                }
+                sent << args[0].payload
+            }
+        }
+        def session = new LazyBufferedWebSocketSession(delegate, 5000, 1024)
+        def executor = Executors.newSingleThreadExecutor()
+
+        when:
+        def first = executor.submit({ session.sendMessage(new TextMessage("first")) } as Runnable)
+        entered.await(5, TimeUnit.SECONDS)
+        session.sendMessage(new TextMessage("second"))
+        session.sendMessage(new TextMessage("third"))
+        def bufferedWhileSending = session.isBufferAllocated()
+        proceed.countDown()
+        first.get(5, TimeUnit.SECONDS)
+
+        then:
+        bufferedWhileSending
+        sent == ["first", "second", "third"]
+        !session.isBufferAllocated()
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "버퍼에 남아 있는 메시지는 나중에 바로 보내는 메시지보다 먼저 전송된다."() {
+        given: "first를 보내던 스레드가 실패해서, 그동안 버퍼에 들어온 second가 전송되지 않은 채 남는다"
+        def entered = new CountDownLatch(1)
+        def proceed = new CountDownLatch(1)
+        List<String> sent = Collections.synchronizedList([])
+        WebSocketSession delegate = Stub() {
+            sendMessage(_) >> { args ->
+                if (args[0].payload == "first") {
+                    entered.countDown()
+                    proceed.await(5, TimeUnit.SECONDS)
+                    throw new IOException("send failed")
+                }
+                sent << args[0].payload
+            }
+        }
+        def session = new LazyBufferedWebSocketSession(delegate, 5000, 1024)
+        def executor = Executors.newSingleThreadExecutor()
+        def first = executor.submit({ session.sendMessage(new TextMessage("first")) } as Callable)
+        entered.await(5, TimeUnit.SECONDS)
+        session.sendMessage(new TextMessage("second"))
+        proceed.countDown()
+        try {
+            first.get(5, TimeUnit.SECONDS)
+        } catch (ExecutionException ignored) {
+        }
+
+        expect:
+        !session.isFlushed()
+
+        when:
+        session.sendMessage(new TextMessage("third"))
+
+        then:
+        sent == ["second", "third"]
+        session.isFlushed()
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "버퍼 크기 제한을 넘으면 SESSION_NOT_RELIABLE로 세션을 닫는다."() {
+        given:
+        def entered = new CountDownLatch(1)
+        def proceed = new CountDownLatch(1)
+        WebSocketSession delegate = Mock()
+        delegate.sendMessage(_) >> { entered.countDown(); proceed.await(5, TimeUnit.SECONDS) }
+        def session = new LazyBufferedWebSocketSession(delegate, 5000, 4)
+        def executor = Executors.newSingleThreadExecutor()
+        executor.submit({ session.sendMessage(new TextMessage("first")) } as Runnable)
+        entered.await(5, TimeUnit.SECONDS)
+
+        when:
+        session.sendMessage(new TextMessage("too large"))
+
+        then:
+        thrown(SessionLimitExceededException)
+        1 * delegate.close(CloseStatus.SESSION_NOT_RELIABLE)
+
+        cleanup:
+        proceed.countDown()
+        executor.shutdownNow()
+    }
+}
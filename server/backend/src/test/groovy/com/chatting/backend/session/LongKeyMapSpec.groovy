@@ -0,0 +1,44 @@
+package com.chatting.backend.session
+
+import spock.lang.Specification
+
+/**
+ * primitive long key 맵 테스트 코드
+ */
+class LongKeyMapSpec extends Specification {
+
+    def "삽입/조회/삭제가 HashMap과 같은 결과를 낸다. (resize, backward shift 삭제 포함)"() {
+        given:
+        LongKeyMap<String> map = new LongKeyMap<>()
+        Map<Long, String> expected = [:]
+        Random random = new Random(42)
+
+        when:
+        20_000.times {
+            long key = random.nextInt(5_000)
+            if (random.nextInt(3) == 0) {
+                assert map.remove(key) == expected.remove(key)
+            } else {
+                map.compute(key, { old -> "v$key" as String })
+                expected.put(key, "v$key" as String)
+            }
+        }
+
+        then:
+        map.size() == expected.size()
+        (0L..<5_000L).every { map.get(it) == expected.get(it) }
+    }
+
+    def "compute가 null을 반환하면 key가 삭제된다."() {
+        given:
+        LongKeyMap<String> map = new LongKeyMap<>()
+        map.compute(7L, { "seven" })
+
+        when:
+        map.compute(7L, { null })
+
+        then:
+        !map.containsKey(7L)
+        map.size() == 0
+    }
+}
@@ -0,0 +1,94 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.dto.domain.UserId
+import org.springframework.web.socket.TextMessage
+import spock.lang.Specification
+
+/**
+ * 재접속(resume) 시 놓친 메시지를 다시 보내주는 재전송 버퍼 테스트 코드
+ */
+class MessageReplayBufferSpec extends Specification {
+
+    long now = 1_000
+    UserId userId = new UserId(1)
+
+    def "순서가 뒤섞여 기록되어도 마지막으로 받은 sequence 이후의 프레임만 sequence 순서대로 돌려준다."() {
+        given:
+        def buffer = new MessageReplayBuffer(8, 60_000, { now })
+
+        when:
+        [3L, 1L, 2L, 5L, 4L].each { buffer.append(userId, it, frame(it)) }
+        def replay = buffer.replay(userId, 2)
+
+        then:
+        replay.frames()*.payload == ["3", "4", "5"]
+        replay.complete()
+    }
+
+    def "capacity를 넘어 버려진 메시지 이전부터 재개하면 complete=false, 그 이후부터면 complete=true 이다."() {
+        given:
+        def buffer = new MessageReplayBuffer(3, 60_000, { now })
+
+        when:
+        (1L..5L).each { buffer.append(userId, it, frame(it)) }
+
+        then:
+        with(buffer.replay(userId, 1)) {
+            frames()*.payload == ["3", "4", "5"]
+            !complete()
+        }
+        with(buffer.replay(userId, 2)) {
+            frames()*.payload == ["3", "4", "5"]
+            complete()
+        }
+    }
+
+    def "retention이 지난 엔트리는 다시 보내지 않고, sweep은 빈 버퍼를 지운다."() {
+        given:
+        def buffer = new MessageReplayBuffer(8, 1_000, { now })
+        buffer.append(userId, 1, frame(1))
+        buffer.append(new UserId(2), 1, frame(1))
+        now += 500
+        buffer.append(userId, 2, frame(2))
+
+        when:
+        now += 700
+        def replay = buffer.replay(userId, 0)
+
+        then:
+        replay.frames()*.payload == ["2"]
+        !replay.complete()
+
+        when:
+        buffer.sweep()
+
+        then:
+        buffer.size() == 1
+
+        when: "지워진 버퍼가 버린 메시지 이후부터 받았다면 버퍼가 없어도 빠진 메시지가 없다."
+        def afterSweep = buffer.replay(new UserId(2), 1)
+
+        then:
+        afterSweep.frames().isEmpty()
+        afterSweep.complete()
+    }
+
+    def "이 노드가 기록을 시작하기 전의 sequence로 재개하면 complete=false 이다."() {
+        given:
+        def buffer = new MessageReplayBuffer(8, 60_000, { now })
+
+        expect: "아무것도 기록하지 않았으면 재시작 전 메시지를 알 수 없다."
+        !buffer.replay(userId, 10).complete()
+
+        when:
+        buffer.append(new UserId(2), 20, frame(20))
+
+        then:
+        !buffer.replay(userId, 10).complete()
+        buffer.replay(userId, 19).complete()
+    }
+
+    private static TextMessage frame(long sequence) {
+        new TextMessage(String.valueOf(sequence))
+    }
+}
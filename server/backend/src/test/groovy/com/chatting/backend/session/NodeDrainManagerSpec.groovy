@@ -0,0 +1,69 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.auth.HandshakeAdmissionInterceptor
+import com.chatting.backend.constant.IdKey
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.json.JsonUtil
+import com.chatting.backend.service.PresenceService
+import com.chatting.backend.service.SessionService
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.web.socket.CloseStatus
+import org.springframework.web.socket.WebSocketSession
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+/**
+ * 노드 drain(연결을 wave 단위로 닫고 다른 노드로 넘기기) 테스트 코드
+ */
+class NodeDrainManagerSpec extends Specification {
+
+    WebSocketSessionManager webSocketSessionManager = new WebSocketSessionManager(new JsonUtil(new ObjectMapper()))
+    HandshakeAdmissionInterceptor handshakeAdmissionInterceptor = new HandshakeAdmissionInterceptor(10, 10, 10, 1)
+    SessionService sessionService = Mock()
+    PresenceService presenceService = Mock()
+
+    def "drain을 시작하면 핸드셰이크를 막고, presence TTL을 한 번에 연장한 뒤, wave 단위로 drain close code로 닫는다."() {
+        given:
+        def manager = new NodeDrainManager(webSocketSessionManager, handshakeAdmissionInterceptor, sessionService, presenceService,
+                2, Duration.ofMillis(50), Duration.ofSeconds(1), Duration.ofSeconds(10))
+        List<Long> closedAt = Collections.synchronizedList([])
+        List<CloseStatus> statuses = Collections.synchronizedList([])
+        (1..5).each { index ->
+            //사용자 1, 2는 기기 2개
+            def userId = new UserId((index + 1).intdiv(2) as long)
+            WebSocketSession session = Stub() {
+                getId() >> "session-$index"
+                getAttributes() >> [(IdKey.USER_ID.getValue()): userId]
+                close(_) >> { args ->
+                    closedAt.add(System.nanoTime())
+                    statuses.add(args[0])
+                }
+            }
+            webSocketSessionManager.putSessions(userId, session)
+        }
+
+        when:
+        manager.drain().get(5, TimeUnit.SECONDS)
+
+        then:
+        manager.isDraining()
+        1 * sessionService.refreshActiveChannels({ it as Set == [new UserId(1), new UserId(2), new UserId(3)] as Set })
+        1 * presenceService.handOver({ it.size() == 3 }, Duration.ofSeconds(20))
+        statuses.size() == 5
+        statuses.every { it.code == NodeDrainManager.DRAIN_CLOSE_CODE && it.reason == "10" }
+
+        and: "wave 3개(2, 2, 1) 사이에 간격이 있다."
+        TimeUnit.NANOSECONDS.toMillis(closedAt[4] - closedAt[0]) >= 100
+    }
+
+    def "drain을 다시 요청하면 진행 중인 drain을 그대로 돌려준다."() {
+        given:
+        def manager = new NodeDrainManager(webSocketSessionManager, handshakeAdmissionInterceptor, sessionService, presenceService,
+                2, Duration.ofMillis(50), Duration.ofSeconds(1), Duration.ofSeconds(10))
+
+        expect:
+        manager.drain().is(manager.drain())
+    }
+}
@@ -0,0 +1,86 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.constant.UserConnectionStatus
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.graph.ConnectionGraphIndex
+import com.chatting.backend.json.JsonUtil
+import com.chatting.backend.repository.UserConnectionEdgeRepository
+import com.chatting.backend.service.UserService
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.web.socket.TextMessage
+import org.springframework.web.socket.WebSocketSession
+import spock.lang.Specification
+
+import java.time.Duration
+
+/**
+ * 접속 상태 변경을 받는 사람마다 모아서(coalesce) 보내는 테스트 코드
+ */
+class PresenceBroadcasterSpec extends Specification {
+
+    ObjectMapper objectMapper = new ObjectMapper()
+    JsonUtil jsonUtil = new JsonUtil(objectMapper)
+    WebSocketSessionManager webSocketSessionManager = new WebSocketSessionManager(jsonUtil)
+    UserConnectionEdgeRepository userConnectionEdgeRepository = Stub()
+    UserService userService = Stub()
+    List<String> sentToBob = []
+
+    def setup() {
+        userService.getUsername(_) >> { UserId userId -> Optional.of("user" + userId.id()) }
+        //bob(2)만 이 노드에 접속해 있다.
+        WebSocketSession bobSession = Stub() {
+            getId() >> "bob"
+            sendMessage(_) >> { args -> sentToBob.add((args[0] as TextMessage).payload) }
+        }
+        webSocketSessionManager.putSessions(new UserId(2), bobSession)
+    }
+
+    def "접속/종료를 반복해도 window당 마지막 상태 하나만 보내고, 원래 상태로 돌아왔으면 보내지 않는다."() {
+        given:
+        userConnectionEdgeRepository.findPartnerUserIds(_, UserConnectionStatus.ACCEPTED) >> [2L, 3L]
+        def broadcaster = newBroadcaster(200)
+
+        when: "사용자 1은 종료→접속→종료, 사용자 4는 종료→접속 (원래 상태)"
+        broadcaster.changed(new UserId(1), false)
+        broadcaster.changed(new UserId(1), true)
+        broadcaster.changed(new UserId(1), false)
+        broadcaster.changed(new UserId(4), false)
+        broadcaster.changed(new UserId(4), true)
+
+        then: "접속하지 않은 3에게는 모아 두지 않는다."
+        broadcaster.pendingRecipients() == 1
+
+        when:
+        broadcaster.flush()
+
+        then:
+        sentToBob.size() == 1
+        presences(sentToBob[0]) == [[username: "user1", online: false]]
+        broadcaster.pendingRecipients() == 0
+    }
+
+    def "변경이 많으면 max-batch개씩 한 프레임으로 묶어서 보낸다."() {
+        given:
+        userConnectionEdgeRepository.findPartnerUserIds(_, UserConnectionStatus.ACCEPTED) >> [2L]
+        def broadcaster = newBroadcaster(2)
+
+        when:
+        (10..14).each { broadcaster.changed(new UserId(it), true) }
+        broadcaster.flush()
+
+        then:
+        sentToBob.collect { presences(it).size() } == [2, 2, 1]
+        sentToBob.collectMany { presences(it)*.username } == (10..14).collect { "user" + it }
+    }
+
+    private PresenceBroadcaster newBroadcaster(int maxBatch) {
+        new PresenceBroadcaster(new ConnectionGraphIndex(userConnectionEdgeRepository, Stub(StringRedisTemplate), 1 << 20, Duration.ofMinutes(5)), userService, webSocketSessionManager, jsonUtil, maxBatch)
+    }
+
+    private List<Map> presences(String payload) {
+        def json = objectMapper.readValue(payload, Map)
+        assert json.type == "NOTIFY_PRESENCE"
+        json.presences as List<Map>
+    }
+}
@@ -0,0 +1,62 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.json.JsonUtil
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.web.socket.WebSocketSession
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator
+import spock.lang.Specification
+import spock.lang.Tag
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 유휴 연결 1개당 세션 레지스트리가 차지하는 heap(retained heap) 측정
+ *
+ * 기존 구조: ConcurrentHashMap<UserId, ...> + ConcurrentWebSocketSessionDecorator
+ * 변경 구조: LongKeyMap(primitive long key) + LazyBufferedWebSocketSession
+ *
+ * Tomcat 세션 자체(delegate)는 두 구조에서 같으므로 모든 연결이 하나의 Stub을 공유하게 해서 레지스트리 오버헤드만 잰다.
+ * 실행: gradle benchmark
+ */
+@Tag("benchmark")
+class SessionRegistryMemoryBenchmark extends Specification {
+
+    static final int CONNECTIONS = 200_000
+
+    WebSocketSession idleSession = Stub() { getId() >> "idle" }
+
+    def "유휴 연결 1개당 retained heap 비교"() {
+        when:
+        long before = usedHeap()
+        Map<UserId, Object> legacy = new ConcurrentHashMap<>()
+        for (long id = 0; id < CONNECTIONS; id++) {
+            legacy.put(new UserId(id), UserSessions.of(new ConcurrentWebSocketSessionDecorator(idleSession, 5000, 100 * 1024)))
+        }
+        long legacyBytes = (usedHeap() - before).intdiv(CONNECTIONS)
+        legacy = null
+
+        before = usedHeap()
+        WebSocketSessionManager manager = new WebSocketSessionManager(new JsonUtil(new ObjectMapper()))
+        for (long id = 0; id < CONNECTIONS; id++) {
+            manager.@sessions.compute(id, { UserSessions.of(new LazyBufferedWebSocketSession(idleSession, 5000, 100 * 1024)) })
+        }
+        long leanBytes = (usedHeap() - before).intdiv(CONNECTIONS)
+
+        println "[session registry] connections=${CONNECTIONS} legacy=${legacyBytes} B/conn lean=${leanBytes} B/conn " +
+                "(saved ${String.format('%.1f', (legacyBytes - leanBytes) * CONNECTIONS / 1024 / 1024)} MB)"
+
+        then:
+        manager.getUserCount() == CONNECTIONS
+        leanBytes < legacyBytes
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime()
+        5.times {
+            System.gc()
+            Thread.sleep(50)
+        }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+}
@@ -0,0 +1,91 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.json.JsonUtil
+import com.chatting.backend.membership.MemberBitmap
+import com.chatting.backend.service.UserService
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.web.socket.TextMessage
+import org.springframework.web.socket.WebSocketSession
+import spock.lang.Specification
+
+/**
+ * 입력 중 표시 중계(throttle + tick 단위 모아 보내기) 테스트 코드
+ */
+class TypingIndicatorRelaySpec extends Specification {
+
+    long now = 0
+    ObjectMapper objectMapper = new ObjectMapper()
+    WebSocketSessionManager webSocketSessionManager = new WebSocketSessionManager(new JsonUtil(objectMapper))
+    ChannelViewerIndex channelViewerIndex = Mock()
+    UserService userService = Stub() {
+        getUsername(_) >> { UserId userId -> Optional.of("user" + userId.id()) }
+    }
+    Map<Long, List<String>> sent = [:].withDefault { [] }
+    TypingIndicatorRelay relay = new TypingIndicatorRelay(channelViewerIndex, userService, webSocketSessionManager, 3_000, { now })
+
+    def setup() {
+        (1L..3L).each { id ->
+            WebSocketSession session = Stub() {
+                getId() >> "session-$id"
+                sendMessage(_) >> { args -> sent[id].add((args[0] as TextMessage).payload) }
+            }
+            webSocketSessionManager.putSessions(new UserId(id), session)
+        }
+    }
+
+    def "throttle 안의 반복된 시작은 버리고, 채널마다 tick당 한 번만 이 노드의 보고 있는 사용자 bitmap을 읽어 받는 사람당 한 프레임으로 보낸다."() {
+        given:
+        def channelId = new ChannelId(10)
+
+        when:
+        relay.typing(new UserId(1), channelId, true)
+        now += 1_000
+        relay.typing(new UserId(1), channelId, true)
+        relay.typing(new UserId(2), channelId, true)
+        relay.flush()
+
+        then:
+        1 * channelViewerIndex.getViewers(channelId) >> MemberBitmap.of([1L, 2L, 3L] as long[])
+        typings(sent[3L]) == [[[channelId: 10, username: "user1", typing: true], [channelId: 10, username: "user2", typing: true]]]
+        typings(sent[1L]) == [[[channelId: 10, username: "user2", typing: true]]]
+        relay.pendingChannels() == 0
+    }
+
+    def "시작을 알리지 않은 종료와, 채널을 보고 있지 않은 사람의 이벤트는 보내지 않는다."() {
+        given:
+        def channelId = new ChannelId(10)
+
+        when:
+        relay.typing(new UserId(1), channelId, false)
+
+        then:
+        relay.pendingChannels() == 0
+
+        when:
+        relay.typing(new UserId(1), channelId, true)
+        relay.flush()
+
+        then:
+        1 * channelViewerIndex.getViewers(channelId) >> MemberBitmap.of([2L, 3L] as long[])
+        sent.isEmpty()
+
+        when: "종료는 throttle과 상관없이 전달된다."
+        relay.typing(new UserId(2), channelId, true)
+        relay.typing(new UserId(2), channelId, false)
+        relay.flush()
+
+        then:
+        1 * channelViewerIndex.getViewers(channelId) >> MemberBitmap.of([2L, 3L] as long[])
+        typings(sent[3L]) == [[[channelId: 10, username: "user2", typing: false]]]
+    }
+
+    private List<List<Map>> typings(List<String> payloads) {
+        payloads.collect {
+            def json = objectMapper.readValue(it, Map)
+            assert json.type == "NOTIFY_TYPING"
+            json.typings as List<Map>
+        }
+    }
+}
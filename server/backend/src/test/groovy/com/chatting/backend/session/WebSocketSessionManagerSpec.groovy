@@ -0,0 +1,86 @@
+package com.chatting.backend.session
+
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.dto.websocket.outbound.InviteNotification
+import com.chatting.backend.json.JsonUtil
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.web.socket.TextMessage
+import org.springframework.web.socket.WebSocketSession
+import spock.lang.Specification
+
+/**
+ * 한 사용자의 여러 기기 세션 관리 테스트 코드
+ */
+class WebSocketSessionManagerSpec extends Specification {
+
+    WebSocketSessionManager webSocketSessionManager = new WebSocketSessionManager(new JsonUtil(new ObjectMapper()))
+    UserId userId = new UserId(1)
+
+    def "두 번째 기기로 접속해도 첫 번째 기기 세션이 유지되고, 알림은 모든 기기로 같은 프레임이 전송된다."() {
+        given:
+        WebSocketSession phone = Mock() { getId() >> "phone" }
+        WebSocketSession desktop = Mock() { getId() >> "desktop" }
+        webSocketSessionManager.putSessions(userId, phone)
+        webSocketSessionManager.putSessions(userId, desktop)
+        TextMessage sent = null
+
+        when:
+        webSocketSessionManager.sendMessage(userId, new InviteNotification("alice"))
+
+        then:
+        1 * phone.sendMessage(_) >> { args -> sent = args[0] }
+        1 * desktop.sendMessage({ it.is(sent) })
+        webSocketSessionManager.getSessions(userId)*.getId() == ["phone", "desktop"]
+        webSocketSessionManager.getSession(userId).getId() == "desktop"
+    }
+
+    def "한 기기의 연결이 끊기면 그 기기 세션만 닫히고, 마지막 기기까지 끊기면 사용자가 제거된다."() {
+        given:
+        WebSocketSession phone = Mock() { getId() >> "phone" }
+        WebSocketSession desktop = Mock() { getId() >> "desktop" }
+        webSocketSessionManager.putSessions(userId, phone)
+        webSocketSessionManager.putSessions(userId, desktop)
+
+        when:
+        webSocketSessionManager.closeSession(userId, phone)
+
+        then:
+        1 * phone.close()
+        0 * desktop.close()
+        webSocketSessionManager.getSessions(userId)*.getId() == ["desktop"]
+        webSocketSessionManager.getConnectedUsers().contains(userId.id())
+
+        when:
+        webSocketSessionManager.closeSession(userId, desktop)
+
+        then:
+        1 * desktop.close()
+        webSocketSessionManager.getSession(userId) == null
+        webSocketSessionManager.getSessions().isEmpty()
+        !webSocketSessionManager.getConnectedUsers().contains(userId.id())
+    }
+
+    def "closeSession(userId)는 사용자의 모든 기기 세션을 닫는다."() {
+        given:
+        WebSocketSession phone = Mock() { getId() >> "phone" }
+        WebSocketSession desktop = Mock() { getId() >> "desktop" }
+        webSocketSessionManager.putSessions(userId, phone)
+        webSocketSessionManager.putSessions(userId, desktop)
+
+        when:
+        webSocketSessionManager.closeSession(userId)
+
+        then:
+        1 * phone.close()
+        1 * desktop.close()
+        webSocketSessionManager.getSessions(userId).isEmpty()
+    }
+
+    def "접속중이지 않은 사용자에게 보내는 알림은 무시된다."() {
+        when:
+        webSocketSessionManager.sendMessage(new UserId(2), new InviteNotification("alice"))
+
+        then:
+        noExceptionThrown()
+    }
+}
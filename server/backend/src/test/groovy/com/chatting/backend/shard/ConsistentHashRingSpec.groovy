@@ -0,0 +1,60 @@
+package com.chatting.backend.shard
+
+import spock.lang.Specification
+
+/**
+ * 메시지 샤드 consistent hash ring 테스트 코드
+ */
+class ConsistentHashRingSpec extends Specification {
+
+    def "채널이 샤드에 고르게 나뉘고, 이름 순서와 관계없이 같은 주인을 고른다."() {
+        given:
+        def ring = ConsistentHashRing.of(["shard-0", "shard-1", "shard-2", "shard-3"], 128)
+        def reversed = ConsistentHashRing.of(["shard-3", "shard-2", "shard-1", "shard-0"], 128)
+        Map<String, Integer> counts = [:].withDefault { 0 }
+
+        when:
+        (1..100_000).each { long channelId ->
+            counts[ring.owner(channelId)]++
+            assert reversed.owner(channelId) == ring.owner(channelId)
+        }
+
+        then:
+        counts.keySet() == ["shard-0", "shard-1", "shard-2", "shard-3"] as Set
+        counts.values().every { it > 25_000 * 0.8 && it < 25_000 * 1.2 }
+    }
+
+    def "샤드를 추가하면 약 1/(N+1)의 채널만 새 샤드로 옮겨 가고, 기존 샤드끼리는 옮겨 가지 않는다."() {
+        given:
+        def before = ConsistentHashRing.of(["shard-0", "shard-1", "shard-2"], 128)
+        def after = ConsistentHashRing.of(["shard-0", "shard-1", "shard-2", "shard-3"], 128)
+        int moved = 0
+
+        when:
+        (1..100_000).each { long channelId ->
+            String previous = before.owner(channelId)
+            String current = after.owner(channelId)
+            if (previous != current) {
+                assert current == "shard-3"
+                moved++
+            }
+        }
+
+        then:
+        moved > 25_000 * 0.8
+        moved < 25_000 * 1.2
+    }
+
+    def "잘못된 설정은 거부한다."() {
+        when:
+        ConsistentHashRing.of(shards, virtualNodes)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        shards      | virtualNodes
+        []          | 128
+        ["shard-0"] | 0
+    }
+}
@@ -0,0 +1,175 @@
+package com.chatting.backend.shard
+
+import com.chatting.backend.constant.MessageShardState
+import com.chatting.backend.constant.ResultType
+import com.chatting.backend.dto.domain.ChannelId
+import com.chatting.backend.dto.domain.StoredMessage
+import com.chatting.backend.dto.domain.UserId
+import com.chatting.backend.entity.MessageShardEntity
+import com.chatting.backend.id.SnowflakeIdGenerator
+import com.chatting.backend.repository.MessageShardRepository
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import spock.lang.Specification
+
+import javax.sql.DataSource
+
+/**
+ * channel_id 샤딩 메시지 저장소 테스트 코드
+ *
+ * 샤드마다 이름이 다른 H2 메모리 DB(MySQL 모드)를 쓴다.
+ */
+class ShardedMessageStoreSpec extends Specification {
+
+    static int databaseNumber = 0
+
+    Map<String, MessageShardEntity> registered = [:]
+    MessageShardRepository messageShardRepository = Stub() {
+        count() >> { registered.size() as long }
+        findAll() >> { registered.values().toList() }
+        findById(_) >> { args -> Optional.ofNullable(registered[args[0]]) }
+        existsById(_) >> { args -> registered.containsKey(args[0]) }
+        save(_) >> { args -> registered[args[0].name] = args[0]; args[0] }
+        saveAll(_) >> { args -> args[0].each { registered[it.name] = it }; args[0].toList() }
+    }
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(60_000, System::currentTimeMillis, System::nanoTime)
+    Map<String, DataSource> dataSources = (0..3).collectEntries { ["shard-$it" as String, database()] }
+    List<ShardedMessageStore> stores = []
+
+    def setup() {
+        generator.leased(1, 0)
+    }
+
+    def cleanup() {
+        stores*.shutdown()
+    }
+
+    def "메시지는 채널의 주인 샤드 하나에만 저장되고, 기록은 최신순으로 cursor 앞에서부터 읽는다."() {
+        given:
+        def store = store(dataSources.subMap(["shard-0", "shard-1"]))
+        def channels = (1L..20L).collect { new ChannelId(it) }
+        Map<Long, List<Long>> written = [:]
+        channels.each { channel ->
+            written[channel.id()] = (1..5).collect { write(store, channel, "hello $it") }
+        }
+
+        expect:
+        channels.every { channel ->
+            def owner = store.getOwner(channel)
+            ["shard-0", "shard-1"].every { shard -> count(shard, channel) == (shard == owner ? 5 : 0) }
+        }
+        channels.collect { store.getOwner(it) }.toSet() == ["shard-0", "shard-1"] as Set
+
+        and:
+        def channel = channels[0]
+        def latest = store.findByChannelId(channel, Long.MAX_VALUE, 3)
+        latest*.messageSequence() == written[channel.id()].reverse().take(3)
+        latest*.content() == ["hello 5", "hello 4", "hello 3"]
+        store.findByChannelId(channel, latest[-1].messageSequence(), 3)*.content() == ["hello 2", "hello 1"]
+    }
+
+    def "샤드를 추가하면 주인이 바뀐 채널의 메시지만 새 샤드로 옮기고, 옮기는 동안에도 기록이 빠지거나 겹치지 않는다."() {
+        given:
+        def store = store(dataSources)
+        registered.clear()
+        ["shard-0", "shard-1", "shard-2"].each { registered[it] = new MessageShardEntity(it, MessageShardState.ACTIVE) }
+        store.refresh()
+        def channels = (1L..200L).collect { new ChannelId(it) }
+        Map<Long, List<String>> contents = [:]
+        channels.each { channel -> contents[channel.id()] = (1..3).collect { write(store, channel, "before $it"); "before $it" } }
+
+        when:
+        def result = store.addShard("shard-3")
+        def moving = channels.findAll { store.getOwner(it) == "shard-3" }
+
+        then:
+        result == ResultType.SUCCESS
+        store.isRebalancing()
+        !moving.isEmpty()
+        moving.every { count("shard-3", it) == 0 }
+
+        when: "복사 전에 새 주인에게 쓴 메시지와 이전 주인에 남아 있는 메시지를 합쳐서 읽는다"
+        moving.each { channel -> write(store, channel, "during"); contents[channel.id()] << "during" }
+
+        then:
+        channels.every { channel -> store.findByChannelId(channel, Long.MAX_VALUE, 10)*.content() == contents[channel.id()].reverse() }
+
+        when: "복사는 했지만 지우기 전(중간에 멈춤)이어도 중복 없이 읽는다"
+        def channel = moving[0]
+        def previousOwner = ConsistentHashRing.of(["shard-0", "shard-1", "shard-2"], 128).owner(channel.id())
+        copy(previousOwner, "shard-3", channel)
+
+        then:
+        store.findByChannelId(channel, Long.MAX_VALUE, 10)*.content() == contents[channel.id()].reverse()
+
+        when:
+        store.rebalance()
+
+        then:
+        !store.isRebalancing()
+        registered["shard-3"].state == MessageShardState.ACTIVE
+        channels.every { ch ->
+            def owner = store.getOwner(ch)
+            dataSources.keySet().every { shard -> count(shard, ch) == (shard == owner ? contents[ch.id()].size() : 0) }
+        }
+        channels.every { ch -> store.findByChannelId(ch, Long.MAX_VALUE, 10)*.content() == contents[ch.id()].reverse() }
+    }
+
+    def "접속 정보가 없는 샤드는 추가할 수 없고, 링에 있으면 이전 링을 계속 쓴다."() {
+        given:
+        def store = store(dataSources.subMap(["shard-0", "shard-1"]))
+
+        expect:
+        store.addShard("shard-9") == ResultType.NOT_FOUND
+        store.addShard("shard-0") == ResultType.ALREADY_JOINED
+
+        when:
+        registered["shard-9"] = new MessageShardEntity("shard-9", MessageShardState.JOINING)
+        store.refresh()
+
+        then:
+        !store.isRebalancing()
+    }
+
+    def "운영용 샤드 통계는 모든 샤드를 읽어서 합친다."() {
+        given:
+        def store = store(dataSources.subMap(["shard-0", "shard-1", "shard-2"]))
+        (1L..30L).each { long channelId -> write(store, new ChannelId(channelId), "m$channelId") }
+
+        expect:
+        store.getShardStats()*.shard() == ["shard-0", "shard-1", "shard-2"]
+        store.getShardStats()*.messageCount().sum() == 30
+    }
+
+    private ShardedMessageStore store(Map<String, DataSource> shards) {
+        def store = new ShardedMessageStore(messageShardRepository, shards, 128, 7, 60_000)
+        stores << store
+        store.start()
+        return store
+    }
+
+    private long write(ShardedMessageStore store, ChannelId channelId, String content) {
+        long id = generator.nextId()
+        store.append(new StoredMessage(id, channelId, new UserId(1), content))
+        return id
+    }
+
+    private void copy(String from, String to, ChannelId channelId) {
+        jdbc(from).queryForList("SELECT * FROM channel_message WHERE channel_id = ?", channelId.id()).each { row ->
+            jdbc(to).update("INSERT IGNORE INTO channel_message (channel_id, message_sequence, user_id, content, created_at) VALUES (?, ?, ?, ?, ?)",
+                    row.channel_id, row.message_sequence, row.user_id, row.content, row.created_at)
+        }
+    }
+
+    private long count(String shard, ChannelId channelId) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM channel_message WHERE channel_id = ?", Long, channelId.id())
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(dataSources[shard])
+    }
+
+    private static DataSource database() {
+        return new DriverManagerDataSource("jdbc:h2:mem:message-shard-${databaseNumber++};MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")
+    }
+}
@@ -47,7 +47,17 @@ public class MessageType {
     public static final String ENTER_REQUEST = "ENTER_REQUEST";             //Direct 채널 입장 요청
     public static final String ENTER_RESPONSE = "ENTER_RESPONSE";           //Direct 채널 입장한 것에 대한 응답
 
+    public static final String FETCH_MESSAGES_REQUEST = "FETCH_MESSAGES_REQUEST";       //지금 보고 있는 채널의 지난 메시지(기록) 요청
+    public static final String FETCH_MESSAGES_RESPONSE = "FETCH_MESSAGES_RESPONSE";     //지난 메시지 요청에 대한 응답 (최신순, 페이지 단위)
+
+    public static final String SEARCH_MESSAGES_REQUEST = "SEARCH_MESSAGES_REQUEST";     //참여 중인 채널의 메시지 검색 요청
+    public static final String SEARCH_MESSAGES_RESPONSE = "SEARCH_MESSAGES_RESPONSE";   //메시지 검색 요청에 대한 응답 (최신순, 페이지 단위)
+
+    public static final String RESUME_REQUEST = "RESUME_REQUEST";           //재접속 후 마지막으로 받은 메시지 이후의 메시지를 다시 보내달라는 요청
+    public static final String RESUME_RESPONSE = "RESUME_RESPONSE";         //다시 보낸 메시지 수 + 빠짐없이 보냈는지에 대한 응답
+
     public static final String WRITE_MESSAGE = "WRITE_MESSAGE";             //채팅 메시지 전송
+    public static final String WRITE_MESSAGE_RESPONSE = "WRITE_MESSAGE_RESPONSE";   //메시지를 저장했다는 응답 (재시도한 메시지도 처음 저장한 message_sequence로 온다)
 
 
     //===============================================================
@@ -58,6 +68,10 @@ public class MessageType {
     public static final String NOTIFY_ACCEPT = "NOTIFY_ACCEPT";         //"당신의 초대가 수락됐습니다"라는 알림
     public static final String NOTIFY_JOIN = "NOTIFY_JOIN";             //Direct chat에서 ""채널에 가입되었어요"" 라는 알림
 
+    public static final String NOTIFY_TYPING = "NOTIFY_TYPING";         //"같은 채널의 누군가가 입력 중이에요"라는 알림 (여러 명을 모아서 보낸다)
+    public static final String NOTIFY_PRESENCE = "NOTIFY_PRESENCE";     //"연결된 사용자가 접속/접속 종료했어요"라는 알림 (여러 명을 모아서 보낸다)
+    public static final String NOTIFY_INBOX_DIGEST = "NOTIFY_INBOX_DIGEST";   //"접속해 있지 않은 동안 X 채널에 새 메시지가 N개 왔어요"라는 요약 (연결될 때 한 번)
+
     //실시간 채팅방 내부 메시지 갱신 이벤트. (주의. 푸시 알림 개념이 아니다)
     //사용자와 참여자가 같은 채팅 채널방에 있을 시에만 보내는 메시지 상수이다.
     //사용자와 참여자가 다른 채팅 채널방에 있을 시에는 DB에 메시지만 저장하고 해당 알림은 전송되지 않는다.
@@ -0,0 +1,8 @@
+package com.chatting.messageclient.dto.domain;
+
+/**
+ * [InboxDigest]
+ * 목적: 접속해 있지 않은 동안 메시지가 온 채널 한 개의 요약 (InboxDigestNotification 한 항목)
+ * - 예. title: 스터디, messageCount: 3 → 스터디 채널에 새 메시지가 3개 왔다
+ */
+public record InboxDigest(ChannelId channelId, String title, int messageCount, long lastMessageSequence) {}
@@ -7,6 +7,6 @@ package com.chatting.messageclient.dto.domain;
  * - 불변(immutable)하며, 검증 로직(예. UserId가 양수읹, InviteCode가 비어있지 않은지)을 생성시점에 강제한다.
  *
  * [Message]
- * 목적: 채팅 메시지를 표현하는 아주 단순한 데이터 구조(작성자 username, 본문 content)
+ * 목적: 채팅 메시지를 표현하는 아주 단순한 데이터 구조(서버가 매긴 순번 messageSequence, 작성자 username, 본문 content)
  */
-public record Message(String username, String content) {}
\ No newline at end of file
+public record Message(long messageSequence, String username, String content) {}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.chatting.messageclient.dto.domain;
+
+/**
+ * [Presence]
+ * 목적: 연결된(ACCEPTED) 사용자 한 명의 접속 상태 (PresenceNotification 한 항목)
+ * - 예. username: bob, online: false → bob이 접속을 종료했다
+ */
+public record Presence(String username, boolean online) {}
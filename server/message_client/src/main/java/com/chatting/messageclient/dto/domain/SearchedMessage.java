@@ -0,0 +1,7 @@
+package com.chatting.messageclient.dto.domain;
+
+/**
+ * [SearchedMessage]
+ * 목적: 메시지 검색 결과 한 건 (어느 채널의 메시지인지 channelId가 함께 온다)
+ */
+public record SearchedMessage(ChannelId channelId, long messageSequence, String username, String content) {}
@@ -0,0 +1,8 @@
+package com.chatting.messageclient.dto.domain;
+
+/**
+ * [Typing]
+ * 목적: 채널 참여자 한 명의 입력 중 상태 (TypingNotification 한 항목)
+ * - 예. channelId: 3, username: bob, typing: true → bob이 3번 채널에서 입력 중
+ */
+public record Typing(ChannelId channelId, String username, boolean typing) {}
@@ -24,12 +24,19 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
         @JsonSubTypes.Type(value = CreateResponse.class, name = MessageType.CREATE_RESPONSE),
         @JsonSubTypes.Type(value = EnterResponse.class, name = MessageType.ENTER_RESPONSE),
         @JsonSubTypes.Type(value = FetchConnectionsResponse.class, name = MessageType.FETCH_CONNECTIONS_RESPONSE),
+        @JsonSubTypes.Type(value = FetchMessagesResponse.class, name = MessageType.FETCH_MESSAGES_RESPONSE),
         @JsonSubTypes.Type(value = FetchUserInvitecodeResponse.class, name = MessageType.FETCH_USER_INVITECODE_RESPONSE),
+        @JsonSubTypes.Type(value = ResumeResponse.class, name = MessageType.RESUME_RESPONSE),
+        @JsonSubTypes.Type(value = SearchMessagesResponse.class, name = MessageType.SEARCH_MESSAGES_RESPONSE),
+        @JsonSubTypes.Type(value = WriteMessageResponse.class, name = MessageType.WRITE_MESSAGE_RESPONSE),
 
         @JsonSubTypes.Type(value = InviteNotification.class, name = MessageType.ASK_INVITE),
         @JsonSubTypes.Type(value = JoinNotification.class, name = MessageType.NOTIFY_JOIN),
         @JsonSubTypes.Type(value = AcceptNotification.class, name = MessageType.NOTIFY_ACCEPT),
         @JsonSubTypes.Type(value = MessageNotification.class, name = MessageType.NOTIFY_MESSAGE),
+        @JsonSubTypes.Type(value = TypingNotification.class, name = MessageType.NOTIFY_TYPING),
+        @JsonSubTypes.Type(value = PresenceNotification.class, name = MessageType.NOTIFY_PRESENCE),
+        @JsonSubTypes.Type(value = InboxDigestNotification.class, name = MessageType.NOTIFY_INBOX_DIGEST),
         @JsonSubTypes.Type(value = ErrorResponse.class, name = MessageType.ERROR)
 })
 public abstract class BaseMessage {
@@ -11,20 +11,28 @@ import java.util.List;
  *
  * 언제: 클라이언트가 FetchConnectionsRequest(특정 상태의 연결 목록 요청)를 보냈을 때 서버가 회신.
  * 누가 받나: 요청자(자기 자신).
- * 필드: connections — List<Connection> (각 항목에 username + status).
+ * 필드: connections — List<Connection> (각 항목에 username + status), nextCursor — 다음 페이지 요청용 cursor (마지막 페이지면 null).
  * 클라이언트 처리: 목록 렌더링(친구/대기/거절 목록 등).
  */
 public class FetchConnectionsResponse extends BaseMessage {
 
     private final List<Connection> connections;
+    private final Long nextCursor;
 
     @JsonCreator
-    public FetchConnectionsResponse(@JsonProperty("connections") List<Connection> connections) {
+    public FetchConnectionsResponse(
+            @JsonProperty("connections") List<Connection> connections,
+            @JsonProperty("nextCursor") Long nextCursor) {
         super(MessageType.FETCH_CONNECTIONS_RESPONSE);
         this.connections = connections;
+        this.nextCursor = nextCursor;
     }
 
     public List<Connection> getConnections() {
         return connections;
     }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
 }
\ No newline at end of file
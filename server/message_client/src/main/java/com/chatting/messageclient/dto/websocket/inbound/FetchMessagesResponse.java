@@ -0,0 +1,46 @@
+package com.chatting.messageclient.dto.websocket.inbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.ChannelId;
+import com.chatting.messageclient.dto.domain.Message;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/** [FetchMessagesResponse (MessageType.FETCH_MESSAGES_RESPONSE)]
+ *
+ * 언제: 클라이언트가 FetchMessagesRequest(채널의 지난 메시지 요청)를 보냈을 때 서버가 회신.
+ * 누가 받나: 요청자(자기 자신).
+ * 필드: channelId, messages — 최신순 List<Message>, nextCursor — 더 이전 메시지 요청용 cursor (더 없으면 null).
+ * 클라이언트 처리: 오래된 것부터 출력.
+ */
+public class FetchMessagesResponse extends BaseMessage {
+
+    private final ChannelId channelId;
+    private final List<Message> messages;
+    private final Long nextCursor;
+
+    @JsonCreator
+    public FetchMessagesResponse(
+            @JsonProperty("channelId") ChannelId channelId,
+            @JsonProperty("messages") List<Message> messages,
+            @JsonProperty("nextCursor") Long nextCursor) {
+        super(MessageType.FETCH_MESSAGES_RESPONSE);
+        this.channelId = channelId;
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
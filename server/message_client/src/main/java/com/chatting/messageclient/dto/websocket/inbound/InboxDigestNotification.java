@@ -0,0 +1,53 @@
+package com.chatting.messageclient.dto.websocket.inbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.InboxDigest;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/** [InboxDigestNotification (MessageType.NOTIFY_INBOX_DIGEST)]
+ *
+ * 언제: 접속해 있지 않은 동안 참여 중인 채널에 메시지가 왔고, 이 기기가 연결됐을 때 한 번.
+ * 누가 받나: 연결한 기기 (같은 메시지는 기기마다 한 번만 요약에 들어간다).
+ * 필드: channels — List<InboxDigest> (최근 메시지가 온 채널부터 일부만), channelCount/messageCount — 전체 수,
+ *       complete — false면 서버 받은 메시지함 용량을 넘어 버려진 항목이 있다.
+ * 클라이언트 처리: 채널별 새 메시지 수 표시.
+ */
+public class InboxDigestNotification extends BaseMessage {
+
+    private final List<InboxDigest> channels;
+    private final int channelCount;
+    private final int messageCount;
+    private final boolean complete;
+
+    @JsonCreator
+    public InboxDigestNotification(
+            @JsonProperty("channels") List<InboxDigest> channels,
+            @JsonProperty("channelCount") int channelCount,
+            @JsonProperty("messageCount") int messageCount,
+            @JsonProperty("complete") boolean complete) {
+        super(MessageType.NOTIFY_INBOX_DIGEST);
+        this.channels = channels;
+        this.channelCount = channelCount;
+        this.messageCount = messageCount;
+        this.complete = complete;
+    }
+
+    public List<InboxDigest> getChannels() {
+        return channels;
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
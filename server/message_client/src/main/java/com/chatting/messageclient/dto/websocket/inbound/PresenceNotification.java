@@ -0,0 +1,30 @@
+package com.chatting.messageclient.dto.websocket.inbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.Presence;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/** [PresenceNotification (MessageType.NOTIFY_PRESENCE)]
+ *
+ * 언제: 나와 연결된(ACCEPTED) 사용자가 접속하거나 접속을 종료했을 때. 서버가 짧은 시간 동안의 변경을 모아서 보낸다.
+ * 누가 받나: 접속 중인 연결 상대들.
+ * 필드: presences — List<Presence> (각 항목에 username + online)
+ * 클라이언트 처리: 접속 상태 표시.
+ */
+public class PresenceNotification extends BaseMessage {
+
+    private final List<Presence> presences;
+
+    @JsonCreator
+    public PresenceNotification(@JsonProperty("presences") List<Presence> presences) {
+        super(MessageType.NOTIFY_PRESENCE);
+        this.presences = presences;
+    }
+
+    public List<Presence> getPresences() {
+        return presences;
+    }
+}
@@ -0,0 +1,34 @@
+package com.chatting.messageclient.dto.websocket.inbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// =================================================================================================
+// 역할: [서버 → 클라이언트] 재접속 후 이어받기(RESUME_REQUEST) 결과 DTO.
+// 필드:
+//   - replayedCount: 다시 보내준 메시지 수 (이 응답보다 먼저 NOTIFY_MESSAGE로 도착한다)
+//   - complete: false면 서버 버퍼에서 이미 버려진 메시지가 있어 일부를 받지 못했을 수 있다.
+// =================================================================================================
+
+public class ResumeResponse extends BaseMessage {
+
+    private final int replayedCount;
+    private final boolean complete;
+
+    @JsonCreator
+    public ResumeResponse(@JsonProperty("replayedCount") int replayedCount, @JsonProperty("complete") boolean complete) {
+        super(MessageType.RESUME_RESPONSE);
+        this.replayedCount = replayedCount;
+        this.complete = complete;
+    }
+
+    //Getter
+    public int getReplayedCount() {
+        return replayedCount;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,45 @@
+package com.chatting.messageclient.dto.websocket.inbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.SearchedMessage;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/** [SearchMessagesResponse (MessageType.SEARCH_MESSAGES_RESPONSE)]
+ *
+ * 언제: 클라이언트가 SearchMessagesRequest(메시지 검색 요청)를 보냈을 때 서버가 회신.
+ * 누가 받나: 요청자(자기 자신).
+ * 필드: query, messages — 최신순 List<SearchedMessage>, nextCursor — 더 이전 결과 요청용 cursor (더 없으면 null).
+ * 클라이언트 처리: 최신순 그대로 채널 ID와 함께 출력.
+ */
+public class SearchMessagesResponse extends BaseMessage {
+
+    private final String query;
+    private final List<SearchedMessage> messages;
+    private final Long nextCursor;
+
+    @JsonCreator
+    public SearchMessagesResponse(
+            @JsonProperty("query") String query,
+            @JsonProperty("messages") List<SearchedMessage> messages,
+            @JsonProperty("nextCursor") Long nextCursor) {
+        super(MessageType.SEARCH_MESSAGES_RESPONSE);
+        this.query = query;
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<SearchedMessage> getMessages() {
+        return messages;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
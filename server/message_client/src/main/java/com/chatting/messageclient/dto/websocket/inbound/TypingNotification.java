@@ -0,0 +1,30 @@
+package com.chatting.messageclient.dto.websocket.inbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.Typing;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/** [TypingNotification (MessageType.NOTIFY_TYPING)]
+ *
+ * 언제: 같은 채널을 보고 있는 참여자가 입력을 시작/종료했을 때. 서버가 tick마다 모아서 한 프레임으로 보낸다.
+ * 누가 받나: 그 채널을 지금 보고 있는 다른 참여자들.
+ * 필드: typings — List<Typing> (각 항목에 channelId + username + typing)
+ * 클라이언트 처리: 입력 중 표시 (저장하지 않는다).
+ */
+public class TypingNotification extends BaseMessage {
+
+    private final List<Typing> typings;
+
+    @JsonCreator
+    public TypingNotification(@JsonProperty("typings") List<Typing> typings) {
+        super(MessageType.NOTIFY_TYPING);
+        this.typings = typings;
+    }
+
+    public List<Typing> getTypings() {
+        return typings;
+    }
+}
@@ -0,0 +1,43 @@
+package com.chatting.messageclient.dto.websocket.inbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.ChannelId;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/** [WriteMessageResponse (MessageType.WRITE_MESSAGE_RESPONSE)]
+ *
+ * 언제: 클라이언트가 보낸 WriteMessage를 서버가 저장했을 때 (같은 clientMessageId로 재시도한 경우도 같은 응답).
+ * 누가 받나: 보낸 사람(자기 자신).
+ * 필드: channelId, clientMessageId — 보낼 때 넣은 id, messageSequence — 서버가 매긴 순번.
+ * 클라이언트 처리: 받은 메시지로 기록 (재전송과 겹쳐도 다시 출력하지 않게).
+ */
+public class WriteMessageResponse extends BaseMessage {
+
+    private final ChannelId channelId;
+    private final String clientMessageId;
+    private final long messageSequence;
+
+    @JsonCreator
+    public WriteMessageResponse(
+            @JsonProperty("channelId") ChannelId channelId,
+            @JsonProperty("clientMessageId") String clientMessageId,
+            @JsonProperty("messageSequence") long messageSequence) {
+        super(MessageType.WRITE_MESSAGE_RESPONSE);
+        this.channelId = channelId;
+        this.clientMessageId = clientMessageId;
+        this.messageSequence = messageSequence;
+    }
+
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
+
+    public long getMessageSequence() {
+        return messageSequence;
+    }
+}
@@ -3,17 +3,21 @@ package com.chatting.messageclient.dto.websocket.outbound;
 
 import com.chatting.messageclient.constant.MessageType;
 
+import java.util.List;
+
 public class CreateRequest extends BaseRequest {
 
     //처음에 채널 만들 때 참여시킬 상대방 이름
-    private final String title;                 // 채널명
-    private final String participantUsername;   // 최초 참여시킬 상대방 username
+    private final String title;                         // 채널명
+    private final List<String> participantUsernames;    // 최초 참여시킬 상대방 username들
+    private final boolean broadcast;                    // 대규모(공지) 채널 여부
 
-    public CreateRequest(String title, String participantUsername) {
+    public CreateRequest(String title, List<String> participantUsernames, boolean broadcast) {
         super(MessageType.CREATE_REQUEST);
 
         this.title = title;
-        this.participantUsername = participantUsername;
+        this.participantUsernames = participantUsernames;
+        this.broadcast = broadcast;
     }
 
     //Getter
@@ -21,7 +25,11 @@ public class CreateRequest extends BaseRequest {
         return title;
     }
 
-    public String getParticipantUsername() {
-        return participantUsername;
+    public List<String> getParticipantUsernames() {
+        return participantUsernames;
+    }
+
+    public boolean isBroadcast() {
+        return broadcast;
     }
 }
@@ -10,12 +10,20 @@ public class FetchConnectionsRequest extends BaseRequest {
     //서버가 해당 상태의 사람 목록을 찾아 클라이언트에 돌려주기 위해
     private final UserConnectionStatus status;
 
-    public FetchConnectionsRequest(UserConnectionStatus status) {
+    //이전 응답의 nextCursor (첫 페이지는 null)
+    private final Long cursor;
+
+    public FetchConnectionsRequest(UserConnectionStatus status, Long cursor) {
         super(MessageType.FETCH_CONNECTIONS_REQUEST);
         this.status = status;
+        this.cursor = cursor;
     }
 
     public UserConnectionStatus getStatus() {
         return status;
     }
+
+    public Long getCursor() {
+        return cursor;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.chatting.messageclient.dto.websocket.outbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.ChannelId;
+
+// =================================================================================================
+// 역할: [클라이언트 → 서버] 지금 보고 있는 채널의 지난 메시지(기록)를 요청하는 메시지 DTO.
+// 필드:
+//   - channelId: 기록을 볼 채널 ID
+//   - cursor: 이전 응답의 nextCursor (첫 페이지는 null → 최신 메시지부터)
+// =================================================================================================
+
+public class FetchMessagesRequest extends BaseRequest {
+
+    private final ChannelId channelId;
+    private final Long cursor;
+
+    public FetchMessagesRequest(ChannelId channelId, Long cursor) {
+        super(MessageType.FETCH_MESSAGES_REQUEST);
+
+        this.channelId = channelId;
+        this.cursor = cursor;
+    }
+
+    //Getter
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public Long getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,25 @@
+package com.chatting.messageclient.dto.websocket.outbound;
+
+import com.chatting.messageclient.constant.MessageType;
+
+// =================================================================================================
+// 역할: [클라이언트 → 서버] 재접속 직후 "마지막으로 받은 메시지 이후"를 다시 보내달라는 요청 DTO.
+// 필드:
+//   - lastMessageSequence: 끊기기 전까지 받은 가장 큰 messageSequence
+// =================================================================================================
+
+public class ResumeRequest extends BaseRequest {
+
+    private final Long lastMessageSequence;
+
+    public ResumeRequest(Long lastMessageSequence) {
+        super(MessageType.RESUME_REQUEST);
+
+        this.lastMessageSequence = lastMessageSequence;
+    }
+
+    //Getter
+    public Long getLastMessageSequence() {
+        return lastMessageSequence;
+    }
+}
@@ -0,0 +1,40 @@
+package com.chatting.messageclient.dto.websocket.outbound;
+
+import com.chatting.messageclient.constant.MessageType;
+import com.chatting.messageclient.dto.domain.ChannelId;
+
+// =================================================================================================
+// 역할: [클라이언트 → 서버] 참여 중인 채널의 메시지를 검색하는 메시지 DTO.
+// 필드:
+//   - query: 검색어 (단어가 모두 들어 있는 메시지를 찾는다)
+//   - channelId: 이 채널에서만 찾는다 (null이면 참여 중인 모든 채널)
+//   - cursor: 이전 응답의 nextCursor (첫 페이지는 null → 최신 메시지부터)
+// =================================================================================================
+
+public class SearchMessagesRequest extends BaseRequest {
+
+    private final String query;
+    private final ChannelId channelId;
+    private final Long cursor;
+
+    public SearchMessagesRequest(String query, ChannelId channelId, Long cursor) {
+        super(MessageType.SEARCH_MESSAGES_REQUEST);
+
+        this.query = query;
+        this.channelId = channelId;
+        this.cursor = cursor;
+    }
+
+    //Getter
+    public String getQuery() {
+        return query;
+    }
+
+    public ChannelId getChannelId() {
+        return channelId;
+    }
+
+    public Long getCursor() {
+        return cursor;
+    }
+}
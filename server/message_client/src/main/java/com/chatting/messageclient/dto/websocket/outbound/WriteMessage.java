@@ -3,6 +3,8 @@ package com.chatting.messageclient.dto.websocket.outbound;
 import com.chatting.messageclient.constant.MessageType;
 import com.chatting.messageclient.dto.domain.ChannelId;
 
+import java.util.UUID;
+
 //내가 채팅방에서 메시지를 보낼 때
 public class WriteMessage extends BaseRequest {
 
@@ -10,11 +12,15 @@ public class WriteMessage extends BaseRequest {
     private final ChannelId channelId;
     private final String content;   //메시지의 실제 내용
 
+    //메시지마다 새로 만든 id. 전송을 재시도해도 같은 값이므로 서버가 한 번만 저장한다.
+    private final String clientMessageId;
+
     public WriteMessage(ChannelId channelId, String content) {
         super(MessageType.WRITE_MESSAGE);
 
         this.channelId = channelId;
         this.content = content;
+        this.clientMessageId = UUID.randomUUID().toString();
     }
 
     //Getter
@@ -26,4 +32,8 @@ public class WriteMessage extends BaseRequest {
     public String getContent() {
         return content;
     }
+
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
 }
\ No newline at end of file
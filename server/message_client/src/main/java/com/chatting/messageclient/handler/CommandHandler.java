@@ -10,6 +10,7 @@ import com.chatting.messageclient.service.UserService;
 import com.chatting.messageclient.service.WebSocketService;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -55,7 +56,10 @@ public class CommandHandler {
         commands.put("connections", this::connections);
         commands.put("pending", this::pending);
         commands.put("create", this::create);
+        commands.put("broadcast", this::broadcast);
         commands.put("enter", this::enter);
+        commands.put("history", this::history);
+        commands.put("search", this::search);
         commands.put("clear", this::clear);
         commands.put("exit", this::exit);
         commands.put("help", this::help);
@@ -159,7 +163,7 @@ public class CommandHandler {
 
     private Boolean connections(String[] params) {
         if (userService.isInLobby()) {
-            webSocketService.sendMessage(new FetchConnectionsRequest(UserConnectionStatus.ACCEPTED));
+            webSocketService.sendMessage(new FetchConnectionsRequest(UserConnectionStatus.ACCEPTED, cursorOf(params)));
             terminalService.printSystemMessage("Get connection list.");
         }
 
@@ -168,21 +172,42 @@ public class CommandHandler {
 
     private Boolean pending(String[] params) {
         if (userService.isInLobby()) {
-            webSocketService.sendMessage(new FetchConnectionsRequest(UserConnectionStatus.PENDING));
+            webSocketService.sendMessage(new FetchConnectionsRequest(UserConnectionStatus.PENDING, cursorOf(params)));
             terminalService.printSystemMessage("Get pending list.");
         }
 
         return true;
     }
 
+    //목록 다음 페이지 요청용 cursor (없거나 숫자가 아니면 첫 페이지)
+    private Long cursorOf(String[] params) {
+        if (params.length == 0) {
+            return null;
+        }
+        try {
+            return Long.valueOf(params[0]);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
     private Boolean create(String[] params) {
         if (userService.isInLobby() && params.length > 1) {
-            webSocketService.sendMessage(new CreateRequest(params[0], params[1]));
+            webSocketService.sendMessage(new CreateRequest(params[0], List.of(params).subList(1, params.length), false));
             terminalService.printSystemMessage("Request create channel.");
         }
         return true;
     }
 
+    //대규모(공지) 채널: 참여자는 초대코드로 들어오므로 제목만 보낸다.
+    private Boolean broadcast(String[] params) {
+        if (userService.isInLobby() && params.length > 0) {
+            webSocketService.sendMessage(new CreateRequest(params[0], List.of(), true));
+            terminalService.printSystemMessage("Request create broadcast channel.");
+        }
+        return true;
+    }
+
     private Boolean enter(String[] params) {
         if (userService.isInLobby() && params.length > 0) {
             try {
@@ -197,6 +222,31 @@ public class CommandHandler {
         return true;
     }
 
+    private Boolean history(String[] params) {
+        if (userService.isInChannel()) {
+            webSocketService.sendMessage(new FetchMessagesRequest(userService.getChannelId(), cursorOf(params)));
+            terminalService.printSystemMessage("Get message history.");
+        }
+        return true;
+    }
+
+    //채널 안에서는 그 채널만, 로비에서는 참여 중인 모든 채널에서 찾는다. 첫 단어가 @Cursor면 다음 페이지
+    private Boolean search(String[] params) {
+        Long cursor = null;
+        int start = 0;
+        if (params.length > 1 && params[0].startsWith("@")) {
+            cursor = cursorOf(new String[]{params[0].substring(1)});
+            start = 1;
+        }
+        String query = String.join(" ", List.of(params).subList(start, params.length)).trim();
+        if (!query.isEmpty()) {
+            ChannelId channelId = userService.isInChannel() ? userService.getChannelId() : null;
+            webSocketService.sendMessage(new SearchMessagesRequest(query, channelId, cursor));
+            terminalService.printSystemMessage("Search messages: %s".formatted(query));
+        }
+        return true;
+    }
+
     private Boolean clear(String[] params) {
         terminalService.clearTerminal();
         terminalService.printSystemMessage("Terminal cleared.");
@@ -224,12 +274,16 @@ public class CommandHandler {
                          '/accept' Accept the invite request received. ex: /accept <InviterUsername>
                          '/reject' Reject the invite request received. ex: /reject <InviterUsername>
                          '/disconnect' Disconnect user. ex: /disconnect <ConnectedUsername>
-                         '/connections' View the list of connected users. ex: /connections
-                         '/pending' View the list of pending invites. ex: /pending
-                         '/create' Create a direct channel. ex: /create <Title> <Username>
+                         '/connections' View the list of connected users. ex: /connections [Cursor]
+                         '/pending' View the list of pending invites. ex: /pending [Cursor]
+                         '/create' Create a direct/group channel. ex: /create <Title> <Username> [Username...]
+                         '/broadcast' Create a broadcast channel. ex: /broadcast <Title>
                          '/enter' Enter the channel. ex: /enter <ChannelId>
+                         '/search' Search messages of all joined channels. ex: /search [@Cursor] <Keyword...>
                                                 \s
                          Commands For Channel
+                         '/history' View earlier messages of this channel. ex: /history [Cursor]
+                         '/search' Search messages of this channel. ex: /search [@Cursor] <Keyword...>
                                                 \s
                          Commands For Lobby/Channel
                          '/logout' Logout. ex: /logout
@@ -1,10 +1,15 @@
 package com.chatting.messageclient.handler;
 
+import com.chatting.messageclient.constant.UserConnectionStatus;
+import com.chatting.messageclient.dto.domain.Message;
+import com.chatting.messageclient.dto.domain.SearchedMessage;
 import com.chatting.messageclient.dto.websocket.inbound.*;
 import com.chatting.messageclient.json.JsonUtil;
 import com.chatting.messageclient.service.TerminalService;
 import com.chatting.messageclient.service.UserService;
 
+import java.util.List;
+
 public class InboundMessageHandler {
 
     private final UserService userService;
@@ -21,6 +26,16 @@ public class InboundMessageHandler {
                         message -> {
                             if (message instanceof MessageNotification messageNotification) {
                                 message(messageNotification);
+                            } else if (message instanceof TypingNotification typingNotification) {
+                                typing(typingNotification);
+                            } else if (message instanceof PresenceNotification presenceNotification) {
+                                presence(presenceNotification);
+                            } else if (message instanceof InboxDigestNotification inboxDigestNotification) {
+                                inboxDigest(inboxDigestNotification);
+                            } else if (message instanceof WriteMessageResponse writeMessageResponse) {
+                                writeMessage(writeMessageResponse);
+                            } else if (message instanceof ResumeResponse resumeResponse) {
+                                resume(resumeResponse);
                             } else if (message instanceof FetchUserInvitecodeResponse fetchUserInvitecodeResponse) {
                                 fetchUserInviteCode(fetchUserInvitecodeResponse);
                             } else if (message instanceof InviteResponse inviteResponse) {
@@ -37,6 +52,10 @@ public class InboundMessageHandler {
                                 disconnect(disconnectResponse);
                             } else if (message instanceof FetchConnectionsResponse fetchConnectionsResponse) {
                                 fetchConnections(fetchConnectionsResponse);
+                            } else if (message instanceof FetchMessagesResponse fetchMessagesResponse) {
+                                fetchMessages(fetchMessagesResponse);
+                            } else if (message instanceof SearchMessagesResponse searchMessagesResponse) {
+                                searchMessages(searchMessagesResponse);
                             } else if (message instanceof CreateResponse createResponse) {
                                 create(createResponse);
                             } else if (message instanceof JoinNotification joinNotification) {
@@ -50,9 +69,61 @@ public class InboundMessageHandler {
     }
 
     private void message(MessageNotification messageNotification) {
+        //재접속 직후에는 실시간 전송과 재전송이 겹칠 수 있으므로 이미 받은 메시지는 건너뛴다.
+        if (messageNotification.getMessageSequence() != null && !userService.markMessageSeen(messageNotification.getMessageSequence())) {
+            return;
+        }
         terminalService.printMessage(messageNotification.getUsername(), messageNotification.getContent());
     }
 
+    private void writeMessage(WriteMessageResponse writeMessageResponse) {
+        //내가 보낸 메시지는 이미 '<me>'로 출력했다. 재접속 후 재전송과 겹쳐도 다시 출력하지 않도록 받은 메시지로 기록만 한다.
+        userService.markMessageSeen(writeMessageResponse.getMessageSequence());
+    }
+
+    private void typing(TypingNotification typingNotification) {
+        //지금 보고 있는 채널의 입력 중 시작만 보여준다. (종료는 다음 메시지로 자연스럽게 알 수 있다)
+        typingNotification
+                .getTypings()
+                .stream()
+                .filter(typing -> typing.typing() && typing.channelId().equals(userService.getChannelId()))
+                .forEach(typing -> terminalService.printSystemMessage("%s is typing...".formatted(typing.username())));
+    }
+
+    private void presence(PresenceNotification presenceNotification) {
+        presenceNotification
+                .getPresences()
+                .forEach(
+                        presence ->
+                                terminalService.printSystemMessage(
+                                        "%s is %s".formatted(presence.username(), presence.online() ? "online" : "offline")));
+    }
+
+    private void inboxDigest(InboxDigestNotification inboxDigestNotification) {
+        inboxDigestNotification
+                .getChannels()
+                .forEach(
+                        digest ->
+                                terminalService.printSystemMessage(
+                                        "%d new message(s) in %s".formatted(
+                                                digest.messageCount(), digest.title() != null ? digest.title() : digest.channelId())));
+
+        //요약에 다 담지 못한 채널이 있거나 서버에서 버려진 항목이 있으면 전체 수를 알려준다.
+        if (inboxDigestNotification.getChannels().size() < inboxDigestNotification.getChannelCount() || !inboxDigestNotification.isComplete()) {
+            terminalService.printSystemMessage("%s%d new message(s) in %d channel(s) while you were away.".formatted(
+                    inboxDigestNotification.isComplete() ? "" : "More than ",
+                    inboxDigestNotification.getMessageCount(),
+                    inboxDigestNotification.getChannelCount()));
+        }
+    }
+
+    private void resume(ResumeResponse resumeResponse) {
+        terminalService.printSystemMessage("Resumed. %d missed message(s) delivered.".formatted(resumeResponse.getReplayedCount()));
+        if (!resumeResponse.isComplete()) {
+            terminalService.printSystemMessage("Some messages sent while disconnected could not be delivered.");
+        }
+    }
+
     private void fetchUserInviteCode(FetchUserInvitecodeResponse fetchUserInvitecodeResponse) {
         terminalService.printSystemMessage("My InviteCode: %s".formatted(fetchUserInvitecodeResponse.getInviteCode()));
     }
@@ -88,6 +159,41 @@ public class InboundMessageHandler {
                         connection ->
                                 terminalService.printSystemMessage(
                                         "%s : %s".formatted(connection.username(), connection.status())));
+
+        //다음 페이지가 있으면 이어서 볼 수 있는 명령어를 알려준다.
+        if (fetchConnectionsResponse.getNextCursor() != null) {
+            String command = fetchConnectionsResponse.getConnections().get(0).status() == UserConnectionStatus.PENDING ? "pending" : "connections";
+            terminalService.printSystemMessage("More: /%s %d".formatted(command, fetchConnectionsResponse.getNextCursor()));
+        }
+    }
+
+    private void fetchMessages(FetchMessagesResponse fetchMessagesResponse) {
+        //최신순으로 오므로 뒤집어서 오래된 것부터 출력한다.
+        List<Message> messages = fetchMessagesResponse.getMessages();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            terminalService.printMessage(messages.get(i).username(), messages.get(i).content());
+        }
+
+        //더 이전 메시지가 있으면 이어서 볼 수 있는 명령어를 알려준다.
+        if (fetchMessagesResponse.getNextCursor() != null) {
+            terminalService.printSystemMessage("More: /history %d".formatted(fetchMessagesResponse.getNextCursor()));
+        }
+    }
+
+    private void searchMessages(SearchMessagesResponse searchMessagesResponse) {
+        List<SearchedMessage> messages = searchMessagesResponse.getMessages();
+        if (messages.isEmpty()) {
+            terminalService.printSystemMessage("No messages found: %s".formatted(searchMessagesResponse.getQuery()));
+            return;
+        }
+        //검색 결과는 여러 채널에서 오므로 채널 ID를 붙여서 최신순 그대로 출력한다.
+        messages.forEach(message ->
+                terminalService.printSystemMessage("[%s] %s : %s".formatted(message.channelId(), message.username(), message.content())));
+
+        //더 이전 결과가 있으면 이어서 볼 수 있는 명령어를 알려준다.
+        if (searchMessagesResponse.getNextCursor() != null) {
+            terminalService.printSystemMessage("More: /search @%d %s".formatted(searchMessagesResponse.getNextCursor(), searchMessagesResponse.getQuery()));
+        }
     }
 
     private void create(CreateResponse createResponse) {
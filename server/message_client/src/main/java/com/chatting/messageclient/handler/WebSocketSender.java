@@ -7,6 +7,9 @@ import jakarta.websocket.Session;
 
 public class WebSocketSender {
 
+    //전송이 실패(타임아웃 등)하면 같은 payload(같은 clientMessageId)로 다시 보낸다. 서버가 중복을 걸러내므로 두 번 저장되지 않는다.
+    private static final int MAX_ATTEMPTS = 3;
+
     private final TerminalService terminalService;
 
     public WebSocketSender(TerminalService terminalService) {
@@ -15,14 +18,22 @@ public class WebSocketSender {
 
     public void sendMessage(Session session, WriteMessage message) {
         if (session != null && session.isOpen()) {
-            JsonUtil.toJson(message).ifPresent(payload ->
-                    session
-                            .getAsyncRemote()
-                            .sendText(payload, result -> {
-                                if (!result.isOK()) {
-                                    terminalService.printSystemMessage("'%s' send failed. cause: %s".formatted(payload, result.getException()));
-                                }
-                            }));
+            JsonUtil.toJson(message).ifPresent(payload -> send(session, payload, 1));
         }
     }
-}
\ No newline at end of file
+
+    private void send(Session session, String payload, int attempt) {
+        session
+                .getAsyncRemote()
+                .sendText(payload, result -> {
+                    if (result.isOK()) {
+                        return;
+                    }
+                    if (attempt < MAX_ATTEMPTS && session.isOpen()) {
+                        send(session, payload, attempt + 1);
+                    } else {
+                        terminalService.printSystemMessage("'%s' send failed. cause: %s".formatted(payload, result.getException()));
+                    }
+                });
+    }
+}
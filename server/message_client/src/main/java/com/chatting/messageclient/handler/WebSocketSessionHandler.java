@@ -8,8 +8,13 @@ import jakarta.websocket.Endpoint;
 import jakarta.websocket.EndpointConfig;
 import jakarta.websocket.Session;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 public class WebSocketSessionHandler extends Endpoint {
 
+    //서버가 drain(종료 준비) 중이라 다른 노드로 다시 붙으라는 close code. reason에는 재접속을 퍼뜨릴 시간 범위(초)가 담긴다.
+    private static final int SERVER_DRAINING = 4001;
+
     private final UserService userService;
     private final WebSocketService webSocketService;
     private final TerminalService terminalService;
@@ -30,10 +35,33 @@ public class WebSocketSessionHandler extends Endpoint {
         terminalService.printSystemMessage("Error: " + thr.getMessage());
     }
 
+    /**
+     * 직접 끊은 경우(NORMAL_CLOSURE)에만 로그아웃 처리하고,
+     * 서버 재시작/drain/네트워크 단절/과부하(TRY_AGAIN_LATER) 등으로 끊긴 경우에는 재접속을 시도한다.
+     */
     @Override
     public void onClose(Session session, CloseReason closeReason) {
-        userService.logout();
         webSocketService.closeSession();
         terminalService.printSystemMessage("Connection closed: " + closeReason.getReasonPhrase());
+
+        if (closeReason.getCloseCode() == CloseReason.CloseCodes.NORMAL_CLOSURE
+                || !webSocketService.scheduleReconnect(getRetryAfterMillis(closeReason))) {
+            userService.logout();
+        }
+    }
+
+    //서버가 drain 중(SERVER_DRAINING)이면 0 ~ reason(초) 사이의 무작위 시간 뒤에 재접속한다. (모든 클라이언트가 같은 순간 다른 노드로 몰리지 않게)
+    //서버가 TRY_AGAIN_LATER(1013)로 끊으면서 reason에 "다시 시도해도 되는 시간(초)"을 담아 보낸 경우 그 값을 힌트로 사용한다.
+    private long getRetryAfterMillis(CloseReason closeReason) {
+        boolean draining = closeReason.getCloseCode().getCode() == SERVER_DRAINING;
+        if ((!draining && closeReason.getCloseCode() != CloseReason.CloseCodes.TRY_AGAIN_LATER) || closeReason.getReasonPhrase() == null) {
+            return 0;
+        }
+        try {
+            long millis = Long.parseLong(closeReason.getReasonPhrase().trim()) * 1000;
+            return draining ? ThreadLocalRandom.current().nextLong(millis + 1) : millis;
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
     }
 }
\ No newline at end of file
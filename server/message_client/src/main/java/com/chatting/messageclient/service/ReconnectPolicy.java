@@ -0,0 +1,59 @@
+package com.chatting.messageclient.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 재접속 대기시간 계산 정책 (jitter를 섞은 지수 백오프)
+ *
+ * 서버가 재시작되면 모든 클라이언트가 동시에 끊기기 때문에, 같은 간격으로 재접속하면 다시 한꺼번에 몰린다.
+ * 그래서 attempt마다 상한을 2배씩 늘리고(base * 2^attempt, 최대 maxDelay), 그 안에서 무작위로 대기시간을 고른다. (full jitter)
+ *
+ * 서버가 Retry-After 힌트를 준 경우에는 그 시간 "이후"로만 재시도하고, 그 위에 jitter를 더해 같은 시각에 몰리지 않게 한다.
+ */
+public class ReconnectPolicy {
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+
+    private int attempt = 0;
+
+    public ReconnectPolicy(long baseDelayMillis, long maxDelayMillis, int maxAttempts) {
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public ReconnectPolicy() {
+        this(500, 30_000, 10);
+    }
+
+    public boolean canRetry() {
+        return attempt < maxAttempts;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * 다음 재접속까지 기다릴 시간을 계산하고 attempt를 하나 올린다.
+     *
+     * @param retryAfterMillis 서버가 알려준 최소 대기시간 (없으면 0)
+     */
+    public long nextDelayMillis(long retryAfterMillis) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        attempt++;
+
+        long jitter = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (retryAfterMillis > 0) {
+            return retryAfterMillis + jitter;
+        }
+        return Math.max(baseDelayMillis, jitter);
+    }
+
+    //접속에 성공하면 처음부터 다시 센다.
+    public void reset() {
+        attempt = 0;
+    }
+}
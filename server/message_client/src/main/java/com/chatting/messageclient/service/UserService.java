@@ -2,6 +2,9 @@ package com.chatting.messageclient.service;
 
 import com.chatting.messageclient.dto.domain.ChannelId;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class UserService {
 
     //상태를 2개로 관리
@@ -13,6 +16,11 @@ public class UserService {
     private String username = "";
     private ChannelId channelId = null;
 
+    //재접속 후 이어받기(resume)용: 받은 메시지 중 가장 큰 sequence + 최근에 받은 sequence들 (재전송과 겹친 메시지를 두 번 출력하지 않기 위함)
+    private static final int SEEN_MESSAGE_LIMIT = 512;
+    private Long lastMessageSequence = null;
+    private final Set<Long> seenMessageSequences = new LinkedHashSet<>();
+
     //Getter
     public boolean isInLobby(){
         return userLocation == Location.LOBBY;
@@ -30,6 +38,28 @@ public class UserService {
         return channelId;
     }
 
+    public synchronized Long getLastMessageSequence() {
+        return lastMessageSequence;
+    }
+
+    /**
+     * 받은 메시지를 기록한다.
+     * @return 처음 받은 메시지면 true, 이미 받은 메시지(재전송과 겹침)면 false
+     */
+    public synchronized boolean markMessageSeen(long messageSequence) {
+        if (!seenMessageSequences.add(messageSequence)) {
+            return false;
+        }
+        if (seenMessageSequences.size() > SEEN_MESSAGE_LIMIT) {
+            Long oldest = seenMessageSequences.iterator().next();
+            seenMessageSequences.remove(oldest);
+        }
+        if (lastMessageSequence == null || lastMessageSequence < messageSequence) {
+            lastMessageSequence = messageSequence;
+        }
+        return true;
+    }
+
     public void login(String username){
         this.username = username;
         moveToLobby();
@@ -37,6 +67,10 @@ public class UserService {
 
     public void logout(){
         this.username = "";
+        synchronized (this) {
+            lastMessageSequence = null;
+            seenMessageSequences.clear();
+        }
         moveToLobby();
     }
 
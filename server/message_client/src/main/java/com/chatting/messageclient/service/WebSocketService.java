@@ -2,6 +2,7 @@ package com.chatting.messageclient.service;
 
 import com.chatting.messageclient.dto.websocket.outbound.BaseRequest;
 import com.chatting.messageclient.dto.websocket.outbound.KeepAlive;
+import com.chatting.messageclient.dto.websocket.outbound.ResumeRequest;
 import com.chatting.messageclient.dto.websocket.outbound.WriteMessage;
 import com.chatting.messageclient.handler.WebSocketMessageHandler;
 import com.chatting.messageclient.handler.WebSocketSender;
@@ -11,6 +12,7 @@ import jakarta.websocket.ClientEndpointConfig;
 import jakarta.websocket.CloseReason;
 import jakarta.websocket.Session;
 import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.RetryAfterException;
 
 import java.io.IOException;
 import java.net.URI;
@@ -30,6 +32,15 @@ public class WebSocketService {
     private Session session;
     private ScheduledExecutorService scheduledExecutorService = null;
 
+    //재접속 관련 (서버 재시작 등으로 끊겼을 때 같은 HTTP 세션으로 다시 붙는다)
+    private final ReconnectPolicy reconnectPolicy = new ReconnectPolicy();
+    private final ScheduledExecutorService reconnectExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "websocket-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private String sessionId;
+
     public WebSocketService(UserService userService, TerminalService terminalService, WebSocketSender messageSender, String url, String endpoint) {
         this.userService = userService;
         this.terminalService = terminalService;
@@ -42,6 +53,63 @@ public class WebSocketService {
     }
 
     public boolean createSession(String sessionId) {
+        this.sessionId = sessionId;
+        reconnectPolicy.reset();
+
+        try {
+            connect();
+
+            return true;
+        } catch (Exception ex) {
+            terminalService.printSystemMessage("Failed to connect to [%s] error: %s".formatted(webSocketUrl, ex.getMessage()));
+
+            return false;
+        }
+    }
+
+    /**
+     * 비정상 종료(서버 재시작, 네트워크 단절, 과부하로 인한 종료 등) 후 재접속을 예약한다.
+     *
+     * @param retryAfterMillis 서버가 알려준 최소 대기시간 (없으면 0)
+     * @return 재접속을 예약했으면 true, 재시도 횟수를 다 써서 포기했으면 false
+     */
+    public boolean scheduleReconnect(long retryAfterMillis) {
+        if (sessionId == null || !reconnectPolicy.canRetry()) {
+            return false;
+        }
+
+        long delayMillis = reconnectPolicy.nextDelayMillis(retryAfterMillis);
+        terminalService.printSystemMessage("Reconnecting in %d ms. (attempt %d)".formatted(delayMillis, reconnectPolicy.getAttempt()));
+        reconnectExecutorService.schedule(this::reconnect, delayMillis, TimeUnit.MILLISECONDS);
+
+        return true;
+    }
+
+    private void reconnect() {
+        try {
+            connect();
+            reconnectPolicy.reset();
+            terminalService.printSystemMessage("Reconnected.");
+
+            //끊겨 있는 동안 놓친 메시지를 마지막으로 받은 sequence 이후부터 다시 받는다.
+            Long lastMessageSequence = userService.getLastMessageSequence();
+            if (lastMessageSequence != null) {
+                sendMessage(new ResumeRequest(lastMessageSequence));
+            }
+        } catch (Exception ex) {
+            //서버가 503 + Retry-After로 거절했다면 그 시간만큼은 기다렸다가 다시 시도한다.
+            long retryAfterMillis = getRetryAfterMillis(ex);
+            terminalService.printSystemMessage("Reconnect failed. error: %s".formatted(ex.getMessage()));
+
+            if (!scheduleReconnect(retryAfterMillis)) {
+                sessionId = null;
+                userService.logout();
+                terminalService.printSystemMessage("Gave up reconnecting. Please login again.");
+            }
+        }
+    }
+
+    private void connect() throws Exception {
         ClientManager client = ClientManager.createClient();
         ClientEndpointConfig.Configurator configurator = new ClientEndpointConfig.Configurator() {
             @Override
@@ -51,17 +119,19 @@ public class WebSocketService {
         };
         ClientEndpointConfig config = ClientEndpointConfig.Builder.create().configurator(configurator).build();
 
-        try {
-            session = client.connectToServer(new WebSocketSessionHandler(userService, this, terminalService), config, new URI(webSocketUrl));
-            session.addMessageHandler(webSocketMessageHandler);
-            enableKeepAlive();
-
-            return true;
-        } catch (Exception ex) {
-            terminalService.printSystemMessage("Failed to connect to [%s] error: %s".formatted(webSocketUrl, ex.getMessage()));
+        session = client.connectToServer(new WebSocketSessionHandler(userService, this, terminalService), config, new URI(webSocketUrl));
+        session.addMessageHandler(webSocketMessageHandler);
+        enableKeepAlive();
+    }
 
-            return false;
+    //Tyrus는 503 + Retry-After 응답을 RetryAfterException(cause)으로 감싸서 던진다.
+    private long getRetryAfterMillis(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetryAfterException retryAfterException && retryAfterException.getDelay() != null) {
+                return TimeUnit.SECONDS.toMillis(retryAfterException.getDelay());
+            }
         }
+        return 0;
     }
 
     public void closeSession() {